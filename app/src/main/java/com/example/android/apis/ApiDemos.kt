@@ -18,12 +18,24 @@ package com.example.android.apis
 
 import android.app.ListActivity
 import android.content.Intent
+import android.content.pm.PackageManager
 import android.os.Bundle
+import android.util.Log
 import android.view.View
 import android.widget.ListView
 import android.widget.SimpleAdapter
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.text.CollationKey
 import java.text.Collator
 import java.util.*
+import kotlin.concurrent.thread
 
 /**
  * This is the controlling activity for the entire application and is responsible for parsing the
@@ -40,13 +52,16 @@ open class ApiDemos : ListActivity() {
      * `Intent` that launched our activity, and initialize our variable `String path` by
      * retrieving any string that was stored as an extra in `intent` under the key
      * "com.example.android.apis.Path". If `path` is null, we set it to the empty string "".
-     * We set our adapter to a new instance of `SimpleAdapter` intended to display the list of
-     * map of `String` to `Object` returned by our method `getData` for the current
-     * value of `path` using the layout android.R.layout.simple_list_item_1 to display the
-     * column "title" in the TextView with id android.R.id.text1 (each `Map<String, Object>`
-     * in the list has 2 entries, the name under the key "title" and an `Intent` to launch if
-     * the list entry is selected under the key "intent"). Finally we enable type filtering
-     * for our `ListView`.
+     *
+     * We then need the menu tree of the sample activities. Its key is formed by our method
+     * [getMenuTreeKey] from the current locale. If the tree cached in [sMenuTree] has that key we
+     * call our method [showData] to display the level named by `path` right away. Otherwise the
+     * tree has to be read from our cache directory or built, which touches the disk and loads the
+     * label of every sample activity, so we do that on a background thread using our method
+     * [loadMenuTree] (keeping the main thread free of disk access, as StrictMode asks), and when
+     * it is done we cache the tree in [sMenuTree] under its key and call [showData] on the main
+     * thread, unless we are finishing by then. Finally we enable type filtering for our
+     * `ListView`.
      *
      * @param savedInstanceState we do not override [onSaveInstanceState] so do not use.
      */
@@ -54,149 +69,206 @@ open class ApiDemos : ListActivity() {
         super.onCreate(savedInstanceState)
 
         val intent = intent
-        var path = intent.getStringExtra("com.example.android.apis.Path")
+        val path = intent.getStringExtra("com.example.android.apis.Path") ?: ""
 
-        if (path == null) {
-            path = ""
+        @Suppress("DEPRECATION")
+        val locale = resources.configuration.locale
+        val key = getMenuTreeKey(locale)
+        val cached = sMenuTree
+        if (cached != null && key == sMenuTreeKey) {
+            showData(path, cached)
+        } else {
+            thread(name = "ApiDemos menu") {
+                val tree = loadMenuTree(key, locale)
+                runOnUiThread {
+                    sMenuTree = tree
+                    sMenuTreeKey = key
+                    if (!isFinishing) {
+                        showData(path, tree)
+                    }
+                }
+            }
         }
+        listView.isTextFilterEnabled = true
+    }
 
-        listAdapter = SimpleAdapter(this, getData(path),
+    /**
+     * Displays the level of the menu tree [tree] named by [path]. We set our adapter to a new
+     * instance of `SimpleAdapter` intended to display the list of map of `String` to `Object`
+     * returned by our method `getData` for [path] and [tree] using the layout
+     * android.R.layout.simple_list_item_1 to display the column "title" in the TextView with id
+     * android.R.id.text1 (each `Map<String, Object>` in the list has 2 entries, the name under the
+     * key "title" and an `Intent` to launch if the list entry is selected under the key "intent").
+     *
+     * @param path the path of the level to display, "" for the root level.
+     * @param tree the root level of the menu tree.
+     */
+    internal fun showData(path: String, tree: List<MenuEntry>) {
+        listAdapter = SimpleAdapter(this, getData(path, tree),
                 android.R.layout.simple_list_item_1, arrayOf("title"),
                 intArrayOf(android.R.id.text1))
-        listView.isTextFilterEnabled = true
     }
 
     /**
-     * Queries a `PackageManager` to retrieve a `List<ResolveInfo>` for all the activities
-     * in our manifest which have action ACTION_MAIN, and category CATEGORY_SAMPLE_CODE. If then goes
-     * through that list creating an `Map<String, Object>` if the label begins with the parameter
-     * `String prefix`, and that label has no further "/" characters (in this case the remaining
-     * leaf of its label is stored under the key "title" and an `Intent` to launch that activity
-     * is stored under the key "intent"). For all labels which begin with `prefix` but whose
-     * label still has one or more following "/" characters, a single entry for all of them is created
-     * whose "title" is the next segment in their label and whose "intent" is an `Intent` created
-     * by our method `browseIntent` to relaunch this `ApiDemos` activity with the extra
-     * "com.example.android.apis.Path" used to store the next value of `String prefix` for its
-     * `onCreate` method to use when calling us to create the data used by its adapter.
-     * (Very clever! Needs careful explanation).
-     *
-     * First we initialize our variable `List<Map<String, Object>> myData` with an instance of
-     * `ArrayList` (this is the list we will return to our caller). We initialize our variable
-     * `Intent mainIntent` with an intent with the action ACTION_MAIN (Start as a main entry
-     * point, does not expect to receive data) and a null uri, and add the category CATEGORY_SAMPLE_CODE
-     * (To be used as a sample code example (not part of the normal user experience)). We initialize
-     * our variable `PackageManager pm` with a `PackageManager` instance for finding global
-     * package information, then retrieve all activities that can be performed for `mainIntent`
-     * (that is all activities performing the action ACTION_MAIN and with the category CATEGORY_SAMPLE_CODE)
-     * saving the results in `List<ResolveInfo> list`. If `list` is null we return `myData`
-     * to the caller.
-     *
-     * We declare `String[] prefixPath`, and set our variable `String prefixWithSlash` to
-     * our parameter `prefix`. If `prefix` is equal to "" (the empty string, as it will be
-     * at the beginning of our app) we set `prefixPath` to null, otherwise we split `prefixPath`
-     * on the "/" character saving the results in `String[] prefixPath`, and set `prefixWithSlash`
-     * to the string formed by adding an "/" to the end of `prefix`.
-     *
-     * We initialize `int len` to the length of `List<ResolveInfo> list`, and create a new
-     * instance of `HashMap` to initialize our  variable `Map<String, Boolean> entries`.
-     * We now loop over `int i` for the `len` `ResolveInfo` objects in `list`.
-     * We initialize `ResolveInfo info` with the entry at `i` in `list`, then use
-     * `pm` to load the label of `info` into our variable `CharSequence labelSeq`.
-     * If `labelSeq` is not null, we initialize `String label` to the string value of
-     * `labelSeq`, or if it is null we use the `name` field of the `activityInfo`
-     * field of `info` to initialize `label`.
+     * Returns the list of `Map<String, Object>` our `SimpleAdapter` displays for the level of the
+     * menu tree of the sample activities named by our parameter `String prefix`. Each activity in
+     * our manifest with action ACTION_MAIN and category CATEGORY_SAMPLE_CODE is a leaf of the tree
+     * whose path is its label split on the "/" character. The items of a level are the activities
+     * whose label has no further "/" characters after `prefix` (the remaining leaf of the label is
+     * stored under the key "title" and an `Intent` to launch that activity created by our method
+     * `activityIntent` is stored under the key "intent"), and a single item for all of the
+     * activities which share the next segment of their label (whose "title" is that segment and
+     * whose "intent" is an `Intent` created by our method `browseIntent` to relaunch this
+     * `ApiDemos` activity with the extra "com.example.android.apis.Path" set to the path of that
+     * segment, which `onCreate` passes back to us as `prefix`).
      *
-     * If the length of `prefixWithSlash` is 0, or `label` starts with the string
-     * `prefixWithSlash` we have found an activity we want to process further. We split
-     * `label` on the "/" character and save the results in `String[] labelPath`. If
-     * `prefixPath` is equal to null, we initialize `String nextLabel` to the contents
-     * of `labelPath[0]` (this happens the first time `onCreate` calls us), otherwise
-     * we initialize it to the contents of `labelPath[ prefixPath.length ]` (the path segment in
-     * the activities label which follows `prefixPath`).
-     *
-     * If our `prefixPath` array is one shorter than our `labelPath` array (we have found
-     * a leaf "node" activity with no further segments in its path) we call our method `addItem`
-     * to add a `Map<String, Object>` to `myData` with `nextLabel` stored under the
-     * key "label", and an `Intent` stored under the key "intent" which we create using our method
-     * `activityIntent` from the `packageName` field of the `applicationInfo` field
-     * of the `activityInfo` field of `info` for the name of the package implementing the
-     * desired component, and the `name` field of the `activityInfo` field of `info`
-     * for the name of the class inside of the application package that will be used for the Intent.
-     *
-     * If there are more than one segments left in the `labelPath` array path compared to the
-     * `prefixPath` array we first check to see if our map `entries` is null, skipping this
-     * activity if it is not null (previous activities shared our "path" prefix). If it is null this
-     * is the first of possibly several more which share this "path" prefix, so we call our method
-     * `addItem` to add a `Map<String, Object>` to `myData` with `nextLabel`
-     * stored under the "label" key and stored under the "intent" key will be an intent created by our
-     * method `browseIntent` using the path string of `nextLabel` if `prefix` is
-     * equal to the empty string "", or the string formed by concatenating `prefix` to a "/"
-     * character followed by `nextLabel` if `prefix` is not equal to "" (`browseIntent`
-     * creates an intent which launches this `ApiDemos` activity again only with an extra stored
-     * under the key "com.example.android.apis.Path" which contains its argument `String path`).
-     * Finally we store true under the `nextLabel` key in our map `entries` so we will skip
-     * duplicate list entries for activities which share this sub-path, and then we loop back to process
-     * the next `ResolveInfo` object in `list`.
-     *
-     * After processing all of `list` we sort `myData` using our `Comparator`
-     * `sDisplayNameComparator` and return `myData` to our caller.
+     * Building the tree needs a label to be loaded for every sample activity, so it is built once
+     * by our method `loadMenuTree` and then cached, sorted with precomputed collation keys, and
+     * passed to us as `tree`. All we have to do here is walk down the tree along the segments of
+     * `prefix` to the level it names (returning an empty list if there is none), and add an item
+     * for each of its entries to our variable `List<Map<String, Object>> myData`, which is already
+     * in the right order.
      *
      * @param prefix Prefix string to use to filter entries to those our caller is interested in
+     * @param tree the root level of the menu tree.
      * @return List of `Map<String, Object>` of all the activities in our manifest which have
      * action ACTION_MAIN, and category CATEGORY_SAMPLE_CODE, and whose label begins with our parameter
      * `String prefix`. The next "path segment" is stored under the key "title" and an appropriate
      * `Intent` to deal with it is stored under the key "intent".
      */
-    fun getData(prefix: String): List<Map<String, Any>> {
+    internal fun getData(prefix: String, tree: List<MenuEntry>): List<Map<String, Any>> {
         val myData = ArrayList<Map<String, Any>>()
 
-        val mainIntent = Intent(Intent.ACTION_MAIN, null)
-        mainIntent.addCategory(Intent.CATEGORY_SAMPLE_CODE)
+        var level: List<MenuEntry> = tree
+        if (prefix != "") {
+            for (segment in prefix.split('/').dropLastWhile { it.isEmpty() }) {
+                level = level.firstOrNull { it.children != null && it.title == segment }?.children
+                        ?: return myData
+            }
+        }
 
-        val pm = packageManager
-        val list = pm.queryIntentActivities(mainIntent, 0) ?: return myData
+        for (entry in level) {
+            if (entry.children == null) {
+                addItem(myData, entry.title, activityIntent(entry.packageName!!, entry.className!!))
+            } else {
+                addItem(myData, entry.title,
+                        browseIntent(if (prefix == "") entry.title else "$prefix/${entry.title}"))
+            }
+        }
 
-        val prefixPath: Array<String>?
-        var prefixWithSlash = prefix
+        return myData
+    }
 
-        if (prefix == "") {
-            prefixPath = null
-        } else {
-            prefixPath = prefix.split("/".toRegex()).dropLastWhile { it.isEmpty() }.toTypedArray()
-            prefixWithSlash = "$prefix/"
+    /**
+     * Returns the key of the menu tree of the sample activities for the locale [locale]. The tree
+     * is valid as long as our package has not been updated and the locale (which the labels and
+     * their order depend on) has not changed, so the key is formed from the `lastUpdateTime` of
+     * our package and [locale].
+     *
+     * @param locale the current locale.
+     * @return the key the menu tree has to have been built under.
+     */
+    internal fun getMenuTreeKey(locale: Locale): String {
+        val lastUpdateTime = try {
+            packageManager.getPackageInfo(packageName, 0).lastUpdateTime
+        } catch (e: PackageManager.NameNotFoundException) {
+            0L
         }
+        return "$lastUpdateTime $locale"
+    }
 
-        val len = list.size
-
-        val entries = HashMap<String, Boolean>()
+    /**
+     * Returns the root level of the menu tree of the sample activities with the key [key], called
+     * on a background thread by [onCreate] when the tree cached in [sMenuTree] is missing or
+     * stale. We try to read a tree with that key saved in our cache directory by an earlier
+     * process using our method [readMenuTree], and if there is none we build it using our method
+     * [buildMenuTree] and save it using our method [writeMenuTree].
+     *
+     * @param key the key of the tree, see [getMenuTreeKey].
+     * @param locale the locale to collate the titles for.
+     * @return the root level of the menu tree.
+     */
+    internal fun loadMenuTree(key: String, locale: Locale): List<MenuEntry> {
+        val file = File(cacheDir, MENU_TREE_FILE)
+        var tree = readMenuTree(file, key)
+        if (tree == null) {
+            tree = buildMenuTree(locale)
+            writeMenuTree(file, key, tree)
+        }
+        return tree
+    }
 
-        for (i in 0 until len) {
-            val info = list[i]
-            val labelSeq = info.loadLabel(pm)
-            val label = labelSeq?.toString() ?: info.activityInfo.name
+    /**
+     * Builds the menu tree of the sample activities. We retrieve all activities that can be
+     * performed for an `Intent` with the action ACTION_MAIN and the category CATEGORY_SAMPLE_CODE
+     * and then for each of them we load its label (or use the `name` of its `activityInfo` if it
+     * has none) and split it on the "/" character. We walk down the tree along all but the last
+     * segment, creating any group [MenuEntry] which does not exist yet (our variable `groups`
+     * maps the path of every group to its entry), and add a [MenuEntry] for the activity named
+     * by the last segment to the level we end up at. Finally we sort every level by the
+     * [CollationKey] of the titles of its entries, created once per entry by a [Collator] for
+     * our parameter [locale] using our method [sortMenuLevel].
+     *
+     * @param locale the locale to collate the titles for.
+     * @return the root level of the menu tree.
+     */
+    internal fun buildMenuTree(locale: Locale): ArrayList<MenuEntry> {
+        val root = ArrayList<MenuEntry>()
 
-            if (prefixWithSlash.isEmpty() || label.startsWith(prefixWithSlash)) {
+        val mainIntent = Intent(Intent.ACTION_MAIN, null)
+        mainIntent.addCategory(Intent.CATEGORY_SAMPLE_CODE)
 
-                val labelPath = label.split("/".toRegex()).dropLastWhile { it.isEmpty() }.toTypedArray()
+        val pm = packageManager
+        val list = pm.queryIntentActivities(mainIntent, 0) ?: return root
 
-                val nextLabel = if (prefixPath == null) labelPath[0] else labelPath[prefixPath.size]
+        val groups = HashMap<String, MenuEntry>()
+        for (info in list) {
+            val labelSeq = info.loadLabel(pm)
+            val label = labelSeq?.toString() ?: info.activityInfo.name
+            val labelPath = label.split('/').dropLastWhile { it.isEmpty() }
+            if (labelPath.isEmpty()) {
+                continue
+            }
 
-                if (prefixPath?.size ?: 0 == labelPath.size - 1) {
-                    addItem(myData, nextLabel, activityIntent(
-                            info.activityInfo.applicationInfo.packageName,
-                            info.activityInfo.name))
-                } else {
-                    if (entries[nextLabel] == null) {
-                        addItem(myData, nextLabel, browseIntent(if (prefix == "") nextLabel else "$prefix/$nextLabel"))
-                        entries[nextLabel] = true
-                    }
+            var level = root
+            for (depth in 0 until labelPath.size - 1) {
+                val path = labelPath.subList(0, depth + 1).joinToString("/")
+                var group = groups[path]
+                if (group == null) {
+                    group = MenuEntry(labelPath[depth], null, null, ArrayList())
+                    groups[path] = group
+                    level.add(group)
                 }
+                level = group.children!!
             }
+            level.add(MenuEntry(labelPath[labelPath.size - 1],
+                    info.activityInfo.applicationInfo.packageName, info.activityInfo.name, null))
         }
 
-        Collections.sort(myData, sDisplayNameComparator)
+        sortMenuLevel(root, Collator.getInstance(locale))
+        return root
+    }
 
-        return myData
+    /**
+     * Sorts a level of the menu tree and all of the levels below it by the titles of their
+     * entries. We create the [CollationKey] of the title of each entry with our [Collator]
+     * parameter [collator], sort [level] by those keys (so the [Collator] runs once per entry
+     * rather than once per comparison), and then recurse into the levels of the group entries.
+     *
+     * @param level the level to sort.
+     * @param collator the [Collator] for the current locale.
+     */
+    internal fun sortMenuLevel(level: ArrayList<MenuEntry>, collator: Collator) {
+        val keys = IdentityHashMap<MenuEntry, CollationKey>(level.size)
+        for (entry in level) {
+            keys[entry] = collator.getCollationKey(entry.title)
+        }
+        Collections.sort(level) { entry1, entry2 -> keys[entry1]!!.compareTo(keys[entry2]!!) }
+        for (entry in level) {
+            if (entry.children != null) {
+                sortMenuLevel(entry.children, collator)
+            }
+        }
     }
 
     /**
@@ -277,33 +349,150 @@ open class ApiDemos : ListActivity() {
         startActivity(intent)
     }
 
+    /**
+     * One entry of a level of the menu tree of the sample activities: either an activity, in
+     * which case [packageName] and [className] name it and [children] is *null*, or a group of
+     * activities whose labels share a path segment, in which case [children] is the sorted level
+     * below it.
+     */
+    internal class MenuEntry(
+            /**
+             * The path segment displayed for this entry.
+             */
+            val title: String,
+            /**
+             * The package of the activity, *null* for a group.
+             */
+            val packageName: String?,
+            /**
+             * The class name of the activity, *null* for a group.
+             */
+            val className: String?,
+            /**
+             * The entries of the level below this group in display order, *null* for an activity.
+             */
+            val children: ArrayList<MenuEntry>?
+    )
+
     companion object {
+        /**
+         * TAG used for logging.
+         */
+        private const val TAG = "ApiDemos"
 
         /**
-         * Custom `Comparator` to sort our `List<Map<String, Object>> myData` list using
-         * the strings stored under the key "title" as the alphabetical sort key.
+         * Name of the file in our cache directory which holds the menu tree.
          */
-        private val sDisplayNameComparator =
-                object : Comparator<Map<String, Any>> {
-            /**
-             * `Collator` instance for the current default locale
-             * that we use to compare two strings
-             */
-            private val collator = Collator.getInstance()
+        private const val MENU_TREE_FILE = "ApiDemos.menu"
 
-            /**
-             * Compares two `Map<String, Object>` objects to determine their relative ordering.
-             * We sort based on the `String` stored under the key "title" in each object, so
-             * we just return the value returned by the `compare` method of `collator`
-             * for the values stored under the key "title" in our two parameters.
-             *
-             * @param map1 an `Map<String, Object>` object
-             * @param map2 a second `Map<String, Object>` object to compare with `map1`
-             * @return an integer < 0 if `map1` is less than `map2`, 0 if they are
-             * equal, and > 0 if `map1` is greater than `map2`.
-             */
-            override fun compare(map1: Map<String, Any>, map2: Map<String, Any>): Int {
-                return collator.compare(map1["title"], map2["title"])
+        /**
+         * Version of the format of [MENU_TREE_FILE], a file in any other format is ignored.
+         */
+        private const val MENU_TREE_VERSION = 1
+
+        /**
+         * The menu tree loaded by [loadMenuTree], shared by every [ApiDemos] activity of the
+         * process (each level the user browses into is a new activity). Only used on the main
+         * thread.
+         */
+        private var sMenuTree: List<MenuEntry>? = null
+
+        /**
+         * The `lastUpdateTime` of our package and the locale [sMenuTree] was built for.
+         */
+        private var sMenuTreeKey: String? = null
+
+        /**
+         * Reads a menu tree saved by [writeMenuTree], provided it was saved under the key [key].
+         * A missing, stale or unreadable file just means that the tree has to be built again.
+         *
+         * @param file the file the tree was saved in.
+         * @param key the key the tree has to have been saved under.
+         * @return the root level of the tree, or *null* if there is no valid one in [file].
+         */
+        internal fun readMenuTree(file: File, key: String): ArrayList<MenuEntry>? {
+            if (!file.exists()) {
+                return null
+            }
+            try {
+                DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                    if (input.readInt() != MENU_TREE_VERSION || input.readUTF() != key) {
+                        return null
+                    }
+                    return readMenuLevel(input)
+                }
+            } catch (e: IOException) {
+                Log.w(TAG, "Failed to read $file", e)
+                return null
+            }
+        }
+
+        /**
+         * Reads one level of the menu tree, and recursively the levels below it, in the format
+         * written by [writeMenuLevel].
+         *
+         * @param input the stream to read from.
+         * @return the level read.
+         */
+        private fun readMenuLevel(input: DataInputStream): ArrayList<MenuEntry> {
+            val count = input.readInt()
+            val level = ArrayList<MenuEntry>(count)
+            for (i in 0 until count) {
+                val title = input.readUTF()
+                level.add(if (input.readBoolean()) {
+                    MenuEntry(title, null, null, readMenuLevel(input))
+                } else {
+                    MenuEntry(title, input.readUTF(), input.readUTF(), null)
+                })
+            }
+            return level
+        }
+
+        /**
+         * Saves a menu tree under the key [key] so that a later process can use it as long as
+         * the key is the same. We write to a temporary file first and rename it to [file], so
+         * that a process which dies while we are writing can not leave a truncated tree behind.
+         *
+         * @param file the file to save the tree in.
+         * @param key the `lastUpdateTime` of our package and the locale the tree was built for.
+         * @param tree the root level of the tree.
+         */
+        internal fun writeMenuTree(file: File, key: String, tree: List<MenuEntry>) {
+            val temp = File(file.path + ".tmp")
+            try {
+                DataOutputStream(BufferedOutputStream(FileOutputStream(temp))).use { out ->
+                    out.writeInt(MENU_TREE_VERSION)
+                    out.writeUTF(key)
+                    writeMenuLevel(out, tree)
+                }
+                if (!temp.renameTo(file)) {
+                    throw IOException("Could not rename $temp")
+                }
+            } catch (e: IOException) {
+                Log.w(TAG, "Failed to write $file", e)
+                temp.delete()
+            }
+        }
+
+        /**
+         * Writes one level of the menu tree, and recursively the levels below it, in display
+         * order: the number of entries, then for each entry its title, whether it is a group, and
+         * either the level below it or the package and class name of its activity.
+         *
+         * @param out the stream to write to.
+         * @param level the level to write.
+         */
+        private fun writeMenuLevel(out: DataOutputStream, level: List<MenuEntry>) {
+            out.writeInt(level.size)
+            for (entry in level) {
+                out.writeUTF(entry.title)
+                out.writeBoolean(entry.children != null)
+                if (entry.children != null) {
+                    writeMenuLevel(out, entry.children)
+                } else {
+                    out.writeUTF(entry.packageName!!)
+                    out.writeUTF(entry.className!!)
+                }
             }
         }
     }
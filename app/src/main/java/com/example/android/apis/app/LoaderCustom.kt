@@ -25,13 +25,17 @@ import android.content.Intent
 import android.content.IntentFilter
 import android.content.pm.ActivityInfo
 import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
 import android.content.pm.PackageManager
 import android.content.res.Configuration
 import android.content.res.Resources
 import android.graphics.drawable.Drawable
 import android.os.Build
 import android.os.Bundle
+import android.os.Handler
+import android.os.Looper
 import android.os.OperationCanceledException
+import android.os.SystemClock
 import android.text.TextUtils
 import android.util.Log
 import android.view.*
@@ -48,9 +52,25 @@ import androidx.appcompat.widget.SearchView.OnQueryTextListener
 
 import com.example.android.apis.R
 
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
 import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.text.CollationKey
 import java.text.Collator
 import java.util.*
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Future
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 /**
  * Demonstration of the implementation of a custom Loader. Shows how to implement a custom
@@ -96,14 +116,16 @@ class LoaderCustom : AppCompatActivity() {
     /**
      * Constructor for an instance holding `ApplicationInfo info` describing a particular
      * package. We initialize our [AppListLoader] field [mLoader] with the value of our
-     * parameter `AppListLoader loader`, and our field `ApplicationInfo mInfo` with
-     * the value of our parameter `ApplicationInfo info`. Finally we initialize our field
-     * `File mApkFile` with a new `File` instance derived from the pathname given in
-     * the field `info.sourceDir` (full path to the base APK for the application).
+     * parameter `AppListLoader loader`, our field `ApplicationInfo mInfo` with the value of
+     * our parameter `ApplicationInfo info`, and our field [lastUpdateTime] with the value of
+     * our parameter `long lastUpdateTime`. Finally we initialize our field `File mApkFile`
+     * with a new `File` instance derived from the pathname given in the field `info.sourceDir`
+     * (full path to the base APK for the application).
      *
      * Parameter: loader "this" when called in our `AppListLoader` background thread
-     * Parameter: info   one of the `ApplicationInfo` instances of the list that is returned
-     * from the call to `PackageManager.getInstalledApplications`
+     * Parameter: info   the `applicationInfo` field of one of the `PackageInfo` instances of
+     * the list that is returned from the call to `PackageManager.getInstalledPackages`
+     * Parameter: lastUpdateTime the `lastUpdateTime` field of that same `PackageInfo`
      */
     (
             /**
@@ -113,7 +135,13 @@ class LoaderCustom : AppCompatActivity() {
             /**
              * ApplicationInfo for package we are assigned to
              */
-            val applicationInfo: ApplicationInfo
+            val applicationInfo: ApplicationInfo,
+            /**
+             * The time at which the package was last updated, in milliseconds since the epoch.
+             * Together with the package name this is the key of the cached label and icon of the
+             * package in the [AppIndex] of our [AppListLoader].
+             */
+            val lastUpdateTime: Long
     ) {
         /**
          * Full path to the base APK for the package
@@ -135,15 +163,21 @@ class LoaderCustom : AppCompatActivity() {
          */
         private var mMounted: Boolean = false
 
+        /**
+         * [CollationKey] of our [label] for the [Collator] of the [AppListLoader] which sorted us,
+         * so that sorting and merging the list compares bits instead of running a [Collator]
+         * compare for every pair of entries.
+         */
+        internal var collationKey: CollationKey? = null
+
         /**
          * Getter method for our [Drawable] field [mIcon] (loading it from the apk or supplying
          * a default icon if necessary.)
          *
          * If the current value of [mIcon] is null (our first time being called, or the apk was not
          * found to load an Icon from) we check to see if our [File] field [mApkFile] exists, and if
-         * it does we set [mIcon] to the drawable returned by calling the method `loadIcon` using
-         * our instance of [ApplicationInfo] in our field [applicationInfo] and return [mIcon] to
-         * the caller. If our [File] field [mApkFile] does not exist we set
+         * it does we set [mIcon] to the drawable returned by our method [loadIcon] and return
+         * [mIcon] to the caller. If our [File] field [mApkFile] does not exist we set
          * our [Boolean] flag field [mMounted] to *false* and fall through to return the system
          * drawable android.R.drawable.sym_def_app_icon. (Never setting [mIcon] notice, so the same
          * code path will likely be followed again -- might be more efficient to set [mIcon] to the
@@ -152,8 +186,7 @@ class LoaderCustom : AppCompatActivity() {
          *
          * If [mIcon] is not *null*, we check to see if our flag [mMounted] is *false* and if so
          * we check to see if our [File] field [mApkFile] exists, and if it does we set our flag
-         * [mMounted] to *true*, set [mIcon] to the drawable returned by calling the method
-         * `loadIcon` using our instance of [ApplicationInfo] in our field [applicationInfo]
+         * [mMounted] to *true*, set [mIcon] to the drawable returned by our method [loadIcon]
          * and return the [Drawable] in our field [mIcon] to the caller. If [mMounted] was *true*
          * we simply return [mIcon] to the caller.
          *
@@ -164,7 +197,7 @@ class LoaderCustom : AppCompatActivity() {
             get() {
                 if (mIcon == null) {
                     if (mApkFile.exists()) {
-                        mIcon = applicationInfo.loadIcon(mLoader.mPm)
+                        mIcon = loadIcon()
                         return mIcon
                     } else {
                         mMounted = false
@@ -174,7 +207,7 @@ class LoaderCustom : AppCompatActivity() {
                     // its icon.
                     if (mApkFile.exists()) {
                         mMounted = true
-                        mIcon = applicationInfo.loadIcon(mLoader.mPm)
+                        mIcon = loadIcon()
                         return mIcon
                     }
                 } else {
@@ -187,6 +220,29 @@ class LoaderCustom : AppCompatActivity() {
                         .getDrawable(android.R.drawable.sym_def_app_icon)
             }
 
+        /**
+         * Loads the icon of our package, from the [AppIndex] of our [AppListLoader] field [mLoader]
+         * if an earlier [AppEntry] for the same version of the package has already loaded it from
+         * the apk. If the index has a [Drawable.ConstantState] for our package name and our
+         * [lastUpdateTime] we return a new [Drawable] created from it for the resources of the
+         * context of [mLoader] (a [Drawable] can only be shown by one view at a time, its constant
+         * state can be shared). Otherwise we load the icon by calling the method `loadIcon` of our
+         * [ApplicationInfo] field [applicationInfo], save its constant state in the index and
+         * return it.
+         *
+         * @return the icon of our package
+         */
+        private fun loadIcon(): Drawable? {
+            val index = mLoader.mIndex
+            val cached = index.getIcon(applicationInfo.packageName, lastUpdateTime)
+            if (cached != null) {
+                return cached.newDrawable(mLoader.context.resources)
+            }
+            val icon: Drawable? = applicationInfo.loadIcon(mLoader.mPm)
+            index.putIcon(applicationInfo.packageName, lastUpdateTime, icon?.constantState)
+            return icon
+        }
+
         /**
          * Returns a string containing a concise, human-readable description of this object, which
          * in our case is the [String] field [label] which is set by our method [loadLabel].
@@ -207,30 +263,56 @@ class LoaderCustom : AppCompatActivity() {
          * field [mMounted] is *false*) we check to see if our [File] field [mApkFile] exists
          * and if it does not we set [mMounted] to *false* and set [label] to the contents
          * of the `packageName` field our our [ApplicationInfo] field [applicationInfo]. If the
-         * apk file does exist we set [mMounted] to *true* and try to load the label from the apk
-         * to initialize our [CharSequence] variable `val label`. If successful we set [label] to
-         * the [String] value of `label`, otherwise we set [label] to the contents of the
-         * `packageName` field our our [ApplicationInfo] field [applicationInfo].
+         * apk file does exist we set [mMounted] to *true* and ask our [AppIndex] parameter [index]
+         * for the label it has for our package name and [lastUpdateTime] (this is done by our
+         * method [loadCachedLabel]). If it has one we set [label] to it, the package has not
+         * changed since the label was loaded. Otherwise we try to load the label from the apk to
+         * initialize our [CharSequence] variable `val label`. If successful we set [label] to the
+         * [String] value of `label`, otherwise we set [label] to the contents of the `packageName`
+         * field our our [ApplicationInfo] field [applicationInfo], and then we store [label] in
+         * [index] for the next load.
          *
          * If [label] is currently not *null*, and the apk has been mounted (our flag [mMounted] is
          * *true*) we do nothing.
          *
          * @param context traces back to the an application context retrieved from the Context
          * passed to the constructor, which is called with `getActivity()` in our case
+         * @param index the [AppIndex] of labels loaded by previous loads.
          */
-        internal fun loadLabel(context: Context) {
+        internal fun loadLabel(context: Context, index: AppIndex) {
             if (label == null || !mMounted) {
-                if (!mApkFile.exists()) {
-                    mMounted = false
-                    label = applicationInfo.packageName
-                } else {
-                    mMounted = true
+                if (!loadCachedLabel(index)) {
                     val label: CharSequence? = applicationInfo.loadLabel(context.packageManager)
 
                     this.label = label?.toString() ?: applicationInfo.packageName
+                    index.putLabel(applicationInfo.packageName, lastUpdateTime, this.label!!)
                 }
             }
         }
+
+        /**
+         * Sets our [String] field [label] if that can be done without loading it from the apk.
+         * If our [File] field [mApkFile] does not exist we set [mMounted] to *false*, set [label]
+         * to the contents of the `packageName` field of our [ApplicationInfo] field
+         * [applicationInfo] and return *true*. Otherwise we set [mMounted] to *true* and if our
+         * [AppIndex] parameter [index] has a label for our package name and [lastUpdateTime] we
+         * set [label] to it and return *true*. If it does not we return *false*, the label has to
+         * be loaded from the apk by [loadLabel].
+         *
+         * @param index the [AppIndex] of labels loaded by previous loads.
+         * @return *true* if [label] has been set, *false* if it has to be loaded from the apk.
+         */
+        internal fun loadCachedLabel(index: AppIndex): Boolean {
+            if (!mApkFile.exists()) {
+                mMounted = false
+                label = applicationInfo.packageName
+                return true
+            }
+            mMounted = true
+            val cached = index.getLabel(applicationInfo.packageName, lastUpdateTime) ?: return false
+            label = cached
+            return true
+        }
     }
 
     /**
@@ -357,6 +439,314 @@ class LoaderCustom : AppCompatActivity() {
         }
     }
 
+    /**
+     * Persistent index of the labels of the installed applications, so that a reload of our
+     * [AppListLoader] only has to load the labels of the packages which changed since the last
+     * load instead of loading the label of every installed package from its apk, which takes
+     * seconds on a device with hundreds of packages. Every label is keyed by the package name and
+     * the `lastUpdateTime` of the version of the package it was loaded from, so an update of a
+     * package makes its label stale without our having to be told about it.
+     *
+     * The labels are kept in memory and written to [mFile] by [save] whenever they changed, which
+     * makes a cold start of the loader (in a new process) as fast as a warm reload. They are only
+     * valid for the locale they were loaded in, a change of locale discards all of them. The icons
+     * of the packages are cached too, but only in memory as [Drawable.ConstantState]s, since they
+     * are loaded lazily by [AppEntry.icon] for the rows which are actually shown and depend on the
+     * screen density. All methods are synchronized, as the labels are accessed from the background
+     * thread of the loader and the icons from the UI thread.
+     */
+    class AppIndex
+    /**
+     * Our constructor, we just save our parameter in our field [mFile], the file is not read until
+     * the first call to [begin].
+     *
+     * @param mFile the file the labels are persisted in.
+     */
+    (
+            /**
+             * The file the labels are persisted in.
+             */
+            private val mFile: File
+    ) {
+        /**
+         * What we know about one package: the `lastUpdateTime` of the version of the package we
+         * loaded its [label] from, and the constant state of its icon if that has been loaded.
+         */
+        internal class Record(
+                /**
+                 * The `lastUpdateTime` of the package when [label] was loaded.
+                 */
+                val lastUpdateTime: Long,
+                /**
+                 * The label of the package.
+                 */
+                val label: String
+        ) {
+            /**
+             * The constant state of the icon of the package, *null* until it has been loaded.
+             */
+            var icon: Drawable.ConstantState? = null
+        }
+
+        /**
+         * The [Record]s of the packages we know about, keyed by package name.
+         */
+        private val mRecords = HashMap<String, Record>()
+
+        /**
+         * The locale the labels in [mRecords] were loaded in.
+         */
+        private var mLocale: String? = null
+
+        /**
+         * The screen density the icons in [mRecords] were loaded for.
+         */
+        private var mDensity: Int = 0
+
+        /**
+         * Flag indicating whether we have tried to read [mFile] yet.
+         */
+        private var mRead: Boolean = false
+
+        /**
+         * Flag indicating whether [mRecords] has changed since it was last read or saved.
+         */
+        private var mDirty: Boolean = false
+
+        /**
+         * Called at the start of every load. If [mFile] has not been read yet we call our method
+         * [read] to read the labels persisted by an earlier process. Then if the labels we hold
+         * were loaded in a different locale than our parameter [locale] we discard all of them, and
+         * if the icons we hold were loaded for a different screen density than our parameter
+         * [density] we discard the icons.
+         *
+         * @param locale the current locale, as a [String].
+         * @param density the current screen density in dpi.
+         */
+        @Synchronized
+        fun begin(locale: String, density: Int) {
+            if (!mRead) {
+                mRead = true
+                read(locale)
+            }
+            if (locale != mLocale) {
+                mRecords.clear()
+                mLocale = locale
+                mDirty = true
+            } else if (density != mDensity) {
+                for (record in mRecords.values) {
+                    record.icon = null
+                }
+            }
+            mDensity = density
+        }
+
+        /**
+         * Returns the label we hold for the package [packageName], provided it was loaded from
+         * the version of the package last updated at [lastUpdateTime].
+         *
+         * @param packageName the name of the package.
+         * @param lastUpdateTime the `lastUpdateTime` of the installed version of the package.
+         * @return the label of the package or *null* if we do not have a valid one.
+         */
+        @Synchronized
+        fun getLabel(packageName: String, lastUpdateTime: Long): String? {
+            val record = mRecords[packageName]
+            return if (record != null && record.lastUpdateTime == lastUpdateTime) record.label else null
+        }
+
+        /**
+         * Stores the label of the package [packageName] as loaded from the version of the package
+         * last updated at [lastUpdateTime], replacing whatever we held for the package.
+         *
+         * @param packageName the name of the package.
+         * @param lastUpdateTime the `lastUpdateTime` of the installed version of the package.
+         * @param label the label loaded from the package.
+         */
+        @Synchronized
+        fun putLabel(packageName: String, lastUpdateTime: Long, label: String) {
+            mRecords[packageName] = Record(lastUpdateTime, label)
+            mDirty = true
+        }
+
+        /**
+         * Returns the constant state of the icon we hold for the package [packageName], provided
+         * it was loaded from the version of the package last updated at [lastUpdateTime].
+         *
+         * @param packageName the name of the package.
+         * @param lastUpdateTime the `lastUpdateTime` of the installed version of the package.
+         * @return the constant state of the icon of the package or *null* if we do not have one.
+         */
+        @Synchronized
+        fun getIcon(packageName: String, lastUpdateTime: Long): Drawable.ConstantState? {
+            val record = mRecords[packageName]
+            return if (record != null && record.lastUpdateTime == lastUpdateTime) record.icon else null
+        }
+
+        /**
+         * Stores the constant state of the icon of the package [packageName] as loaded from the
+         * version of the package last updated at [lastUpdateTime]. We only hold icons for packages
+         * whose label we hold for the same version, anything else is ignored.
+         *
+         * @param packageName the name of the package.
+         * @param lastUpdateTime the `lastUpdateTime` of the installed version of the package.
+         * @param icon the constant state of the icon loaded from the package.
+         */
+        @Synchronized
+        fun putIcon(packageName: String, lastUpdateTime: Long, icon: Drawable.ConstantState?) {
+            val record = mRecords[packageName]
+            if (record != null && record.lastUpdateTime == lastUpdateTime) {
+                record.icon = icon
+            }
+        }
+
+        /**
+         * Discards what we hold for every package whose name is not in [packageNames], which
+         * is called with the names of the packages that are installed at the end of a load.
+         *
+         * @param packageNames the names of the installed packages.
+         */
+        @Synchronized
+        fun retainAll(packageNames: Set<String>) {
+            if (mRecords.keys.retainAll(packageNames)) {
+                mDirty = true
+            }
+        }
+
+        /**
+         * Writes the labels we hold to [mFile] if they have changed since they were last read or
+         * saved. We write them to a temporary file first and then rename it to [mFile], so that
+         * a process that dies while we are writing can not leave a truncated index behind.
+         */
+        @Synchronized
+        fun save() {
+            if (!mDirty) {
+                return
+            }
+            mDirty = false
+            val temp = File(mFile.path + ".tmp")
+            try {
+                DataOutputStream(BufferedOutputStream(FileOutputStream(temp))).use { out ->
+                    out.writeInt(VERSION)
+                    out.writeUTF(mLocale ?: "")
+                    out.writeInt(mRecords.size)
+                    for ((packageName, record) in mRecords) {
+                        out.writeUTF(packageName)
+                        out.writeLong(record.lastUpdateTime)
+                        out.writeUTF(record.label)
+                    }
+                }
+                if (!temp.renameTo(mFile)) {
+                    throw IOException("Could not rename $temp")
+                }
+            } catch (e: IOException) {
+                Log.w(TAG, "Failed to write $mFile", e)
+                temp.delete()
+            }
+        }
+
+        /**
+         * Reads the labels persisted in [mFile] into [mRecords], provided they were loaded in the
+         * locale [locale]. A missing, stale or unreadable file leaves [mRecords] empty, which just
+         * means every label has to be loaded again.
+         *
+         * @param locale the current locale, as a [String].
+         */
+        private fun read(locale: String) {
+            if (!mFile.exists()) {
+                return
+            }
+            try {
+                DataInputStream(BufferedInputStream(FileInputStream(mFile))).use { input ->
+                    if (input.readInt() != VERSION || input.readUTF() != locale) {
+                        return
+                    }
+                    val count = input.readInt()
+                    for (i in 0 until count) {
+                        val packageName = input.readUTF()
+                        val lastUpdateTime = input.readLong()
+                        mRecords[packageName] = Record(lastUpdateTime, input.readUTF())
+                    }
+                    mLocale = locale
+                }
+            } catch (e: IOException) {
+                Log.w(TAG, "Failed to read $mFile", e)
+                mRecords.clear()
+            }
+        }
+
+        /**
+         * Our static constants.
+         */
+        companion object {
+            /**
+             * Version of the format of [mFile], a file in any other format is ignored.
+             */
+            internal const val VERSION = 1
+        }
+    }
+
+    /**
+     * The sorted list of [AppEntry] objects delivered by a load of [AppListLoader] which finished,
+     * together with the changes which turn the previous such list into this one if the loader
+     * merged them incrementally. Every [AppList] has a unique [generation] so that the changes
+     * can name the list they apply to without holding on to it.
+     */
+    class AppList
+    /**
+     * Our constructor, we just pass [capacity] to our super's constructor and save [generation].
+     *
+     * @param capacity the initial capacity of the list.
+     * @param generation the unique generation number of this list.
+     */
+    (
+            capacity: Int,
+            /**
+             * Unique number of this list, taken from [sGeneration].
+             */
+            val generation: Int
+    ) : ArrayList<AppEntry>(capacity) {
+        /**
+         * The changes which turn the [AppList] whose generation is `changes.baseGeneration` into
+         * this list, *null* if this list was sorted from scratch.
+         */
+        var changes: AppListChanges? = null
+    }
+
+    /**
+     * Change set between two [AppList]s: first every entry in [removed] is removed from the old
+     * list, then every entry in [inserted] is inserted at the position given by the same index in
+     * [positions]. The inserted entries are in ascending order of position, so each position is
+     * the final position of its entry in the new list.
+     */
+    class AppListChanges
+    /**
+     * Our constructor, we just save our parameters in our fields.
+     *
+     * @param baseGeneration generation of the [AppList] the changes apply to.
+     * @param removed entries of the old list which are not in the new list.
+     * @param inserted entries of the new list which are not in the old list.
+     * @param positions positions in the new list of the entries in [inserted].
+     */
+    (
+            /**
+             * Generation of the [AppList] the changes apply to.
+             */
+            val baseGeneration: Int,
+            /**
+             * Entries of the old list which are not in the new list.
+             */
+            val removed: List<AppEntry>,
+            /**
+             * Entries of the new list which are not in the old list, sorted.
+             */
+            val inserted: List<AppEntry>,
+            /**
+             * Positions in the new list of the entries in [inserted].
+             */
+            val positions: IntArray
+    )
+
     /**
      * A custom [Loader] that loads all of the installed applications.
      */
@@ -366,8 +756,18 @@ class LoaderCustom : AppCompatActivity() {
      * [PackageManager] instance.
      *
      * @param context used only to pass on to our super's constructor
+     * @param mParallel if *true* the labels and icons are loaded in parallel, and the list is
+     * delivered progressively while they load.
      */
-    (context: Context) : AsyncTaskLoader<List<AppEntry>>(context) {
+    (
+            context: Context,
+            /**
+             * Flag indicating whether [loadInBackground] loads the labels and icons which are not
+             * in [mIndex] in parallel on the threads of [LABEL_EXECUTOR], delivering partial lists
+             * while it waits for them, instead of one after the other on its own thread.
+             */
+            internal val mParallel: Boolean = false
+    ) : AsyncTaskLoader<List<AppEntry>>(context) {
 
         /**
          * Helper for determining if the configuration has changed in a way that may require us
@@ -382,6 +782,13 @@ class LoaderCustom : AppCompatActivity() {
         @Suppress("LeakingThis")
         internal val mPm: PackageManager = getContext().packageManager
 
+        /**
+         * Index of the labels and icons of the packages loaded by previous loads, persisted in
+         * our cache directory so that it survives our process.
+         */
+        @Suppress("LeakingThis")
+        internal val mIndex = AppIndex(File(getContext().cacheDir, "LoaderCustom.index"))
+
         /**
          * Our list of [AppEntry] Objects describing the installed applications which we supply
          * to those using us as a [Loader].
@@ -397,46 +804,303 @@ class LoaderCustom : AppCompatActivity() {
          */
         internal var mPackageObserver: PackageIntentReceiver? = null
 
+        /**
+         * [Handler] for the main thread, used by a parallel load to post its partial lists.
+         */
+        internal val mHandler = Handler(Looper.getMainLooper())
+
+        /**
+         * Token identifying the load which is currently allowed to deliver partial lists, it is set
+         * by a parallel load when it starts and cleared when it finishes, so that a partial list
+         * which is posted by a load but only run after the load finished is dropped instead of
+         * replacing the final list.
+         */
+        @Volatile
+        internal var mLoadToken: Any? = null
+
+        /**
+         * Flag indicating whether [mApps] is a partial list delivered by [deliverPartialResult]
+         * rather than the result of a finished load.
+         */
+        internal var mAppsPartial: Boolean = false
+
+        /**
+         * The list returned by our last load which was not canceled, [mergeSorted] merges the
+         * entries of the next load into it. Only used by the thread of [loadInBackground].
+         */
+        internal var mSorted: AppList? = null
+
+        /**
+         * [Collator] for [mCollatorLocale] used to create the [CollationKey] of every [AppEntry].
+         */
+        internal var mCollator: Collator? = null
+
+        /**
+         * Locale of [mCollator], if the locale changes all the keys have to be created again.
+         */
+        internal var mCollatorLocale: Locale? = null
+
         /**
          * This is where the bulk of our work is done. This function is called in a background
          * thread and should generate a new set of data to be published by the loader. First we
-         * use our [PackageManager] field [mPm] to retrieve all known applications to our variable
-         * `List<ApplicationInfo> apps`. If no apps are returned (`apps` is null) we allocate
-         * an empty `ArrayList<>` for `apps`. We initialize our [Context] variable `val context`
-         * with an application context retrieved from the [Context] passed to the constructor. We
-         * create our return list `List<AppEntry>` to initialize our variable `val entries`, and
-         * populate it with an [AppEntry] for each of the [ApplicationInfo] instances in `apps`.
-         * When done we sort `entries` using our `Comparator<AppEntry> ALPHA_COMPARATOR`. Finally
-         * we return `entries` to the caller.
+         * use our [PackageManager] field [mPm] to retrieve all known packages to our variable
+         * `List<PackageInfo> packages` (we need the `lastUpdateTime` of the [PackageInfo], the
+         * [ApplicationInfo] we display is its `applicationInfo` field). If no packages are
+         * returned (`packages` is null) we allocate an empty `ArrayList<>` for `packages`. We
+         * initialize our [Context] variable `val context` with an application context retrieved
+         * from the [Context] passed to the constructor, and call the `begin` method of our
+         * [AppIndex] field [mIndex] with the current locale and screen density so that it can
+         * discard labels and icons which were loaded for others. We create our return list
+         * `List<AppEntry>` to initialize our variable `val entries`, and populate it with an
+         * [AppEntry] for each of the [PackageInfo] instances in `packages`, whose label is taken
+         * from [mIndex] unless the package changed since it was last loaded. Then we tell [mIndex]
+         * to forget the packages which are no longer installed and to save itself if anything
+         * changed. When done we call our method [mergeSorted] to merge `entries` into the sorted
+         * list of our previous load, and return the [AppList] it returns to the caller.
+         *
+         * If our flag [mParallel] is *true* the labels are loaded by our method [loadInParallel]
+         * instead: the entries whose label is in [mIndex] are set up here, the others are loaded
+         * on the threads of [LABEL_EXECUTOR], and partial lists are delivered while they load. If
+         * the load is canceled while it waits for them it returns *null*.
          *
          * @return The result of the load operation.
          */
         override fun loadInBackground(): List<AppEntry>? {
-            // Retrieve all known applications.
+            // Retrieve all known packages.
 
             @SuppressLint("InlinedApi")
-            var apps: List<ApplicationInfo>? = mPm.getInstalledApplications(
+            var packages: List<PackageInfo>? = mPm.getInstalledPackages(
                     PackageManager.MATCH_UNINSTALLED_PACKAGES or PackageManager.MATCH_DISABLED_COMPONENTS)
 
-            if (apps == null) {
-                apps = ArrayList()
+            if (packages == null) {
+                packages = ArrayList()
             }
 
             val context = context
-
-            // Create corresponding array of entries and load their labels.
-            val entries = ArrayList<AppEntry>(apps.size)
-            for (i in apps.indices) {
-                val entry = AppEntry(this, apps[i])
-                entry.loadLabel(context)
+            val res = context.resources
+            @Suppress("DEPRECATION")
+            mIndex.begin(res.configuration.locale.toString(), res.displayMetrics.densityDpi)
+
+            // Create corresponding array of entries and load their labels,
+            // only the labels of changed packages are loaded from their apk.
+            var entries = ArrayList<AppEntry>(packages.size)
+            val installed = HashSet<String>(packages.size)
+            for (i in packages.indices) {
+                val info = packages[i].applicationInfo ?: continue
+                val entry = AppEntry(this, info, packages[i].lastUpdateTime)
+                if (mParallel) {
+                    entry.loadCachedLabel(mIndex)
+                } else {
+                    entry.loadLabel(context, mIndex)
+                }
                 entries.add(entry)
+                installed.add(info.packageName)
+            }
+            if (mParallel) {
+                entries = loadInParallel(entries) ?: return null
             }
+            mIndex.retainAll(installed)
+            mIndex.save()
 
-            // Sort the list.
-            Collections.sort(entries, ALPHA_COMPARATOR)
+            // Sort the list, merging the changes into the previous one.
+            @Suppress("DEPRECATION")
+            val sorted = mergeSorted(entries, res.configuration.locale)
 
             // Done!
-            return entries
+            return sorted
+        }
+
+        /**
+         * Sorts the entries of a load, reusing the sorted list of the previous load. If there is
+         * no previous list in our field [mSorted] or the locale has changed since it was sorted
+         * (which needs a new [Collator] and new keys) we set the [CollationKey] of every entry in
+         * [entries] and sort them by key. Otherwise we compare [entries] with the previous list
+         * by package name: an entry whose package has the same `lastUpdateTime` and label as
+         * before is unchanged and the old [AppEntry] is kept (along with the icon it may have
+         * loaded), any other entry is a new one which we give a key and add to the list of
+         * insertions, and old entries which are not kept are removed. We sort the insertions
+         * by key and merge them with the kept entries in a single pass over the previous list,
+         * recording the removed entries and the positions of the inserted ones in the
+         * [AppListChanges] of the new list so that the [AppListAdapter] can apply them instead
+         * of replacing all of its data. Finally we save the new list in [mSorted] and return it.
+         *
+         * @param entries the entries of the load, with their labels set.
+         * @param locale the current locale.
+         * @return the sorted list of entries.
+         */
+        private fun mergeSorted(entries: List<AppEntry>, locale: Locale): AppList {
+            if (locale != mCollatorLocale) {
+                mCollator = Collator.getInstance(locale)
+                mCollatorLocale = locale
+                mSorted = null
+            }
+            val collator = mCollator!!
+            val old = mSorted
+            if (old == null) {
+                val sorted = AppList(entries.size, sGeneration.incrementAndGet())
+                for (entry in entries) {
+                    entry.collationKey = collator.getCollationKey(entry.label)
+                    sorted.add(entry)
+                }
+                Collections.sort(sorted, KEY_COMPARATOR)
+                mSorted = sorted
+                return sorted
+            }
+
+            val previous = HashMap<String, AppEntry>(old.size)
+            for (entry in old) {
+                previous[entry.applicationInfo.packageName] = entry
+            }
+            val kept = HashSet<AppEntry>(entries.size)
+            val inserted = ArrayList<AppEntry>()
+            for (entry in entries) {
+                val oldEntry = previous[entry.applicationInfo.packageName]
+                if (oldEntry != null && oldEntry.lastUpdateTime == entry.lastUpdateTime
+                        && oldEntry.label == entry.label) {
+                    kept.add(oldEntry)
+                } else {
+                    entry.collationKey = collator.getCollationKey(entry.label)
+                    inserted.add(entry)
+                }
+            }
+            Collections.sort(inserted, KEY_COMPARATOR)
+
+            val sorted = AppList(entries.size, sGeneration.incrementAndGet())
+            val removed = ArrayList<AppEntry>()
+            val positions = IntArray(inserted.size)
+            var next = 0
+            for (entry in old) {
+                if (!kept.contains(entry)) {
+                    removed.add(entry)
+                    continue
+                }
+                while (next < inserted.size && KEY_COMPARATOR.compare(inserted[next], entry) < 0) {
+                    positions[next] = sorted.size
+                    sorted.add(inserted[next++])
+                }
+                sorted.add(entry)
+            }
+            while (next < inserted.size) {
+                positions[next] = sorted.size
+                sorted.add(inserted[next++])
+            }
+            sorted.changes = AppListChanges(old.generation, removed, inserted, positions)
+            mSorted = sorted
+            return sorted
+        }
+
+        /**
+         * Loads the labels and icons of the entries in [entries] whose label is still *null* in
+         * parallel on the threads of [LABEL_EXECUTOR], delivering sorted partial lists of the
+         * entries whose label is known while we wait for them. First we set our field
+         * [mLoadToken] to a new token for this load, and move the entries whose label is known
+         * to our variable `val ready`. If there are none left we are done and return `ready`.
+         * Otherwise we deliver `ready` as the first partial list if it is not empty, so that the
+         * unchanged packages show at once, and submit a task for each of the remaining entries
+         * to an [ExecutorCompletionService] wrapping [LABEL_EXECUTOR] which calls the `loadLabel`
+         * method of the entry and reads its `icon` property. Then we take the entries as their
+         * tasks complete and add them to `ready`, delivering a new partial list whenever
+         * [PUBLISH_INTERVAL_MS] milliseconds have passed since the last one. If the load is
+         * canceled while we wait we cancel the remaining tasks and return *null*. Finally we
+         * clear [mLoadToken] and return `ready`, which holds all of [entries].
+         *
+         * @param entries all of the entries of the load, with their label set if it was cached.
+         * @return all of the entries with their label set, or *null* if the load was canceled.
+         */
+        private fun loadInParallel(entries: ArrayList<AppEntry>): ArrayList<AppEntry>? {
+            val token = Any()
+            mLoadToken = token
+            try {
+                val ready = ArrayList<AppEntry>(entries.size)
+                val pending = ArrayList<AppEntry>()
+                for (entry in entries) {
+                    if (entry.label != null) {
+                        ready.add(entry)
+                    } else {
+                        pending.add(entry)
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return ready
+                }
+                if (ready.isNotEmpty()) {
+                    publishPartialResult(ready, token)
+                }
+
+                val context = context
+                val service = ExecutorCompletionService<AppEntry>(LABEL_EXECUTOR)
+                val futures = ArrayList<Future<AppEntry>>(pending.size)
+                for (entry in pending) {
+                    futures.add(service.submit {
+                        entry.loadLabel(context, mIndex)
+                        // Resolve the icon on this thread as well, the UI thread
+                        // would otherwise load it from the apk when it binds the row.
+                        entry.icon
+                        entry
+                    })
+                }
+
+                var lastPublish = SystemClock.uptimeMillis()
+                try {
+                    for (i in pending.indices) {
+                        var future: Future<AppEntry>? = null
+                        while (future == null) {
+                            if (isLoadInBackgroundCanceled) {
+                                return null
+                            }
+                            future = service.poll(PUBLISH_INTERVAL_MS, TimeUnit.MILLISECONDS)
+                        }
+                        ready.add(future.get())
+                        val now = SystemClock.uptimeMillis()
+                        if (now - lastPublish >= PUBLISH_INTERVAL_MS && i < pending.size - 1) {
+                            publishPartialResult(ready, token)
+                            lastPublish = now
+                        }
+                    }
+                } catch (e: InterruptedException) {
+                    return null
+                } catch (e: ExecutionException) {
+                    throw RuntimeException(e.cause)
+                } finally {
+                    for (future in futures) {
+                        future.cancel(false)
+                    }
+                }
+                return ready
+            } finally {
+                mLoadToken = null
+            }
+        }
+
+        /**
+         * Posts a sorted copy of [entries] to the main thread to be delivered there by our method
+         * [deliverPartialResult] as a partial result of the load identified by [token].
+         *
+         * @param entries the entries of the load whose labels are known so far.
+         * @param token the token of the load, the value of [mLoadToken] while it runs.
+         */
+        private fun publishPartialResult(entries: List<AppEntry>, token: Any) {
+            val partial = ArrayList(entries)
+            Collections.sort(partial, ALPHA_COMPARATOR)
+            mHandler.post { deliverPartialResult(partial, token) }
+        }
+
+        /**
+         * Delivers a partial list of the entries of a parallel load to the client, runs on the
+         * main thread. If the load identified by [token] is no longer running (its final result
+         * is on its way, or it has been replaced by another load) or we are not started we drop
+         * [apps]. Otherwise we call our override of [deliverResult] with [apps] and then set our
+         * flag [mAppsPartial] so that [onStartLoading] knows that [mApps] is not complete.
+         *
+         * @param apps sorted list of the entries whose labels are known so far.
+         * @param token the token of the load which published [apps].
+         */
+        internal fun deliverPartialResult(apps: List<AppEntry>, token: Any) {
+            if (mLoadToken !== token || !isStarted) {
+                return
+            }
+            deliverResult(apps)
+            mAppsPartial = true
         }
 
         /**
@@ -471,6 +1135,7 @@ class LoaderCustom : AppCompatActivity() {
 
             val oldApps = mApps
             mApps = apps
+            mAppsPartial = false
 
             if (isStarted) {
                 // If the Loader is currently started, we can immediately
@@ -502,10 +1167,11 @@ class LoaderCustom : AppCompatActivity() {
          * [Boolean] flag variable `val configChange`.
          *
          * Finally based on whether the current flag indicating whether the loader's content had
-         * changed while it was stopped is set, or [mApps] is still *null*, or `configChange`
-         * is *true* we force an asynchronous load by calling `forceLoad()`. This will ignore a
-         * previously loaded data set and load a new one. It does this by calling through to the
-         * implementation's `onForceLoad()`.
+         * changed while it was stopped is set, or [mApps] is still *null*, or [mApps] is only the
+         * partial list of a parallel load which was stopped (our flag [mAppsPartial] is *true*), or
+         * `configChange` is *true* we force an asynchronous load by calling `forceLoad()`. This
+         * will ignore a previously loaded data set and load a new one. It does this by calling
+         * through to the implementation's `onForceLoad()`.
          */
         override fun onStartLoading() {
             if (mApps != null) {
@@ -523,7 +1189,7 @@ class LoaderCustom : AppCompatActivity() {
             // last built the app list?
             val configChange = mLastConfig.applyNewConfig(context.resources)
 
-            if (takeContentChanged() || mApps == null || configChange) {
+            if (takeContentChanged() || mApps == null || mAppsPartial || configChange) {
                 // If the data has changed since the last time it was loaded
                 // or is not currently available, start a load.
                 forceLoad()
@@ -630,10 +1296,18 @@ class LoaderCustom : AppCompatActivity() {
          */
         private val mInflater: LayoutInflater = context.getSystemService(Context.LAYOUT_INFLATER_SERVICE) as LayoutInflater
 
+        /**
+         * Generation of the [AppList] we hold, -1 if we hold nothing or a list which is not an
+         * [AppList] (a partial list of a parallel load).
+         */
+        private var mGeneration: Int = -1
+
         /**
          * Sets the contents of our [ArrayAdapter]. First we remove all elements from our list,
          * and then if our `List<AppEntry>` parameter [data] is not *null*, we add all the elements
-         * in [data] to the end of our [ArrayAdapter].
+         * in [data] to the end of our [ArrayAdapter]. Finally we remember the generation of [data]
+         * if it is an [AppList] so that the changes of the next list can be applied by our method
+         * [applyChanges].
          *
          * @param data list of package information returned from package manager by our background
          * loader (or null if it is being invalidated after a loader reset.)
@@ -643,6 +1317,35 @@ class LoaderCustom : AppCompatActivity() {
             if (data != null) {
                 addAll(data)
             }
+            mGeneration = (data as? AppList)?.generation ?: -1
+        }
+
+        /**
+         * Updates our contents to [data] by applying its [AppListChanges] if it has some and they
+         * apply to the [AppList] we hold, which leaves the entries of the packages that did not
+         * change in place. We turn off the automatic notification of our [ArrayAdapter], remove
+         * the removed entries, insert the inserted entries at their positions, and then call
+         * [notifyDataSetChanged] once (which also turns the automatic notification back on).
+         * If the changes do not apply we return *false* and the caller should call [setData].
+         *
+         * @param data a sorted list delivered by our [AppListLoader].
+         * @return *true* if the changes were applied, *false* if they could not be.
+         */
+        fun applyChanges(data: List<AppEntry>): Boolean {
+            val changes = (data as? AppList)?.changes
+            if (changes == null || mGeneration == -1 || changes.baseGeneration != mGeneration) {
+                return false
+            }
+            setNotifyOnChange(false)
+            for (entry in changes.removed) {
+                remove(entry)
+            }
+            for (i in changes.inserted.indices) {
+                insert(changes.inserted[i], changes.positions[i])
+            }
+            mGeneration = (data as AppList).generation
+            notifyDataSetChanged()
+            return true
         }
 
         /**
@@ -870,7 +1573,8 @@ class LoaderCustom : AppCompatActivity() {
 
         /**
          * Instantiate and return a new [Loader] for the given ID. We just return an [AppListLoader]
-         * created using the [Activity] of [LoaderCustom] as its [Context].
+         * created using the [Activity] of [LoaderCustom] as its [Context], which loads the labels
+         * of the apps in parallel.
          *
          * @param id   The ID whose loader is to be created.
          * @param args Any arguments supplied by the caller.
@@ -879,12 +1583,13 @@ class LoaderCustom : AppCompatActivity() {
         override fun onCreateLoader(id: Int, args: Bundle?): Loader<List<AppEntry>> {
             // This is called when a new Loader needs to be created.  This
             // sample only has one Loader with no arguments, so it is simple.
-            return AppListLoader(activity as Context)
+            return AppListLoader(activity as Context, true)
         }
 
         /**
-         * Called when a previously created loader has finished its load. We set the data of our
-         * [AppListAdapter] field [mAdapter] to our `List<AppEntry>` parameter [data]. If our
+         * Called when a previously created loader has finished its load. We apply the changes of
+         * our `List<AppEntry>` parameter [data] to our [AppListAdapter] field [mAdapter], or if
+         * they do not apply to what it holds we set the data of [mAdapter] to [data]. If our
          * Fragment is in the `Resumed` state (newly created) we set our `List` to be shown,
          * otherwise (an orientation change has occurred) we set our `List` to be shown without the
          * animation from the previous state (don't know why, because the animation looks nifty).
@@ -893,8 +1598,11 @@ class LoaderCustom : AppCompatActivity() {
          * @param data   The data generated by the Loader.
          */
         override fun onLoadFinished(loader: Loader<List<AppEntry>>, data: List<AppEntry>) {
-            // Set the new data in the adapter.
-            mAdapter.setData(data)
+            // Set the new data in the adapter, only applying what changed
+            // if it holds the list the changes were made to.
+            if (!mAdapter.applyChanges(data)) {
+                mAdapter.setData(data)
+            }
 
             // The list should now be shown.
             if (isResumed) {
@@ -928,6 +1636,43 @@ class LoaderCustom : AppCompatActivity() {
          */
         internal var TAG = "LoaderCustom"
 
+        /**
+         * Minimum time in milliseconds between two partial lists delivered by a parallel load of
+         * [AppListLoader].
+         */
+        internal const val PUBLISH_INTERVAL_MS = 100L
+
+        /**
+         * Executor which loads the labels and icons of the apps for a parallel load of
+         * [AppListLoader], bounded to one thread per core. Its threads time out when it is idle.
+         */
+        internal val LABEL_EXECUTOR: ThreadPoolExecutor by lazy {
+            val cores = Runtime.getRuntime().availableProcessors()
+            val executor = ThreadPoolExecutor(cores, cores, 1, TimeUnit.SECONDS,
+                    LinkedBlockingQueue(), object : ThreadFactory {
+                private val mCount = AtomicInteger(1)
+
+                override fun newThread(r: Runnable): Thread {
+                    return Thread(r, "AppLabel #" + mCount.getAndIncrement())
+                }
+            })
+            executor.allowCoreThreadTimeOut(true)
+            executor
+        }
+
+        /**
+         * Source of the generation numbers of the [AppList]s delivered by [AppListLoader].
+         */
+        internal val sGeneration = AtomicInteger()
+
+        /**
+         * Compares [AppEntry] objects by their [CollationKey], which gives the same order as
+         * [ALPHA_COMPARATOR] for entries whose keys were made by the same [Collator].
+         */
+        internal val KEY_COMPARATOR: Comparator<AppEntry> = Comparator { object1, object2 ->
+            object1.collationKey!!.compareTo(object2.collationKey!!)
+        }
+
         /**
          * Perform alphabetical comparison of application [AppEntry] objects.
          */
@@ -20,38 +20,50 @@ package com.example.android.apis.app
 import android.annotation.SuppressLint
 import android.annotation.TargetApi
 import android.content.*
+import android.database.ContentObserver
 import android.database.Cursor
 import android.database.DatabaseUtils
 import android.database.SQLException
 import android.database.sqlite.SQLiteDatabase
 import android.database.sqlite.SQLiteOpenHelper
 import android.database.sqlite.SQLiteQueryBuilder
+import android.database.sqlite.SQLiteStatement
 import android.net.Uri
 import android.os.AsyncTask
 import android.os.Build
 import android.os.Bundle
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
 import android.provider.BaseColumns
 import android.text.TextUtils
 import android.util.Log
+import android.view.LayoutInflater
 import android.view.Menu
 import android.view.MenuInflater
 import android.view.MenuItem
 import android.view.View
+import android.view.ViewGroup
+import android.widget.AbsListView
+import android.widget.BaseAdapter
 import android.widget.ListView
+import android.widget.TextView
 import androidx.appcompat.app.AppCompatActivity
-import androidx.cursoradapter.widget.SimpleCursorAdapter
 import androidx.fragment.app.ListFragment
 import androidx.loader.app.LoaderManager
-import androidx.loader.content.CursorLoader
+import androidx.loader.content.AsyncTaskLoader
 import androidx.loader.content.Loader
 import java.util.*
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.math.max
+import kotlin.math.min
 
 /**
  * Demonstration of bottom to top implementation of a content provider holding
  * structured data through displaying it in the UI, using throttling to reduce
- * the number of queries done when its data changes. Implements a custom [CursorLoader]
- * which pretends to be a SQLite database, and simulates a slow provider of data
- * [SimpleProvider]
+ * the number of queries done when its data changes. Implements a custom [ContentProvider]
+ * [SimpleProvider] backed by a SQLite database, and a [MainPageLoader] which loads only the
+ * window of its rows the user is looking at.
  */
 @Suppress("MemberVisibilityCanBePrivate")
 @TargetApi(Build.VERSION_CODES.HONEYCOMB)
@@ -127,6 +139,12 @@ class LoaderThrottle : AppCompatActivity() {
              * Column name for the single column holding our data. Type: TEXT
              */
             const val COLUMN_NAME_DATA = "data"
+
+            /**
+             * Query parameter limiting the rows a query of [CONTENT_URI] returns, either a number
+             * of rows or "offset,count" to skip "offset" rows first.
+             */
+            const val QUERY_PARAMETER_LIMIT = "limit"
         }
     }
 
@@ -236,7 +254,7 @@ class LoaderThrottle : AppCompatActivity() {
      *  should use a Java-style naming convention (such as com.example.provider.cartoonprovider).
      *  Typically, it's the name of the ContentProvider subclass that implements the provider.
      *  There is no default. At least one authority must be specified. It is used by our
-     *  [CursorLoader] to connect to this provider.
+     *  [MainPageLoader] to connect to this provider.
      *  * android:enabled="@bool/atLeastHoneycomb" Whether or not the content provider can be
      *  instantiated by the system — "true" if it can be, and "false" if not. This makes the
      *  provider available only on Android versions Honeycomb and newer.
@@ -257,6 +275,14 @@ class LoaderThrottle : AppCompatActivity() {
          */
         private var mOpenHelper: DatabaseHelper? = null
 
+        /**
+         * The compiled insert statement of the batch [applyBatch] is applying on the calling thread,
+         * or *null* if the calling thread is not applying a batch. While it is set [insert] uses it
+         * instead of compiling its own, and [insert], [update] and [delete] leave the change
+         * notification to [applyBatch], which sends a single one when the batch is committed.
+         */
+        private val mBatchInsert = ThreadLocal<SQLiteStatement>()
+
         /**
          * Global provider initialization. We initialize our `UriMatcher` field `mUriMatcher` with
          * a new instance of `UriMatcher` with the code to match for the root URI specified as
@@ -266,8 +292,9 @@ class LoaderThrottle : AppCompatActivity() {
          * code that is returned when a URI matches, and a Uri to match the authority AUTHORITY for
          * table "main/#", with MAIN_ID (2) the code that is returned when a URI matches it. We
          * initialize our `HashMap<String, String>` field `mNotesProjectionMap` with an empty
-         * `HashMap<>`, then put the String MainTable._ID to map to itself, and the String
-         * MainTable.COLUMN_NAME_DATA to map to itself.
+         * `HashMap<>`, then put the String MainTable._ID to map to itself, the String
+         * MainTable.COLUMN_NAME_DATA to map to itself, and the String BaseColumns._COUNT to map to
+         * the count of the rows selected (which [MainPageLoader] uses to count rows).
          */
         init {
             // Create and initialize URI matcher.
@@ -279,6 +306,7 @@ class LoaderThrottle : AppCompatActivity() {
             mNotesProjectionMap = HashMap()
             mNotesProjectionMap[BaseColumns._ID] = BaseColumns._ID
             mNotesProjectionMap[MainTable.COLUMN_NAME_DATA] = MainTable.COLUMN_NAME_DATA
+            mNotesProjectionMap[BaseColumns._COUNT] = "COUNT(*) AS " + BaseColumns._COUNT
         }
 
         /**
@@ -300,12 +328,12 @@ class LoaderThrottle : AppCompatActivity() {
 
         /**
          * Handle incoming query requests from clients. These queries are generated by the
-         * [CursorLoader] created in [ThrottledLoaderListFragment] based on the AUTHORITY
+         * [MainPageLoader] created in [ThrottledLoaderListFragment] based on the AUTHORITY
          * "com.example.android.apis.app.LoaderThrottle". The AndroidManifest.xml attribute
          * android:authorities in the `<provider>` element for the provider which is named using
          * the attribute android:name=".app.LoaderThrottle$SimpleProvider" (which is this class)
-         * refers the [CursorLoader] to call this method when requesting more data.
-         * [ThrottledLoaderListFragment] returns the [CursorLoader] it creates from its
+         * refers the [MainPageLoader] to call this method when requesting more data.
+         * [ThrottledLoaderListFragment] returns the [MainPageLoader] it creates from its
          * `onCreateLoader` callback, and it is then used by the system to fill our [ListView].
          *
          * First we initialize our variable `var selectionArgsLocal` to our parameter [selectionArgs]
@@ -332,10 +360,11 @@ class LoaderThrottle : AppCompatActivity() {
          * `sortOrderLocal` copy of our parameter [sortOrder] to MainTable.DEFAULT_SORT_ORDER if it
          * was empty. Next we use our [DatabaseHelper] field [mOpenHelper] to open its readable
          * [SQLiteDatabase] to initialize our variable `val db`, create a [Cursor] to initialize our
-         * variable `val c` which performs a query of `db` and then Register `c` to watch the content
-         * [Uri] parameter [uri] for changes. (This can be the URI of a specific data row (for
-         * example, "content://my_provider_type/23"), or a a generic URI for a content type.)
-         * Finally we return `c` to the caller.
+         * variable `val c` which performs a query of `db` (limited by the value of the query
+         * parameter MainTable.QUERY_PARAMETER_LIMIT of [uri] if it has one) and then Register `c`
+         * to watch the content [Uri] parameter [uri] for changes. (This can be the URI of a
+         * specific data row (for example, "content://my_provider_type/23"), or a a generic URI for
+         * a content type.) Finally we return `c` to the caller.
          *
          * @param uri The URI to query. This will be the full URI sent by the client; if the client
          * is requesting a specific record, the URI will end in a record number that the
@@ -384,7 +413,10 @@ class LoaderThrottle : AppCompatActivity() {
 
             val db = mOpenHelper!!.readableDatabase
 
-            val c = qb.query(db, projection, selection, selectionArgsLocal, null, null, sortOrderLocal)/* no group *//* no filter */
+            val limit = uri.getQueryParameter(MainTable.QUERY_PARAMETER_LIMIT)
+
+            val c = qb.query(db, projection, selection, selectionArgsLocal,
+                    null, null, sortOrderLocal, limit)/* no group *//* no filter */
 
 
             c.setNotificationUri(context!!.contentResolver, uri)
@@ -435,12 +467,14 @@ class LoaderThrottle : AppCompatActivity() {
          * as it never lacks a value for that column key in our app).
          *
          * We then open (or create) a [SQLiteDatabase] to initialize our variable `val db`, and try
-         * to insert the row that `values` contains into `db` saving the row ID of the newly inserted
-         * row (or -1 if an error occurred) in our [Long] variable `val rowId`. If no error occurred
-         * (`rowId > 0`) we create a [Uri] to initialize our variable `val noteUri` by appending
-         * `rowId` to our content URI base for a single row of data (MainTable.CONTENT_ID_URI_BASE),
-         * notify registered observers that a row was updated and attempt to sync changes to the
-         * network, and finally return `noteUri` to the caller. If an error had occurred
+         * to insert the row that `values` contains into `db` (with the compiled statement of the
+         * batch in [mBatchInsert] if we are called by [applyBatch]) saving the row ID of the newly
+         * inserted row (or -1 if an error occurred) in our [Long] variable `val rowId`. If no error
+         * occurred (`rowId > 0`) we create a [Uri] to initialize our variable `val noteUri` by
+         * appending `rowId` to our content URI base for a single row of data
+         * (MainTable.CONTENT_ID_URI_BASE), notify registered observers that a row was updated and
+         * attempt to sync changes to the network (unless we are part of a batch, which notifies
+         * once at the end), and finally return `noteUri` to the caller. If an error had occurred
          * (`rowId == -1`) we throw an [SQLException] with an appropriate message.
          *
          * See:
@@ -469,19 +503,147 @@ class LoaderThrottle : AppCompatActivity() {
 
             val db = mOpenHelper!!.writableDatabase
 
-            val rowId = db.insert(MainTable.TABLE_NAME, null, values)
+            val batchInsert = mBatchInsert.get()
+            val rowId = if (batchInsert != null) {
+                insertRow(db, batchInsert, values)
+            } else {
+                db.insert(MainTable.TABLE_NAME, null, values)
+            }
 
             // If the insert succeeded, the row ID exists.
             if (rowId > 0) {
                 val noteUri = ContentUris.withAppendedId(MainTable.CONTENT_ID_URI_BASE, rowId)
 
-                context!!.contentResolver.notifyChange(noteUri, null)
+                notifyChange(noteUri)
                 return noteUri
             }
 
             throw SQLException("Failed to insert row into $uri")
         }
 
+        /**
+         * Handle a request to insert a set of new rows. The default implementation of
+         * [ContentProvider] calls [insert] for each row, so every row is committed in a transaction
+         * of its own (which means a journal write and a sync to disk per row) and sends a change
+         * notification of its own (which makes the [MainPageLoader] watching our data reload).
+         *
+         * First we check to make sure that our [Uri] parameter [uri] is our main URI, the [require]
+         * method throws an [IllegalArgumentException] if it is not. Then we open our [SQLiteDatabase]
+         * to initialize our variable `val db`, and compile the SQL statement [INSERT_SQL] to
+         * initialize our [SQLiteStatement] variable `val statement`. Inside a single transaction we
+         * use our method [insertRow] to insert each of the rows in our parameter [values] with
+         * `statement`, throwing an [SQLException] (which rolls back the transaction) if one of
+         * them fails. Once the transaction is committed we send a single change notification for
+         * [uri], and finally we return the number of rows inserted.
+         *
+         * @param uri    The content:// URI of the insertion request.
+         * @param values An array of sets of column_name/value pairs to add to the database.
+         * @return The number of values that were inserted.
+         */
+        override fun bulkInsert(uri: Uri, values: Array<ContentValues>): Int {
+            require(mUriMatcher.match(uri) == MAIN) { // Can only insert into to main URI.
+                "Unknown URI $uri"
+            }
+
+            val db = mOpenHelper!!.writableDatabase
+            val statement = db.compileStatement(INSERT_SQL)
+            db.beginTransaction()
+            try {
+                for (rowValues in values) {
+                    if (insertRow(db, statement, rowValues) <= 0) {
+                        throw SQLException("Failed to insert row into $uri")
+                    }
+                }
+                db.setTransactionSuccessful()
+            } finally {
+                db.endTransaction()
+                statement.close()
+            }
+
+            if (values.isNotEmpty()) {
+                notifyChange(uri)
+            }
+            return values.size
+        }
+
+        /**
+         * Applies a batch of [ContentProviderOperation]s as a single transaction. The default
+         * implementation of [ContentProvider] just calls [insert], [update] or [delete] for each
+         * of the operations, each of them committing and notifying on its own.
+         *
+         * First we open our [SQLiteDatabase] to initialize our variable `val db`, and compile the
+         * SQL statement [INSERT_SQL] to initialize our [SQLiteStatement] variable `val statement`
+         * which we store in our field [mBatchInsert] for the calling thread. Then inside a single
+         * transaction we call our super's implementation of `applyBatch` to apply the operations
+         * (which will find `statement` in [mBatchInsert] and hold back their notifications) and
+         * mark the transaction as successful if none of them threw. Whether they did or not we
+         * then end the transaction, clear [mBatchInsert] and close `statement`. Finally we send a
+         * single change notification for [MainTable.CONTENT_URI] if there were any operations
+         * and return the results of the operations.
+         *
+         * @param operations the operations to apply.
+         * @return the results of the applications.
+         * @throws OperationApplicationException thrown if any operation fails.
+         */
+        @Throws(OperationApplicationException::class)
+        override fun applyBatch(operations: ArrayList<ContentProviderOperation>): Array<ContentProviderResult> {
+            val db = mOpenHelper!!.writableDatabase
+            val statement = db.compileStatement(INSERT_SQL)
+            mBatchInsert.set(statement)
+            val results: Array<ContentProviderResult>
+            db.beginTransaction()
+            try {
+                results = super.applyBatch(operations)
+                db.setTransactionSuccessful()
+            } finally {
+                db.endTransaction()
+                mBatchInsert.remove()
+                statement.close()
+            }
+
+            if (operations.isNotEmpty()) {
+                context!!.contentResolver.notifyChange(MainTable.CONTENT_URI, null)
+            }
+            return results
+        }
+
+        /**
+         * Inserts one row using the compiled [INSERT_SQL] statement [statement], which must have
+         * been compiled for [db]. Rows which set columns other than MainTable.COLUMN_NAME_DATA
+         * ("data") can not use the statement and are inserted by the `insert` method of [db]. If
+         * [values] lacks a value for the data column we insert the empty String, as [insert] does.
+         *
+         * @param db        our database.
+         * @param statement the compiled [INSERT_SQL] statement.
+         * @param values    the column_name/value pairs of the row.
+         * @return the row ID of the new row, or -1 if an error occurred.
+         */
+        private fun insertRow(db: SQLiteDatabase, statement: SQLiteStatement, values: ContentValues): Long {
+            val hasData = values.containsKey(MainTable.COLUMN_NAME_DATA)
+            if (values.size() > (if (hasData) 1 else 0)) {
+                return db.insert(MainTable.TABLE_NAME, null, values)
+            }
+            val data = if (hasData) values.getAsString(MainTable.COLUMN_NAME_DATA) else ""
+            if (data == null) {
+                statement.bindNull(1)
+            } else {
+                statement.bindString(1, data)
+            }
+            return statement.executeInsert()
+        }
+
+        /**
+         * Notifies the observers of [uri] that its data changed, unless the calling thread is
+         * applying a batch in [applyBatch] (which sends one notification for the whole batch).
+         *
+         * @param uri the URI whose data changed.
+         */
+        private fun notifyChange(uri: Uri) {
+            if (mBatchInsert.get() == null) {
+                context!!.contentResolver.notifyChange(uri, null)
+            }
+        }
+
         /**
          * Implement this to handle requests to delete one or more rows. The implementation should
          * apply the selection clause when performing deletion, allowing the operation to affect
@@ -515,8 +677,8 @@ class LoaderThrottle : AppCompatActivity() {
          *  * default - We throw an `IllegalArgumentException`.
          *
          * Then before we return, we notify registered observers that a row was updated and attempt
-         * to sync changes to the network. Finally we return `count` (the number of rows deleted)
-         * to the caller.
+         * to sync changes to the network (unless we are part of a batch, which notifies once at the
+         * end). Finally we return `count` (the number of rows deleted) to the caller.
          *
          * @param uri       The full URI to query, including a row ID (if a specific record is requested).
          * @param where     An optional restriction to apply to rows when deleting.
@@ -551,7 +713,7 @@ class LoaderThrottle : AppCompatActivity() {
             }
 
 
-            context!!.contentResolver.notifyChange(uri, null)
+            notifyChange(uri)
 
             return count
         }
@@ -579,8 +741,8 @@ class LoaderThrottle : AppCompatActivity() {
          *  * default - We throw an [IllegalArgumentException].
          *
          * Then before we return, we notify registered observers that a row was updated and attempt
-         * to sync changes to the network. Finally we return `count` (the number of rows affected)
-         * to the caller.
+         * to sync changes to the network (unless we are part of a batch, which notifies once at the
+         * end). Finally we return `count` (the number of rows affected) to the caller.
          *
          * @param uri       The URI to query. This can potentially have a record ID if this
          * is an update request for a specific record.
@@ -614,7 +776,7 @@ class LoaderThrottle : AppCompatActivity() {
             }
 
 
-            context!!.contentResolver.notifyChange(uri, null)
+            notifyChange(uri)
 
             return count
         }
@@ -633,18 +795,723 @@ class LoaderThrottle : AppCompatActivity() {
              * The incoming URI matches the main table row ID URI pattern
              */
             private const val MAIN_ID = 2
+
+            /**
+             * SQL statement compiled by [bulkInsert] and [applyBatch] to insert rows.
+             */
+            private const val INSERT_SQL = ("INSERT INTO " + MainTable.TABLE_NAME + " ("
+                    + MainTable.COLUMN_NAME_DATA + ") VALUES (?)")
+        }
+    }
+
+    /**
+     * A window of consecutive rows of the main table in `_id` order, as delivered by a load of
+     * [MainPageLoader], together with the changes which turn the window the previous load
+     * delivered into this one. The window holds at most [MainPageLoader.WINDOW_SIZE] rows however
+     * large the table is, and every [MainPage] has a unique [generation] so that the changes can
+     * name the window they apply to without holding on to it.
+     */
+    class MainPage
+    /**
+     * Our constructor, we just save our parameters in our fields.
+     *
+     * @param generation the unique generation number of this window.
+     * @param startPosition position in the whole table of the first row of the window.
+     * @param totalCount number of rows in the whole table.
+     * @param ids the `_id` of each row of the window, ascending.
+     * @param data the "data" column of each row of the window.
+     */
+    (
+            /**
+             * Unique number of this window, taken from the `sGeneration` of [MainPageLoader].
+             */
+            val generation: Int,
+            /**
+             * Position in the whole table of the first row of the window.
+             */
+            val startPosition: Int,
+            /**
+             * Number of rows in the whole table.
+             */
+            val totalCount: Int,
+            /**
+             * The `_id` of each row of the window, ascending.
+             */
+            val ids: LongArray,
+            /**
+             * The "data" column of each row of the window.
+             */
+            val data: Array<String?>
+    ) {
+        /**
+         * The changes which turn the [MainPage] whose generation is `changes.baseGeneration` into
+         * this window, *null* if this is the first window loaded.
+         */
+        var changes: MainPageChanges? = null
+
+        /**
+         * Position in the whole table [MainPageLoader] was asked to start this window at, or -1 if
+         * it kept the `_id` the previous window started at.
+         */
+        internal var requestedPosition = -1
+
+        /**
+         * The `mDataVersion` of [MainPageLoader] when the load of this window started. As long as
+         * it has not changed since, [startPosition] and [totalCount] are still exact and the next
+         * load can use them instead of counting rows again.
+         */
+        internal var dataVersion = -1
+
+        /**
+         * Position in the whole table just past the last row of the window.
+         */
+        val endPosition: Int
+            get() = startPosition + ids.size
+
+        /**
+         * Returns the "data" column of the row at [position] in the whole table, or *null* if the
+         * row is not in the window.
+         *
+         * @param position position of the row in the whole table.
+         * @return the data of the row, or *null* if we do not hold it.
+         */
+        fun getData(position: Int): String? {
+            return if (position in startPosition until endPosition) {
+                data[position - startPosition]
+            } else {
+                null
+            }
+        }
+
+        /**
+         * Returns the `_id` of the row at [position] in the whole table, or -1 if the row is not in
+         * the window.
+         *
+         * @param position position of the row in the whole table.
+         * @return the `_id` of the row, or -1 if we do not hold it.
+         */
+        fun getId(position: Int): Long {
+            return if (position in startPosition until endPosition) ids[position - startPosition] else -1
+        }
+    }
+
+    /**
+     * Row level difference between two [MainPage]s, all positions being positions in the whole
+     * table: [removed] holds the positions in the old window of the rows which are not in the new
+     * one, [inserted] the positions in the new window of the rows which were not in the old one,
+     * and [changed] the positions in the new window of the rows which are in both but whose data
+     * changed. Each array is in ascending order.
+     */
+    class MainPageChanges
+    /**
+     * Our constructor, we just save our parameters in our fields.
+     *
+     * @param baseGeneration generation of the [MainPage] the changes apply to.
+     * @param removed positions in the old window of the rows which are not in the new window.
+     * @param inserted positions in the new window of the rows which were not in the old window.
+     * @param changed positions in the new window of the rows whose data changed.
+     */
+    (
+            /**
+             * Generation of the [MainPage] the changes apply to.
+             */
+            val baseGeneration: Int,
+            /**
+             * Positions in the old window of the rows which are not in the new window.
+             */
+            val removed: IntArray,
+            /**
+             * Positions in the new window of the rows which were not in the old window.
+             */
+            val inserted: IntArray,
+            /**
+             * Positions in the new window of the rows whose data changed.
+             */
+            val changed: IntArray
+    ) {
+        /**
+         * *true* if no row was inserted into or removed from the window.
+         */
+        val isInPlace: Boolean
+            get() = removed.isEmpty() && inserted.isEmpty()
+    }
+
+    /**
+     * A [Loader] which loads a window of at most [WINDOW_SIZE] rows of the main table instead of
+     * the whole table, so that the memory it uses and the time a load takes do not grow with the
+     * table. Windows are found by keyset: a window is the rows whose `_id` is at least the `_id`
+     * of its first row, and moving it as the user scrolls seeks from the `_id` at the edge of the
+     * current window rather than counting rows from the start of the table. The number of rows in
+     * the table and the position of the window are only counted again after our observer has seen
+     * the data change, a load which just moves the window takes both from the window it moves. A
+     * reload caused by a change of the data keeps the `_id` the window starts at, and the
+     * [MainPage] it delivers carries the row level [MainPageChanges] from the previous window, so
+     * the adapter only has to touch the rows which changed.
+     *
+     * We throttle reloads caused by changes of the data ourselves (to one every [UPDATE_THROTTLE_MS]
+     * milliseconds) instead of using the update throttle of [AsyncTaskLoader], since that would also
+     * hold back the loads which move the window as the user scrolls.
+     */
+    class MainPageLoader
+    /**
+     * Our constructor, we just call our super's constructor.
+     *
+     * @param context used only to pass on to our super's constructor
+     */
+    (context: Context) : AsyncTaskLoader<MainPage>(context) {
+        /**
+         * The window we last delivered, used as the base of the next load.
+         */
+        @Volatile
+        private var mPage: MainPage? = null
+
+        /**
+         * Position in the whole table the next load should start its window at, or -1 to keep the
+         * `_id` the current window starts at. Cleared by [deliverResult] when it delivers a window
+         * loaded for it (a load which is canceled leaves it for the next one).
+         */
+        private val mTargetPosition = AtomicInteger(-1)
+
+        /**
+         * Incremented on the main thread whenever the data of [MainTable.CONTENT_URI] changes, so
+         * that a load can tell whether the counts of the window it starts from are still exact.
+         */
+        private val mDataVersion = AtomicInteger()
+
+        /**
+         * [Handler] for the main thread, used to run our throttled reloads.
+         */
+        private val mHandler = Handler(Looper.getMainLooper())
+
+        /**
+         * Observer of [MainTable.CONTENT_URI], registered while we are started (or stopped) and
+         * unregistered when we are reset.
+         */
+        private var mObserver: ContentObserver? = null
+
+        /**
+         * *true* while [mThrottledChange] is posted.
+         */
+        private var mChangePending = false
+
+        /**
+         * Time (in the [SystemClock.uptimeMillis] time base) at which we last delivered a window.
+         */
+        private var mLastDeliveryTime: Long = 0
+
+        /**
+         * Tells our super that our content changed once the throttle allows it.
+         */
+        private val mThrottledChange = Runnable {
+            mChangePending = false
+            onContentChanged()
+        }
+
+        /**
+         * Called by the fragment whenever its [ListView] scrolls. If the window we hold does not
+         * cover the [count] visible positions starting at [first] with a margin of [WINDOW_MARGIN]
+         * rows on each side (as far as the table allows), we ask for a window centered on the
+         * visible rows and force a load. We do nothing if we hold no window yet, or if we already
+         * asked for that window.
+         *
+         * @param first position of the first visible row.
+         * @param count number of visible rows.
+         */
+        fun showPositions(first: Int, count: Int) {
+            val page = mPage ?: return
+            val wantStart = max(0, first - WINDOW_MARGIN)
+            val wantEnd = min(page.totalCount, first + count + WINDOW_MARGIN)
+            if (wantStart >= page.startPosition && wantEnd <= page.endPosition) {
+                return
+            }
+            val target = max(0, first - (WINDOW_SIZE - count) / 2)
+            if (mTargetPosition.getAndSet(target) != target) {
+                onContentChanged()
+            }
+        }
+
+        /**
+         * Called on a worker thread to load a window. We take the window we last delivered from
+         * [mPage], the position the user asked for from [mTargetPosition] and the current
+         * [mDataVersion] (read before any query, so that a change made while we load is seen by
+         * the next load). If the data has not changed since the last window was loaded its
+         * `totalCount` is still exact and we use it, otherwise we count the rows of the table.
+         *
+         * If no position was asked for we keep the `_id` the last window started at, whose
+         * position is that of the last window if the data has not changed and is counted
+         * otherwise. If a position was asked for we pull it back far enough for the window to be
+         * full, and use our method [findStartId] to find the `_id` of the row at that position,
+         * seeking from the last window only if the data has not changed (its positions are stale
+         * otherwise). We start at the beginning of the table if there is no last window, or if
+         * the row is gone. Then we query the window itself and build a new [MainPage] from the
+         * results. If there is a last window we set the `changes` of the new window to the
+         * differences between them computed by our method [computeChanges]. Finally we return the
+         * new window.
+         *
+         * @return the window we loaded.
+         */
+        override fun loadInBackground(): MainPage? {
+            val previous = mPage
+            val target = mTargetPosition.get()
+            val version = mDataVersion.get()
+            val exact = previous != null && previous.dataVersion == version
+            val totalCount = if (exact) previous!!.totalCount else count(null, 0)
+            var startId: Long? = null
+            var startPosition = 0
+            if (previous != null && previous.ids.isNotEmpty()) {
+                if (target == -1) {
+                    startId = previous.ids[0]
+                    startPosition = if (exact) {
+                        previous.startPosition
+                    } else {
+                        count(BaseColumns._ID + " < ?", previous.ids[0])
+                    }
+                } else {
+                    startPosition = min(target, max(0, totalCount - WINDOW_SIZE))
+                    startId = findStartId(if (exact) previous else null, startPosition, totalCount)
+                    if (startId == null) {
+                        startPosition = 0
+                    }
+                }
+            }
+
+            val cr = context.contentResolver
+            var ids = LongArray(WINDOW_SIZE)
+            var data = arrayOfNulls<String>(WINDOW_SIZE)
+            var size = 0
+            cr.query(limitUri(0, WINDOW_SIZE), PROJECTION,
+                    if (startId == null) null else BaseColumns._ID + " >= ?",
+                    if (startId == null) null else arrayOf(startId.toString()),
+                    BaseColumns._ID + " ASC")?.use { c ->
+                while (c.moveToNext() && size < WINDOW_SIZE) {
+                    ids[size] = c.getLong(0)
+                    data[size] = c.getString(1)
+                    size++
+                }
+            }
+            if (size < WINDOW_SIZE) {
+                ids = ids.copyOf(size)
+                data = data.copyOf(size)
+            }
+
+            val page = MainPage(sGeneration.incrementAndGet(), startPosition, totalCount, ids, data)
+            page.requestedPosition = target
+            page.dataVersion = version
+            if (previous != null) {
+                page.changes = computeChanges(previous, page)
+            }
+            return page
+        }
+
+        /**
+         * Finds the `_id` of the row at [position] in the whole table of [totalCount] rows. A row
+         * inside our [MainPage] parameter [page] is looked up directly, which is all a scroll
+         * that keeps some of the window needs. Otherwise we seek from the `_id` bound nearest to
+         * [position]: the first or last `_id` of [page], skipping the rows beyond it, or either
+         * end of the table. [position] 0 needs no query at all, we return *null* to start at the
+         * beginning.
+         *
+         * @param page the window we last delivered, which must not be empty, or *null* if its
+         * positions are stale.
+         * @param position the position in the whole table of the row whose `_id` we want.
+         * @param totalCount the number of rows in the whole table.
+         * @return the `_id` of the row at [position], or *null* to start at the beginning (also
+         * if there is no row at [position] any more).
+         */
+        private fun findStartId(page: MainPage?, position: Int, totalCount: Int): Long? {
+            if (position <= 0) {
+                return null
+            }
+            if (page != null && position >= page.startPosition && position < page.endPosition) {
+                return page.ids[position - page.startPosition]
+            }
+            // Skips needed from each end of the table, then from each edge of the window.
+            var selection: String? = null
+            var bound = 0L
+            var sortOrder = BaseColumns._ID + " ASC"
+            var offset = position
+            if (totalCount - 1 - position < offset) {
+                sortOrder = BaseColumns._ID + " DESC"
+                offset = totalCount - 1 - position
+            }
+            if (page != null) {
+                val skip = if (position < page.startPosition) {
+                    page.startPosition - 1 - position
+                } else {
+                    position - page.endPosition
+                }
+                if (skip < offset) {
+                    if (position < page.startPosition) {
+                        selection = BaseColumns._ID + " < ?"
+                        bound = page.ids[0]
+                        sortOrder = BaseColumns._ID + " DESC"
+                    } else {
+                        selection = BaseColumns._ID + " > ?"
+                        bound = page.ids[page.ids.size - 1]
+                        sortOrder = BaseColumns._ID + " ASC"
+                    }
+                    offset = skip
+                }
+            }
+            return queryId(selection, bound, sortOrder, offset)
+        }
+
+        /**
+         * Returns the `_id` of the row [offset] rows into the rows selected by [selection] (with
+         * [id] as its argument) in the order [sortOrder], or *null* if there are not that many.
+         *
+         * @param selection selection of rows, or *null* for the whole table.
+         * @param id argument of [selection].
+         * @param sortOrder order to skip the rows in.
+         * @param offset number of rows to skip.
+         * @return the `_id` of the row found, or *null*.
+         */
+        private fun queryId(selection: String?, id: Long, sortOrder: String, offset: Int): Long? {
+            context.contentResolver.query(limitUri(offset, 1), ID_PROJECTION, selection,
+                    if (selection == null) null else arrayOf(id.toString()), sortOrder)?.use { c ->
+                if (c.moveToFirst()) {
+                    return c.getLong(0)
+                }
+            }
+            return null
+        }
+
+        /**
+         * Returns the number of rows selected by [selection] (with [id] as its argument).
+         *
+         * @param selection selection of rows, or *null* for the whole table.
+         * @param id argument of [selection].
+         * @return the number of rows selected.
+         */
+        private fun count(selection: String?, id: Long): Int {
+            context.contentResolver.query(MainTable.CONTENT_URI, COUNT_PROJECTION, selection,
+                    if (selection == null) null else arrayOf(id.toString()), null)?.use { c ->
+                if (c.moveToFirst()) {
+                    return c.getInt(0)
+                }
+            }
+            return 0
+        }
+
+        /**
+         * Called when there is new data to deliver to the client. We save [page] in our field
+         * [mPage] to be the base of our next load, remember the time, and clear [mTargetPosition]
+         * if [page] was loaded for the position it asks for. Then if we are started we call our
+         * super's implementation of `deliverResult` to do the actual delivering.
+         *
+         * @param page the result of the load
+         */
+        override fun deliverResult(page: MainPage?) {
+            if (isReset) {
+                // An async query came in while the loader is stopped.  We
+                // don't need the result.
+                return
+            }
+            mPage = page
+            mLastDeliveryTime = SystemClock.uptimeMillis()
+            if (page != null && page.requestedPosition != -1) {
+                mTargetPosition.compareAndSet(page.requestedPosition, -1)
+            }
+
+            if (isStarted) {
+                // If the Loader is currently started, we can immediately
+                // deliver its results.
+                super.deliverResult(page)
+            }
+        }
+
+        /**
+         * Handles a request to start the Loader. If we currently hold a window we deliver it
+         * immediately, then if we are not yet observing [MainTable.CONTENT_URI] we register an
+         * observer which increments [mDataVersion] and calls our method [onDataChanged] when it
+         * changes. Finally if our content changed while we were stopped, or we do not hold a
+         * window yet, we force a load.
+         */
+        override fun onStartLoading() {
+            if (mPage != null) {
+                deliverResult(mPage)
+            }
+
+            // Start watching for changes in the data.
+            if (mObserver == null) {
+                val observer = object : ContentObserver(mHandler) {
+                    override fun onChange(selfChange: Boolean) {
+                        mDataVersion.incrementAndGet()
+                        onDataChanged()
+                    }
+                }
+                context.contentResolver.registerContentObserver(MainTable.CONTENT_URI, true, observer)
+                mObserver = observer
+            }
+
+            if (takeContentChanged() || mPage == null) {
+                forceLoad()
+            }
+        }
+
+        /**
+         * Called on the main thread when the data of [MainTable.CONTENT_URI] changes. Unless a
+         * throttled change is already pending we post [mThrottledChange] to run [UPDATE_THROTTLE_MS]
+         * milliseconds after our last delivery (immediately if that time has passed already).
+         */
+        private fun onDataChanged() {
+            if (mChangePending) {
+                return
+            }
+            mChangePending = true
+            val delay = mLastDeliveryTime + UPDATE_THROTTLE_MS - SystemClock.uptimeMillis()
+            mHandler.postDelayed(mThrottledChange, max(0, delay))
+        }
+
+        /**
+         * Handles a request to stop the Loader, we just attempt to cancel the current load.
+         */
+        override fun onStopLoading() {
+            cancelLoad()
+        }
+
+        /**
+         * Handles a request to completely reset the Loader. First we call through to our super's
+         * implementation of `onReset`, then we call our override of [onStopLoading] to cancel the
+         * load, forget the window we hold and any pending throttled change, and if we registered
+         * an observer for [MainTable.CONTENT_URI] we unregister it.
+         */
+        override fun onReset() {
+            super.onReset()
+
+            // Ensure the loader is stopped
+            onStopLoading()
+
+            mPage = null
+            mTargetPosition.set(-1)
+            mHandler.removeCallbacks(mThrottledChange)
+            mChangePending = false
+
+            // Stop monitoring for changes.
+            val observer = mObserver
+            if (observer != null) {
+                context.contentResolver.unregisterContentObserver(observer)
+                mObserver = null
+            }
+        }
+
+        /**
+         * Our static constants and methods.
+         */
+        companion object {
+            /**
+             * Largest number of rows in a window.
+             */
+            const val WINDOW_SIZE = 500
+
+            /**
+             * Number of rows the window must extend beyond the visible rows on each side before
+             * a scroll moves it.
+             */
+            const val WINDOW_MARGIN = WINDOW_SIZE / 5
+
+            /**
+             * Smallest number of milliseconds between the delivery of a window and a reload caused
+             * by a change of the data.
+             */
+            const val UPDATE_THROTTLE_MS = 2000L
+
+            /**
+             * The columns we load for each row of a window.
+             */
+            internal val PROJECTION = arrayOf(BaseColumns._ID, MainTable.COLUMN_NAME_DATA)
+
+            /**
+             * The column we load to seek to a row.
+             */
+            private val ID_PROJECTION = arrayOf(BaseColumns._ID)
+
+            /**
+             * The column we load to count rows.
+             */
+            private val COUNT_PROJECTION = arrayOf(BaseColumns._COUNT)
+
+            /**
+             * Source of the generation numbers of the [MainPage]s we load.
+             */
+            private val sGeneration = AtomicInteger()
+
+            /**
+             * Returns [MainTable.CONTENT_URI] with a query parameter which limits the query to
+             * [count] rows after skipping [offset] rows.
+             *
+             * @param offset number of rows to skip.
+             * @param count largest number of rows to return.
+             * @return the URI to query.
+             */
+            private fun limitUri(offset: Int, count: Int): Uri {
+                return MainTable.CONTENT_URI.buildUpon()
+                        .appendQueryParameter(MainTable.QUERY_PARAMETER_LIMIT, "$offset,$count")
+                        .build()
+            }
+
+            /**
+             * Computes the row level differences between the windows [old] and [new]. Both hold
+             * their rows in ascending `_id` order, so we walk them together like a merge: a row
+             * whose `_id` is only in [old] was removed, one only in [new] was inserted, and one in
+             * both whose data differs was changed.
+             *
+             * @param old the window we delivered before.
+             * @param new the window we just loaded.
+             * @return the changes which turn [old] into [new].
+             */
+            internal fun computeChanges(old: MainPage, new: MainPage): MainPageChanges {
+                val removed = ArrayList<Int>()
+                val inserted = ArrayList<Int>()
+                val changed = ArrayList<Int>()
+                var i = 0
+                var j = 0
+                while (i < old.ids.size || j < new.ids.size) {
+                    when {
+                        j == new.ids.size || (i < old.ids.size && old.ids[i] < new.ids[j]) -> {
+                            removed.add(old.startPosition + i++)
+                        }
+                        i == old.ids.size || new.ids[j] < old.ids[i] -> {
+                            inserted.add(new.startPosition + j++)
+                        }
+                        else -> {
+                            if (old.data[i++] != new.data[j]) {
+                                changed.add(new.startPosition + j)
+                            }
+                            j++
+                        }
+                    }
+                }
+                return MainPageChanges(old.generation, removed.toIntArray(), inserted.toIntArray(),
+                        changed.toIntArray())
+            }
+        }
+    }
+
+    /**
+     * Adapter displaying the rows of the main table held in the [MainPage] windows delivered by
+     * [MainPageLoader]. Our count is the number of rows in the whole table, and rows outside the
+     * window we hold are displayed empty until the loader delivers a window which holds them.
+     *
+     * @param context the [Context] used to inflate our list item views.
+     */
+    class MainPageAdapter(context: Context) : BaseAdapter() {
+        /**
+         * [LayoutInflater] used to inflate our list item views.
+         */
+        private val mInflater: LayoutInflater =
+                context.getSystemService(Context.LAYOUT_INFLATER_SERVICE) as LayoutInflater
+
+        /**
+         * The window we display, *null* if we have none.
+         */
+        private var mPage: MainPage? = null
+
+        /**
+         * Replaces the window we display with [page] and tells our observers that everything
+         * changed.
+         *
+         * @param page the new window, or *null* to display nothing.
+         */
+        fun setData(page: MainPage?) {
+            mPage = page
+            notifyDataSetChanged()
+        }
+
+        /**
+         * Updates the window we display to [page] using its [MainPageChanges] if it has some and
+         * they apply to the window we hold. If no row was inserted or removed and the window and
+         * the table did not move or grow, the positions of the rows did not change, so instead of
+         * telling our observers that everything changed we only rebind the views of the visible
+         * rows in [list] which changed (nothing at all if none of them did). Otherwise we call
+         * [notifyDataSetChanged]. If the changes do not apply we return *false* and the caller
+         * should call [setData].
+         *
+         * @param page a window delivered by our [MainPageLoader].
+         * @param list the [ListView] we are the adapter of.
+         * @return *true* if the changes were applied, *false* if they could not be.
+         */
+        fun applyChanges(page: MainPage, list: ListView): Boolean {
+            val current = mPage
+            val changes = page.changes
+            if (current == null || changes == null || changes.baseGeneration != current.generation) {
+                return false
+            }
+            mPage = page
+            if (!changes.isInPlace || page.startPosition != current.startPosition
+                    || page.totalCount != current.totalCount) {
+                notifyDataSetChanged()
+                return true
+            }
+            val first = list.firstVisiblePosition
+            for (position in changes.changed) {
+                val child = list.getChildAt(position - first) ?: continue
+                getView(position, child, list)
+            }
+            return true
+        }
+
+        /**
+         * How many items are in the data set represented by this Adapter, the number of rows in
+         * the whole table.
+         *
+         * @return Count of items.
+         */
+        override fun getCount(): Int {
+            return mPage?.totalCount ?: 0
+        }
+
+        /**
+         * Get the data item associated with the specified position in the data set, the "data"
+         * column of the row if it is in the window we hold.
+         *
+         * @param position Position of the item whose data we want within the adapter's data set.
+         * @return The data at the specified position, or *null* if we do not hold it.
+         */
+        override fun getItem(position: Int): Any? {
+            return mPage?.getData(position)
+        }
+
+        /**
+         * Get the row id associated with the specified position in the list, the `_id` of the
+         * row if it is in the window we hold.
+         *
+         * @param position The position of the item within the adapter's data set.
+         * @return The `_id` of the row at the specified position, or -1 if we do not hold it.
+         */
+        override fun getItemId(position: Int): Long {
+            return mPage?.getId(position) ?: -1
+        }
+
+        /**
+         * Get a [View] that displays the data at the specified position in the data set. We
+         * recycle [convertView] if it is not *null* or inflate android.R.layout.simple_list_item_1
+         * if it is, and set the text of its android.R.id.text1 [TextView] to the data of the row
+         * (or the empty string if we do not hold the row).
+         *
+         * @param position    The position of the item within the adapter's data set.
+         * @param convertView The old view to reuse, if possible.
+         * @param parent      The parent that this view will eventually be attached to
+         * @return A View corresponding to the data at the specified position.
+         */
+        override fun getView(position: Int, convertView: View?, parent: ViewGroup): View {
+            val view = convertView
+                    ?: mInflater.inflate(android.R.layout.simple_list_item_1, parent, false)
+            (view.findViewById<View>(android.R.id.text1) as TextView).text =
+                    mPage?.getData(position) ?: ""
+            return view
         }
     }
 
     /**
      * This is our content fragment which does all the UI work.
      */
-    class ThrottledLoaderListFragment : ListFragment(), LoaderManager.LoaderCallbacks<Cursor> {
+    class ThrottledLoaderListFragment : ListFragment(), LoaderManager.LoaderCallbacks<MainPage> {
 
         /**
          * This is the Adapter being used to display the list's data.
          */
-        internal lateinit var mAdapter: SimpleCursorAdapter
+        internal lateinit var mAdapter: MainPageAdapter
 
         /**
          * If non-null, this is the current filter the user has provided. (unused legacy of code pasting
@@ -665,15 +1532,12 @@ class LoaderThrottle : AppCompatActivity() {
          * populating the options menu by receiving a call to [onCreateOptionsMenu] and related
          * methods.
          *
-         * Next we initialize our [SimpleCursorAdapter] field [mAdapter] with a new instance of
-         * [SimpleCursorAdapter] (an empty adapter we will use to display the loaded data).
-         * We use the Activity this fragment is currently associated with as the [Context],
-         * the system layout file android.R.layout.simple_list_item_1 for the item layout, *null*
-         * for the [Cursor] (since we will create an assign the cursor later), the single column
-         * MainTable.COLUMN_NAME_DATA for the list of column names representing the data to bind to
-         * the UI, and the single resource ID android.R.id.text1 for the view that the data in the
-         * column should be displayed in. Having created [mAdapter] we use it to provide the
-         * cursor for our `ListView`.
+         * Next we initialize our [MainPageAdapter] field [mAdapter] with a new instance of
+         * [MainPageAdapter] (an empty adapter we will use to display the loaded data) using the
+         * Activity this fragment is currently associated with as the [Context], and use it to
+         * provide the rows for our `ListView`. We set the `OnScrollListener` of our `ListView` to
+         * an anonymous class which tells our [MainPageLoader] which rows are visible whenever the
+         * list scrolls, so that it can move its window to them.
          *
          * Next call `setListShown(false)` in order to start out with a progress indicator.
          * Finally we retrieve the [LoaderManager] for this fragment, (creating it if needed) and
@@ -690,12 +1554,21 @@ class LoaderThrottle : AppCompatActivity() {
 
             // Create an empty adapter we will use to display the loaded data.
 
-            mAdapter = SimpleCursorAdapter(activity!!,
-                    android.R.layout.simple_list_item_1, null,
-                    arrayOf(MainTable.COLUMN_NAME_DATA),
-                    intArrayOf(android.R.id.text1), 0)
+            mAdapter = MainPageAdapter(activity!!)
             listAdapter = mAdapter
 
+            // Move the loader's window to the rows the user scrolls to.
+            listView.setOnScrollListener(object : AbsListView.OnScrollListener {
+                override fun onScrollStateChanged(view: AbsListView, scrollState: Int) {}
+
+                override fun onScroll(view: AbsListView, firstVisibleItem: Int,
+                                      visibleItemCount: Int, totalItemCount: Int) {
+                    @Suppress("DEPRECATION")
+                    val loader = loaderManager.getLoader<MainPage>(0) as MainPageLoader?
+                    loader?.showPositions(firstVisibleItem, visibleItemCount)
+                }
+            })
+
             // Start out with a progress indicator.
             setListShown(false)
 
@@ -711,7 +1584,8 @@ class LoaderThrottle : AppCompatActivity() {
          * POPULATE_ID (Menu.FIRST) for its itemId, 0 for its order, and "Populate" for its
          * title (text to display for the item). We then add a [MenuItem] for the "Clear"
          * function, specifying NONE for its groupId, CLEAR_ID (2) for its itemId, 0 for its
-         * order, and "Clear" for its title. After adding each [MenuItem] we set their flag
+         * order, and "Clear" for its title, and a [MenuItem] for the "Bulk" function with BULK_ID
+         * (3) for its itemId and "Bulk" for its title. After adding each [MenuItem] we set their flag
          * SHOW_AS_ACTION_IF_ROOM (show this item as a button in an Action Bar if the system
          * decides there is room for it.
          *
@@ -724,6 +1598,8 @@ class LoaderThrottle : AppCompatActivity() {
                     .setShowAsAction(MenuItem.SHOW_AS_ACTION_IF_ROOM)
             menu.add(Menu.NONE, CLEAR_ID, 0, "Clear")
                     .setShowAsAction(MenuItem.SHOW_AS_ACTION_IF_ROOM)
+            menu.add(Menu.NONE, BULK_ID, 0, "Bulk")
+                    .setShowAsAction(MenuItem.SHOW_AS_ACTION_IF_ROOM)
         }
 
         /**
@@ -746,6 +1622,11 @@ class LoaderThrottle : AppCompatActivity() {
          *  the `doInBackground`* override using [ContentResolver] `cr` to delete the entire contents
          *  of the MainTable.CONTENT_URI database. We start `task` executing in the background and
          *  return true to the caller to indicate that we consumed the [MenuItem] click here.
+         *  * BULK_ID ("BULK" [MenuItem]) We create an `AsyncTask<Void, Void, Void>` whose
+         *  `doInBackground` override uses [ContentResolver] `cr` to insert BULK_ROWS rows into
+         *  the MainTable.CONTENT_URI database with a single call to `bulkInsert` (one transaction
+         *  and one change notification for all of them), start it executing in the background and
+         *  return true to the caller to indicate that we consumed the [MenuItem] click here.
          *  * default - We return the result returned by our super's implementation of
          *  `onOptionsItemSelected(item)`.
          *
@@ -842,6 +1723,34 @@ class LoaderThrottle : AppCompatActivity() {
                     return true
                 }
 
+                BULK_ID -> {
+                    val task = object : AsyncTask<Void, Void, Void>() {
+                        /**
+                         * This method runs on a background thread when `execute` is called.
+                         * We build an array of BULK_ROWS `ContentValues` holding the strings
+                         * "Bulk 0000" to "Bulk 0999" under the key COLUMN_NAME_DATA ("data")
+                         * and use our `ContentResolver cr` to insert all of them into the
+                         * database controlled by the provider of MainTable.CONTENT_URI with a
+                         * single call to `bulkInsert`, and return null to the caller.
+                         *
+                         * @param params The parameters of the task (we have no parameters so Void
+                         * is used
+                         * @return we have nothing to return, so return null here
+                         */
+                        override fun doInBackground(vararg params: Void): Void? {
+                            val rows = Array(BULK_ROWS) { i ->
+                                val values = ContentValues()
+                                values.put(MainTable.COLUMN_NAME_DATA, String.format(Locale.US, "Bulk %04d", i))
+                                values
+                            }
+                            cr.bulkInsert(MainTable.CONTENT_URI, rows)
+                            return null
+                        }
+                    }
+                    task.execute(null, null)
+                    return true
+                }
+
                 else -> return super.onOptionsItemSelected(item)
             }
         }
@@ -861,40 +1770,33 @@ class LoaderThrottle : AppCompatActivity() {
         }
 
         /**
-         * Instantiate and return a new Loader for the given ID. We create a fully specified cursor
-         * loader [CursorLoader] for the content [Uri] given in [MainTable.CONTENT_URI] to initialize
-         * our variable `val cl`, set the amount to throttle updates to 2000 milliseconds, and return
-         * it to the caller.
+         * Instantiate and return a new Loader for the given ID. We create a [MainPageLoader] (which
+         * loads the window of the main table the user is looking at, and reloads it at most every
+         * 2 seconds when the data changes) and return it to the caller.
          *
          * @param id   The ID whose loader is to be created. (We only use one, so ignore this)
          * @param args Any arguments supplied by the caller. (We do not use arguments)
          * @return Return a new [Loader] instance that is ready to start loading.
          */
-        override fun onCreateLoader(id: Int, args: Bundle?): Loader<Cursor> {
-
-            val cl = CursorLoader(
-                    activity!!,
-                    MainTable.CONTENT_URI,
-                    PROJECTION,
-                    null,
-                    null,
-                    null
-            )
-            cl.setUpdateThrottle(2000) // update at most every 2 seconds.
-            return cl
+        override fun onCreateLoader(id: Int, args: Bundle?): Loader<MainPage> {
+            return MainPageLoader(activity!!)
         }
 
         /**
-         * Called when a previously created loader has finished its load. We swap in the new [Cursor],
-         * then cause our [ListView] to be shown. If the state of the `Fragment` is "Resumed"
+         * Called when a previously created loader has finished its load. We have our adapter apply
+         * the changes the new [MainPage] carries (which only touches the rows which changed) and
+         * if they do not apply to what it holds we set its data to the new [MainPage]. Then we
+         * cause our [ListView] to be shown. If the state of the `Fragment` is "Resumed"
          * we use the call `setListShown(true)` (normal case), and after an orientation change
          * we use the call `setListShownNoAnimation(true)`
          *
          * @param loader The Loader that has finished.
          * @param data   The data generated by the Loader.
          */
-        override fun onLoadFinished(loader: Loader<Cursor>, data: Cursor) {
-            mAdapter.swapCursor(data)
+        override fun onLoadFinished(loader: Loader<MainPage>, data: MainPage) {
+            if (!mAdapter.applyChanges(data, listView)) {
+                mAdapter.setData(data)
+            }
 
             // The list should now be shown.
             if (isResumed) {
@@ -907,13 +1809,13 @@ class LoaderThrottle : AppCompatActivity() {
         /**
          * Called when a previously created loader is being reset, and thus
          * making its data unavailable. The application should at this point
-         * remove any references it has to the Loader's data. We just swap in
-         * a null [Cursor] for our [SimpleCursorAdapter] field [mAdapter] to use.
+         * remove any references it has to the Loader's data. We just set the
+         * data of our [MainPageAdapter] field [mAdapter] to *null*.
          *
          * @param loader The Loader that is being reset.
          */
-        override fun onLoaderReset(loader: Loader<Cursor>) {
-            mAdapter.swapCursor(null)
+        override fun onLoaderReset(loader: Loader<MainPage>) {
+            mAdapter.setData(null)
         }
 
         /**
@@ -930,11 +1832,15 @@ class LoaderThrottle : AppCompatActivity() {
              * Convenience constant for locating the "Clear" menu item
              */
             internal const val CLEAR_ID = Menu.FIRST + 1
+            /**
+             * Convenience constant for locating the "Bulk" menu item
+             */
+            internal const val BULK_ID = Menu.FIRST + 2
 
             /**
-             * These are the rows that we will retrieve.
+             * Number of rows the "Bulk" menu item inserts.
              */
-            internal val PROJECTION = arrayOf(BaseColumns._ID, MainTable.COLUMN_NAME_DATA)
+            internal const val BULK_ROWS = 1000
         }
     }
 
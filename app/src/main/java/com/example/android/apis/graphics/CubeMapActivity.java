@@ -303,7 +303,11 @@ public class CubeMapActivity extends Activity {
         }
 
         /**
-         * Generates a {@code Grid} describing our torus. First we allocate a new {@code Grid grid}
+         * Generates a {@code Grid} describing our torus. First we build a {@code String key} naming
+         * the torus and our parameters and ask {@code MeshCache} for a mesh cached under it by an
+         * earlier call (before the GL context was lost or the activity was recreated). If there is
+         * one we wrap it in a {@code Grid}, call {@code grid.createBufferObjects} to upload it to
+         * new buffer objects, and return that {@code Grid}. Otherwise we allocate a new {@code Grid grid}
          * sized to hold (uSteps+1)*(vSteps+1) vertices. Next we loop using {@code double angleV} to
          * divide the outside radius of the torus into {@code vSteps} segments, calculating the cos
          * {@code cosV} of {@code angleV} and sin {@code sinV} of {@code angleV}. In the inner loop
@@ -313,7 +317,8 @@ public class CubeMapActivity extends Activity {
          * vertex, and the normal vector of the vertex (nx,ny,nz) and we call {@code grid.set} to
          * store these in their appropriate (i,j) places in the Grid's vertex buffer.
          * <p>
-         * When done loading the vertex buffer of {@code Grid grid} we call {@code grid.createBufferObjects}
+         * When done loading the vertex buffer of {@code Grid grid} we cache its buffers in
+         * {@code MeshCache} under {@code key}, then we call {@code grid.createBufferObjects}
          * to load the buffer objects describing our torus into the openGL engine and return {@code grid}
          * to the caller.
          *
@@ -325,6 +330,14 @@ public class CubeMapActivity extends Activity {
          * @return {@code Grid} describing our torus
          */
         private Grid generateTorusGrid(GL gl, int uSteps, int vSteps, float majorRadius, float minorRadius) {
+            String key = "CubeMap.torus " + uSteps + " " + vSteps + " " + majorRadius + " " + minorRadius;
+            MeshCache.Mesh mesh = MeshCache.get(key);
+            if (mesh != null) {
+                Grid grid = new Grid(mesh);
+                grid.createBufferObjects(gl);
+                return grid;
+            }
+
             Grid grid = new Grid(uSteps + 1, vSteps + 1);
             for (int j = 0; j <= vSteps; j++) {
                 double angleV = Math.PI * 2 * j / vSteps;
@@ -351,6 +364,7 @@ public class CubeMapActivity extends Activity {
                     grid.set(i, j, x, y, z, nx, ny, nz);
                 }
             }
+            MeshCache.put(key, grid.toMesh());
             grid.createBufferObjects(gl);
             return grid;
         }
@@ -432,8 +446,9 @@ public class CubeMapActivity extends Activity {
         private int mElementBufferObjectId;
 
         // These buffers are used to hold the vertex and index data while
-        // constructing the grid. Once createBufferObjects() is called
-        // the buffers are nulled out to save memory.
+        // constructing the grid, or hold duplicates of the buffers of a mesh
+        // cached by MeshCache. Once createBufferObjects() is called the
+        // buffers are nulled out to save memory (the cache keeps its own).
 
         /**
          * {@code ByteBuffer} we use to build our vertex and normal vector data in
@@ -447,6 +462,11 @@ public class CubeMapActivity extends Activity {
          * {@code CharBuffer} we use to build our index data array
          */
         private CharBuffer mIndexBuffer;
+        /**
+         * {@code ByteBuffer} underlying {@code CharBuffer mIndexBuffer}, handed to {@code MeshCache}
+         * by {@code toMesh}.
+         */
+        private ByteBuffer mIndexByteBuffer;
 
         /**
          * Width of our {@code Grid} (vertices in one row)
@@ -536,7 +556,8 @@ public class CubeMapActivity extends Activity {
             int quadCount = quadW * quadH;
             int indexCount = quadCount * 6;
             mIndexCount = indexCount;
-            mIndexBuffer = ByteBuffer.allocateDirect(CHAR_SIZE * indexCount).order(ByteOrder.nativeOrder()).asCharBuffer();
+            mIndexByteBuffer = ByteBuffer.allocateDirect(CHAR_SIZE * indexCount).order(ByteOrder.nativeOrder());
+            mIndexBuffer = mIndexByteBuffer.asCharBuffer();
 
             /*
              * Initialize triangle list mesh.
@@ -571,6 +592,33 @@ public class CubeMapActivity extends Activity {
             }
         }
 
+        /**
+         * Our constructor for a {@code Grid} whose vertex and index data have already been
+         * generated and cached in {@code MeshCache}. We just use the duplicated buffers of
+         * {@code mesh} as our vertex and index buffers, restoring the native byte order the
+         * duplicates lost, so {@code createBufferObjects} can upload them. Our {@code set} method
+         * must not be called on such a {@code Grid}.
+         *
+         * @param mesh mesh returned by {@code MeshCache.get}
+         */
+        public Grid(MeshCache.Mesh mesh) {
+            mVertexByteBuffer = mesh.mVertices.order(ByteOrder.nativeOrder());
+            mIndexByteBuffer = mesh.mIndices.order(ByteOrder.nativeOrder());
+            mIndexBuffer = mIndexByteBuffer.asCharBuffer();
+            mIndexCount = mesh.mIndexCount;
+        }
+
+        /**
+         * Returns our vertex and index data as a {@code MeshCache.Mesh} to be cached. Must be
+         * called after the vertices have been {@code set} and before {@code createBufferObjects}
+         * lets go of the buffers.
+         *
+         * @return a {@code MeshCache.Mesh} holding our vertex and index buffers
+         */
+        public MeshCache.Mesh toMesh() {
+            return new MeshCache.Mesh(mVertexByteBuffer, mIndexByteBuffer, mIndexCount);
+        }
+
         /**
          * Stores the vertex coordinate values in the proper places in our {@code FloatBuffer mVertexBuffer}
          * vertex buffer. After making sure our address arguments {@code i} and {@code j} are in range
@@ -658,6 +706,7 @@ public class CubeMapActivity extends Activity {
             mVertexBuffer = null;
             mVertexByteBuffer = null;
             mIndexBuffer = null;
+            mIndexByteBuffer = null;
             checkGLError(gl);
         }
 
@@ -729,8 +778,9 @@ public class CubeMapActivity extends Activity {
     /**
      * Called when the activity is starting. First we call through to our super's implementation of
      * {@code onCreate}. Then we initialize our field {@code GLSurfaceView mGLSurfaceView} with a
-     * new instance of {@code GLSurfaceView}, set its renderer to a new instance of {@code Renderer},
-     * and finally set our content view to {@code mGLSurfaceView}.
+     * new instance of {@code GLSurfaceView}, set its renderer to a new instance of {@code Renderer}
+     * wrapped in a {@code FrameTimeRenderer} which logs histograms of its frame times, and finally
+     * set our content view to {@code mGLSurfaceView}.
      *
      * @param savedInstanceState We do not override {@code onSaveInstanceState} so do not use.
      */
@@ -741,7 +791,7 @@ public class CubeMapActivity extends Activity {
         // Create our surface view and set it as the content of our
         // Activity
         mGLSurfaceView = new GLSurfaceView(this);
-        mGLSurfaceView.setRenderer(new Renderer());
+        mGLSurfaceView.setRenderer(new FrameTimeRenderer("CubeMap", new Renderer()));
         setContentView(mGLSurfaceView);
     }
 
@@ -24,10 +24,15 @@ import android.view.MenuItem;
 import android.view.MotionEvent;
 import android.view.View;
 
+import java.io.File;
+
 /**
  * Shows off some Canvas drawing methods and {@code View.onTouchEvent} usage.
  * {@code ColorPickerDialog} produces a color wheel which is too small
  * TODO: fix size of ColorPickerDialog
+ * <p>
+ * The painting lives on a {@code TiledCanvas}, so it can be far bigger than the screen (and than
+ * memory). Draw with one finger, pan and zoom with two.
  */
 public class FingerPaint extends GraphicsActivity
         implements ColorPickerDialog.OnColorChangedListener {
@@ -102,33 +107,75 @@ public class FingerPaint extends GraphicsActivity
         private static final float MAXP = 0.75f;
 
         /**
-         * {@code Bitmap} which is used to save all lines drawn. It is updated with the latest
-         * {@code Path mPath} in method {@code touch_up} every time we receive the event
-         * MotionEvent.ACTION_UP by drawing to {@code Canvas mCanvas} (which is a {@code Canvas}
-         * created from {@code mBitmap}) and used in our {@code onDraw} override to draw the old
-         * lines before drawing the current {@code Path mPath}.
+         * Smallest zoom factor, which determines the most tiles that can be visible at once.
+         */
+        private static final float MIN_ZOOM = 0.5f;
+        /**
+         * Largest zoom factor.
          */
-        private Bitmap mBitmap;
+        private static final float MAX_ZOOM = 4f;
         /**
-         * {@code Canvas} for the {@code Bitmap mBitmap} created in {@code onSizeChanged} that allows
-         * us to draw into {@code mBitmap}
+         * How far beyond half the stroke width the mask filters of {@code FingerPaint} can spread
+         * a stroke (the blur radius is 8).
+         */
+        private static final float MASK_FILTER_MARGIN = 16;
+
+        /**
+         * {@code TiledCanvas} which is used to save all lines drawn. It is updated with the latest
+         * {@code Path mPath} in method {@code touch_up} every time we receive the event
+         * MotionEvent.ACTION_UP and used in our {@code onDraw} override to draw the old lines
+         * before drawing the current {@code Path mPath}. It is created in {@code onSizeChanged},
+         * and closed in {@code onDetachedFromWindow}.
          */
-        private Canvas mCanvas;
+        private TiledCanvas mTiles;
         /**
          * {@code Path} traced by user's finger, collected from {@code MotionEvent}'s received in our
-         * {@code MyView.onTouchEvent} method.
+         * {@code MyView.onTouchEvent} method, in the coordinates of {@code mTiles}.
          */
         private Path mPath;
         /**
-         * {@code Paint} used to draw {@code Bitmap mBitmap} (the accumulated finger loci tracing)
-         * used in our {@code onDraw} override.
+         * {@code Paint} used to draw the tiles of {@code TiledCanvas mTiles} (the accumulated finger
+         * loci tracing) used in our {@code onDraw} override.
          */
         private Paint mBitmapPaint;
+        /**
+         * Part of {@code mTiles} visible in our view, computed in {@code onDraw}.
+         */
+        private final RectF mVisible = new RectF();
+        /**
+         * Current zoom factor, from MIN_ZOOM to MAX_ZOOM.
+         */
+        private float mScale = 1;
+        /**
+         * X coordinate on {@code mTiles} of the left edge of our view.
+         */
+        private float mOffsetX;
+        /**
+         * Y coordinate on {@code mTiles} of the top edge of our view.
+         */
+        private float mOffsetY;
+        /**
+         * True while two or more fingers pan and zoom, until the last finger is lifted.
+         */
+        private boolean mPinching;
+        /**
+         * X coordinate in our view of the center of the fingers at the last pinch event.
+         */
+        private float mFocusX;
+        /**
+         * Y coordinate in our view of the center of the fingers at the last pinch event.
+         */
+        private float mFocusY;
+        /**
+         * Average distance of the fingers from their center at the last pinch event.
+         */
+        private float mSpan;
 
         /**
          * Basic constructor for {@code MyView}, first we call through to our super's constructor,
          * then we initialize our field {@code Path mPath} with a new instance of {@code Path}, and
-         * our field {@code Paint mBitmapPaint} with a {@code Paint} with the DITHER_FLAG set.
+         * our field {@code Paint mBitmapPaint} with a {@code Paint} with the DITHER_FLAG and the
+         * FILTER_BITMAP_FLAG set (the tiles are scaled when zoomed).
          *
          * @param c {@code Context} to use for resources, "this" {@code FingerPaint} activity when
          *          called from {@code onCreate} in our case
@@ -137,7 +184,7 @@ public class FingerPaint extends GraphicsActivity
             super(c);
 
             mPath = new Path();
-            mBitmapPaint = new Paint(Paint.DITHER_FLAG);
+            mBitmapPaint = new Paint(Paint.DITHER_FLAG | Paint.FILTER_BITMAP_FLAG);
         }
 
         /**
@@ -145,10 +192,12 @@ public class FingerPaint extends GraphicsActivity
          * you were just added to the view hierarchy, you're called with the old
          * values of 0.
          * <p>
-         * First we call through to our super's implementation of {@code onSizeChanged}, then we set
-         * out field {@code Bitmap mBitmap} to a w by h {@code Bitmap} with a config of ARGB_8888.
-         * Finally we set our field {@code Canvas mCanvas} to a canvas that can be used to draw into
-         * the bitmap {@code mBitmap}.
+         * First we call through to our super's implementation of {@code onSizeChanged}, then we
+         * use our method {@code tilesToCover} to calculate how many tiles
+         * {@code TiledCanvas mTiles} needs to keep in memory at the current zoom. If {@code mTiles}
+         * is null we create it to write its evicted tiles to the directory "finger_paint" in our
+         * cache directory and to invalidate us whenever a tile it had to leave out of a draw is
+         * ready, otherwise we have it grow its capacity if needed.
          *
          * @param w    Current width of this view.
          * @param h    Current height of this view.
@@ -158,15 +207,62 @@ public class FingerPaint extends GraphicsActivity
         @Override
         protected void onSizeChanged(int w, int h, int oldw, int oldh) {
             super.onSizeChanged(w, h, oldw, oldh);
-            mBitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
-            mCanvas = new Canvas(mBitmap);
+            int capacity = tilesToCover(w, h);
+            if (mTiles == null) {
+                File directory = new File(getContext().getCacheDir(), "finger_paint");
+                mTiles = new TiledCanvas(directory, capacity, new Runnable() {
+                    @Override
+                    public void run() {
+                        postInvalidate();
+                    }
+                });
+            } else {
+                mTiles.ensureCapacity(capacity);
+            }
+        }
+
+        /**
+         * Returns the number of tiles {@code TiledCanvas mTiles} needs to keep in memory for a w by
+         * h view at the current zoom {@code mScale}: enough columns and rows to cover the view,
+         * plus one as the view rarely lines up with the tiles, plus a ring of one tile on each side
+         * for the margin of a stroke. Each tile is a 256 KiB bitmap, and {@code TiledCanvas} may
+         * allocate a few more to hold tiles while they are written, so on a 1080 by 2000 view the
+         * budget is 88 tiles (about 22 MiB) at the starting zoom of 1. It only grows when the user
+         * zooms out, up to 228 tiles (about 57 MiB) at MIN_ZOOM.
+         *
+         * @param w width of the view
+         * @param h height of the view
+         * @return number of tiles to keep in memory
+         */
+        private int tilesToCover(int w, int h) {
+            int columns = (int) Math.ceil(w / (TiledCanvas.TILE_SIZE * mScale)) + 3;
+            int rows = (int) Math.ceil(h / (TiledCanvas.TILE_SIZE * mScale)) + 3;
+            return columns * rows;
+        }
+
+        /**
+         * This is called when the view is detached from its window. We call our super's
+         * implementation of {@code onDetachedFromWindow}, then close {@code TiledCanvas mTiles}
+         * (which deletes the files of its evicted tiles) and set it to null.
+         */
+        @Override
+        protected void onDetachedFromWindow() {
+            super.onDetachedFromWindow();
+            if (mTiles != null) {
+                mTiles.close();
+                mTiles = null;
+            }
         }
 
         /**
          * We implement this to do our drawing. First we fill the entire {@code Canvas canvas} with
-         * the color 0xFFAAAAAA (a light gray), then we draw {@code Bitmap mBitmap} (our accumulated
-         * finger tracing lines) using {@code Paint mBitmapPaint}, and finally we draw the current
-         * finger loci being built in {@code Path mPath} using {@code Paint mPaint}.
+         * the color 0xFFAAAAAA (a light gray). If {@code TiledCanvas mTiles} is not null we save
+         * the matrix of {@code canvas}, scale it by {@code mScale} and translate it by minus
+         * {@code mOffsetX} and {@code mOffsetY} so that it draws in the coordinates of
+         * {@code mTiles}. We set {@code RectF mVisible} to the part of {@code mTiles} our view
+         * shows, and have {@code mTiles} draw the tiles in it (our accumulated finger tracing lines)
+         * using {@code Paint mBitmapPaint}. Finally we draw the current finger loci being built in
+         * {@code Path mPath} using {@code Paint mPaint}, and restore the matrix of {@code canvas}.
          *
          * @param canvas the canvas on which the background will be drawn
          */
@@ -174,9 +270,17 @@ public class FingerPaint extends GraphicsActivity
         protected void onDraw(Canvas canvas) {
             canvas.drawColor(0xFFAAAAAA);
 
-            canvas.drawBitmap(mBitmap, 0, 0, mBitmapPaint);
+            if (mTiles != null) {
+                canvas.save();
+                canvas.scale(mScale, mScale);
+                canvas.translate(-mOffsetX, -mOffsetY);
+                mVisible.set(mOffsetX, mOffsetY,
+                        mOffsetX + getWidth() / mScale, mOffsetY + getHeight() / mScale);
+                mTiles.draw(canvas, mVisible, mBitmapPaint);
 
-            canvas.drawPath(mPath, mPaint);
+                canvas.drawPath(mPath, mPaint);
+                canvas.restore();
+            }
         }
 
         /**
@@ -208,9 +312,10 @@ public class FingerPaint extends GraphicsActivity
          * Called when our {@code onTouchEvent} override receives a ACTION_MOVE motion event. First
          * we calculate how far the motion event moved {@code dx} from {@code mX} in the x direction
          * and {@code dy} fro {@code mY} in the y direction and if either of these is greater than
-         * or equal to TOUCH_TOLERANCE we add a quadratic bezier from the last point {@code mPath}
-         * was moved to, approaching control point (mX,mY), and ending at the point given by
-         * [(x+mX)/2, (y+mY)/2]. We then save (x,y) in our fields mX and mY respectively.
+         * or equal to TOUCH_TOLERANCE pixels of the screen we add a quadratic bezier from the last
+         * point {@code mPath} was moved to, approaching control point (mX,mY), and ending at the
+         * point given by [(x+mX)/2, (y+mY)/2]. We then save (x,y) in our fields mX and mY
+         * respectively.
          *
          * @param x x coordinate of the {@code MotionEvent}
          * @param y y coordinate of the {@code MotionEvent}
@@ -218,7 +323,8 @@ public class FingerPaint extends GraphicsActivity
         private void touch_move(float x, float y) {
             float dx = Math.abs(x - mX);
             float dy = Math.abs(y - mY);
-            if (dx >= TOUCH_TOLERANCE || dy >= TOUCH_TOLERANCE) {
+            float tolerance = TOUCH_TOLERANCE / mScale;
+            if (dx >= tolerance || dy >= tolerance) {
                 mPath.quadTo(mX, mY, (x + mX) / 2, (y + mY) / 2);
                 mX = x;
                 mY = y;
@@ -228,23 +334,83 @@ public class FingerPaint extends GraphicsActivity
         /**
          * Called when our {@code onTouchEvent} override receives an ACTION_UP motion event. First we
          * add a line to {@code Path mPath} from the last point to the point (mX,mY), then we commit
-         * the {@code Path mPath} to our offscreen {@code Bitmap mBitmap} by writing to it using
-         * {@code Canvas mCanvas}, then we clear all lines and curves from our current finger loci
+         * the {@code Path mPath} to our offscreen {@code TiledCanvas mTiles} by having it draw
+         * {@code mPath} on the tiles it touches (as far as the stroke width and the mask filters
+         * can spread it), then we clear all lines and curves from our current finger loci
          * {@code Path mPath} making it empty.
          */
         private void touch_up() {
             mPath.lineTo(mX, mY);
             // commit the path to our offscreen
-            mCanvas.drawPath(mPath, mPaint);
+            if (mTiles != null) {
+                mTiles.drawPath(mPath, mPaint, mPaint.getStrokeWidth() / 2 + MASK_FILTER_MARGIN);
+            }
             // kill this so we don't double draw
             mPath.reset();
         }
 
+        /**
+         * Called by our {@code onTouchEvent} override for the events of a pan and zoom gesture. We
+         * compute the center of the fingers which are down ({@code focusX}, {@code focusY}),
+         * leaving out the one going up if the action is ACTION_POINTER_UP, and their average
+         * distance from it {@code span}. If the gesture is just starting, or a finger went down or
+         * up (which moves the center without the fingers moving), we only remember them in our
+         * fields {@code mFocusX}, {@code mFocusY} and {@code mSpan}. Otherwise we find the point of
+         * {@code TiledCanvas mTiles} which was under the previous center, multiply {@code mScale} by
+         * how much the span grew (within MIN_ZOOM and MAX_ZOOM), have {@code mTiles} grow its
+         * capacity to what our method {@code tilesToCover} says the new zoom needs (which only
+         * does something when zooming out), and set {@code mOffsetX} and {@code mOffsetY} so that
+         * the point is under the new center, then remember the center and span.
+         *
+         * @param event the {@code MotionEvent} received by {@code onTouchEvent}
+         */
+        private void pinch(MotionEvent event) {
+            int action = event.getActionMasked();
+            int skip = action == MotionEvent.ACTION_POINTER_UP ? event.getActionIndex() : -1;
+            int count = 0;
+            float sumX = 0;
+            float sumY = 0;
+            for (int i = 0; i < event.getPointerCount(); i++) {
+                if (i != skip) {
+                    sumX += event.getX(i);
+                    sumY += event.getY(i);
+                    count++;
+                }
+            }
+            float focusX = sumX / count;
+            float focusY = sumY / count;
+            float span = 0;
+            for (int i = 0; i < event.getPointerCount(); i++) {
+                if (i != skip) {
+                    span += Math.hypot(event.getX(i) - focusX, event.getY(i) - focusY);
+                }
+            }
+            span /= count;
+
+            if (mPinching && action == MotionEvent.ACTION_MOVE) {
+                float x = mOffsetX + mFocusX / mScale;
+                float y = mOffsetY + mFocusY / mScale;
+                if (mSpan > 0 && span > 0) {
+                    mScale = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, mScale * span / mSpan));
+                    if (mTiles != null) {
+                        mTiles.ensureCapacity(tilesToCover(getWidth(), getHeight()));
+                    }
+                }
+                mOffsetX = x - focusX / mScale;
+                mOffsetY = y - focusY / mScale;
+            }
+            mPinching = true;
+            mFocusX = focusX;
+            mFocusY = focusY;
+            mSpan = span;
+        }
+
         /**
          * We implement this method to handle touch screen motion events. First we fetch the x
-         * coordinate of the {@code MotionEvent event} to {@code float x} and the y coordinate of
-         * the {@code MotionEvent event} to {@code float y}. Then we switch based on the action
-         * that is being reported in {@code event}:
+         * coordinate of the {@code MotionEvent event} and convert it to the coordinates of
+         * {@code TiledCanvas mTiles} in {@code float x}, and do the same with the y coordinate in
+         * {@code float y}. Then we switch based on the masked action that is being reported in
+         * {@code event}:
          * <ul>
          * <li>
          * ACTION_DOWN - we call our method {@code touch_start} with the coordinate (x,y) in
@@ -252,16 +418,29 @@ public class FingerPaint extends GraphicsActivity
          * to request that our view be redrawn.
          * </li>
          * <li>
-         * ACTION_MOVE - we call our method {@code touch_move} with the coordinate (x,y) in
+         * ACTION_POINTER_DOWN - a second finger turns the gesture into a pan and zoom, so if we
+         * were not pinching yet we drop the stroke being traced in {@code Path mPath}. Then we call
+         * our method {@code pinch} to start (or update) the pinch, and call {@code invalidate}.
+         * </li>
+         * <li>
+         * ACTION_MOVE - if we are pinching we call our method {@code pinch} to pan and zoom,
+         * otherwise we call our method {@code touch_move} with the coordinate (x,y) in
          * order to draw a bezier curve from the last location to this new location, then
          * call {@code invalidate} to request that our view be redrawn.
          * </li>
          * <li>
-         * ACTION_UP - we call our method {@code touch_up} which finishes {@code Path mPath}
-         * by drawing a line to our last point at (mX,mY), commits {@code mPath} to our
-         * offscreen accumulated finger tracings contained in {@code Bitmap mBitmap} and
-         * empties {@code mPath}, then call {@code invalidate} to request that our view be
-         * redrawn.
+         * ACTION_POINTER_UP - we call our method {@code pinch} to carry on the pinch with the
+         * fingers left.
+         * </li>
+         * <li>
+         * ACTION_UP - if we were not pinching we call our method {@code touch_up} which finishes
+         * {@code Path mPath} by drawing a line to our last point at (mX,mY), commits {@code mPath}
+         * to our offscreen accumulated finger tracings contained in {@code TiledCanvas mTiles}
+         * and empties {@code mPath}. Then we stop pinching and call {@code invalidate} to request
+         * that our view be redrawn.
+         * </li>
+         * <li>
+         * ACTION_CANCEL - we empty {@code mPath}, stop pinching and call {@code invalidate}.
          * </li>
          * </ul>
          * Finally we return true to the caller to indicate that we have consumed the {@code MotionEvent}.
@@ -271,20 +450,43 @@ public class FingerPaint extends GraphicsActivity
          */
         @Override
         public boolean onTouchEvent(MotionEvent event) {
-            float x = event.getX();
-            float y = event.getY();
+            float x = mOffsetX + event.getX() / mScale;
+            float y = mOffsetY + event.getY() / mScale;
 
-            switch (event.getAction()) {
+            switch (event.getActionMasked()) {
                 case MotionEvent.ACTION_DOWN:
+                    mPinching = false;
                     touch_start(x, y);
                     invalidate();
                     break;
+                case MotionEvent.ACTION_POINTER_DOWN:
+                    if (!mPinching) {
+                        mPath.reset();
+                    }
+                    pinch(event);
+                    invalidate();
+                    break;
                 case MotionEvent.ACTION_MOVE:
-                    touch_move(x, y);
+                    if (mPinching) {
+                        pinch(event);
+                    } else {
+                        touch_move(x, y);
+                    }
                     invalidate();
                     break;
+                case MotionEvent.ACTION_POINTER_UP:
+                    pinch(event);
+                    break;
                 case MotionEvent.ACTION_UP:
-                    touch_up();
+                    if (!mPinching) {
+                        touch_up();
+                    }
+                    mPinching = false;
+                    invalidate();
+                    break;
+                case MotionEvent.ACTION_CANCEL:
+                    mPath.reset();
+                    mPinching = false;
                     invalidate();
                     break;
             }
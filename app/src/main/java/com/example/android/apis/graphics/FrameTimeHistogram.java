@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations in nanoseconds with log sized buckets, in the style of HdrHistogram, used
+ * by {@code FrameTimeRenderer} to keep the distribution of frame times instead of just an average.
+ * <p>
+ * Durations below {@code SUB_BUCKET_COUNT} nanoseconds each get a bucket of their own. Above that
+ * every power of two range is split into {@code SUB_BUCKET_COUNT} equal buckets, so the width of a
+ * bucket is never more than 1/32 of the values it holds: percentiles are accurate to about 3% from
+ * nanoseconds up to {@code 2^(MAX_SHIFT + 5)} nanoseconds (about half an hour), and larger values are
+ * counted in the last bucket. Recording a value is a couple of shifts and an array increment and
+ * never allocates, so it is safe to call every frame. Not thread safe, it is meant to be used from
+ * the GL thread only.
+ */
+@SuppressWarnings("WeakerAccess")
+public class FrameTimeHistogram {
+    /**
+     * Number of bits of a value which select its bucket within its power of two range.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+    /**
+     * Number of buckets every power of two range is split into.
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * Largest number of low bits a value can lose when it is put in a bucket.
+     */
+    private static final int MAX_SHIFT = 36;
+
+    /**
+     * Number of values recorded in each bucket.
+     */
+    private final int[] mCounts = new int[SUB_BUCKET_COUNT * (MAX_SHIFT + 2)];
+    /**
+     * Number of values recorded since the last {@code reset}.
+     */
+    private int mCount;
+    /**
+     * Sum of the values recorded since the last {@code reset}.
+     */
+    private long mSum;
+    /**
+     * Largest value recorded since the last {@code reset}.
+     */
+    private long mMax;
+
+    /**
+     * Adds a duration to the histogram. Negative values are recorded as 0.
+     *
+     * @param value duration in nanoseconds
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        mCounts[bucketIndex(value)]++;
+        mCount++;
+        mSum += value;
+        if (value > mMax) {
+            mMax = value;
+        }
+    }
+
+    /**
+     * Throws away everything recorded so far.
+     */
+    public void reset() {
+        Arrays.fill(mCounts, 0);
+        mCount = 0;
+        mSum = 0;
+        mMax = 0;
+    }
+
+    /**
+     * Returns the number of values recorded since the last {@code reset}.
+     *
+     * @return number of values recorded
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Returns the largest value recorded since the last {@code reset}, exactly.
+     *
+     * @return largest value in nanoseconds, 0 if nothing has been recorded
+     */
+    public long getMax() {
+        return mMax;
+    }
+
+    /**
+     * Returns the mean of the values recorded since the last {@code reset}, exactly.
+     *
+     * @return mean value in nanoseconds, 0 if nothing has been recorded
+     */
+    public long getMean() {
+        return mCount == 0 ? 0 : mSum / mCount;
+    }
+
+    /**
+     * Returns the value below or at which {@code percentile} percent of the recorded values lie.
+     * We walk the buckets adding up their counts until we reach the rank of the percentile, and
+     * return the largest value that bucket can hold (but never more than {@code mMax}).
+     *
+     * @param percentile percentile to compute, between 0 and 100
+     * @return value at the percentile in nanoseconds, 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * mCount);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < mCounts.length; i++) {
+            seen += mCounts[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), mMax);
+            }
+        }
+        return mMax;
+    }
+
+    /**
+     * Appends a one line summary of the histogram to {@code StringBuilder builder}: the 50th, 95th
+     * and 99th percentiles and the maximum, in milliseconds with two decimals.
+     *
+     * @param builder {@code StringBuilder} to append to
+     * @return {@code builder}, for chaining
+     */
+    public StringBuilder appendSummary(StringBuilder builder) {
+        builder.append("p50 ");
+        appendMillis(builder, getValueAtPercentile(50));
+        builder.append(" p95 ");
+        appendMillis(builder, getValueAtPercentile(95));
+        builder.append(" p99 ");
+        appendMillis(builder, getValueAtPercentile(99));
+        builder.append(" max ");
+        appendMillis(builder, mMax);
+        builder.append(" ms");
+        return builder;
+    }
+
+    /**
+     * Appends a duration in nanoseconds to {@code StringBuilder builder} as milliseconds with two
+     * decimals, rounded to the nearest hundredth.
+     *
+     * @param builder {@code StringBuilder} to append to
+     * @param nanos   duration in nanoseconds
+     */
+    private static void appendMillis(StringBuilder builder, long nanos) {
+        long hundredths = (nanos + 5000) / 10000;
+        builder.append(hundredths / 100).append('.');
+        long fraction = hundredths % 100;
+        if (fraction < 10) {
+            builder.append('0');
+        }
+        builder.append(fraction);
+    }
+
+    /**
+     * Returns the index in {@code int[] mCounts} of the bucket {@code value} is counted in. Values
+     * below {@code SUB_BUCKET_COUNT} are their own index. For larger values we find the position
+     * of their highest one bit, shift them right so that {@code SUB_BUCKET_BITS + 1} significant
+     * bits remain, and use the amount shifted to pick the power of two range and the remaining bits
+     * below the top one to pick the bucket within it.
+     *
+     * @param value non-negative value
+     * @return index of its bucket
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT) {
+            return SUB_BUCKET_COUNT * (MAX_SHIFT + 2) - 1;
+        }
+        int mantissa = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + (mantissa - SUB_BUCKET_COUNT);
+    }
+
+    /**
+     * Returns the largest value which is counted in the bucket at {@code index}, the inverse of
+     * {@code bucketIndex}.
+     *
+     * @param index index of a bucket
+     * @return largest value counted in that bucket
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        long mantissa = SUB_BUCKET_COUNT + (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
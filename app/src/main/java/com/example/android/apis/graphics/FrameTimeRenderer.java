@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics;
+
+import android.opengl.GLSurfaceView;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * A {@code GLSurfaceView.Renderer} which wraps another renderer and measures its frames, so that
+ * the effect of a change to a renderer can be compared with numbers. For every frame we record the
+ * time since the start of the previous frame (the frame interval, what the user sees) and the time
+ * spent in the {@code onDrawFrame} of the wrapped renderer (the CPU time of the frame on the GL
+ * thread, which does not include the GPU work the driver runs asynchronously) in a
+ * {@code FrameTimeHistogram} each. Every {@code reportInterval} frames we log the 50th, 95th and
+ * 99th percentiles and the maximum of both, also append them to a file if one has been set with
+ * {@code setReportFile}, and start a new window.
+ * <p>
+ * A label can be set with {@code setLabel} to tell apart the frames drawn in different modes of a
+ * renderer: when it changes the window collected so far is reported under the old label and a new
+ * window starts. The frame interval is not recorded across a surface change (or a pause, which
+ * recreates the surface), so the time the activity spent paused does not show up as a long frame.
+ */
+@SuppressWarnings("WeakerAccess")
+public class FrameTimeRenderer implements GLSurfaceView.Renderer {
+    /**
+     * TAG used for logging.
+     */
+    private static final String TAG = "FrameTime";
+    /**
+     * Number of frames in a report window if none is given to our constructor, about ten seconds
+     * at 60 frames per second.
+     */
+    public static final int DEFAULT_REPORT_INTERVAL = 600;
+
+    /**
+     * Name of the wrapped renderer, used in our reports.
+     */
+    private final String mName;
+    /**
+     * The renderer we wrap and measure.
+     */
+    private final GLSurfaceView.Renderer mRenderer;
+    /**
+     * Number of frames in a report window.
+     */
+    private final int mReportInterval;
+    /**
+     * Times between the starts of consecutive frames in the current window.
+     */
+    private final FrameTimeHistogram mIntervals = new FrameTimeHistogram();
+    /**
+     * Times spent in the {@code onDrawFrame} of {@code mRenderer} in the current window.
+     */
+    private final FrameTimeHistogram mDrawTimes = new FrameTimeHistogram();
+    /**
+     * {@code System.nanoTime} at the start of the previous frame, 0 if there was none since the
+     * surface was created or changed (or since the label changed).
+     */
+    private long mLastFrameNanos;
+    /**
+     * Label requested by {@code setLabel}, possibly from another thread.
+     */
+    private volatile String mLabel;
+    /**
+     * Label of the frames in the current window.
+     */
+    private String mWindowLabel;
+    /**
+     * File reports are appended to as well as being logged, null to only log them.
+     */
+    private volatile File mReportFile;
+
+    /**
+     * Wraps a renderer, reporting every {@code DEFAULT_REPORT_INTERVAL} frames.
+     *
+     * @param name     name of the renderer used in our reports
+     * @param renderer renderer to wrap
+     */
+    public FrameTimeRenderer(String name, GLSurfaceView.Renderer renderer) {
+        this(name, renderer, DEFAULT_REPORT_INTERVAL);
+    }
+
+    /**
+     * Wraps a renderer, reporting every {@code reportInterval} frames.
+     *
+     * @param name           name of the renderer used in our reports
+     * @param renderer       renderer to wrap
+     * @param reportInterval number of frames in a report window
+     */
+    public FrameTimeRenderer(String name, GLSurfaceView.Renderer renderer, int reportInterval) {
+        mName = name;
+        mRenderer = renderer;
+        mReportInterval = reportInterval;
+    }
+
+    /**
+     * Sets the label of the frames drawn from now on. Can be called from any thread, it takes
+     * effect at the start of the next frame.
+     *
+     * @param label label of the frames, null for none
+     */
+    public void setLabel(String label) {
+        mLabel = label;
+    }
+
+    /**
+     * Sets a file to append our reports to, one line each, as well as logging them. Can be called
+     * from any thread.
+     *
+     * @param file file to append to, null to only log the reports
+     */
+    public void setReportFile(File file) {
+        mReportFile = file;
+    }
+
+    /**
+     * Called when the surface is created or recreated. We forget the start of the previous frame
+     * and pass the call on to the wrapped renderer.
+     *
+     * @param gl     the GL interface.
+     * @param config the EGL configuration of the created surface.
+     */
+    @Override
+    public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+        mLastFrameNanos = 0;
+        mRenderer.onSurfaceCreated(gl, config);
+    }
+
+    /**
+     * Called when the surface changed size. We forget the start of the previous frame and pass the
+     * call on to the wrapped renderer.
+     *
+     * @param gl     the GL interface.
+     * @param width  width of the surface
+     * @param height height of the surface
+     */
+    @Override
+    public void onSurfaceChanged(GL10 gl, int width, int height) {
+        mLastFrameNanos = 0;
+        mRenderer.onSurfaceChanged(gl, width, height);
+    }
+
+    /**
+     * Called to draw the current frame. If the label has changed we report the window collected
+     * under the old label. We record the time since the start of the previous frame in
+     * {@code mIntervals}, call the {@code onDrawFrame} method of the wrapped renderer and record
+     * the time it took in {@code mDrawTimes}. When the window is full we report it.
+     *
+     * @param gl the GL interface.
+     */
+    @Override
+    public void onDrawFrame(GL10 gl) {
+        String label = mLabel;
+        //noinspection StringEquality
+        if (label != mWindowLabel) {
+            report();
+            mWindowLabel = label;
+            mLastFrameNanos = 0;
+        }
+
+        final long startNanos = System.nanoTime();
+        if (mLastFrameNanos != 0) {
+            mIntervals.record(startNanos - mLastFrameNanos);
+        }
+        mLastFrameNanos = startNanos;
+        mRenderer.onDrawFrame(gl);
+        mDrawTimes.record(System.nanoTime() - startNanos);
+
+        if (mDrawTimes.getCount() >= mReportInterval) {
+            report();
+        }
+    }
+
+    /**
+     * Logs a summary of the current window, appends it to {@code mReportFile} if we have one,
+     * and starts a new window. Does nothing if no frames have been drawn in the current window.
+     */
+    private void report() {
+        if (mDrawTimes.getCount() == 0) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder(mName);
+        if (mWindowLabel != null) {
+            builder.append(" [").append(mWindowLabel).append(']');
+        }
+        builder.append(": ").append(mDrawTimes.getCount()).append(" frames, interval ");
+        mIntervals.appendSummary(builder);
+        builder.append(", draw ");
+        mDrawTimes.appendSummary(builder);
+        String summary = builder.toString();
+        Log.i(TAG, summary);
+
+        File file = mReportFile;
+        if (file != null) {
+            FileWriter writer = null;
+            try {
+                writer = new FileWriter(file, true);
+                writer.write(summary);
+                writer.write('\n');
+            } catch (IOException e) {
+                Log.w(TAG, "Could not write frame times to " + file, e);
+            } finally {
+                if (writer != null) {
+                    try {
+                        writer.close();
+                    } catch (IOException e) {
+                        // Ignore
+                    }
+                }
+            }
+        }
+
+        mIntervals.reset();
+        mDrawTimes.reset();
+    }
+}
@@ -49,7 +49,8 @@ public class GLES20Activity extends Activity {
      * If our device does not support OpenGL ES 2.0 or above we set the renderer of
      * {@code GLSurfaceView mGLSurfaceView} to a new instance of {@code TriangleRenderer}.
      * <p>
-     * In either case we then set our content view to {@code mGLSurfaceView}.
+     * In either case the renderer is wrapped in a {@code FrameTimeRenderer} which logs histograms of
+     * its frame times, and we then set our content view to {@code mGLSurfaceView}.
      *
      * @param savedInstanceState We do not override {@code onSaveInstanceState} so do not use
      */
@@ -61,11 +62,12 @@ public class GLES20Activity extends Activity {
             // Tell the surface view we want to create an OpenGL ES 2.0-compatible
             // context, and set an OpenGL ES 2.0-compatible renderer.
             mGLSurfaceView.setEGLContextClientVersion(2);
-            mGLSurfaceView.setRenderer(new GLES20TriangleRenderer(this));
+            mGLSurfaceView.setRenderer(new FrameTimeRenderer("GLES20Triangle",
+                    new GLES20TriangleRenderer(this)));
         } else {
             // Set an OpenGL ES 1.x-compatible renderer. In a real application
             // this renderer might approximate the same output as the 2.0 renderer.
-            mGLSurfaceView.setRenderer(new TriangleRenderer(this));
+            mGLSurfaceView.setRenderer(new FrameTimeRenderer("Triangle", new TriangleRenderer(this)));
         }
         setContentView(mGLSurfaceView);
     }
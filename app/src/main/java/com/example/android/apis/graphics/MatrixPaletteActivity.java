@@ -33,7 +33,8 @@ public class MatrixPaletteActivity extends Activity {
      * Called when the activity is starting. First we call through to our super's implementation of
      * {@code onCreate}, then we create a new {@code GLSurfaceView} and use it to initialize our field
      * {@code GLSurfaceView mGLSurfaceView}, set its renderer to a new instance of {@code MatrixPaletteRenderer}
-     * and finally set our content view to {@code GLSurfaceView mGLSurfaceView}.
+     * wrapped in a {@code FrameTimeRenderer} which logs histograms of its frame times, and finally
+     * set our content view to {@code GLSurfaceView mGLSurfaceView}.
      *
      * @param savedInstanceState we do not override {@code onSaveInstanceState} so do not use
      */
@@ -41,7 +42,8 @@ public class MatrixPaletteActivity extends Activity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         mGLSurfaceView = new GLSurfaceView(this);
-        mGLSurfaceView.setRenderer(new MatrixPaletteRenderer(this));
+        mGLSurfaceView.setRenderer(new FrameTimeRenderer("MatrixPalette",
+                new MatrixPaletteRenderer(this)));
         setContentView(mGLSurfaceView);
     }
 
@@ -114,8 +114,9 @@ public class MatrixPaletteRenderer implements GLSurfaceView.Renderer {
         private int mElementBufferObjectId;
 
         // These buffers are used to hold the vertex and index data while
-        // constructing the grid. Once createBufferObjects() is called
-        // the buffers are nulled out to save memory.
+        // constructing the grid, or hold duplicates of the buffers of a mesh
+        // cached by MeshCache. Once createBufferObjects() is called the
+        // buffers are nulled out to save memory (the cache keeps its own).
 
         /**
          * {@code ByteBuffer} pointer for the vertex data, allows the vertex data buffer to be
@@ -133,6 +134,11 @@ public class MatrixPaletteRenderer implements GLSurfaceView.Renderer {
          * which we later upload to the GL_ELEMENT_ARRAY_BUFFER GPU VBO for drawing .
          */
         private CharBuffer mIndexBuffer;
+        /**
+         * {@code ByteBuffer} underlying {@code CharBuffer mIndexBuffer}, handed to {@code MeshCache}
+         * by {@code toMesh}.
+         */
+        private ByteBuffer mIndexByteBuffer;
 
         /**
          * Width of our {@code Grid} in number of vertices, set in our constructor.
@@ -214,7 +220,8 @@ public class MatrixPaletteRenderer implements GLSurfaceView.Renderer {
             int quadCount = quadW * quadH;
             int indexCount = quadCount * 6;
             mIndexCount = indexCount;
-            mIndexBuffer = ByteBuffer.allocateDirect(CHAR_SIZE * indexCount).order(ByteOrder.nativeOrder()).asCharBuffer();
+            mIndexByteBuffer = ByteBuffer.allocateDirect(CHAR_SIZE * indexCount).order(ByteOrder.nativeOrder());
+            mIndexBuffer = mIndexByteBuffer.asCharBuffer();
 
             /*
              * Initialize triangle list mesh. (Original comment got this diagram wrong (I think?))
@@ -259,6 +266,33 @@ public class MatrixPaletteRenderer implements GLSurfaceView.Renderer {
 
         }
 
+        /**
+         * Our constructor for a {@code Grid} whose vertex and index data have already been
+         * generated and cached in {@code MeshCache}. We just use the duplicated buffers of
+         * {@code mesh} as our vertex and index buffers, restoring the native byte order the
+         * duplicates lost, so {@code createBufferObjects} can upload them. Our {@code set} method
+         * must not be called on such a {@code Grid}.
+         *
+         * @param mesh mesh returned by {@code MeshCache.get}
+         */
+        public Grid(MeshCache.Mesh mesh) {
+            mVertexByteBuffer = mesh.mVertices.order(ByteOrder.nativeOrder());
+            mIndexByteBuffer = mesh.mIndices.order(ByteOrder.nativeOrder());
+            mIndexBuffer = mIndexByteBuffer.asCharBuffer();
+            mIndexCount = mesh.mIndexCount;
+        }
+
+        /**
+         * Returns our vertex and index data as a {@code MeshCache.Mesh} to be cached. Must be
+         * called after the vertices have been {@code set} and before {@code createBufferObjects}
+         * lets go of the buffers.
+         *
+         * @return a {@code MeshCache.Mesh} holding our vertex and index buffers
+         */
+        public MeshCache.Mesh toMesh() {
+            return new MeshCache.Mesh(mVertexByteBuffer, mIndexByteBuffer, mIndexCount);
+        }
+
         /**
          * Sets the values of a specific vertex in {@code FloatBuffer mVertexBuffer} (aka for byte
          * values: {@code ByteBuffer mVertexByteBuffer}). After making sure our input values are
@@ -366,6 +400,7 @@ public class MatrixPaletteRenderer implements GLSurfaceView.Renderer {
             mVertexBuffer = null;
             mVertexByteBuffer = null;
             mIndexBuffer = null;
+            mIndexByteBuffer = null;
         }
 
         /**
@@ -702,6 +737,12 @@ public class MatrixPaletteRenderer implements GLSurfaceView.Renderer {
      * coordinate space) and {@code vSteps} (number of "steps" in the v texture coordinate space).
      * Then we initialize the {@code radius} of our column to be 0.25 and the {@code height} to be 2.
      * <p>
+     * We build a {@code String key} naming the column and these parameters and ask {@code MeshCache}
+     * for a mesh cached under it by an earlier call (before the GL context was lost or the activity
+     * was recreated). If there is one we wrap it in a {@code Grid}, call {@code grid.createBufferObjects}
+     * to upload it to new buffer objects, and return that {@code Grid}. Otherwise we generate the
+     * column as follows.
+     * <p>
      * Next we initialize {@code Grid grid} to be a {@code Grid} allocated and indexed for the texture
      * space size required for our {@code uSteps} by {@code vSteps} column.
      * <p>
@@ -728,7 +769,8 @@ public class MatrixPaletteRenderer implements GLSurfaceView.Renderer {
      * its texture coordinate assignment (u,v), the weights of the two palette matrices {@code w0}
      * and {@code w1} and the indices of these matrices 0 and 1.
      * <p>
-     * When our loops have finished building our tower {@code Grid grid} we call the method
+     * When our loops have finished building our tower {@code Grid grid} we cache its buffers in
+     * {@code MeshCache} under {@code key}, then we call the method
      * {@code grid.createBufferObjects} to load the information contained in its {@code mVertexBuffer}
      * and {@code mIndexBuffer} into the openGL buffer object data store.
      * <p>
@@ -746,6 +788,14 @@ public class MatrixPaletteRenderer implements GLSurfaceView.Renderer {
 
         float radius = 0.25f;
         float height = 2.0f;
+        String key = "MatrixPalette.column " + uSteps + " " + vSteps + " " + radius + " " + height;
+        MeshCache.Mesh mesh = MeshCache.get(key);
+        if (mesh != null) {
+            Grid grid = new Grid(mesh);
+            grid.createBufferObjects(gl);
+            return grid;
+        }
+
         Grid grid = new Grid(uSteps + 1, vSteps + 1);
 
         for (int j = 0; j <= vSteps; j++) {
@@ -762,6 +812,7 @@ public class MatrixPaletteRenderer implements GLSurfaceView.Renderer {
             }
         }
 
+        MeshCache.put(key, grid.toMesh());
         grid.createBufferObjects(gl);
         return grid;
     }
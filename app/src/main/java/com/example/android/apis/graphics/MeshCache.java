@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process wide cache of generated meshes, so that the renderers which build their vertex and index
+ * data procedurally ({@code MatrixPaletteRenderer} and {@code CubeMapActivity}) do not have to
+ * generate it again every time their {@code onSurfaceCreated} is called. The GL context, and with
+ * it every buffer object, is lost when the device goes to sleep or the activity is paused, but the
+ * direct {@code ByteBuffer}s a mesh was built in live on the native heap and survive both that and
+ * the activity being recreated (a rotation for instance), so a recreated surface only has to upload
+ * them to new buffer objects.
+ * <p>
+ * Meshes are keyed by a string naming the generator and every parameter it was called with. The
+ * cache holds up to {@code MAX_BYTES} of buffers and drops the least recently used meshes beyond
+ * that. The cached buffers must be treated as read only; {@code get} hands out duplicates so that
+ * the position of a cached buffer is never moved by two GL threads (an old activity's and a new
+ * one's) at once. All methods are synchronized as they can be called from any GL thread.
+ */
+final class MeshCache {
+    /**
+     * Largest number of bytes of vertex and index data we keep.
+     */
+    private static final int MAX_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * The cached meshes in least recently used first order.
+     */
+    private static final LinkedHashMap<String, Mesh> sMeshes =
+            new LinkedHashMap<String, Mesh>(16, 0.75f, true);
+    /**
+     * Number of bytes of vertex and index data held in {@code sMeshes}.
+     */
+    private static int sBytes;
+
+    /**
+     * The vertex and index data of a generated mesh, in the direct buffers it was built in.
+     */
+    static final class Mesh {
+        /**
+         * Vertex data, in whatever layout the generator uses.
+         */
+        final ByteBuffer mVertices;
+        /**
+         * Index data, unsigned shorts in native order.
+         */
+        final ByteBuffer mIndices;
+        /**
+         * Number of indices in {@code mIndices}.
+         */
+        final int mIndexCount;
+
+        /**
+         * Our constructor, we just save our parameters in our fields.
+         *
+         * @param vertices   vertex data
+         * @param indices    index data
+         * @param indexCount number of indices in {@code indices}
+         */
+        Mesh(ByteBuffer vertices, ByteBuffer indices, int indexCount) {
+            mVertices = vertices;
+            mIndices = indices;
+            mIndexCount = indexCount;
+        }
+
+        /**
+         * Returns the number of bytes of data held by this mesh.
+         *
+         * @return capacity of the vertex buffer plus the capacity of the index buffer
+         */
+        int byteCount() {
+            return mVertices.capacity() + mIndices.capacity();
+        }
+    }
+
+    /**
+     * Not instantiable, we only have static methods.
+     */
+    private MeshCache() {
+    }
+
+    /**
+     * Returns the mesh cached under {@code key}, or null if there is none. The buffers of the
+     * returned {@code Mesh} are duplicates of the cached ones rewound to 0, sharing their contents
+     * but with positions of their own. Note that a duplicate has big endian byte order whatever
+     * the order of the original, so views that depend on it must set the order again.
+     *
+     * @param key key naming the generator and its parameters
+     * @return the cached mesh or null
+     */
+    static synchronized Mesh get(String key) {
+        Mesh mesh = sMeshes.get(key);
+        if (mesh == null) {
+            return null;
+        }
+        ByteBuffer vertices = mesh.mVertices.duplicate();
+        vertices.position(0);
+        ByteBuffer indices = mesh.mIndices.duplicate();
+        indices.position(0);
+        return new Mesh(vertices, indices, mesh.mIndexCount);
+    }
+
+    /**
+     * Caches {@code mesh} under {@code key}, replacing any mesh already cached under it, then
+     * drops least recently used meshes until we hold no more than {@code MAX_BYTES}. The caller
+     * must not write to the buffers of {@code mesh} after this.
+     *
+     * @param key  key naming the generator and its parameters
+     * @param mesh the generated mesh
+     */
+    static synchronized void put(String key, Mesh mesh) {
+        Mesh old = sMeshes.put(key, mesh);
+        if (old != null) {
+            sBytes -= old.byteCount();
+        }
+        sBytes += mesh.byteCount();
+
+        Iterator<Map.Entry<String, Mesh>> it = sMeshes.entrySet().iterator();
+        while (sBytes > MAX_BYTES && it.hasNext()) {
+            Mesh eldest = it.next().getValue();
+            if (eldest == mesh) {
+                continue;
+            }
+            sBytes -= eldest.byteCount();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.LightingColorFilter;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * The painting surface of {@code TouchPaint.PaintView}, split into square tiles of
+ * {@code TILE_SIZE} pixels instead of one bitmap the size of the view. A tile's bitmap is only
+ * allocated the first time something is drawn on it, and until then the tile is the background
+ * color. Every tile has its own {@code Canvas}, translated so that drawing on it uses view
+ * coordinates; a stroke is drawn on each of the tiles its bounds touch (as selected by
+ * {@code select}), and the tile bitmaps clip away whatever falls outside them.
+ * <p>
+ * Compositing only touches the tiles which intersect the clip of the view's canvas, so with
+ * software rendering an invalidate of a small dirty rect copies a few tiles instead of the whole
+ * surface. With hardware acceleration every tile is drawn, but only the bitmaps which changed
+ * since the last frame are uploaded to textures again. Growing the surface keeps the existing
+ * tiles where they are, so no pixels are copied.
+ * <p>
+ * The painting fades towards the background color one step at a time, each step blending
+ * {@code fadeAlpha} of the background over it. Rather than blending every pixel of the surface at
+ * each step, {@code fade} only advances a clock, and every tile remembers the step its pixels were
+ * last brought up to date at. The steps a tile is behind are applied when it is composited, by
+ * drawing its bitmap through a {@code LightingColorFilter} (a shader on the GPU), and written into
+ * its pixels with a single blend only when it is drawn on again. A tile stops fading
+ * {@code maxFadeSteps} steps after it was last drawn on.
+ */
+final class PaintTiles {
+    /**
+     * Width and height of a tile in pixels.
+     */
+    static final int TILE_SIZE = 256;
+
+    /**
+     * Color of the surface where nothing has been drawn.
+     */
+    private final int mBackground;
+    /**
+     * {@code Paint} used to fill the tiles which have no bitmap yet with {@code mBackground}.
+     */
+    private final Paint mBackgroundPaint = new Paint();
+    /**
+     * Alpha of the background blended over the painting at each fade step.
+     */
+    private final int mFadeAlpha;
+    /**
+     * Number of fade steps after which a tile stops fading.
+     */
+    private final int mMaxFadeSteps;
+    /**
+     * {@code ColorFilter} applying {@code n} fade steps at index {@code n}, created as needed.
+     */
+    private final ColorFilter[] mFadeFilters;
+    /**
+     * {@code Paint} used to draw the bitmap of a tile through one of {@code mFadeFilters}.
+     */
+    private final Paint mFadePaint = new Paint();
+    /**
+     * Number of fade steps taken so far, the clock the tiles' stamps are read against.
+     */
+    private int mFadeStep;
+    /**
+     * Width of the surface in pixels.
+     */
+    private int mWidth;
+    /**
+     * Height of the surface in pixels.
+     */
+    private int mHeight;
+    /**
+     * Number of columns of tiles.
+     */
+    private int mColumns;
+    /**
+     * Number of rows of tiles.
+     */
+    private int mRows;
+    /**
+     * Bitmap of each tile in row major order, null for a tile nothing has been drawn on.
+     */
+    private Bitmap[] mBitmaps = new Bitmap[0];
+    /**
+     * {@code Canvas} drawing on the bitmap of the same index in {@code mBitmaps}.
+     */
+    private Canvas[] mCanvases = new Canvas[0];
+    /**
+     * Value of {@code mFadeStep} when the pixels of the tile of the same index were last brought
+     * up to date.
+     */
+    private int[] mStamps = new int[0];
+
+    /**
+     * Our constructor. We save our parameter {@code background} in our field {@code mBackground}
+     * and set the color of {@code mBackgroundPaint} to it, save the fade parameters and allocate
+     * {@code mFadeFilters} to hold a filter for every number of steps up to {@code maxFadeSteps},
+     * then call our method {@code resize} to size the grid of tiles to cover {@code width} by
+     * {@code height} pixels.
+     *
+     * @param width        width of the surface in pixels
+     * @param height       height of the surface in pixels
+     * @param background   color of the surface where nothing has been drawn
+     * @param fadeAlpha    alpha of the background blended over the painting at each fade step
+     * @param maxFadeSteps number of fade steps after which a tile stops fading
+     */
+    PaintTiles(int width, int height, int background, int fadeAlpha, int maxFadeSteps) {
+        mBackground = background;
+        mBackgroundPaint.setColor(background);
+        mFadeAlpha = fadeAlpha;
+        mMaxFadeSteps = maxFadeSteps;
+        mFadeFilters = new ColorFilter[maxFadeSteps + 1];
+        resize(width, height);
+    }
+
+    /**
+     * Grows the surface to at least {@code width} by {@code height} pixels, it never shrinks (just
+     * like the single bitmap {@code TouchPaint} used to keep, so that rotating back and forth does
+     * not lose the painting). If more columns or rows of tiles are needed we allocate larger arrays
+     * and move every existing tile to its index in the new grid, the tiles themselves (and their
+     * pixels) stay as they are.
+     *
+     * @param width  new minimum width of the surface in pixels
+     * @param height new minimum height of the surface in pixels
+     */
+    void resize(int width, int height) {
+        mWidth = Math.max(mWidth, width);
+        mHeight = Math.max(mHeight, height);
+        int columns = (mWidth + TILE_SIZE - 1) / TILE_SIZE;
+        int rows = (mHeight + TILE_SIZE - 1) / TILE_SIZE;
+        if (columns == mColumns && rows == mRows) {
+            return;
+        }
+        Bitmap[] bitmaps = new Bitmap[columns * rows];
+        Canvas[] canvases = new Canvas[columns * rows];
+        int[] stamps = new int[columns * rows];
+        for (int row = 0; row < mRows; row++) {
+            System.arraycopy(mBitmaps, row * mColumns, bitmaps, row * columns, mColumns);
+            System.arraycopy(mCanvases, row * mColumns, canvases, row * columns, mColumns);
+            System.arraycopy(mStamps, row * mColumns, stamps, row * columns, mColumns);
+        }
+        mBitmaps = bitmaps;
+        mCanvases = canvases;
+        mStamps = stamps;
+        mColumns = columns;
+        mRows = rows;
+    }
+
+    /**
+     * Returns the width of the surface.
+     *
+     * @return width of the surface in pixels
+     */
+    int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * Returns the height of the surface.
+     *
+     * @return height of the surface in pixels
+     */
+    int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Returns the number of tiles, which is the size an array passed to {@code select} needs.
+     *
+     * @return number of tiles in the grid
+     */
+    int getTileCount() {
+        return mColumns * mRows;
+    }
+
+    /**
+     * Returns the {@code Canvas} drawing on the tile at {@code index}, in view coordinates. If the
+     * tile has no bitmap yet we create one filled with {@code mBackground} and a {@code Canvas}
+     * for it translated by minus the position of the tile. If it has one which is behind the fade
+     * clock we first blend the background over it with the alpha of all the steps it is behind at
+     * once, so that what is drawn next starts fading from full strength. Either way the stamp of
+     * the tile is set to the current step.
+     *
+     * @param index index of the tile
+     * @return {@code Canvas} drawing on the tile
+     */
+    Canvas getCanvas(int index) {
+        Canvas canvas = mCanvases[index];
+        if (canvas == null) {
+            Bitmap bitmap = Bitmap.createBitmap(TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888);
+            bitmap.eraseColor(mBackground);
+            canvas = new Canvas(bitmap);
+            canvas.translate(-getLeft(index), -getTop(index));
+            mBitmaps[index] = bitmap;
+            mCanvases[index] = canvas;
+        } else {
+            int steps = getFadeSteps(index);
+            if (steps > 0) {
+                float remaining = fadeFactor(mFadeAlpha, steps);
+                int alpha = Math.round((1 - remaining) * 255);
+                canvas.drawColor((alpha << 24) | (mBackground & 0x00ffffff));
+            }
+        }
+        mStamps[index] = mFadeStep;
+        return canvas;
+    }
+
+    /**
+     * Returns the number of fade steps the pixels of the tile at {@code index} are behind, which is
+     * never more than {@code mMaxFadeSteps}.
+     *
+     * @param index index of the tile
+     * @return number of fade steps still to apply to the tile
+     */
+    private int getFadeSteps(int index) {
+        return Math.min(mFadeStep - mStamps[index], mMaxFadeSteps);
+    }
+
+    /**
+     * Takes one fade step. We advance the fade clock {@code mFadeStep}, and add the bounds of every
+     * tile which has a bitmap and has not finished fading (and so looks different after this step)
+     * to {@code Rect dirty}. No pixels are touched.
+     *
+     * @param dirty receives the bounds of the tiles which need to be composited again
+     */
+    void fade(Rect dirty) {
+        mFadeStep++;
+        for (int i = 0; i < mBitmaps.length; i++) {
+            if (mBitmaps[i] != null && mFadeStep - mStamps[i] <= mMaxFadeSteps) {
+                int left = getLeft(i);
+                int top = getTop(i);
+                dirty.union(left, top, left + TILE_SIZE, top + TILE_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Returns the {@code ColorFilter} which applies {@code steps} fade steps to the colors it
+     * filters, creating it the first time it is asked for. Blending the background {@code b} over
+     * a color {@code c} {@code steps} times leaves {@code c * f + b * (1 - f)} in each channel,
+     * where {@code f} is the factor returned by {@code fadeFactor}, which is exactly what a
+     * {@code LightingColorFilter} computes with {@code f} as its multiplier and {@code b * (1 - f)}
+     * as what it adds.
+     *
+     * @param steps number of fade steps, from 1 to {@code mMaxFadeSteps}
+     * @return filter applying {@code steps} fade steps
+     */
+    private ColorFilter getFadeFilter(int steps) {
+        ColorFilter filter = mFadeFilters[steps];
+        if (filter == null) {
+            float remaining = fadeFactor(mFadeAlpha, steps);
+            int mul = Math.round(remaining * 255);
+            int add = Math.round((1 - remaining) * 255);
+            filter = new LightingColorFilter(Color.rgb(mul, mul, mul),
+                    Color.rgb(Color.red(mBackground) * add / 255,
+                            Color.green(mBackground) * add / 255,
+                            Color.blue(mBackground) * add / 255));
+            mFadeFilters[steps] = filter;
+        }
+        return filter;
+    }
+
+    /**
+     * Returns the fraction of the original color left after blending a color with alpha
+     * {@code fadeAlpha} over it {@code steps} times.
+     *
+     * @param fadeAlpha alpha blended at each step, from 0 to 255
+     * @param steps     number of steps
+     * @return fraction of the original color left, from 0 to 1
+     */
+    static float fadeFactor(int fadeAlpha, int steps) {
+        return (float) Math.pow(1 - fadeAlpha / 255.0, steps);
+    }
+
+    /**
+     * Returns the X coordinate of the left edge of the tile at {@code index}.
+     *
+     * @param index index of the tile
+     * @return left edge of the tile in view coordinates
+     */
+    int getLeft(int index) {
+        return (index % mColumns) * TILE_SIZE;
+    }
+
+    /**
+     * Returns the Y coordinate of the top edge of the tile at {@code index}.
+     *
+     * @param index index of the tile
+     * @return top edge of the tile in view coordinates
+     */
+    int getTop(int index) {
+        return (index / mColumns) * TILE_SIZE;
+    }
+
+    /**
+     * Stores the indices of the tiles which intersect {@code Rect bounds} in {@code int[] out}
+     * and returns how many there are. See {@code selectTiles}.
+     *
+     * @param bounds rectangle in view coordinates
+     * @param out    receives the indices, must hold at least {@code getTileCount()} entries
+     * @return number of indices stored in {@code out}
+     */
+    int select(Rect bounds, int[] out) {
+        return selectTiles(bounds.left, bounds.top, bounds.right, bounds.bottom,
+                mColumns, mRows, out);
+    }
+
+    /**
+     * Stores the indices of the tiles of a grid of {@code columns} by {@code rows} tiles which
+     * intersect the rectangle {@code (left, top, right, bottom)} in {@code int[] out}, in row
+     * major order, and returns how many there are. We first clamp the rectangle to the grid, so
+     * parts of the rectangle outside the surface are ignored, then divide its edges by the size of
+     * a tile to find the range of columns and rows it covers.
+     *
+     * @param left    left edge of the rectangle
+     * @param top     top edge of the rectangle
+     * @param right   right edge of the rectangle, exclusive
+     * @param bottom  bottom edge of the rectangle, exclusive
+     * @param columns number of columns of tiles
+     * @param rows    number of rows of tiles
+     * @param out     receives the indices
+     * @return number of indices stored in {@code out}
+     */
+    static int selectTiles(int left, int top, int right, int bottom, int columns, int rows,
+                           int[] out) {
+        left = Math.max(left, 0);
+        top = Math.max(top, 0);
+        right = Math.min(right, columns * TILE_SIZE);
+        bottom = Math.min(bottom, rows * TILE_SIZE);
+        if (left >= right || top >= bottom) {
+            return 0;
+        }
+        int firstColumn = left / TILE_SIZE;
+        int lastColumn = (right - 1) / TILE_SIZE;
+        int firstRow = top / TILE_SIZE;
+        int lastRow = (bottom - 1) / TILE_SIZE;
+        int count = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                out[count++] = row * columns + column;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the surface to the background color by dropping the bitmaps of all the tiles.
+     */
+    void clear() {
+        for (int i = 0; i < mBitmaps.length; i++) {
+            if (mBitmaps[i] != null) {
+                mBitmaps[i].recycle();
+                mBitmaps[i] = null;
+                mCanvases[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Draws the tiles which intersect {@code Rect clip} on {@code Canvas canvas}, the bitmap of
+     * each tile that has one and a rectangle of the background color for the others. The bitmap of
+     * a tile which is behind the fade clock is drawn through the filter applying the steps it is
+     * behind.
+     *
+     * @param canvas {@code Canvas} of the view
+     * @param clip   the clip bounds of {@code canvas}, in view coordinates
+     * @param tiles  scratch array holding at least {@code getTileCount()} entries
+     */
+    void draw(Canvas canvas, Rect clip, int[] tiles) {
+        int count = select(clip, tiles);
+        for (int i = 0; i < count; i++) {
+            int index = tiles[i];
+            int left = getLeft(index);
+            int top = getTop(index);
+            Bitmap bitmap = mBitmaps[index];
+            if (bitmap != null) {
+                int steps = getFadeSteps(index);
+                if (steps > 0) {
+                    mFadePaint.setColorFilter(getFadeFilter(steps));
+                    canvas.drawBitmap(bitmap, left, top, mFadePaint);
+                } else {
+                    canvas.drawBitmap(bitmap, left, top, null);
+                }
+            } else {
+                canvas.drawRect(left, top, left + TILE_SIZE, top + TILE_SIZE, mBackgroundPaint);
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics;
+
+/**
+ * Generates the specks of paint of one airbrush splat of {@code TouchPaint}, all at once into a
+ * reusable {@code float[]} of (x, y) pairs which can be drawn with a single {@code drawPoints}
+ * call. The model is the one {@code TouchPaint} has always used: random vectors describing the
+ * flow of paint from a round nozzle across a range of a few degrees are turned by the orientation
+ * and tilt of the tool and followed to where they hit the surface.
+ * <p>
+ * It is written to be cheap enough to run for every historical sample of every move event. The
+ * sines and cosines of the orientation and tilt are computed once per splat rather than once per
+ * speck, the direction of a speck is an index into precomputed sine and cosine tables instead of
+ * a random angle, and the random numbers come from an xorshift generator held in a {@code long}
+ * rather than from {@code java.util.Random} (whose {@code nextGaussian} needs a logarithm and a
+ * square root). Nothing is allocated after construction. It does not depend on the Android
+ * framework, so it can be benchmarked on the desktop JVM.
+ */
+final class SplatGenerator {
+    /**
+     * Number of random splat vectors generated for each splat.
+     */
+    static final int SPLAT_VECTORS = 40;
+
+    /**
+     * Number of bits of a random number used to choose the direction of a speck.
+     */
+    private static final int DIRECTION_BITS = 10;
+    /**
+     * Number of directions in {@code SIN} and {@code COS}.
+     */
+    private static final int DIRECTIONS = 1 << DIRECTION_BITS;
+    /**
+     * Sine of each of the {@code DIRECTIONS} directions spread evenly around the circle.
+     */
+    private static final float[] SIN = new float[DIRECTIONS];
+    /**
+     * Cosine of each of the {@code DIRECTIONS} directions spread evenly around the circle.
+     */
+    private static final float[] COS = new float[DIRECTIONS];
+
+    static {
+        for (int i = 0; i < DIRECTIONS; i++) {
+            double angle = i * Math.PI * 2 / DIRECTIONS;
+            SIN[i] = (float) Math.sin(angle);
+            COS[i] = (float) Math.cos(angle);
+        }
+    }
+
+    /**
+     * Standard deviation of the dispersion of the specks around the axis of the nozzle.
+     */
+    private static final float DISPERSION = 0.2f;
+    /**
+     * Mean of the sum of the eight bytes of a random {@code long}.
+     */
+    private static final float BYTE_SUM_MEAN = 8 * 255 / 2f;
+    /**
+     * One over the standard deviation of the sum of the eight bytes of a random {@code long}.
+     */
+    private static final float BYTE_SUM_SCALE = (float) (1 / Math.sqrt(8 * (256.0 * 256 - 1) / 12));
+
+    /**
+     * State of our xorshift random number generator, never 0.
+     */
+    private long mState;
+    /**
+     * The (x, y) pairs of the specks of the last splat.
+     */
+    private final float[] mPoints = new float[SPLAT_VECTORS * 2];
+    /**
+     * Smallest X coordinate of the specks of the last splat.
+     */
+    private float mLeft;
+    /**
+     * Smallest Y coordinate of the specks of the last splat.
+     */
+    private float mTop;
+    /**
+     * Largest X coordinate of the specks of the last splat.
+     */
+    private float mRight;
+    /**
+     * Largest Y coordinate of the specks of the last splat.
+     */
+    private float mBottom;
+
+    /**
+     * Our constructor, we seed our random number generator from {@code System.nanoTime}.
+     */
+    SplatGenerator() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * Our constructor, we seed our random number generator with {@code seed}, replacing 0 (which
+     * xorshift would never leave) by 1.
+     *
+     * @param seed seed of the random number generator
+     */
+    SplatGenerator(long seed) {
+        mState = seed != 0 ? seed : 1;
+    }
+
+    /**
+     * Generates the specks of a splat into the array returned by {@code getPoints}, and their
+     * bounds. First we compute where the axis of the nozzle hits the surface from the orientation
+     * and tilt of the tool (if it is held almost flat against the surface no paint lands and we
+     * return 0). Then for each of SPLAT_VECTORS random vectors we take a direction from our sine and
+     * cosine tables and a normally distributed dispersion, apply the nozzle tilt and orientation
+     * angles to the vector, and store where it hits the surface relative to the center of the
+     * spray, skipping vectors which would not hit it.
+     *
+     * @param x           X coordinate of the center of the splatter
+     * @param y           Y coordinate of the center of the splatter
+     * @param orientation orientation of the tool in radians clockwise from vertical
+     * @param distance    distance of the tool from the surface
+     * @param tilt        tilt of the tool in radians, 0 when perpendicular to the surface
+     * @return number of floats stored in the array returned by {@code getPoints}, twice the number
+     * of specks
+     */
+    int generate(float x, float y, float orientation, float distance, float tilt) {
+        float z = distance * 2 + 10;
+        float sinO = (float) Math.sin(orientation);
+        float cosO = (float) Math.cos(orientation);
+        float sinT = (float) Math.sin(tilt);
+        float cosT = (float) Math.cos(tilt);
+
+        // Calculate the center of the spray.
+        if (cosT < 0.05f) {
+            return 0;
+        }
+        float cd = z / cosT;
+        float cx = sinO * sinT * cd;
+        float cy = -cosO * sinT * cd;
+
+        float[] points = mPoints;
+        int count = 0;
+        float left = Float.MAX_VALUE;
+        float top = Float.MAX_VALUE;
+        float right = -Float.MAX_VALUE;
+        float bottom = -Float.MAX_VALUE;
+        for (int i = 0; i < SPLAT_VECTORS; i++) {
+            // Make a random 2D vector that describes the direction of a speck of paint
+            // ejected by the nozzle in the nozzle's plane, assuming the tool is
+            // perpendicular to the surface.
+            int direction = (int) (nextLong() >>> (64 - DIRECTION_BITS));
+            float dispersion = nextGaussian() * DISPERSION;
+            float vx = COS[direction] * dispersion;
+            float vy = SIN[direction] * dispersion;
+
+            // Apply the nozzle tilt angle.
+            float vz = vy * sinT + cosT;
+            vy = vy * cosT - sinT;
+
+            // Determine where the paint will hit the surface.
+            if (vz < 0.05f) {
+                continue;
+            }
+            float pd = z / vz;
+
+            // Apply the nozzle orientation angle, and throw some paint at this location,
+            // relative to the center of the spray.
+            float sx = x + (vx * cosO - vy * sinO) * pd - cx;
+            float sy = y + (vx * sinO + vy * cosO) * pd - cy;
+            points[count++] = sx;
+            points[count++] = sy;
+            left = Math.min(left, sx);
+            top = Math.min(top, sy);
+            right = Math.max(right, sx);
+            bottom = Math.max(bottom, sy);
+        }
+        mLeft = left;
+        mTop = top;
+        mRight = right;
+        mBottom = bottom;
+        return count;
+    }
+
+    /**
+     * Returns the array holding the (x, y) pairs of the specks of the last splat, which is reused
+     * by the next call to {@code generate}.
+     *
+     * @return the points of the last splat
+     */
+    float[] getPoints() {
+        return mPoints;
+    }
+
+    /**
+     * Returns the smallest X coordinate of the specks of the last splat.
+     *
+     * @return left edge of the bounds of the last splat
+     */
+    float getLeft() {
+        return mLeft;
+    }
+
+    /**
+     * Returns the smallest Y coordinate of the specks of the last splat.
+     *
+     * @return top edge of the bounds of the last splat
+     */
+    float getTop() {
+        return mTop;
+    }
+
+    /**
+     * Returns the largest X coordinate of the specks of the last splat.
+     *
+     * @return right edge of the bounds of the last splat
+     */
+    float getRight() {
+        return mRight;
+    }
+
+    /**
+     * Returns the largest Y coordinate of the specks of the last splat.
+     *
+     * @return bottom edge of the bounds of the last splat
+     */
+    float getBottom() {
+        return mBottom;
+    }
+
+    /**
+     * Returns the next 64 random bits of our xorshift64* generator.
+     *
+     * @return random {@code long}
+     */
+    private long nextLong() {
+        long s = mState;
+        s ^= s >>> 12;
+        s ^= s << 25;
+        s ^= s >>> 27;
+        mState = s;
+        return s * 0x2545F4914F6CDD1DL;
+    }
+
+    /**
+     * Returns an approximately normally distributed number with mean 0 and standard deviation 1.
+     * It is the sum of the eight bytes of a random {@code long} (an Irwin-Hall distribution, which
+     * is very close to normal but never further than about 4.9 standard deviations from the mean),
+     * scaled and shifted. The bytes are added in pairs within the {@code long}, then the pairs in
+     * pairs and so on.
+     *
+     * @return normally distributed random number
+     */
+    private float nextGaussian() {
+        long r = nextLong();
+        long s = (r & 0x00ff00ff00ff00ffL) + ((r >>> 8) & 0x00ff00ff00ff00ffL);
+        s = (s & 0x0000ffff0000ffffL) + ((s >>> 16) & 0x0000ffff0000ffffL);
+        s = (s & 0xffffffffL) + (s >>> 32);
+        return (s - BYTE_SUM_MEAN) * BYTE_SUM_SCALE;
+    }
+}
@@ -0,0 +1,728 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An unbounded painting surface for {@code FingerPaint}, split into square tiles of
+ * {@code TILE_SIZE} pixels addressed by column and row (which may be negative). Only a fixed number
+ * of tiles, the capacity, is held in memory at a time, in least recently used order. When another
+ * tile is needed the least recently used one is evicted: if it was drawn on since it was last
+ * saved it is written to a PNG file in our cache directory, and its bitmap is reused for the new
+ * tile, which is read back from its file if it has one. No more than capacity plus
+ * {@code WRITE_BUDGET} bitmaps are ever allocated (the extra ones hold evicted tiles while they are
+ * being written), so the heap used stays the same however large the painting grows. A tile nothing
+ * has been drawn on has neither a bitmap nor a file, and is transparent.
+ * <p>
+ * The encoding and decoding, as well as creating and emptying our directory, run on a single
+ * background thread, so they happen in the order they were asked for and a tile is never read
+ * back before it has been written. Every other method must be called on the UI thread, and
+ * {@code draw} never waits for the background thread: a tile being read back is left out until it
+ * is ready, a tile being written is drawn from the bitmap being written, and when every bitmap is
+ * either in use or being written the tile is left out until a write has finished. In each case
+ * the {@code Runnable} we are given is run once the tile can be drawn, so the view can be
+ * invalidated. A tile being read back is never evicted, we cancel the read if it has not started
+ * and leave the tile alone otherwise, and {@code drawPath} does not wait for it either, the paths
+ * drawn on it are kept and drawn once it has been read. {@code drawPath} only waits for the oldest
+ * write to finish when it needs a bitmap and none is free, or when it draws on a tile which is
+ * being written.
+ */
+final class TiledCanvas {
+    /**
+     * TAG used for logging.
+     */
+    private static final String TAG = "TiledCanvas";
+    /**
+     * Width and height of a tile in pixels.
+     */
+    static final int TILE_SIZE = 256;
+    /**
+     * Number of bitmaps we may allocate beyond the capacity, so that panning can evict a couple of
+     * rows of dirty tiles without waiting for them to be written.
+     */
+    private static final int WRITE_BUDGET = 8;
+
+    /**
+     * A tile of the surface which is in memory, or being written to its file.
+     */
+    private static final class Tile {
+        /**
+         * Key of the tile in {@code mResident}, see {@code key}.
+         */
+        final long mKey;
+        /**
+         * File the tile is written to when it is evicted.
+         */
+        final File mFile;
+        /**
+         * The pixels of the tile.
+         */
+        final Bitmap mBitmap;
+        /**
+         * {@code Canvas} drawing on {@code mBitmap}, translated so that it uses the coordinates of
+         * the surface.
+         */
+        final Canvas mCanvas;
+        /**
+         * True if the tile has been drawn on since it was last written to {@code mFile}.
+         */
+        boolean mDirty;
+        /**
+         * Pending read of the tile from {@code mFile} into {@code mBitmap}, null once it is done.
+         */
+        Future<?> mLoad;
+        /**
+         * Pending write of the evicted tile to {@code mFile}, null if there is none.
+         */
+        Future<?> mWrite;
+        /**
+         * Copies of the paths {@code drawPath} drew on the tile while it was being read back, to be
+         * drawn once it has been read, null if there are none.
+         */
+        ArrayList<Path> mPendingPaths;
+        /**
+         * Copies of the paints to draw {@code mPendingPaths} with.
+         */
+        ArrayList<Paint> mPendingPaints;
+
+        /**
+         * Our constructor. We save our parameters in our fields, and create {@code mCanvas} to
+         * draw on {@code bitmap} translated by minus the position of the tile.
+         *
+         * @param key    key of the tile
+         * @param file   file the tile is written to
+         * @param bitmap the bitmap holding the pixels of the tile
+         * @param column column of the tile
+         * @param row    row of the tile
+         */
+        Tile(long key, File file, Bitmap bitmap, int column, int row) {
+            mKey = key;
+            mFile = file;
+            mBitmap = bitmap;
+            mCanvas = new Canvas(bitmap);
+            mCanvas.translate(-(float) column * TILE_SIZE, -(float) row * TILE_SIZE);
+        }
+    }
+
+    /**
+     * Directory in which the evicted tiles are written.
+     */
+    private final File mDirectory;
+    /**
+     * {@code Runnable} run on our background thread when a tile has been read back, or when a write
+     * has finished after {@code draw} had to leave a tile out for want of a bitmap.
+     */
+    private final Runnable mOnLoaded;
+    /**
+     * The thread our tiles are written and read on.
+     */
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    /**
+     * The tiles in memory in least recently used first order.
+     */
+    private final LinkedHashMap<Long, Tile> mResident = new LinkedHashMap<Long, Tile>(16, 0.75f, true);
+    /**
+     * Evicted tiles whose write has not been reaped yet, oldest first.
+     */
+    private final ArrayDeque<Tile> mWriting = new ArrayDeque<Tile>();
+    /**
+     * Keys of the tiles which have been written to a file.
+     */
+    private final HashSet<Long> mOnDisk = new HashSet<Long>();
+    /**
+     * Bitmaps not used by any tile.
+     */
+    private final ArrayDeque<Bitmap> mFree = new ArrayDeque<Bitmap>();
+    /**
+     * Scratch {@code RectF} holding the bounds of the path being drawn.
+     */
+    private final RectF mBounds = new RectF();
+    /**
+     * Set when {@code draw} leaves a tile out because no bitmap is free, cleared by the next write
+     * to finish, which then runs {@code mOnLoaded}.
+     */
+    private final AtomicBoolean mStarved = new AtomicBoolean();
+    /**
+     * Largest number of tiles in memory.
+     */
+    private int mCapacity;
+    /**
+     * Number of bitmaps we have allocated.
+     */
+    private int mBitmapCount;
+
+    /**
+     * Our constructor. We save our parameters in our fields, then have our background thread
+     * create {@code directory} if need be and delete the files a previous instance may have left
+     * in it, ahead of any write.
+     *
+     * @param directory directory in which to write evicted tiles
+     * @param capacity  number of tiles to keep in memory, at least as many as are ever drawn at once
+     * @param onLoaded  run on a background thread whenever a tile left out of {@code draw} is ready
+     */
+    TiledCanvas(File directory, int capacity, Runnable onLoaded) {
+        mDirectory = directory;
+        mCapacity = capacity;
+        mOnLoaded = onLoaded;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+                    Log.w(TAG, "Cannot create " + mDirectory);
+                }
+                deleteFiles();
+            }
+        });
+    }
+
+    /**
+     * Raises the number of tiles kept in memory to {@code capacity} if it is less than that, it is
+     * never lowered.
+     *
+     * @param capacity new minimum number of tiles to keep in memory
+     */
+    void ensureCapacity(int capacity) {
+        mCapacity = Math.max(mCapacity, capacity);
+    }
+
+    /**
+     * Draws the tiles of the surface which intersect {@code RectF visible} on {@code Canvas canvas},
+     * which must be transformed to the coordinates of the surface. Tiles which have a file are read
+     * back if they are not in memory, and skipped until they are. Tiles nothing has been drawn on
+     * are skipped, and so are the tiles there is no free bitmap for yet. We never wait for our
+     * background thread, {@code mOnLoaded} is run when a skipped tile can be drawn.
+     *
+     * @param canvas  {@code Canvas} to draw on, in the coordinates of the surface
+     * @param visible part of the surface to draw
+     * @param paint   {@code Paint} to draw the bitmaps of the tiles with
+     */
+    void draw(Canvas canvas, RectF visible, Paint paint) {
+        reapWrites();
+        int firstColumn = (int) Math.floor(visible.left / TILE_SIZE);
+        int lastColumn = (int) Math.floor(visible.right / TILE_SIZE);
+        int firstRow = (int) Math.floor(visible.top / TILE_SIZE);
+        int lastRow = (int) Math.floor(visible.bottom / TILE_SIZE);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Tile tile = getTile(column, row, false);
+                if (tile == null) {
+                    continue;
+                }
+                if (tile.mLoad != null) {
+                    if (!tile.mLoad.isDone()) {
+                        continue;
+                    }
+                    finishLoad(tile);
+                }
+                canvas.drawBitmap(tile.mBitmap, (float) column * TILE_SIZE, (float) row * TILE_SIZE, paint);
+            }
+        }
+    }
+
+    /**
+     * Draws {@code Path path} with {@code Paint paint} on the tiles it touches. We compute the
+     * bounds of {@code path}, outset them by {@code margin} (the half width of the stroke plus
+     * whatever a mask filter spreads it by), and draw {@code path} on every tile they intersect,
+     * creating the tiles nothing had been drawn on before. A tile which is still being read back
+     * is not waited for, we add copies of {@code path} and {@code paint} to its pending paths,
+     * which {@code finishLoad} draws once the read is done. Each tile drawn on is marked dirty so
+     * that it is written again when it is evicted.
+     *
+     * @param path   {@code Path} to draw, in the coordinates of the surface
+     * @param paint  {@code Paint} to draw it with
+     * @param margin distance beyond the bounds of {@code path} that drawing it can reach
+     */
+    void drawPath(Path path, Paint paint, float margin) {
+        reapWrites();
+        path.computeBounds(mBounds, false);
+        mBounds.inset(-margin, -margin);
+        int firstColumn = (int) Math.floor(mBounds.left / TILE_SIZE);
+        int lastColumn = (int) Math.floor(mBounds.right / TILE_SIZE);
+        int firstRow = (int) Math.floor(mBounds.top / TILE_SIZE);
+        int lastRow = (int) Math.floor(mBounds.bottom / TILE_SIZE);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Tile tile = getTile(column, row, true);
+                if (tile.mLoad != null && tile.mLoad.isDone()) {
+                    finishLoad(tile);
+                }
+                if (tile.mLoad != null) {
+                    if (tile.mPendingPaths == null) {
+                        tile.mPendingPaths = new ArrayList<Path>();
+                        tile.mPendingPaints = new ArrayList<Paint>();
+                    }
+                    tile.mPendingPaths.add(new Path(path));
+                    tile.mPendingPaints.add(new Paint(paint));
+                } else {
+                    tile.mCanvas.drawPath(path, paint);
+                }
+                tile.mDirty = true;
+            }
+        }
+    }
+
+    /**
+     * Deletes the files of the evicted tiles and stops our background thread. We cancel the reads
+     * and writes which have not started, then queue the deletion of the files behind the one which
+     * may be running and shut our background thread down once it has run, so that nothing is
+     * written after the files are deleted and the UI thread touches no file. The bitmaps are left
+     * for the garbage collector, as a write may still be reading one. This instance must not be
+     * used afterwards.
+     */
+    void close() {
+        for (Tile tile : mResident.values()) {
+            if (tile.mLoad != null) {
+                tile.mLoad.cancel(false);
+            }
+        }
+        for (Tile tile : mWriting) {
+            tile.mWrite.cancel(false);
+        }
+        mResident.clear();
+        mWriting.clear();
+        mFree.clear();
+        mOnDisk.clear();
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                deleteFiles();
+            }
+        });
+        mExecutor.shutdown();
+    }
+
+    /**
+     * Returns the tile at {@code column} and {@code row}, making it the most recently used one. If
+     * it is not in memory but is waiting to be written we take it back once the write is done, if
+     * it has a file we start reading it back into a bitmap obtained from {@code obtainBitmap}, and
+     * otherwise we either return null or, if {@code create} is true, create it transparent. Making
+     * room for a new tile may evict the least recently used ones which are not being read back.
+     * <p>
+     * If {@code create} is true we are drawing on the tile, so we wait for its write or for a free
+     * bitmap. If it is false we are only going to draw the tile, which must not block the UI
+     * thread: a tile whose write is still running is returned as it is, out of {@code mResident},
+     * since the write only reads its bitmap, and if there is no free bitmap we return null.
+     *
+     * @param column column of the tile
+     * @param row    row of the tile
+     * @param create whether to create a tile nothing has been drawn on, and wait if need be
+     * @return the tile, or null if nothing has been drawn on it or there is no bitmap for it yet
+     * and {@code create} is false
+     */
+    private Tile getTile(int column, int row, boolean create) {
+        Long key = key(column, row);
+        Tile tile = mResident.get(key);
+        if (tile != null) {
+            return tile;
+        }
+        tile = findWriting(key);
+        if (tile != null) {
+            if (!create && !tile.mWrite.isDone()) {
+                return tile;
+            }
+            takeBack(tile);
+        } else {
+            boolean onDisk = mOnDisk.contains(key);
+            if (!onDisk && !create) {
+                return null;
+            }
+            while (mResident.size() >= mCapacity && evictEldest()) {
+                // Keep evicting until there is room, or nothing more can be evicted right now.
+            }
+            Bitmap bitmap = obtainBitmap(create);
+            if (bitmap == null) {
+                return null;
+            }
+            File file = new File(mDirectory, column + "_" + row + ".png");
+            tile = new Tile(key, file, bitmap, column, row);
+            if (onDisk) {
+                tile.mLoad = submit(new Load(tile.mFile, tile.mBitmap), true);
+            } else {
+                tile.mBitmap.eraseColor(Color.TRANSPARENT);
+            }
+        }
+        mResident.put(key, tile);
+        return tile;
+    }
+
+    /**
+     * Returns the tile with key {@code key} if it is waiting to be written, or null if it is not.
+     *
+     * @param key key of the tile
+     * @return the tile, or null if it is not waiting to be written
+     */
+    private Tile findWriting(long key) {
+        for (Tile tile : mWriting) {
+            if (tile.mKey == key) {
+                return tile;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes back {@code Tile tile}, which is waiting to be written, waiting for the write to finish
+     * first (rather than draw on pixels our background thread is reading). If the write succeeded
+     * the file of the tile is up to date, if it failed the tile is dirty again.
+     *
+     * @param tile a tile in {@code mWriting}
+     */
+    private void takeBack(Tile tile) {
+        if (waitFor(tile.mWrite)) {
+            mOnDisk.add(tile.mKey);
+        } else {
+            mOnDisk.remove(tile.mKey);
+            tile.mDirty = true;
+        }
+        tile.mWrite = null;
+        mWriting.remove(tile);
+    }
+
+    /**
+     * Evicts the least recently used tile in memory which is not being read back, never waiting
+     * for our background thread. A tile whose read has finished is finished with
+     * {@code finishLoad} first. A tile whose read has not started yet (and which has no pending
+     * paths) is evicted by canceling the read, the bitmap has not been touched. A tile whose read
+     * is running, or which has pending paths, is skipped. If the tile we evict is dirty we start
+     * writing it to its file and add it to {@code mWriting}, its bitmap is freed when the write is
+     * reaped. Otherwise its file (if any) is up to date and we free its bitmap right away.
+     *
+     * @return true if a tile was evicted, false if every tile in memory is being read back
+     */
+    private boolean evictEldest() {
+        Tile tile = null;
+        for (Iterator<Tile> it = mResident.values().iterator(); it.hasNext(); ) {
+            Tile candidate = it.next();
+            if (candidate.mLoad != null && candidate.mLoad.isDone()) {
+                finishLoad(candidate);
+            }
+            if (candidate.mLoad == null
+                    || (candidate.mPendingPaths == null && candidate.mLoad.cancel(false))) {
+                it.remove();
+                tile = candidate;
+                break;
+            }
+        }
+        if (tile == null) {
+            return false;
+        }
+        if (tile.mDirty) {
+            tile.mDirty = false;
+            tile.mWrite = submit(new Write(tile.mFile, tile.mBitmap), false);
+            mWriting.add(tile);
+        } else {
+            mFree.add(tile.mBitmap);
+        }
+        return true;
+    }
+
+    /**
+     * Returns a bitmap for a new tile. We reap the finished writes, then take a free bitmap if
+     * there is one, or allocate a new one if fewer than {@code mCapacity} plus {@code WRITE_BUDGET}
+     * have been. Otherwise every bitmap is in use or being written. If {@code wait} is true we wait
+     * for the oldest write and take its bitmap (or allocate one after all should nothing be being
+     * written, when tiles being read back could not be evicted). If it is false we set
+     * {@code mStarved} so that the next write to finish runs {@code mOnLoaded}, and return null. A
+     * write may have finished just before we set the flag, too early to see it, so we reap the
+     * writes once more afterwards.
+     *
+     * @param wait whether to wait for a write to finish if no bitmap is free
+     * @return a {@code TILE_SIZE} square ARGB_8888 bitmap not used by any tile, or null if there is
+     * none and {@code wait} is false
+     */
+    private Bitmap obtainBitmap(boolean wait) {
+        reapWrites();
+        if (mFree.isEmpty() && mBitmapCount < mCapacity + WRITE_BUDGET) {
+            mBitmapCount++;
+            return Bitmap.createBitmap(TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888);
+        }
+        if (mFree.isEmpty() && !wait) {
+            mStarved.set(true);
+            reapWrites();
+            return mFree.poll();
+        }
+        while (mFree.isEmpty() && !mWriting.isEmpty()) {
+            waitFor(mWriting.peek().mWrite);
+            reapWrites();
+        }
+        if (mFree.isEmpty()) {
+            mBitmapCount++;
+            return Bitmap.createBitmap(TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888);
+        }
+        return mFree.poll();
+    }
+
+    /**
+     * Reaps the writes at the head of {@code mWriting} which have finished, oldest first: the tile
+     * now has a file, and its bitmap is free.
+     */
+    private void reapWrites() {
+        while (!mWriting.isEmpty() && mWriting.peek().mWrite.isDone()) {
+            Tile tile = mWriting.poll();
+            if (waitFor(tile.mWrite)) {
+                mOnDisk.add(tile.mKey);
+            } else {
+                mOnDisk.remove(tile.mKey);
+            }
+            tile.mWrite = null;
+            mFree.add(tile.mBitmap);
+        }
+    }
+
+    /**
+     * Called once the read of {@code tile} has finished. If it failed the tile is lost, so we
+     * erase it and forget its file. Then we draw the paths {@code drawPath} left pending while the
+     * tile was being read.
+     *
+     * @param tile tile which was being read back
+     */
+    private void finishLoad(Tile tile) {
+        if (!waitFor(tile.mLoad)) {
+            tile.mBitmap.eraseColor(Color.TRANSPARENT);
+            mOnDisk.remove(tile.mKey);
+        }
+        tile.mLoad = null;
+        if (tile.mPendingPaths != null) {
+            for (int i = 0; i < tile.mPendingPaths.size(); i++) {
+                tile.mCanvas.drawPath(tile.mPendingPaths.get(i), tile.mPendingPaints.get(i));
+            }
+            tile.mPendingPaths = null;
+            tile.mPendingPaints = null;
+        }
+    }
+
+    /**
+     * Waits for {@code future} to finish.
+     *
+     * @param future a read or write of a tile
+     * @return true if it succeeded, false if it failed (which is logged)
+     */
+    private static boolean waitFor(Future<?> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    future.get();
+                    return true;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Tile I/O failed", e.getCause());
+            return false;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Runs {@code Callable<Void> io} on our background thread.
+     *
+     * @param io   the read or write of a tile
+     * @param load true for a read, whose completion always runs {@code mOnLoaded}, false for a
+     *             write, whose completion runs it only if {@code draw} is waiting for a bitmap
+     * @return the {@code Future} of {@code io}
+     */
+    private Future<Void> submit(Callable<Void> io, boolean load) {
+        FutureTask<Void> task = new TileIo(io, load);
+        mExecutor.execute(task);
+        return task;
+    }
+
+    /**
+     * Deletes all the files in {@code mDirectory}.
+     */
+    private void deleteFiles() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Returns the key of the tile at {@code column} and {@code row}, the column in the high 32 bits
+     * and the row in the low 32 bits.
+     *
+     * @param column column of the tile
+     * @param row    row of the tile
+     * @return key of the tile
+     */
+    private static long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xffffffffL);
+    }
+
+    /**
+     * {@code FutureTask} for the read or write of a tile, which runs {@code mOnLoaded} once it is
+     * done. This has to happen in {@code done} rather than at the end of the {@code Callable}:
+     * until the task is done {@code isDone} returns false, so a {@code draw} run by the
+     * invalidation would skip the tile again, and nothing would invalidate the view after that.
+     */
+    private final class TileIo extends FutureTask<Void> {
+        /**
+         * True for a read, false for a write.
+         */
+        private final boolean mIsLoad;
+
+        /**
+         * Our constructor, we pass {@code io} to our super's constructor and save {@code load}.
+         *
+         * @param io   the read or write of a tile
+         * @param load true for a read, false for a write
+         */
+        TileIo(Callable<Void> io, boolean load) {
+            super(io);
+            mIsLoad = load;
+        }
+
+        /**
+         * Called once we are done. After a read we always run {@code mOnLoaded}, after a write only
+         * if {@code draw} left a tile out for want of a bitmap since the last write finished.
+         */
+        @Override
+        protected void done() {
+            if (mIsLoad || mStarved.getAndSet(false)) {
+                mOnLoaded.run();
+            }
+        }
+    }
+
+    /**
+     * Writes the pixels of a tile to its file as a PNG, run on our background thread.
+     */
+    private static final class Write implements Callable<Void> {
+        /**
+         * File to write.
+         */
+        private final File mFile;
+        /**
+         * Bitmap to write.
+         */
+        private final Bitmap mBitmap;
+
+        /**
+         * Our constructor, we just save our parameters in our fields.
+         *
+         * @param file   file to write
+         * @param bitmap bitmap to write
+         */
+        Write(File file, Bitmap bitmap) {
+            mFile = file;
+            mBitmap = bitmap;
+        }
+
+        /**
+         * Compresses {@code mBitmap} into {@code mFile}.
+         *
+         * @return null
+         * @throws IOException if the file cannot be written
+         */
+        @Override
+        public Void call() throws IOException {
+            OutputStream out = new FileOutputStream(mFile);
+            try {
+                if (!mBitmap.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                    throw new IOException("Cannot compress " + mFile);
+                }
+            } finally {
+                out.close();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Reads the pixels of a tile back from its file, run on our background thread.
+     */
+    private static final class Load implements Callable<Void> {
+        /**
+         * File to read.
+         */
+        private final File mFile;
+        /**
+         * Bitmap to read the file into.
+         */
+        private final Bitmap mBitmap;
+
+        /**
+         * Our constructor, we just save our parameters in our fields.
+         *
+         * @param file   file to read
+         * @param bitmap bitmap to read the file into
+         */
+        Load(File file, Bitmap bitmap) {
+            mFile = file;
+            mBitmap = bitmap;
+        }
+
+        /**
+         * Decodes {@code mFile} into {@code mBitmap}, which {@code BitmapFactory} reuses as we pass
+         * it as {@code inBitmap}. Should the decoder return another bitmap instead we copy that one
+         * into {@code mBitmap}.
+         *
+         * @return null
+         * @throws IOException if the file cannot be decoded
+         */
+        @Override
+        public Void call() throws IOException {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inMutable = true;
+            options.inBitmap = mBitmap;
+            options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+            Bitmap decoded = BitmapFactory.decodeFile(mFile.getPath(), options);
+            if (decoded == null) {
+                throw new IOException("Cannot decode " + mFile);
+            }
+            if (decoded != mBitmap) {
+                mBitmap.eraseColor(Color.TRANSPARENT);
+                new Canvas(mBitmap).drawBitmap(decoded, 0, 0, null);
+                decoded.recycle();
+            }
+            return null;
+        }
+    }
+}
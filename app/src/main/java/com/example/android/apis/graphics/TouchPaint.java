@@ -19,7 +19,6 @@ package com.example.android.apis.graphics;
 import android.annotation.SuppressLint;
 import android.annotation.TargetApi;
 import android.content.Context;
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
@@ -35,8 +34,6 @@ import android.view.MenuItem;
 import android.view.MotionEvent;
 import android.view.View;
 
-import java.util.Random;
-
 /**
  * Demonstrates the handling of touch screen, stylus, mouse and trackball events to
  * implement a simple painting app.
@@ -339,7 +336,7 @@ public class TouchPaint extends GraphicsActivity {
      */
     public static class PaintView extends View {
         /**
-         * Alpha used by {@code Paint mFadePaint} to fade the finger painting.
+         * Alpha of the background blended over the finger painting at each fade step.
          */
         private static final int FADE_ALPHA = 0x06;
         /**
@@ -356,33 +353,39 @@ public class TouchPaint extends GraphicsActivity {
         private static final int TRACKBALL_SCALE = 10;
 
         /**
-         * Number of random splat vectors generated and drawn by the method {@code drawSplat}.
+         * Generator of the specks of paint drawn by the method {@code drawSplat}.
          */
-        private static final int SPLAT_VECTORS = 40;
-
+        private final SplatGenerator mSplat = new SplatGenerator();
         /**
-         * Random number generator used by the {@code drawSplat} method to create random splat vectors.
+         * The tiled surface we paint on, null until our {@code onSizeChanged} method is first called.
+         * Our method {@code onSizeChanged} grows it when the size of the window changes, keeping what
+         * has been drawn, and our {@code onDraw} method draws the tiles it needs to on the view's
+         * {@code Canvas}.
          */
-        private final Random mRandom = new Random();
+        private PaintTiles mTiles;
         /**
-         * Bitmap used by {@code Canvas mCanvas} to draw into. Our method {@code onSizeChanged} also
-         * uses it to remember what has been drawn when the size of the window changes.
+         * Scratch array receiving the indices of the tiles selected by {@code mTiles}, it holds
+         * as many entries as {@code mTiles} has tiles.
          */
-        private Bitmap mBitmap;
+        private int[] mTileIndices;
         /**
-         * {@code Canvas} we draw on, and when our {@code onDraw} method is called we draw the
-         * {Bitmap mBitmap} that {@code mCanvas} draws into the {@code Canvas canvas} passed as
-         * a parameter to {@code onDraw} (our view's {@code Canvas}).
+         * Union of the bounds of everything drawn since our {@code onDraw} method last ran, which
+         * is the only part of the view we need to invalidate.
          */
-        private Canvas mCanvas;
+        private final Rect mDirty = new Rect();
         /**
-         * {@code Paint} we use to draw with.
+         * Bounds of the stroke being drawn, used to select the tiles to draw it on.
          */
-        private final Paint mPaint = new Paint();
+        private final Rect mStrokeBounds = new Rect();
         /**
-         * {@code Paint} our fade thread uses to "fade" the finger painting.
+         * Clip bounds of the view's canvas, used by our {@code onDraw} method to select the tiles
+         * to composite.
          */
-        private final Paint mFadePaint = new Paint();
+        private final Rect mClipBounds = new Rect();
+        /**
+         * {@code Paint} we use to draw with.
+         */
+        private final Paint mPaint = new Paint();
         /**
          * Last known X coordinate of a move by finger or trackball.
          */
@@ -438,30 +441,27 @@ public class TouchPaint extends GraphicsActivity {
 
         /**
          * Our initialization method, called from our constructors. First we enable our view to receive
-         * focus, then we set the anti alias flag of {@code Paint mPaint}, set the color of
-         * {@code Paint mFadePaint} to BACKGROUND_COLOR ({@code Color.BLACK}, and set its alpha to
-         * FADE_ALPHA (0x06).
+         * focus, then we set the anti alias flag of {@code Paint mPaint}, and set its stroke width
+         * to 2 and its stroke cap to ROUND so that the points our method {@code drawSplat} draws
+         * with it are circles of radius 1 (the ovals and text are filled, so neither affects them).
          */
         private void init() {
             setFocusable(true);
 
             mPaint.setAntiAlias(true);
-
-            mFadePaint.setColor(BACKGROUND_COLOR);
-            mFadePaint.setAlpha(FADE_ALPHA);
+            mPaint.setStrokeWidth(2);
+            mPaint.setStrokeCap(Paint.Cap.ROUND);
         }
 
         /**
-         * Clears the {@code Canvas mCanvas}. If {@code mCanvas} is not null, we set the color of
-         * {@code Paint mPaint} to BACKGROUND_COLOR ({@code Color.BLACK}), fill the entire {@code mCanvas}
-         * to the color of {@code mPaint}, call invalidate to schedule {@code onDraw} to be called
-         * to copy {@code mCanvas} to the view's {@code Canvas}, and finally set {@code mFadeSteps}
-         * to MAX_FADE_STEPS (89).
+         * Clears our painting. If {@code PaintTiles mTiles} is not null, we call its {@code clear}
+         * method to return every tile to BACKGROUND_COLOR ({@code Color.BLACK}), call invalidate to
+         * schedule {@code onDraw} to be called to composite the tiles on the view's {@code Canvas},
+         * and finally set {@code mFadeSteps} to MAX_FADE_STEPS (89).
          */
         public void clear() {
-            if (mCanvas != null) {
-                mPaint.setColor(BACKGROUND_COLOR);
-                mCanvas.drawPaint(mPaint);
+            if (mTiles != null) {
+                mTiles.clear();
                 invalidate();
 
                 mFadeSteps = MAX_FADE_STEPS;
@@ -469,27 +469,30 @@ public class TouchPaint extends GraphicsActivity {
         }
 
         /**
-         * "Fades" the {@code Canvas mCanvas}. If {@code mCanvas} is not null, and if {@code mFadeSteps}
-         * is less than MAX_FADE_STEPS (89) we fill the entire {@code mCanvas} with {@code Paint mFadePaint},
-         * and call invalidate so {@code onDraw} will be called to copy {@code mCanvas} to the view's
-         * {@code Canvas}. Finally we increment {@code mFadeSteps}.
+         * "Fades" our painting. If {@code PaintTiles mTiles} is not null, and if {@code mFadeSteps}
+         * is less than MAX_FADE_STEPS (89) we call the {@code fade} method of {@code mTiles} to
+         * advance its fade clock, which adds the bounds of the tiles still fading to
+         * {@code Rect mDirty} without touching their pixels (the fade is applied when they are
+         * composited), and call our method {@code invalidateDirty} so {@code onDraw} will be
+         * called to composite those tiles on the view's {@code Canvas}. Finally we increment
+         * {@code mFadeSteps}.
          */
         public void fade() {
-            if (mCanvas != null && mFadeSteps < MAX_FADE_STEPS) {
-                mCanvas.drawPaint(mFadePaint);
-                invalidate();
+            if (mTiles != null && mFadeSteps < MAX_FADE_STEPS) {
+                mTiles.fade(mDirty);
+                invalidateDirty();
 
                 mFadeSteps++;
             }
         }
 
         /**
-         * Draws the {@code String text} to {@code Canvas mCanvas} and causes {@code onDraw} to copy
-         * {@code mCanvas} to the view's {@code Canvas}. Before doing anything, we make sure that
-         * {@code Bitmap mBitmap} is not null, returning having done nothing if it is null. Otherwise
-         * we set {@code int width} to the width of {@code mBitmap}, and {@code int height} to the
-         * height of {@code mBitmap}. We set the color of {@code Paint mPaint} to the color currently
-         * selected by {@code COLORS[mColorIndex]}, and its alpha to 255. We set {@code int size} to
+         * Draws the {@code String text} on our painting and causes {@code onDraw} to composite it on
+         * the view's {@code Canvas}. Before doing anything, we make sure that {@code PaintTiles mTiles}
+         * is not null, returning having done nothing if it is null. Otherwise we set {@code int width}
+         * to the width of {@code mTiles}, and {@code int height} to the height of {@code mTiles}.
+         * We set the color of {@code Paint mPaint} to the color currently selected by
+         * {@code COLORS[mColorIndex]}, and its alpha to 255. We set {@code int size} to
          * {@code height}, and set the text size of {@code mPaint} to {@code size}. We create a
          * {@code Rect bounds}, and fetch the text bounds of {@code String text} drawn using {@code mPaint}
          * to {@code bounds}. We set {@code int twidth} to the width of {@code bounds}, then increment
@@ -497,19 +500,21 @@ public class TouchPaint extends GraphicsActivity {
          * to {@code (size*width)/twidth}, set the text size of {@code mPaint} to {@code size}, and
          * retrieve the text bounds of {@code text} drawn using {@code mPaint} to {@code bounds}. We
          * fetch the font metrics of {@code mPaint} to {@code Paint.FontMetrics fm}, so that we can
-         * use the {@code fm.ascent} field. We then call the {@code mCanvas.drawText} method to draw
-         * the {@code String text} using {@code Paint mPaint} with the x coordinate calculated to
-         * center the text in the middle of the {@code Canvas}, and the y coordinate calculated to
-         * position the text in a weird part of the screen (probably a bug?). We set {@code mFadeSteps}
-         * to 0 so that fading will start again, and call {@code invalidate} so that a call to our
-         * {@code onDraw} method will be scheduled to copy {@code mCanvas} to the view's {@code Canvas}.
+         * use the {@code fm.ascent} field. We calculate the x coordinate {@code x} which centers the
+         * text in the middle of the surface, and the y coordinate {@code y} which positions the text
+         * in a weird part of the screen (probably a bug?), and offset {@code bounds} by them to get
+         * the bounds of the text on the surface. Then we draw the {@code String text} using
+         * {@code Paint mPaint} on each of the tiles those bounds touch. We set {@code mFadeSteps}
+         * to 0 so that fading will start again, add {@code bounds} to {@code Rect mDirty} and call
+         * our method {@code invalidateDirty} so that a call to our {@code onDraw} method will be
+         * scheduled to composite the changed tiles on the view's {@code Canvas}.
          *
          * @param text String to display
          */
         public void text(String text) {
-            if (mBitmap != null) {
-                final int width = mBitmap.getWidth();
-                final int height = mBitmap.getHeight();
+            if (mTiles != null) {
+                final int width = mTiles.getWidth();
+                final int height = mTiles.getHeight();
                 mPaint.setColor(COLORS[mColorIndex]);
                 mPaint.setAlpha(255);
                 int size = height;
@@ -524,27 +529,33 @@ public class TouchPaint extends GraphicsActivity {
                     mPaint.getTextBounds(text, 0, text.length(), bounds);
                 }
                 Paint.FontMetrics fm = mPaint.getFontMetrics();
-                mCanvas.drawText(text, (width - bounds.width()) / 2, ((height - size) / 2) - fm.ascent, mPaint);
+                float x = (width - bounds.width()) / 2;
+                float y = ((height - size) / 2) - fm.ascent;
+                bounds.offset((int) x, (int) y);
+                bounds.inset(-1, -1);
+                int count = mTiles.select(bounds, mTileIndices);
+                for (int i = 0; i < count; i++) {
+                    mTiles.getCanvas(mTileIndices[i]).drawText(text, x, y, mPaint);
+                }
                 mFadeSteps = 0;
-                invalidate();
+                mDirty.union(bounds);
+                invalidateDirty();
             }
         }
 
         /**
          * This is called during layout when the size of this view has changed. If you were just added
-         * to the view hierarchy, you're called with the old values of 0. If {@code Bitmap mBitmap} is
-         * not null we set {@code int curW} to the width of {@code mBitmap} and {@code int curH} to
-         * the height of {@code mBitmap}, if it is null we set them both to 0. If {@code curW} is
+         * to the view hierarchy, you're called with the old values of 0. If {@code PaintTiles mTiles}
+         * is not null we set {@code int curW} to the width of {@code mTiles} and {@code int curH} to
+         * the height of {@code mTiles}, if it is null we set them both to 0. If {@code curW} is
          * greater than or equal to {@code w} and {@code curH} is greater than or equal to {@code h}
          * we return having done nothing.
          * <p>
-         * If {@code curW} is less than {@code w} we set it to {@code w}, and if {@code curH} is less
-         * than {@code h} we set it to {@code h}. We create {@code Bitmap newBitmap} to be {@code curW}
-         * by {@code curH} using the ARGB_8888 format. We allocate a new {@code Canvas newCanvas} and
-         * set {@code newBitmap} to be the bitmap for it to draw into. If {@code Bitmap mBitmap} is
-         * not null we draw it into {@code newCanvas} (this function will take care of automatically
-         * scaling the bitmap to draw at the same density as the canvas). Then we set our fields
-         * {@code Bitmap mBitmap} to {@code newBitmap}, and {@code Canvas mCanvas} to {@code newCanvas}.
+         * If {@code mTiles} is null we create a new instance of {@code PaintTiles} covering {@code w}
+         * by {@code h} pixels, otherwise we have it grow to cover them (which keeps the tiles that
+         * have been drawn on where they are), and the fade steps it takes blend FADE_ALPHA of the
+         * background over the painting. Then we allocate {@code int[] mTileIndices} to hold
+         * as many entries as {@code mTiles} has tiles.
          * <p>
          * Finally we set {@code mFadeSteps} to MAX_FADE_STEPS so that fading will pause until new
          * finger painting starts.
@@ -556,36 +567,48 @@ public class TouchPaint extends GraphicsActivity {
          */
         @Override
         protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-            int curW = mBitmap != null ? mBitmap.getWidth() : 0;
-            int curH = mBitmap != null ? mBitmap.getHeight() : 0;
+            int curW = mTiles != null ? mTiles.getWidth() : 0;
+            int curH = mTiles != null ? mTiles.getHeight() : 0;
             if (curW >= w && curH >= h) {
                 return;
             }
 
-            if (curW < w) curW = w;
-            if (curH < h) curH = h;
-
-            Bitmap newBitmap = Bitmap.createBitmap(curW, curH, Bitmap.Config.ARGB_8888);
-            Canvas newCanvas = new Canvas();
-            newCanvas.setBitmap(newBitmap);
-            if (mBitmap != null) {
-                newCanvas.drawBitmap(mBitmap, 0, 0, null);
+            if (mTiles == null) {
+                mTiles = new PaintTiles(w, h, BACKGROUND_COLOR, FADE_ALPHA, MAX_FADE_STEPS);
+            } else {
+                mTiles.resize(w, h);
             }
-            mBitmap = newBitmap;
-            mCanvas = newCanvas;
+            mTileIndices = new int[mTiles.getTileCount()];
             mFadeSteps = MAX_FADE_STEPS;
         }
 
         /**
-         * We implement this to do our drawing. If {@code Bitmap mBitmap} is not null we draw it to
-         * our argument {@code Canvas canvas}.
+         * We implement this to do our drawing. If {@code PaintTiles mTiles} is not null we fetch the
+         * clip bounds of our argument {@code Canvas canvas} (the dirty rect we invalidated when
+         * rendering in software) and have {@code mTiles} draw the tiles which intersect them on
+         * {@code canvas}. Finally we empty {@code Rect mDirty} as everything drawn so far is now on
+         * the screen.
          *
          * @param canvas the canvas on which the background will be drawn
          */
         @Override
         protected void onDraw(Canvas canvas) {
-            if (mBitmap != null) {
-                canvas.drawBitmap(mBitmap, 0, 0, null);
+            if (mTiles != null) {
+                canvas.getClipBounds(mClipBounds);
+                mTiles.draw(canvas, mClipBounds, mTileIndices);
+            }
+            mDirty.setEmpty();
+        }
+
+        /**
+         * Invalidates the part of the view covered by {@code Rect mDirty}, if it is not empty. The
+         * dirty rect only limits the redraw when rendering in software, a hardware accelerated view
+         * is redrawn in full, but then only the tiles which changed are uploaded to the GPU again.
+         */
+        @SuppressWarnings("deprecation")
+        private void invalidateDirty() {
+            if (!mDirty.isEmpty()) {
+                invalidate(mDirty);
             }
         }
 
@@ -613,6 +636,7 @@ public class TouchPaint extends GraphicsActivity {
                             event.getHistoricalY(i) * scaleY);
                 }
                 moveTrackball(event.getX() * scaleX, event.getY() * scaleY);
+                invalidateDirty();
             }
             return true;
         }
@@ -625,8 +649,8 @@ public class TouchPaint extends GraphicsActivity {
          * @param deltaY Y coordinate change
          */
         private void moveTrackball(float deltaX, float deltaY) {
-            final int curW = mBitmap != null ? mBitmap.getWidth() : 0;
-            final int curH = mBitmap != null ? mBitmap.getHeight() : 0;
+            final int curW = mTiles != null ? mTiles.getWidth() : 0;
+            final int curH = mTiles != null ? mTiles.getHeight() : 0;
 
             mCurX = Math.max(Math.min(mCurX + deltaX, curW - 1), 0);
             mCurY = Math.max(Math.min(mCurY + deltaY, curH - 1), 0);
@@ -686,8 +710,9 @@ public class TouchPaint extends GraphicsActivity {
          * <p>
          * Once we have painted all of the historical points, we do the same thing using the values
          * for the current data point, and set our fields {@code mCurX} and {@code mCurY} to the x
-         * and y coordinates of the first pointer index. Then we return true to the caller whether
-         * we had anything to draw or not.
+         * and y coordinates of the first pointer index. Then we call our method {@code invalidateDirty}
+         * to invalidate the union of the bounds of everything we painted, and return true to the
+         * caller whether we had anything to draw or not.
          *
          * @param event   The motion event.
          * @param isTouch true if the event was a touch event, false if it was a hover event
@@ -747,6 +772,7 @@ public class TouchPaint extends GraphicsActivity {
                 }
                 mCurX = event.getX();
                 mCurY = event.getY();
+                invalidateDirty();
             }
             return true;
         }
@@ -789,35 +815,36 @@ public class TouchPaint extends GraphicsActivity {
         }
 
         /**
-         * Draws an oval in the manner specified by its parameters. If our field {@code Bitmap mBitmap}
-         * is not null we have a {@code Canvas mCanvas} that we can use to draw into {@code mBitmap}
-         * and we proceed to do so. First we make sure that both of parameters {@code major} and
-         * {@code minor} are greater than 0, and if not we set them to the default value 16. Then we
-         * switch based on the value of our parameter {@code PaintMode mode}:
+         * Draws an oval in the manner specified by its parameters. If our field {@code PaintTiles mTiles}
+         * is not null we have a surface to draw on and we proceed to do so. First we make sure that
+         * both of parameters {@code major} and {@code minor} are greater than 0, and if not we set
+         * them to the default value 16. Then we switch based on the value of our parameter
+         * {@code PaintMode mode}:
          * <ul>
          * <li>
          * Draw: we set the color of {@code Paint mPaint} to the color in the array {@code COLORS}
          * pointed to by {@code mColorIndex}, set its alpha to the lesser of {@code pressure*128}
          * and 255, then call our method {@code drawOval} to use {@code mPaint} to draw an oval
-         * on {@code mCanvas} at ({@code x},{@code y}) with the size of the containing {@code RectF}
-         * being {@code minor} by {@code major} in size, and rotated by {@code orientation} radians.
+         * on each of the tiles it touches at ({@code x},{@code y}) with the size of the containing
+         * {@code RectF} being {@code minor} by {@code major} in size, and rotated by {@code orientation}
+         * radians.
          * </li>
          * <li>
          * Erase: we set the color of {@code Paint mPaint} to the color BACKGROUND_COLOR, set its
          * alpha to the lesser of {@code pressure*128} and 255, then call our method {@code drawOval}
-         * to use {@code mPaint} to draw an oval on {@code mCanvas} at ({@code x},{@code y}) with
+         * to use {@code mPaint} to draw an oval on the tiles at ({@code x},{@code y}) with
          * the size of the containing {@code RectF} being {@code minor} by {@code major} in size,
          * and rotated by {@code orientation} radians.
          * </li>
          * <li>
          * Erase: we set the color of {@code Paint mPaint} to the color in the array {@code COLORS}
          * pointed to by {@code mColorIndex}, set its alpha to 64, and use our method {@code drawSplat}
-         * to use {@code mPaint} "splatter" paint on {@code mCanvas} using the other parameters to
+         * to use {@code mPaint} "splatter" paint on the tiles using the other parameters to
          * control where and how much paint is randomly splattered to the canvas.
          * </li>
-         * Whether we did any drawing or not, we set {@code mFadeSteps} to 0, and invalidate the view
-         * so that the current {@code mBitmap} (if it exists) will be drawn to the views canvas by
-         * our {@code onDraw} method, and fading will start if it was stopped.
+         * In each case the bounds of what we drew are added to {@code Rect mDirty}, our caller
+         * invalidates it once it has painted all the points of an event. Whether we did any drawing
+         * or not, we set {@code mFadeSteps} to 0 so that fading will start if it was stopped.
          * </ul>
          *
          * @param mode        {@code PaintMode} to use, one of "Draw", "Erase", or "Splat".
@@ -840,7 +867,7 @@ public class TouchPaint extends GraphicsActivity {
         private void paint(PaintMode mode, float x, float y, float pressure,
                            float major, float minor, float orientation,
                            float distance, float tilt) {
-            if (mBitmap != null) {
+            if (mTiles != null) {
                 if (major <= 0 || minor <= 0) {
                     // If size is not available, use a default value.
                     major = minor = 16;
@@ -850,24 +877,23 @@ public class TouchPaint extends GraphicsActivity {
                     case Draw:
                         mPaint.setColor(COLORS[mColorIndex]);
                         mPaint.setAlpha(Math.min((int) (pressure * 128), 255));
-                        drawOval(mCanvas, x, y, major, minor, orientation, mPaint);
+                        drawOval(x, y, major, minor, orientation, mPaint);
                         break;
 
                     case Erase:
                         mPaint.setColor(BACKGROUND_COLOR);
                         mPaint.setAlpha(Math.min((int) (pressure * 128), 255));
-                        drawOval(mCanvas, x, y, major, minor, orientation, mPaint);
+                        drawOval(x, y, major, minor, orientation, mPaint);
                         break;
 
                     case Splat:
                         mPaint.setColor(COLORS[mColorIndex]);
                         mPaint.setAlpha(64);
-                        drawSplat(mCanvas, x, y, orientation, distance, tilt, mPaint);
+                        drawSplat(x, y, orientation, distance, tilt, mPaint);
                         break;
                 }
             }
             mFadeSteps = 0;
-            invalidate();
         }
 
         /**
@@ -875,6 +901,31 @@ public class TouchPaint extends GraphicsActivity {
          */
         private final RectF mReusableOvalRect = new RectF();
 
+        /**
+         * Draw an oval on every tile it touches. The oval fits in a circle whose diameter is the
+         * larger of {@code major} and {@code minor} whatever its orientation, so we set
+         * {@code Rect mStrokeBounds} to the square around that circle (plus a pixel for the anti
+         * aliasing), add it to {@code Rect mDirty}, and call our method {@code drawOval} to draw the
+         * oval on the {@code Canvas} of each of the tiles {@code mStrokeBounds} touches.
+         *
+         * @param x           X coordinate of center of our oval
+         * @param y           Y coordinate of center of our oval
+         * @param major       size of our bounding {@code RectF} on Y axis
+         * @param minor       size of our bounding {@code RectF} on X axis
+         * @param orientation radians clockwise from vertical to rotate the oval
+         * @param paint       {@code Paint} to use to draw our oval
+         */
+        private void drawOval(float x, float y, float major, float minor, float orientation, Paint paint) {
+            float radius = Math.max(major, minor) / 2 + 1;
+            mStrokeBounds.set((int) Math.floor(x - radius), (int) Math.floor(y - radius),
+                    (int) Math.ceil(x + radius), (int) Math.ceil(y + radius));
+            mDirty.union(mStrokeBounds);
+            int count = mTiles.select(mStrokeBounds, mTileIndices);
+            for (int i = 0; i < count; i++) {
+                drawOval(mTiles.getCanvas(mTileIndices[i]), x, y, major, minor, orientation, paint);
+            }
+        }
+
         /**
          * Draw an oval. When the orientation is 0 radians, orients the major axis vertically, angles
          * less than or greater than 0 radians rotate the major axis left or right. First we save the
@@ -914,8 +965,12 @@ public class TouchPaint extends GraphicsActivity {
          * the canvas along that vector.
          * <p>
          * Repeats the process until a masterpiece is born.
+         * <p>
+         * The specks are generated all at once by {@code SplatGenerator mSplat}, which also computes
+         * their bounds. We add those bounds to {@code Rect mDirty}, and then draw all of the specks
+         * on each of the tiles the bounds touch with a single call to {@code drawPoints} (the
+         * stroke width and cap of {@code mPaint} make each point a circle of radius 1).
          *
-         * @param canvas      We ignore this, and splatter our paint on {@code Canvas mCanvas} instead.
          * @param x           X coordinate of the center of the splatter
          * @param y           Y coordinate of the center of the splatter
          * @param orientation angle describes the direction of movement since last position event.
@@ -926,54 +981,25 @@ public class TouchPaint extends GraphicsActivity {
          *                    radians where 0 radians indicates that the stylus is being held perpendicular
          *                    to the surface, and PI/2 radians indicates that the stylus is being held flat
          *                    against the surface.
-         * @param paint       {@code Paint} to use to splatter the {@code Canvas mCanvas}.
+         * @param paint       {@code Paint} to use to splatter the tiles.
          */
-        @SuppressWarnings("UnusedParameters")
-        private void drawSplat(Canvas canvas, float x, float y, float orientation,
+        private void drawSplat(float x, float y, float orientation,
                                float distance, float tilt, Paint paint) {
-            float z = distance * 2 + 10;
-
-            // Calculate the center of the spray.
-            float nx = (float) (Math.sin(orientation) * Math.sin(tilt));
-            float ny = (float) (-Math.cos(orientation) * Math.sin(tilt));
-            float nz = (float) Math.cos(tilt);
-            if (nz < 0.05) {
+            int count = mSplat.generate(x, y, orientation, distance, tilt);
+            if (count == 0) {
                 return;
             }
-            float cd = z / nz;
-            float cx = nx * cd;
-            float cy = ny * cd;
-
-            for (int i = 0; i < SPLAT_VECTORS; i++) {
-                // Make a random 2D vector that describes the direction of a speck of paint
-                // ejected by the nozzle in the nozzle's plane, assuming the tool is
-                // perpendicular to the surface.
-                double direction = mRandom.nextDouble() * Math.PI * 2;
-                double dispersion = mRandom.nextGaussian() * 0.2;
-                double vx = Math.cos(direction) * dispersion;
-                double vy = Math.sin(direction) * dispersion;
-                double vz = 1;
-
-                // Apply the nozzle tilt angle.
-                double temp = vy;
-                vy = temp * Math.cos(tilt) - vz * Math.sin(tilt);
-                vz = temp * Math.sin(tilt) + vz * Math.cos(tilt);
-
-                // Apply the nozzle orientation angle.
-                temp = vx;
-                vx = temp * Math.cos(orientation) - vy * Math.sin(orientation);
-                vy = temp * Math.sin(orientation) + vy * Math.cos(orientation);
-
-                // Determine where the paint will hit the surface.
-                if (vz < 0.05) {
-                    continue;
-                }
-                float pd = (float) (z / vz);
-                float px = (float) (vx * pd);
-                float py = (float) (vy * pd);
 
-                // Throw some paint at this location, relative to the center of the spray.
-                mCanvas.drawCircle(x + px - cx, y + py - cy, 1.0f, paint);
+            // Each speck is a circle of radius 1, plus a pixel for the anti aliasing.
+            mStrokeBounds.set((int) Math.floor(mSplat.getLeft()) - 2,
+                    (int) Math.floor(mSplat.getTop()) - 2,
+                    (int) Math.ceil(mSplat.getRight()) + 2,
+                    (int) Math.ceil(mSplat.getBottom()) + 2);
+            mDirty.union(mStrokeBounds);
+            float[] points = mSplat.getPoints();
+            int tiles = mTiles.select(mStrokeBounds, mTileIndices);
+            for (int i = 0; i < tiles; i++) {
+                mTiles.getCanvas(mTileIndices[i]).drawPoints(points, 0, count, paint);
             }
         }
     }
@@ -16,7 +16,6 @@
 
 package com.example.android.apis.graphics.kube;
 
-import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 
@@ -31,7 +30,7 @@ public class GLShape {
     /**
      * Current transformation matrix, it is used to move the vertices of our shape to the position
      * required for the current location of our {@code GLShape} (a {@code Cube} in our demo) using
-     * the method {@code mWorld.transformVertex}. This happens whenever our method {@code animateTransform}
+     * the method {@code mWorld.transformVertices}. This happens whenever our method {@code animateTransform}
      * is called from {@code Layer.setAngle} which is called from the method {@code Kube.animate},
      * which gets called from the {@code onDrawFrame} method of {@code KubeRenderer}.
      */
@@ -43,6 +42,30 @@ public class GLShape {
      * gets called from the {@code onDrawFrame} method of {@code KubeRenderer}.
      */
     public M4 mAnimateTransform;
+    /**
+     * Scratch matrix used by {@code animateTransform} and {@code endAnimation} to hold the product of
+     * {@code M4 mTransform} and {@code M4 mAnimateTransform}, so that animating allocates nothing.
+     */
+    private final M4 mComposedTransform = new M4();
+    /**
+     * Indices in the vertex table of our {@code GLWorld} of every {@code GLVertex} in our list
+     * {@code ArrayList<GLVertex> mVertexList}, in the same order. Only the first
+     * {@code mVertexIndexCount} entries are used, it is appended to by {@code addVertex} (growing it
+     * by doubling when it is full) and passed to {@code GLWorld.transformVertices} so that it can
+     * transform all our vertices in one batch.
+     */
+    private int[] mVertexIndices = new int[8];
+    /**
+     * Number of entries of {@code int[] mVertexIndices} in use, the same as {@code mVertexList.size()}.
+     */
+    private int mVertexIndexCount;
+    /**
+     * Open addressing hash table used by {@code addVertex} to find an existing {@code GLVertex} by
+     * its coordinates without scanning {@code ArrayList<GLVertex> mVertexList}. Each slot holds one
+     * more than the position of a vertex in {@code mVertexList}, or 0 if it is empty. Its length is
+     * always a power of two, and it is kept at most half full.
+     */
+    private int[] mVertexTable = new int[16];
 
     /**
      * List of {@code GLFace} faces making up our {@code GLShape}, it is added to by our method
@@ -56,11 +79,6 @@ public class GLShape {
      * only subclass).
      */
     protected ArrayList<GLVertex> mVertexList = new ArrayList<>();
-    /**
-     * We do not use, so who cares?
-     */
-    @SuppressWarnings("unused")
-    protected ArrayList<Integer> mIndexList = new ArrayList<>();    // make more efficient?
     /**
      * {@code GLWorld} we belong to, it is set in our constructor, which is called from the constructor
      * of {@code Cube}, which is called from the {@code Kube.makeGLWorld} method (once for each
@@ -113,23 +131,28 @@ public class GLShape {
 
     /**
      * Adds all the indices used by all the {@code GLFace} objects contained in our field
-     * {@code ArrayList<GLFace> mFaceList} to the index buffer passed us. Called only from the
-     * method {@code GLWorld.generate} which adds all the indices used by all the {@code GLShape}
-     * objects in its field {@code ArrayList<GLShape> mShapeList} to its index buffer field
-     * {@code ShortBuffer mIndexBuffer}. First we set {@code Iterator<GLFace> iter} to an iterator
+     * {@code ArrayList<GLFace> mFaceList} to the array {@code short[] indices} starting at
+     * {@code offset}. Called only from the method {@code GLWorld.generate} which collects the
+     * indices used by all the {@code GLShape} objects in its field {@code ArrayList<GLShape> mShapeList}
+     * in one array and then copies it to its index buffer field {@code ShortBuffer mIndexBuffer}
+     * with a single bulk {@code put}. First we set {@code Iterator<GLFace> iter} to an iterator
      * over all the elements in the list {@code ArrayList<GLFace> mFaceList}, then as long as there
      * is a "next" element we fetch a reference to that element to {@code GLFace face} and call its
-     * method {@code putIndices} to add all the indices of {@code face} to {@code buffer}.
+     * method {@code putIndices} to add all the indices of {@code face} to {@code indices}, advancing
+     * {@code offset} past them.
      *
-     * @param buffer openGL index buffer to add all our indices to.
+     * @param indices array to add all our indices to.
+     * @param offset  position in {@code indices} of our first index
+     * @return the position in {@code indices} just after our last index
      */
-    public void putIndices(ShortBuffer buffer) {
+    public int putIndices(short[] indices, int offset) {
         Iterator<GLFace> iter = mFaceList.iterator();
         //noinspection WhileLoopReplaceableByForEach
         while (iter.hasNext()) {
             GLFace face = iter.next();
-            face.putIndices(buffer);
+            offset = face.putIndices(indices, offset);
         }
+        return offset;
     }
 
     /**
@@ -157,13 +180,16 @@ public class GLShape {
      * Finds a vertex with the coordinates (x,y.z) in {@code ArrayList<GLVertex> mVertexList} (if it
      * exists), or creates a {@code GLVertex} with those coordinates and adds it to our list. The
      * {@code GLVertex} is then returned to the caller. Called only from the constructor for a
-     * {@code Cube} object. First we set {@code Iterator<GLVertex> iter} to an iterator over all the
-     * elements in the list {@code ArrayList<GLVertex> mVertexList}, then as long as there is a "next"
-     * element we fetch a reference to that element to {@code GLVertex vertex}, and if all three
-     * coordinates of {@code vertex} match the (x,y,z) coordinates passed us we return {@code vertex}.
-     * If we are unable to find a matching {@code GLVertex} in our list, we create {@code GLVertex vertex}
-     * by calling the method {@code mWorld.addVertex}, add it to {@code ArrayList<GLVertex> mVertexList}
-     * and return it to the caller.
+     * {@code Cube} object. We look the coordinates up in our hash table {@code int[] mVertexTable},
+     * probing from the slot chosen by {@code hashCoordinates} until we reach an empty slot, and if
+     * all three coordinates of the {@code GLVertex vertex} a slot refers to match the (x,y,z)
+     * coordinates passed us we return {@code vertex}. This keeps adding a vertex constant time no
+     * matter how many vertices the shape already has, so building a large shape is linear in its
+     * size rather than quadratic. If we are unable to find a matching {@code GLVertex}, we create
+     * {@code GLVertex vertex} by calling the method {@code mWorld.addVertex}, add it to
+     * {@code ArrayList<GLVertex> mVertexList}, append its index to {@code int[] mVertexIndices},
+     * store its position in the empty slot we found (growing the table first if it would become
+     * more than half full) and return it to the caller.
      *
      * @param x x coordinate of vertex
      * @param y y coordinate of vertex
@@ -175,30 +201,84 @@ public class GLShape {
     public GLVertex addVertex(float x, float y, float z) {
 
         // look for an existing GLVertex first
-        Iterator<GLVertex> iter = mVertexList.iterator();
-        //noinspection WhileLoopReplaceableByForEach
-        while (iter.hasNext()) {
-            GLVertex vertex = iter.next();
+        int mask = mVertexTable.length - 1;
+        int slot = hashCoordinates(x, y, z) & mask;
+        int entry;
+        while ((entry = mVertexTable[slot]) != 0) {
+            GLVertex vertex = mVertexList.get(entry - 1);
             if (vertex.x == x && vertex.y == y && vertex.z == z) {
                 return vertex;
             }
+            slot = (slot + 1) & mask;
         }
 
         // doesn't exist, so create new vertex
         GLVertex vertex = mWorld.addVertex(x, y, z);
         mVertexList.add(vertex);
+        if (mVertexIndexCount == mVertexIndices.length) {
+            int[] indices = new int[mVertexIndexCount * 2];
+            System.arraycopy(mVertexIndices, 0, indices, 0, mVertexIndexCount);
+            mVertexIndices = indices;
+        }
+        mVertexIndices[mVertexIndexCount++] = vertex.index & 0xffff;
+        if (mVertexList.size() * 2 > mVertexTable.length) {
+            rehashVertices(mVertexTable.length * 2);
+        } else {
+            mVertexTable[slot] = mVertexList.size();
+        }
         return vertex;
     }
 
+    /**
+     * Replaces our hash table {@code int[] mVertexTable} with a new one of length {@code capacity}
+     * (a power of two) and inserts every {@code GLVertex} in {@code ArrayList<GLVertex> mVertexList}
+     * into it. Called from {@code addVertex} when the table would become more than half full.
+     *
+     * @param capacity length of the new table
+     */
+    private void rehashVertices(int capacity) {
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < mVertexList.size(); i++) {
+            GLVertex vertex = mVertexList.get(i);
+            int slot = hashCoordinates(vertex.x, vertex.y, vertex.z) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        mVertexTable = table;
+    }
+
+    /**
+     * Hashes the coordinates of a vertex for our hash table {@code int[] mVertexTable}. Adding 0.0f
+     * to each coordinate turns -0.0f into 0.0f, so that two coordinates which compare equal with
+     * {@code ==} (the test {@code addVertex} uses) always hash the same. The final multiply and shift
+     * spread the bits so that the low bits we mask with are well mixed.
+     *
+     * @param x x coordinate of vertex
+     * @param y y coordinate of vertex
+     * @param z z coordinate of vertex
+     * @return hash code of the coordinates
+     */
+    private static int hashCoordinates(float x, float y, float z) {
+        int h = Float.floatToIntBits(x + 0.0f);
+        h = h * 31 + Float.floatToIntBits(y + 0.0f);
+        h = h * 31 + Float.floatToIntBits(z + 0.0f);
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
     /**
      * Applies {@code M4 transform} to all the vertices used by our {@code GLShape} instance.
      * First we save our parameter {@code M4 transform} in our field {@code M4 mAnimateTransform}
      * then if our field {@code M4 mTransform} is not null (see note) we multiply it by our parameter
-     * {@code M4 transform} to get a new {@code M4 transfer}. We set {@code Iterator<GLVertex> iter}
-     * to an iterator over the elements in the list {@code ArrayList<GLVertex> mVertexList}, then
-     * while there is a next element in the list we fetch the next vertex to {@code GLVertex vertex}
-     * and use the method {@code GLWorld mWorld.transformVertex} to move {@code vertex} to the
-     * position specified by {@code transform}.
+     * {@code M4 transform} into our scratch matrix {@code M4 mComposedTransform} and use that as
+     * {@code transform} instead. Then we call the method {@code GLWorld mWorld.transformVertices}
+     * with our array of vertex indices {@code int[] mVertexIndices} to move all our vertices to the
+     * position specified by {@code transform} in one batch. The moved vertices are uploaded to the vertex
+     * buffer when {@code Layer.setAngle} calls {@code GLWorld.flushVertices} after all the shapes
+     * of the layer have been transformed.
      * <p>
      * Note: {@code mTransform} is set to non-null only by our method {@code endAnimation} which is
      * called from {@code Layer.endAnimation} which is called from {@code Kube.animate} when the
@@ -209,15 +289,12 @@ public class GLShape {
     public void animateTransform(M4 transform) {
         mAnimateTransform = transform;
 
-        if (mTransform != null)
-            transform = mTransform.multiply(transform);
-
-        Iterator<GLVertex> iter = mVertexList.iterator();
-        //noinspection WhileLoopReplaceableByForEach
-        while (iter.hasNext()) {
-            GLVertex vertex = iter.next();
-            mWorld.transformVertex(vertex, transform);
+        if (mTransform != null) {
+            mTransform.multiplyInto(transform, mComposedTransform);
+            transform = mComposedTransform;
         }
+
+        mWorld.transformVertices(mVertexIndices, mVertexIndexCount, transform);
     }
 
     /**
@@ -231,14 +308,15 @@ public class GLShape {
      * Called from {@code Layer.endAnimation} for every {@code GLShape} in the current layer, which
      * is called from {@code Kube.animate} when the rotation of the layer has reached its endpoint,
      * which is called from {@code KubeRenderer.onDrawFrame}. If our current {@code M4 mTransform}
-     * is null we set it to a copy of {@code M4 mAnimateTransform}, otherwise we set it to itself
-     * multiplied by {@code M4 mAnimateTransform}.
+     * is null we set it to a copy of {@code M4 mAnimateTransform}, otherwise we multiply it by
+     * {@code M4 mAnimateTransform} into {@code M4 mComposedTransform} and copy the result back.
      */
     public void endAnimation() {
         if (mTransform == null) {
             mTransform = new M4(mAnimateTransform);
         } else {
-            mTransform = mTransform.multiply(mAnimateTransform);
+            mTransform.multiplyInto(mAnimateTransform, mComposedTransform);
+            mTransform.set(mComposedTransform);
         }
     }
 }
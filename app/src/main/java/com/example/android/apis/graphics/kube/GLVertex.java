@@ -39,7 +39,8 @@ public class GLVertex {
     public float z;
     /**
      * Index number of this vertex in the field {@code ArrayList<GLVertex> mVertexList} of our instance
-     * of {@code GLWorld}.
+     * of {@code GLWorld}. It is stored the way GL_UNSIGNED_SHORT indices are, so it has to be read
+     * back as {@code index & 0xffff} (it is negative past 32767).
      */
     final short index; // index in vertex table
     /**
@@ -48,9 +49,8 @@ public class GLVertex {
     GLColor color;
 
     /**
-     * Basic constructor, only used in our {@code update} method to create a temporary {@code GLVertex}
-     * which we use as the destination vertex of the transform of our instance of {@code GLVertex}
-     * by the transformation matrix argument {@code M4 transform}
+     * Basic constructor for a vertex which is not in the vertex table, suitable as the destination
+     * vertex of {@code M4.multiply(GLVertex, GLVertex)}.
      */
     GLVertex() {
         this.x = 0;
@@ -97,8 +97,9 @@ public class GLVertex {
     }
 
     /**
-     * Convenience function to convert our float fields (x,y,z) to an {@code int} for storing in
-     * an {@code IntBuffer vertexBuffer}. Used in our methods {@code put} and {@code update}.
+     * Convenience function to convert our float fields (x,y,z) to an {@code int} for storing in an
+     * {@code IntBuffer vertexBuffer}. Used in our method {@code put} and by
+     * {@code GLWorld.transformVertices}.
      *
      * @param floatValue float value to be turned into an {@code int}
      * @return its argument converted to an {@code int}
@@ -139,37 +140,4 @@ public class GLVertex {
             colorBuffer.put(color.alpha);
         }
     }
-
-    /**
-     * Applies the transform matrix {@code M4 transform} to our coordinates x, y, and z and stores
-     * them in their proper place in {@code IntBuffer vertexBuffer}. Called from our {@code GLWorld}
-     * object method {@code transformVertex}, which is called from {@code GLShape.animateTransform},
-     * which is called from {@code Layer.setAngle}, which is called from {@code Kube.animate}, which
-     * is called from {@code KubeRenderer.onDrawFrame}.
-     * <p>
-     * First we position {@code IntBuffer vertexBuffer} to our index in it. Then if {@code M4 transform}
-     * is null we simply write our unmodified x, y, and z coordinates into {@code IntBuffer vertexBuffer}.
-     * If {@code M4 transform} is not null we create a new empty {@code GLVertex temp}, apply the
-     * transform to our current coordinates saving the result in {@code GLVertex temp}, then we write
-     * the x, y, and z coordinates of {@code GLVertex temp} into {@code IntBuffer vertexBuffer}.
-     *
-     * @param vertexBuffer {@code IntBuffer mVertexBuffer} field from our {@code GLWorld}
-     * @param transform    transformation matrix to apply to our coordinates
-     */
-    public void update(IntBuffer vertexBuffer, M4 transform) {
-        // skip to location of vertex in mVertex buffer
-        vertexBuffer.position(index * 3);
-
-        if (transform == null) {
-            vertexBuffer.put(toFixed(x));
-            vertexBuffer.put(toFixed(y));
-            vertexBuffer.put(toFixed(z));
-        } else {
-            GLVertex temp = new GLVertex();
-            transform.multiply(this, temp);
-            vertexBuffer.put(toFixed(temp.x));
-            vertexBuffer.put(toFixed(temp.y));
-            vertexBuffer.put(toFixed(temp.z));
-        }
-    }
 }
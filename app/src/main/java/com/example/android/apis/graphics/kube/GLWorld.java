@@ -18,12 +18,14 @@ package com.example.android.apis.graphics.kube;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
 import java.util.Iterator;
 import java.util.ArrayList;
 
 import javax.microedition.khronos.opengles.GL10;
+import javax.microedition.khronos.opengles.GL11;
 
 /**
  * Handy class which contains lists of {@code GLShape} and {@code GLVertex} objects which can be
@@ -31,14 +33,38 @@ import javax.microedition.khronos.opengles.GL10;
  * these objects, you can call the method {@code generate} which translates these objects into the
  * format required to feed to the openGL method {@code glDrawElements} (the vertex buffer
  * {@code IntBuffer mVertexBuffer}, the color buffer {@code IntBuffer mColorBuffer} and the index
- * buffer {@code ShortBuffer mIndexBuffer}. It also contains the method {@code transformVertex} which
- * will apply an {@code M4} transformation matrix to a vertex so that the rubic cube can be animated.
+ * buffer {@code ShortBuffer mIndexBuffer}. It also contains the methods {@code transformVertices} and
+ * {@code flushVertices} which apply an {@code M4} transformation matrix to vertices so that the
+ * rubic cube can be animated.
  * The {@code draw} method is called from the {@code onDrawFrame} callback of {@code KubeRenderer}
  * whenever it is necessary to draw the latest version of our rubic cube ({@code generate} has to have
  * been called first of course).
  */
 @SuppressWarnings("WeakerAccess")
 public class GLWorld {
+    /**
+     * Render mode which draws from client side GL_FIXED vertex and color arrays, re-specifying the
+     * array pointers every frame (the original behavior of this demo).
+     */
+    public static final int RENDER_MODE_FIXED = 0;
+    /**
+     * Render mode which keeps the colors and indices in static GPU buffer objects and the vertices
+     * as GL_FLOAT in a dynamic buffer object, re-uploading only the vertex range which has been
+     * animated since the last frame. Requires GL11, we fall back to {@code RENDER_MODE_FIXED} if the
+     * context does not support it.
+     */
+    public static final int RENDER_MODE_VBO = 1;
+    /**
+     * Size of a float in bytes.
+     */
+    private static final int FLOAT_SIZE = 4;
+    /**
+     * Largest number of vertices a world can hold, the number a GL_UNSIGNED_SHORT index can reach.
+     * The {@code short} index of a vertex past 32767 is negative, so it has to be read back as
+     * {@code index & 0xffff}.
+     */
+    static final int MAX_VERTICES = 65536;
+
     /**
      * Count of number of times our {@code draw} method has been called (for debugging purposes?)
      */
@@ -82,6 +108,73 @@ public class GLWorld {
      */
     private ShortBuffer mIndexBuffer;
 
+    /**
+     * Untransformed x,y,z coordinates of every {@code GLVertex} in {@code mVertexList}, three floats
+     * per vertex in vertex index order. Filled by {@code generate}, it is the source of the batched
+     * transform done by {@code transformVertices}.
+     */
+    private float[] mCoords;
+    /**
+     * Staging copy of the contents of {@code IntBuffer mVertexBuffer} (16.16 fixed point, three ints
+     * per vertex). {@code transformVertices} writes transformed vertices here, and
+     * {@code flushVertices} uploads the range that changed with a single bulk {@code put}.
+     */
+    private int[] mStaging;
+    /**
+     * Index of the first vertex in {@code mStaging} which has changed since the last call to
+     * {@code flushVertices}, or {@code Integer.MAX_VALUE} if none have.
+     */
+    private int mDirtyStart = Integer.MAX_VALUE;
+    /**
+     * One more than the index of the last vertex in {@code mStaging} which has changed since the
+     * last call to {@code flushVertices}, or 0 if none have.
+     */
+    private int mDirtyEnd = 0;
+
+    /**
+     * Render mode requested by {@code setRenderMode}, possibly from another thread. It is applied by
+     * {@code draw} on the GL thread.
+     */
+    private volatile int mRequestedRenderMode = RENDER_MODE_FIXED;
+    /**
+     * Render mode currently used by {@code draw} and {@code flushVertices}, only touched on the GL
+     * thread.
+     */
+    private int mRenderMode = RENDER_MODE_FIXED;
+    /**
+     * Transformed x,y,z coordinates of every vertex as floats, the counterpart of {@code mStaging}
+     * for {@code RENDER_MODE_VBO}.
+     */
+    private float[] mFloatStaging;
+    /**
+     * Direct allocated float copy of the vertices, the source of the uploads to our vertex buffer
+     * object.
+     */
+    private FloatBuffer mFloatVertexBuffer;
+    /**
+     * Index of the first vertex which {@code flushVertices} has written to {@code mFloatVertexBuffer}
+     * but which has not been uploaded to our vertex buffer object yet, or {@code Integer.MAX_VALUE}.
+     */
+    private int mUploadStart = Integer.MAX_VALUE;
+    /**
+     * One more than the index of the last vertex waiting to be uploaded to our vertex buffer object,
+     * or 0.
+     */
+    private int mUploadEnd = 0;
+    /**
+     * Buffer object name of our dynamic GL_FLOAT vertex buffer, 0 if it has not been created in the
+     * current GL context.
+     */
+    private int mVertexBufferObjectId;
+    /**
+     * Buffer object name of our static GL_FIXED color buffer.
+     */
+    private int mColorBufferObjectId;
+    /**
+     * Buffer object name of our static index buffer.
+     */
+    private int mElementBufferObjectId;
+
     /**
      * Adds its parameter {@code GLShape shape} to our list {@code ArrayList<GLShape> mShapeList} and
      * updates {@code mIndexCount} by adding the number of indices required by the {@code GLShape} to
@@ -96,7 +189,9 @@ public class GLWorld {
 
     /**
      * Constructs a {@code GLVertex vertex} from its parameters, adds it to our list of vertices
-     * {@code ArrayList<GLVertex> mVertexList}, and returns it to the caller.
+     * {@code ArrayList<GLVertex> mVertexList}, and returns it to the caller. We throw
+     * {@code IllegalArgumentException} if the list already holds MAX_VERTICES vertices, since the
+     * index of another one could not be drawn.
      *
      * @param x x coordinate of new vertex
      * @param y y coordinate of new vertex
@@ -105,11 +200,44 @@ public class GLWorld {
      * {@code ArrayList<GLVertex> mVertexList}
      */
     public GLVertex addVertex(float x, float y, float z) {
+        if (mVertexList.size() >= MAX_VERTICES) {
+            throw new IllegalArgumentException("Too many vertices for a short index.");
+        }
         GLVertex vertex = new GLVertex(x, y, z, mVertexList.size());
         mVertexList.add(vertex);
         return vertex;
     }
 
+    /**
+     * Returns the number of vertices which have been added to us.
+     *
+     * @return size of {@code ArrayList<GLVertex> mVertexList}
+     */
+    int getVertexCount() {
+        return mVertexList.size();
+    }
+
+    /**
+     * Returns the number of indices {@code glDrawElements} draws, the sum of the index counts of
+     * the shapes which have been added to us.
+     *
+     * @return our field {@code mIndexCount}
+     */
+    int getIndexCount() {
+        return mIndexCount;
+    }
+
+    /**
+     * Returns the vertex index at position {@code position} of {@code ShortBuffer mIndexBuffer},
+     * read as the unsigned value GL_UNSIGNED_SHORT makes of it. Only valid after {@code generate}.
+     *
+     * @param position position in the index buffer
+     * @return the index of a vertex, from 0 to MAX_VERTICES - 1
+     */
+    int getIndex(int position) {
+        return mIndexBuffer.get(position) & 0xffff;
+    }
+
     /**
      * Allocates and fills the direct allocated buffers required by the method {@code glDrawElements}
      * when it draws our Rubic cube: {@code IntBuffer mColorBuffer}, {@code IntBuffer mVertexBuffer}
@@ -126,12 +254,17 @@ public class GLWorld {
      * <p>
      * Now we iterate through all the {@code GLVertex} objects in {@code ArrayList<GLVertex> mVertexList}
      * fetching the next {@code GLVertex vertex} and calling its {@code put} method to add its
-     * coordinates to {@code IntBuffer mVertexBuffer} and its color to {@code IntBuffer mColorBuffer}.
+     * coordinates to {@code IntBuffer mVertexBuffer} and its color to {@code IntBuffer mColorBuffer},
+     * and copying its coordinates to {@code float[] mCoords}. We then allocate our staging array
+     * {@code int[] mStaging} and read the initial contents of {@code mVertexBuffer} into it, and
+     * initialize the float staging array {@code float[] mFloatStaging} and the direct allocated
+     * {@code FloatBuffer mFloatVertexBuffer} used by {@code RENDER_MODE_VBO} from {@code mCoords}.
      * <p>
-     * Finally we iterate through all the {@code GLShape} objects in {@code ArrayList<GLShape> mShapeList}
-     * fetching the next {@code GLShape shape} and calling its {@code putIndices} method to add the
-     * index values to {@code ShortBuffer mIndexBuffer} which will divide the {@code GLShape} into
-     * GL_TRIANGLES for {@code glDrawElements} to draw.
+     * Finally we iterate through all the {@code GLShape} objects in
+     * {@code ArrayList<GLShape> mShapeList} fetching the next {@code GLShape shape} and calling its
+     * {@code putIndices} method to add the index values which will divide the {@code GLShape} into
+     * GL_TRIANGLES for {@code glDrawElements} to draw to the array {@code short[] indices}, and
+     * copy that array to {@code ShortBuffer mIndexBuffer} with a single bulk {@code put}.
      */
     public void generate() {
         ByteBuffer bb = ByteBuffer.allocateDirect(mVertexList.size() * 4 * 4);
@@ -146,43 +279,116 @@ public class GLWorld {
         bb.order(ByteOrder.nativeOrder());
         mIndexBuffer = bb.asShortBuffer();
 
+        mCoords = new float[mVertexList.size() * 3];
         Iterator<GLVertex> iter2 = mVertexList.iterator();
         //noinspection WhileLoopReplaceableByForEach
         while (iter2.hasNext()) {
             GLVertex vertex = iter2.next();
             vertex.put(mVertexBuffer, mColorBuffer);
+            final int index = vertex.index & 0xffff;
+            mCoords[index * 3] = vertex.x;
+            mCoords[index * 3 + 1] = vertex.y;
+            mCoords[index * 3 + 2] = vertex.z;
         }
+        mStaging = new int[mVertexList.size() * 3];
+        mVertexBuffer.position(0);
+        mVertexBuffer.get(mStaging);
+        mFloatStaging = mCoords.clone();
+        bb = ByteBuffer.allocateDirect(mVertexList.size() * FLOAT_SIZE * 3);
+        bb.order(ByteOrder.nativeOrder());
+        mFloatVertexBuffer = bb.asFloatBuffer();
+        mFloatVertexBuffer.put(mFloatStaging);
 
+        short[] indices = new short[mIndexCount];
+        int offset = 0;
         Iterator<GLShape> iter3 = mShapeList.iterator();
         //noinspection WhileLoopReplaceableByForEach
         while (iter3.hasNext()) {
             GLShape shape = iter3.next();
-            shape.putIndices(mIndexBuffer);
+            offset = shape.putIndices(indices, offset);
         }
+        mIndexBuffer.put(indices, 0, offset);
     }
 
     /**
-     * Applies a {@code M4 transform} to the coordinates of a {@code GLVertex vertex} and stores the
-     * result in our direct allocated vertex buffer {@code IntBuffer mVertexBuffer} ready for the next
-     * call to {@code draw} (the original coordinates of {@code GLVertex vertex} remain unchanged).
-     * Called from {@code GLShape.animateTransform} for each {@code GLVertex} in the {@code GLShape},
-     * it is called from {@code Layer.setAngle}, which is called from {@code Kube.animate}, which is
-     * called from {@code KubeRenderer.onDrawFrame}. We simply call the method {@code vertex.update}
-     * which multiplies its coordinates by the {@code transform} transform matrix and places the new
-     * values in the correct position in our field {@code IntBuffer mVertexBuffer}.
+     * Applies {@code M4 transform} to the first {@code count} vertices whose indices are listed in
+     * {@code int[] indices}, reading their original coordinates from {@code float[] mCoords} and
+     * writing the 16.16 fixed point results to our staging array {@code int[] mStaging} (and the
+     * float results to {@code mFloatStaging} so that either render mode can be used), in one pass
+     * over primitive arrays. Nothing is written to {@code IntBuffer mVertexBuffer} until
+     * {@code flushVertices} is called, we just widen the dirty range {@code mDirtyStart} to
+     * {@code mDirtyEnd} to cover the vertices we changed. Called from
+     * {@code GLShape.animateTransform}.
      *
-     * @param vertex    {@code GLVertex} to apply the {@code M4 transform} to
-     * @param transform transform matrix that moves vertex to new position.
+     * @param indices   indices of the vertices to transform
+     * @param count     number of entries of {@code indices} to use
+     * @param transform transform matrix that moves the vertices to their new position.
+     */
+    public void transformVertices(int[] indices, int count, M4 transform) {
+        final float[] m = transform.m;
+        final float[] coords = mCoords;
+        final int[] staging = mStaging;
+        final float[] floatStaging = mFloatStaging;
+        int start = mDirtyStart;
+        int end = mDirtyEnd;
+        for (int i = 0; i < count; i++) {
+            final int index = indices[i];
+            final int offset = index * 3;
+            final float x = coords[offset];
+            final float y = coords[offset + 1];
+            final float z = coords[offset + 2];
+            final float tx = x * m[0] + y * m[4] + z * m[8] + m[12];
+            final float ty = x * m[1] + y * m[5] + z * m[9] + m[13];
+            final float tz = x * m[2] + y * m[6] + z * m[10] + m[14];
+            staging[offset] = GLVertex.toFixed(tx);
+            staging[offset + 1] = GLVertex.toFixed(ty);
+            staging[offset + 2] = GLVertex.toFixed(tz);
+            floatStaging[offset] = tx;
+            floatStaging[offset + 1] = ty;
+            floatStaging[offset + 2] = tz;
+            if (index < start) start = index;
+            if (index >= end) end = index + 1;
+        }
+        mDirtyStart = start;
+        mDirtyEnd = end;
+    }
+
+    /**
+     * Uploads the vertices changed by {@code transformVertices} since the last call from our staging
+     * array {@code int[] mStaging} to {@code IntBuffer mVertexBuffer} using a single bulk
+     * {@code put} covering the range {@code mDirtyStart} to {@code mDirtyEnd}, then marks the
+     * staging array clean. Called from {@code Layer.setAngle} once all the shapes of the layer have
+     * been transformed, so that animating a layer costs one buffer call instead of three per vertex.
+     * In {@code RENDER_MODE_VBO} we put the float vertices into {@code FloatBuffer mFloatVertexBuffer}
+     * instead, and widen the range {@code draw} has to upload to our vertex buffer object.
      */
-    public void transformVertex(GLVertex vertex, M4 transform) {
-        vertex.update(mVertexBuffer, transform);
+    public void flushVertices() {
+        if (mDirtyStart >= mDirtyEnd) {
+            return;
+        }
+        if (mRenderMode == RENDER_MODE_VBO) {
+            mFloatVertexBuffer.position(mDirtyStart * 3);
+            mFloatVertexBuffer.put(mFloatStaging, mDirtyStart * 3, (mDirtyEnd - mDirtyStart) * 3);
+            mUploadStart = Math.min(mUploadStart, mDirtyStart);
+            mUploadEnd = Math.max(mUploadEnd, mDirtyEnd);
+        } else {
+            mVertexBuffer.position(mDirtyStart * 3);
+            mVertexBuffer.put(mStaging, mDirtyStart * 3, (mDirtyEnd - mDirtyStart) * 3);
+        }
+        mDirtyStart = Integer.MAX_VALUE;
+        mDirtyEnd = 0;
     }
 
     /**
-     * Called from {@code KubeRenderer.onDrawFrame} to draw our Rubic cube. First we reset the position
-     * of the direct allocated buffers used by {@code glDrawElements}: {@code IntBuffer mColorBuffer}
-     * (color buffer), {@code IntBuffer mVertexBuffer} (vertex buffer), and {@code ShortBuffer mIndexBuffer}
-     * (index buffer). Then we specify the orientation of front-facing polygons to be GL_CW, and select
+     * Called from {@code KubeRenderer.onDrawFrame} to draw our Rubic cube. First we call our method
+     * {@code applyRequestedRenderMode} to pick up any change requested by {@code setRenderMode}, and
+     * if we are now in {@code RENDER_MODE_VBO} we call {@code drawBufferObjects} to do the drawing,
+     * increment {@code count} and return.
+     * <p>
+     * Otherwise we reset the position of the direct allocated buffers used by
+     * {@code glDrawElements}: {@code IntBuffer mColorBuffer} (color buffer),
+     * {@code IntBuffer mVertexBuffer} (vertex buffer), and {@code ShortBuffer mIndexBuffer} (index
+     * buffer). Then we specify the orientation of front-facing polygons to be GL_CW, and select
      * flat shade model.
      * <p>
      * We define an array of vertex data to have 3 coordinates per vertex, GL_FIXED as its data type,
@@ -203,6 +409,13 @@ public class GLWorld {
      * @param gl the GL interface.
      */
     public void draw(GL10 gl) {
+        applyRequestedRenderMode(gl);
+        if (mRenderMode == RENDER_MODE_VBO) {
+            drawBufferObjects((GL11) gl);
+            count++;
+            return;
+        }
+
         mColorBuffer.position(0);
         mVertexBuffer.position(0);
         mIndexBuffer.position(0);
@@ -215,6 +428,142 @@ public class GLWorld {
         count++;
     }
 
+    /**
+     * Selects the way {@code draw} renders our Rubic cube, either {@code RENDER_MODE_FIXED} or
+     * {@code RENDER_MODE_VBO}. May be called from any thread, the change takes effect at the start
+     * of the next call to {@code draw}.
+     *
+     * @param renderMode {@code RENDER_MODE_FIXED} or {@code RENDER_MODE_VBO}
+     */
+    public void setRenderMode(int renderMode) {
+        mRequestedRenderMode = renderMode;
+    }
+
+    /**
+     * Returns the render mode last requested by {@code setRenderMode}.
+     *
+     * @return {@code RENDER_MODE_FIXED} or {@code RENDER_MODE_VBO}
+     */
+    public int getRenderMode() {
+        return mRequestedRenderMode;
+    }
+
+    /**
+     * Called from {@code KubeRenderer.onSurfaceCreated} when a new GL context has been created. Any
+     * buffer objects we had belonged to the old context and are gone, so we forget their names and
+     * {@code drawBufferObjects} will create them again.
+     */
+    public void onSurfaceCreated() {
+        mVertexBufferObjectId = 0;
+        mColorBufferObjectId = 0;
+        mElementBufferObjectId = 0;
+    }
+
+    /**
+     * Switches {@code mRenderMode} to {@code mRequestedRenderMode} if they differ. The buffer of the
+     * mode we switch to has not been kept up to date by {@code flushVertices}, so we refresh it
+     * entirely from the matching staging array: for {@code RENDER_MODE_FIXED} we put all of
+     * {@code int[] mStaging} into {@code IntBuffer mVertexBuffer}, and for {@code RENDER_MODE_VBO}
+     * we put all of {@code float[] mFloatStaging} into {@code FloatBuffer mFloatVertexBuffer} and
+     * mark all the vertices as needing upload. If {@code RENDER_MODE_VBO} is requested but
+     * {@code gl} is not a {@code GL11} we stay in {@code RENDER_MODE_FIXED}.
+     *
+     * @param gl the gl interface
+     */
+    private void applyRequestedRenderMode(GL10 gl) {
+        int renderMode = mRequestedRenderMode;
+        if (renderMode == RENDER_MODE_VBO && !(gl instanceof GL11)) {
+            renderMode = RENDER_MODE_FIXED;
+        }
+        if (renderMode == mRenderMode) {
+            return;
+        }
+        mRenderMode = renderMode;
+        if (renderMode == RENDER_MODE_VBO) {
+            mFloatVertexBuffer.position(0);
+            mFloatVertexBuffer.put(mFloatStaging);
+            mUploadStart = 0;
+            mUploadEnd = mVertexList.size();
+        } else {
+            mVertexBuffer.position(0);
+            mVertexBuffer.put(mStaging);
+        }
+    }
+
+    /**
+     * Creates our three buffer objects in the current GL context and uploads their contents: the
+     * float vertices from {@code FloatBuffer mFloatVertexBuffer} as GL_DYNAMIC_DRAW since they change
+     * whenever a layer is animated, and the colors from {@code IntBuffer mColorBuffer} and indices
+     * from {@code ShortBuffer mIndexBuffer} as GL_STATIC_DRAW. Unlike
+     * {@code MatrixPaletteRenderer.Grid.createBufferObjects} we keep our client side buffers, since
+     * we need them to recreate the buffer objects after the context is lost and to switch back to
+     * {@code RENDER_MODE_FIXED}.
+     *
+     * @param gl11 the GL11 interface
+     */
+    private void createBufferObjects(GL11 gl11) {
+        int[] vboIds = new int[3];
+        gl11.glGenBuffers(3, vboIds, 0);
+        mVertexBufferObjectId = vboIds[0];
+        mColorBufferObjectId = vboIds[1];
+        mElementBufferObjectId = vboIds[2];
+
+        gl11.glBindBuffer(GL11.GL_ARRAY_BUFFER, mVertexBufferObjectId);
+        mFloatVertexBuffer.position(0);
+        gl11.glBufferData(GL11.GL_ARRAY_BUFFER, mFloatVertexBuffer.capacity() * FLOAT_SIZE,
+                mFloatVertexBuffer, GL11.GL_DYNAMIC_DRAW);
+
+        gl11.glBindBuffer(GL11.GL_ARRAY_BUFFER, mColorBufferObjectId);
+        mColorBuffer.position(0);
+        gl11.glBufferData(GL11.GL_ARRAY_BUFFER, mColorBuffer.capacity() * 4,
+                mColorBuffer, GL11.GL_STATIC_DRAW);
+
+        gl11.glBindBuffer(GL11.GL_ELEMENT_ARRAY_BUFFER, mElementBufferObjectId);
+        mIndexBuffer.position(0);
+        gl11.glBufferData(GL11.GL_ELEMENT_ARRAY_BUFFER, mIndexBuffer.capacity() * 2,
+                mIndexBuffer, GL11.GL_STATIC_DRAW);
+
+        mUploadStart = Integer.MAX_VALUE;
+        mUploadEnd = 0;
+    }
+
+    /**
+     * Draws our Rubic cube from buffer objects, {@code RENDER_MODE_VBO}'s version of {@code draw}.
+     * If our buffer objects do not exist in the current context we create them, otherwise if any
+     * vertices have been animated since the last frame we upload just that range of
+     * {@code FloatBuffer mFloatVertexBuffer} to the vertex buffer object using {@code glBufferSubData}.
+     * Then we point the vertex array at the vertex buffer object (3 GL_FLOAT per vertex) and the
+     * color array at the color buffer object (4 GL_FIXED per vertex), and draw the triangles listed
+     * in the element buffer object. Finally we unbind the buffer objects again so that other code
+     * using client side arrays is not affected.
+     *
+     * @param gl11 the GL11 interface
+     */
+    private void drawBufferObjects(GL11 gl11) {
+        if (mVertexBufferObjectId == 0) {
+            createBufferObjects(gl11);
+        } else if (mUploadStart < mUploadEnd) {
+            gl11.glBindBuffer(GL11.GL_ARRAY_BUFFER, mVertexBufferObjectId);
+            mFloatVertexBuffer.position(mUploadStart * 3);
+            gl11.glBufferSubData(GL11.GL_ARRAY_BUFFER, mUploadStart * 3 * FLOAT_SIZE,
+                    (mUploadEnd - mUploadStart) * 3 * FLOAT_SIZE, mFloatVertexBuffer);
+            mUploadStart = Integer.MAX_VALUE;
+            mUploadEnd = 0;
+        }
+
+        gl11.glFrontFace(GL10.GL_CW);
+        gl11.glShadeModel(GL10.GL_FLAT);
+        gl11.glBindBuffer(GL11.GL_ARRAY_BUFFER, mVertexBufferObjectId);
+        gl11.glVertexPointer(3, GL10.GL_FLOAT, 0, 0);
+        gl11.glBindBuffer(GL11.GL_ARRAY_BUFFER, mColorBufferObjectId);
+        gl11.glColorPointer(4, GL10.GL_FIXED, 0, 0);
+        gl11.glBindBuffer(GL11.GL_ELEMENT_ARRAY_BUFFER, mElementBufferObjectId);
+        gl11.glDrawElements(GL10.GL_TRIANGLES, mIndexCount, GL10.GL_UNSIGNED_SHORT, 0);
+
+        gl11.glBindBuffer(GL11.GL_ARRAY_BUFFER, 0);
+        gl11.glBindBuffer(GL11.GL_ELEMENT_ARRAY_BUFFER, 0);
+    }
+
     /**
      * Unused so who cares.
      *
@@ -18,10 +18,14 @@ package com.example.android.apis.graphics.kube;
 
 import android.app.Activity;
 import android.os.Bundle;
+import android.view.MotionEvent;
 import android.view.Window;
+import android.widget.Toast;
 
 import android.opengl.GLSurfaceView;
 
+import com.example.android.apis.graphics.FrameTimeRenderer;
+
 import java.util.Random;
 
 /**
@@ -33,12 +37,23 @@ public class Kube extends Activity implements KubeRenderer.AnimationCallback {
      * as its renderer.
      */
     GLSurfaceView mView;
+    /**
+     * The {@code GLWorld} holding our Rubic cube, created by {@code makeGLWorld} in our
+     * {@code onCreate} override. We keep a reference so that {@code onTouchEvent} can switch its
+     * render mode.
+     */
+    GLWorld mWorld;
     /**
      * Renderer which performs the drawing to our {@code GLSurfaceView mView} using the Rubic cube
      * we construct and initialize in the instance of {@code GLWorld} we pass to its constructor for
      * its data (see our method {@code makeGLWorld} for how we do this).
      */
     KubeRenderer mRenderer;
+    /**
+     * {@code FrameTimeRenderer} wrapping {@code mRenderer}, it is the renderer actually set on
+     * {@code mView} and logs histograms of our frame times labeled with the render mode in use.
+     */
+    FrameTimeRenderer mFrameTimes;
     /**
      * The 27 {@code Cube} objects which represent our Rubic cube
      */
@@ -493,9 +508,11 @@ public class Kube extends Activity implements KubeRenderer.AnimationCallback {
      * Called when the activity is starting. First we call through to our super's implementation of
      * {@code onCreate}. Then we request the window feature FEATURE_NO_TITLE. Next we initialize our
      * field {@code GLSurfaceView mView} with an instance of {@code GLSurfaceView}, initialize our
-     * field {@code KubeRenderer mRenderer} with an instance of {@code KubeRenderer} constructed using
-     * the {@code GLWorld} returned by the method {@code makeGLWorld} and set {@code mRenderer} as
-     * the renderer for {@code mView}. Finally we set our content view to {@code mView}.
+     * field {@code GLWorld mWorld} with the {@code GLWorld} returned by the method {@code makeGLWorld},
+     * initialize our field {@code KubeRenderer mRenderer} with an instance of {@code KubeRenderer}
+     * constructed using {@code mWorld}, wrap it in the {@code FrameTimeRenderer mFrameTimes} labeled
+     * with the initial render mode and set {@code mFrameTimes} as the renderer for {@code mView}.
+     * Finally we set our content view to {@code mView}.
      *
      * @param savedInstanceState we do not override {@code onSaveInstanceState} so do not use
      */
@@ -507,11 +524,36 @@ public class Kube extends Activity implements KubeRenderer.AnimationCallback {
         requestWindowFeature(Window.FEATURE_NO_TITLE);
 
         mView = new GLSurfaceView(getApplication());
-        mRenderer = new KubeRenderer(makeGLWorld(), this);
-        mView.setRenderer(mRenderer);
+        mWorld = makeGLWorld();
+        mRenderer = new KubeRenderer(mWorld, this);
+        mFrameTimes = new FrameTimeRenderer("Kube", mRenderer);
+        mFrameTimes.setLabel("fixed");
+        mView.setRenderer(mFrameTimes);
         setContentView(mView);
     }
 
+    /**
+     * Called when a touch screen event was not handled by any of the views under it. When the
+     * finger is lifted we toggle the render mode of {@code GLWorld mWorld} between
+     * {@code RENDER_MODE_FIXED} and {@code RENDER_MODE_VBO}, and show a toast naming the new mode.
+     * We also relabel {@code mFrameTimes} so the frame times of each mode are logged separately.
+     *
+     * @param event The touch screen event being processed.
+     * @return true if we consumed the event.
+     */
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (event.getAction() == MotionEvent.ACTION_UP) {
+            boolean vbo = mWorld.getRenderMode() != GLWorld.RENDER_MODE_VBO;
+            mWorld.setRenderMode(vbo ? GLWorld.RENDER_MODE_VBO : GLWorld.RENDER_MODE_FIXED);
+            mFrameTimes.setLabel(vbo ? "VBO" : "fixed");
+            Toast.makeText(this, vbo ? "Float vertices in buffer objects" : "Fixed point client arrays",
+                    Toast.LENGTH_SHORT).show();
+            return true;
+        }
+        return super.onTouchEvent(event);
+    }
+
     /**
      * Called after {@link #onRestoreInstanceState}, {@link #onRestart}, or {@link #onPause}, for
      * your activity to start interacting with the user. First we call through to our super's
@@ -90,7 +90,8 @@ class KubeRenderer implements GLSurfaceView.Renderer {
      * depth buffer).
      * <p>
      * Finally we call the method {@code mWorld.draw} to issue the final openGL commands to draw the
-     * rubic cube.
+     * rubic cube. (The frame times of the two {@code GLWorld} render modes are measured by the
+     * {@code FrameTimeRenderer} that {@code Kube} wraps us in.)
      *
      * @param gl the GL interface.
      */
@@ -173,7 +174,9 @@ class KubeRenderer implements GLSurfaceView.Renderer {
     }
 
     /**
-     * Called when the surface is created or recreated. We do nothing.
+     * Called when the surface is created or recreated. Any buffer objects created by our
+     * {@code GLWorld} belonged to the previous GL context, so we call its {@code onSurfaceCreated}
+     * method to have it create them again when they are next needed.
      *
      * @param gl     the GL interface. Use <code>instanceof</code> to
      *               test if the interface supports GL11 or higher interfaces.
@@ -182,7 +185,8 @@ class KubeRenderer implements GLSurfaceView.Renderer {
      */
     @Override
     public void onSurfaceCreated(GL10 gl, EGLConfig config) {
-        // Nothing special, don't have any textures we need to recreate.
+        // No textures to recreate, but the buffer objects of RENDER_MODE_VBO must be.
+        mWorld.onSurfaceCreated();
     }
 
     /**
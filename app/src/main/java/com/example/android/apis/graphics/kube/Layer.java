@@ -120,8 +120,8 @@ public class Layer {
      * First we normalize {@code angle} to be between 0.0 and 2.0 pi radians, then we set
      * {@code float sin} to be the sine of {@code angle}, and {@code float cos} to be the cosine of
      * {@code angle}. We fetch a reference to our fields field {@code mTransform.m} to the variable
-     * {@code float[][] m} to make the following code easier to read. Then we switch on the value of
-     * our field {@code int mAxis} (our rotation axis):
+     * {@code float[] m} (a flat column-major 4x4 matrix, see {@code M4}) to make the following code
+     * easier to read. Then we switch on the value of our field {@code int mAxis} (our rotation axis):
      * <ul>
      * <li>
      * {@code kAxisX} - rotation around the x axis
@@ -140,7 +140,9 @@ public class Layer {
      * {@code animateTransform(mTransform} for each of the {@code GLShape shape} objects in our list
      * {@code GLShape[] mShapes} and it applies the transform matrix to each of the {@code GLVertex}
      * vertices used to describe the {@code GLShape} (causing the {@code GLShape} to move the next
-     * time it is drawn).
+     * time it is drawn). The transformed vertices are only written to the staging array of the
+     * {@code GLWorld} the shapes belong to, so when we are done we call its {@code flushVertices}
+     * method to upload all the vertices of the layer with a single bulk {@code put}.
      *
      * @param angle angle in radians to rotate our {@code Layer}
      */
@@ -154,40 +156,45 @@ public class Layer {
         float sin = (float) Math.sin(angle);
         float cos = (float) Math.cos(angle);
 
-        float[][] m = mTransform.m;
+        float[] m = mTransform.m;
         switch (mAxis) {
             case kAxisX:
-                m[1][1] = cos;
-                m[1][2] = sin;
-                m[2][1] = -sin;
-                m[2][2] = cos;
-                m[0][0] = 1f;
-                m[0][1] = m[0][2] = m[1][0] = m[2][0] = 0f;
+                m[5] = cos;
+                m[6] = sin;
+                m[9] = -sin;
+                m[10] = cos;
+                m[0] = 1f;
+                m[1] = m[2] = m[4] = m[8] = 0f;
                 break;
             case kAxisY:
-                m[0][0] = cos;
-                m[0][2] = sin;
-                m[2][0] = -sin;
-                m[2][2] = cos;
-                m[1][1] = 1f;
-                m[0][1] = m[1][0] = m[1][2] = m[2][1] = 0f;
+                m[0] = cos;
+                m[2] = sin;
+                m[8] = -sin;
+                m[10] = cos;
+                m[5] = 1f;
+                m[1] = m[4] = m[6] = m[9] = 0f;
                 break;
             case kAxisZ:
-                m[0][0] = cos;
-                m[0][1] = sin;
-                m[1][0] = -sin;
-                m[1][1] = cos;
-                m[2][2] = 1f;
-                m[2][0] = m[2][1] = m[0][2] = m[1][2] = 0f;
+                m[0] = cos;
+                m[1] = sin;
+                m[4] = -sin;
+                m[5] = cos;
+                m[10] = 1f;
+                m[8] = m[9] = m[2] = m[6] = 0f;
                 break;
         }
 
+        GLWorld world = null;
         //noinspection ForLoopReplaceableByForEach
         for (int i = 0; i < mShapes.length; i++) {
             GLShape shape = mShapes[i];
             if (shape != null) {
                 shape.animateTransform(mTransform);
+                world = shape.mWorld;
             }
         }
+        if (world != null) {
+            world.flushVertices();
+        }
     }
 }
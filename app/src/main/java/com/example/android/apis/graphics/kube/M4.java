@@ -17,17 +17,22 @@
 package com.example.android.apis.graphics.kube;
 
 /**
- * A 4x4 float matrix which is used to move {@code GLVertex} x,y,z locations
+ * A 4x4 float matrix which is used to move {@code GLVertex} x,y,z locations. The matrix is stored
+ * in a single flat {@code float[16]} in the column-major order used by OpenGL and by
+ * {@code android.opengl.Matrix}: element (row r, column c) is at {@code m[c * 4 + r]}, and the
+ * translation is in {@code m[12]}, {@code m[13]} and {@code m[14]}. All of our methods except
+ * {@code multiply(M4)} work in place, so the per frame animation code can reuse its matrices
+ * instead of allocating new ones.
  */
 @SuppressWarnings("WeakerAccess")
 public class M4 {
     /**
-     * Our 4x4 float matrix which are methods operate on.
+     * Our 4x4 float matrix which our methods operate on, in column-major order.
      */
-    public float[][] m = new float[4][4];
+    public final float[] m = new float[16];
 
     /**
-     * Our basic constructor, which does nothing, but gives us an all zero field {@code float[][] m}
+     * Our basic constructor, which does nothing, but gives us an all zero field {@code float[] m}
      * to use.
      */
     public M4() {
@@ -39,63 +44,87 @@ public class M4 {
      * @param other {@code M4} object we are to deep copy.
      */
     public M4(M4 other) {
-        for (int i = 0; i < 4; i++) {
-            //noinspection ManualArrayCopy
-            for (int j = 0; j < 4; j++) {
-                m[i][j] = other.m[i][j];
-            }
-        }
+        set(other);
+    }
+
+    /**
+     * Copies the contents of {@code M4 other} into our field {@code float[] m}.
+     *
+     * @param other {@code M4} object we are to copy.
+     */
+    public void set(M4 other) {
+        System.arraycopy(other.m, 0, m, 0, 16);
     }
 
     /**
-     * Multiplies a {@code GLVertex src} by our field {@code float[][] m} and places the results in
-     * {@code GLVertex dest}. Simple multiplication of a vector by a matrix. The {@code m[3]} array
-     * appears to be superfluous since only {@code m[3][3]} is non-zero (set to 1.0 by the method
-     * {@code setIdentity} and it is never used oddly enough.
+     * Multiplies a {@code GLVertex src} by our field {@code float[] m} and places the results in
+     * {@code GLVertex dest}. Simple multiplication of a vector by a matrix. The bottom row of the
+     * matrix ({@code m[3]}, {@code m[7]}, {@code m[11]} and {@code m[15]}) is never used since we
+     * only deal with affine transforms.
      *
-     * @param src Source {@code GLVertex} to multiply by our field {@code float[][] m}.
+     * @param src  Source {@code GLVertex} to multiply by our field {@code float[] m}.
      * @param dest Destination {@code GLVertex} to place results in.
      */
     public void multiply(GLVertex src, GLVertex dest) {
-        dest.x = src.x * m[0][0] + src.y * m[1][0] + src.z * m[2][0] + m[3][0];
-        dest.y = src.x * m[0][1] + src.y * m[1][1] + src.z * m[2][1] + m[3][1];
-        dest.z = src.x * m[0][2] + src.y * m[1][2] + src.z * m[2][2] + m[3][2];
+        final float[] m = this.m;
+        final float x = src.x;
+        final float y = src.y;
+        final float z = src.z;
+        dest.x = x * m[0] + y * m[4] + z * m[8] + m[12];
+        dest.y = x * m[1] + y * m[5] + z * m[9] + m[13];
+        dest.z = x * m[2] + y * m[6] + z * m[10] + m[14];
     }
 
     /**
-     * Simple 4x4 matrix multiplication, the 4x4 float matrix in the field {@code other.m} is
-     * multiplied by our own field {@code float[][] m} and the result is returned to the caller.
+     * Composes our transform with {@code M4 other} and writes the result into {@code M4 dest}
+     * without allocating anything. Transforming a vertex by {@code dest} is the same as transforming
+     * it by {@code this} first and then by {@code other} (in OpenGL terms dest = other x this).
+     * {@code dest} must not be {@code this} or {@code other}.
      *
-     * @param other {@code M4} matrix to multiply by our own matrix
-     * @return the result of multiplying {@code M4 other} by our own matrix.
+     * @param other {@code M4} matrix to compose with our own matrix
+     * @param dest  {@code M4} to hold the result
      */
-    public M4 multiply(M4 other) {
-        M4 result = new M4();
-        float[][] m1 = m;
-        float[][] m2 = other.m;
-
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                result.m[i][j] = m1[i][0] * m2[0][j] + m1[i][1] * m2[1][j] + m1[i][2] * m2[2][j] + m1[i][3] * m2[3][j];
-            }
+    public void multiplyInto(M4 other, M4 dest) {
+        final float[] a = m;
+        final float[] b = other.m;
+        final float[] r = dest.m;
+        for (int i = 0; i < 16; i += 4) {
+            final float a0 = a[i];
+            final float a1 = a[i + 1];
+            final float a2 = a[i + 2];
+            final float a3 = a[i + 3];
+            r[i] = a0 * b[0] + a1 * b[4] + a2 * b[8] + a3 * b[12];
+            r[i + 1] = a0 * b[1] + a1 * b[5] + a2 * b[9] + a3 * b[13];
+            r[i + 2] = a0 * b[2] + a1 * b[6] + a2 * b[10] + a3 * b[14];
+            r[i + 3] = a0 * b[3] + a1 * b[7] + a2 * b[11] + a3 * b[15];
         }
+    }
 
+    /**
+     * Convenience version of {@code multiplyInto} which allocates a new {@code M4} for the result.
+     * Not for use in per frame code.
+     *
+     * @param other {@code M4} matrix to compose with our own matrix
+     * @return the result of composing our matrix with {@code M4 other}.
+     */
+    public M4 multiply(M4 other) {
+        M4 result = new M4();
+        multiplyInto(other, result);
         return result;
     }
 
     /**
-     * Sets the contents of our field {@code float[][] m} to the identity matrix.
+     * Sets the contents of our field {@code float[] m} to the identity matrix.
      */
     public void setIdentity() {
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                m[i][j] = (i == j ? 1f : 0f);
-            }
+        for (int i = 0; i < 16; i++) {
+            m[i] = (i % 5 == 0 ? 1f : 0f);
         }
     }
 
     /**
-     * Turns our field {@code float[][] m} into a string for debugging purposes.
+     * Turns our field {@code float[] m} into a string for debugging purposes, one column of the
+     * matrix per line.
      *
      * @return printable string version of our 4x4 float matrix
      */
@@ -104,7 +133,7 @@ public class M4 {
         StringBuilder builder = new StringBuilder("[ ");
         for (int i = 0; i < 4; i++) {
             for (int j = 0; j < 4; j++) {
-                builder.append(m[i][j]);
+                builder.append(m[i * 4 + j]);
                 builder.append(" ");
             }
             if (i < 2)
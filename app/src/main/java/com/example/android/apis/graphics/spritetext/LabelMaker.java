@@ -24,6 +24,9 @@ import android.graphics.Paint.Style;
 import android.graphics.drawable.Drawable;
 import android.opengl.GLUtils;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 
 import javax.microedition.khronos.opengles.GL10;
@@ -41,9 +44,13 @@ import javax.microedition.khronos.opengles.GL11Ext;
  * quality anti-aliased font rasterizer, full character set support, and all the
  * text labels are stored on a single texture, which makes it faster to use.
  * <p>
- * The drawbacks are that you can only have as many labels as will fit onto one
- * texture, and you have to recreate the whole texture if any label text
- * changes.
+ * Labels are placed in the strike by a {@code SkylinePacker}, and when a strike
+ * is full another one (a page) is started, each page being a texture of its own.
+ * Once {@code endAdding} has been called labels can still be added, removed or
+ * replaced one at a time between frames: a single label is rasterized into a
+ * reused bitmap and uploaded into its spot on its page with
+ * {@code glTexSubImage2D}, so text which changes every frame does not need a full
+ * {@code beginAdding}/{@code endAdding} cycle.
  */
 @SuppressWarnings({"WeakerAccess", "FieldCanBeLocal"})
 public class LabelMaker {
@@ -65,47 +72,106 @@ public class LabelMaker {
      */
     private boolean mFullColor;
     /**
-     * {@code Bitmap} we create our labels in, and when done creating the labels we upload it as
-     * GL_TEXTURE_2D for drawing the labels (and then recycle it).
+     * Bitmap configuration of our strikes, ARGB_4444 if {@code mFullColor} is true, otherwise
+     * ALPHA_8.
      */
-    private Bitmap mBitmap;
-    /**
-     * {@code Canvas} we use to draw into {@code Bitmap mBitmap}.
-     */
-    private Canvas mCanvas;
+    private Bitmap.Config mConfig;
     /**
      * We create this as a black paint, with a style of FILL but never actually use it.
      */
     private Paint mClearPaint;
 
     /**
-     * Texture name of our label texture.
+     * The pages of our texture atlas, each is a texture {@code mStrikeWidth} by {@code mStrikeHeight}
+     * pixels. Page 0 is created by {@code initialize}, the others by {@code add} when the existing
+     * pages are full.
+     */
+    private ArrayList<Page> mPages = new ArrayList<>();
+    /**
+     * Texture name of the page bound to GL_TEXTURE_2D while we are drawing, so that {@code draw}
+     * only binds a texture when the label it draws is on a different page than the last one.
+     */
+    private int mBoundTextureID;
+    /**
+     * Scratch array which receives the position chosen by {@code SkylinePacker.allocate}.
      */
-    private int mTextureID;
+    private final int[] mPosition = new int[2];
+    /**
+     * Scratch {@code Rect} which receives the padding of the background of the label {@code add}
+     * is adding.
+     */
+    private final Rect mPadding = new Rect();
+    /**
+     * {@code Bitmap} a single label is drawn in (at its top left corner) when it is added after
+     * {@code endAdding}. It only ever grows, to power of two dimensions large enough for the
+     * biggest label added so far, so it is reused for every label after the first few.
+     */
+    private Bitmap mLabelBitmap;
+    /**
+     * {@code Canvas} we use to draw into {@code Bitmap mLabelBitmap}.
+     */
+    private Canvas mLabelCanvas;
+    /**
+     * The pixels of {@code Bitmap mLabelBitmap}, copied out so that the rows of the label can be
+     * packed together and uploaded with {@code glTexSubImage2D}. Grows with {@code mLabelBitmap}.
+     */
+    private byte[] mLabelBytes;
+    /**
+     * {@code ByteBuffer} wrapping {@code byte[] mLabelBytes}.
+     */
+    private ByteBuffer mLabelPixels;
+    /**
+     * Indices in {@code ArrayList<Label> mLabels} of the labels which have been removed, used as a
+     * stack by {@code add} so that it can reuse the index and the {@code Label} object of the label
+     * removed last without searching for one.
+     */
+    private int[] mFreeLabels = new int[8];
+    /**
+     * Number of indices on the stack {@code int[] mFreeLabels}.
+     */
+    private int mFreeLabelCount;
 
-    @SuppressWarnings("unused")
-    private float mTexelWidth;  // Convert texel to U
-    @SuppressWarnings("unused")
-    private float mTexelHeight; // Convert texel to V
     /**
-     * {@code u} (x) coordinate to use when adding next label to our texture.
+     * Converts a texel u coordinate to a texture s coordinate, used by {@code drawRun}.
+     */
+    private float mTexelWidth;
+    /**
+     * Converts a texel v coordinate to a texture t coordinate, used by {@code drawRun}.
      */
-    private int mU;
+    private float mTexelHeight;
     /**
-     * {@code v} (y) coordinate to use when adding next label to our texture.
+     * Staging array {@code drawRun} builds its quads in: two triangles per label, each vertex an
+     * interleaved x, y, s, t.
      */
-    private int mV;
+    private float[] mRunVertices;
     /**
-     * Height of the current line of labels.
+     * Direct allocated copy of {@code float[] mRunVertices} which is used as the vertex and texture
+     * coordinate array of the {@code glDrawArrays} call made by {@code drawRun}.
      */
-    private int mLineHeight;
+    private FloatBuffer mRunBuffer;
+    /**
+     * True if {@code drawRun} has enabled the client side vertex and texture coordinate arrays
+     * since {@code beginDrawing}, so that {@code endDrawing} knows to disable them again.
+     */
+    private boolean mRunArraysEnabled;
     /**
      * List of the {@code Label} objects in our texture. A {@code Label} instance contains information
      * about the location and size of the label's text in the texture, as well as the cropping
-     * parameters to use to draw only that {@code Label}.
+     * parameters to use to draw only that {@code Label}. The entry of a label which has been removed
+     * keeps its {@code Label}, marked as removed, until a new label reuses both.
      */
     private ArrayList<Label> mLabels = new ArrayList<>();
 
+    /**
+     * Number of floats {@code drawRun} uses per label: two triangles of three vertices, each vertex
+     * an x, y, s, t.
+     */
+    private static final int FLOATS_PER_LABEL = 2 * 3 * 4;
+    /**
+     * Size in bytes of one interleaved {@code drawRun} vertex.
+     */
+    private static final int RUN_STRIDE = 4 * 4;
+
     /**
      * Constant used to set our field {@code mState} to indicate that we are just starting the
      * creation of our {@code Label} texture and there are no resources that need to be freed if
@@ -115,15 +181,16 @@ public class LabelMaker {
     /**
      * Constant used to set our field {@code mState} to indicate that our {@code initialize} method
      * has been called, and we are ready to begin adding labels. We have acquired a texture name
-     * for our field {@code mTextureID}, bound it to GL_TEXTURE_2D and configured it so there is
-     * a texture which needs to be freed if our {@code GLSurface} is destroyed.
+     * for page 0 of our atlas, bound it to GL_TEXTURE_2D and configured it so there is a texture
+     * which needs to be freed if our {@code GLSurface} is destroyed. Labels can also be added and
+     * removed one at a time in this state.
      */
     private static final int STATE_INITIALIZED = 1;
     /**
      * Constant used to set our field {@code mState} to indicate that our {@code beginAdding} method
      * has been called, and we are ready to add a label (or an additional label). {@code initialize}
-     * was called before us, and we have allocated a {@code Bitmap} for our field {@code Bitmap mBitmap}
-     * so there is some needed if our {@code GLSurface} is destroyed.
+     * was called before us, and we have allocated a {@code Bitmap} for each of our pages so there
+     * is some needed if our {@code GLSurface} is destroyed.
      */
     private static final int STATE_ADDING = 2;
     /**
@@ -145,8 +212,10 @@ public class LabelMaker {
      * strike width and height must be powers of two, We want the strike width to be at least as
      * wide as the widest window. First we initialize our field {@code boolean mFullColor} to our
      * parameter {@code boolean fullColor}, {@code int mStrikeWidth} to {@code int strikeWidth}, and
-     * {@code int mStrikeHeight} to {@code int strikeHeight}. We configure 3 fields which are never
-     * used: {@code mTexelWidth}. {@code mTexelHeight}, and {@code mPaint}. Finally we set our field
+     * {@code int mStrikeHeight} to {@code int strikeHeight}, and set {@code Bitmap.Config mConfig}
+     * to ARGB_4444 if {@code fullColor} is true or to ALPHA_8 if it is false. We set {@code mTexelWidth}
+     * and {@code mTexelHeight} (used by {@code drawRun}) and configure {@code mClearPaint} which is
+     * never used. Finally we set our field
      * {@code int mState} to STATE_NEW (in this state we do not yet have a texture that will need to
      * be freed if our surface is destroyed, but we are ready to begin building our label texture).
      *
@@ -159,8 +228,9 @@ public class LabelMaker {
         mFullColor = fullColor;
         mStrikeWidth = strikeWidth;
         mStrikeHeight = strikeHeight;
-        mTexelWidth = (float) (1.0 / mStrikeWidth); // UNUSED
-        mTexelHeight = (float) (1.0 / mStrikeHeight); // UNUSED
+        mConfig = fullColor ? Bitmap.Config.ARGB_4444 : Bitmap.Config.ALPHA_8;
+        mTexelWidth = (float) (1.0 / mStrikeWidth);
+        mTexelHeight = (float) (1.0 / mStrikeHeight);
         mClearPaint = new Paint();
         mClearPaint.setARGB(0, 0, 0, 0);
         mClearPaint.setStyle(Style.FILL);
@@ -171,9 +241,23 @@ public class LabelMaker {
      * Call to initialize the class. Call whenever the surface has been created. First we set our
      * field {@code int mState} to STATE_INITIALIZED (in this state we have generated a texture name,
      * bound that texture to GL_TEXTURE_2D and configured it to our liking, but no image data has
-     * been uploaded yet). Next we generate a texture name and save it in our field {@code int mTextureID}.
-     * <p>
-     * We bind the texture {@code mTextureID} to the target GL_TEXTURE_2D (GL_TEXTURE_2D becomes an
+     * been uploaded yet). We clear {@code ArrayList<Page> mPages} (any pages it holds belonged to a
+     * GL context which is gone), call our method {@code addPage} to create page 0, and set the
+     * texture environment parameter GL_TEXTURE_ENV_MODE of the texture environment GL_TEXTURE_ENV
+     * to GL_REPLACE (the texture will replace whatever was in the fragment).
+     *
+     * @param gl the gl interface
+     */
+    public void initialize(GL10 gl) {
+        mState = STATE_INITIALIZED;
+        mPages.clear();
+        addPage(gl);
+        gl.glTexEnvf(GL10.GL_TEXTURE_ENV, GL10.GL_TEXTURE_ENV_MODE, GL10.GL_REPLACE);
+    }
+
+    /**
+     * Creates a new page for our atlas and adds it to {@code ArrayList<Page> mPages}. We generate a
+     * texture name for the page, bind it to the target GL_TEXTURE_2D (GL_TEXTURE_2D becomes an
      * alias for our texture), and set both the texture parameters GL_TEXTURE_MIN_FILTER and
      * GL_TEXTURE_MAG_FILTER of GL_TEXTURE_2D to GL_NEAREST (uses the value of the texture element
      * that is nearest (in Manhattan distance) to the center of the pixel being textured when the
@@ -183,19 +267,21 @@ public class LabelMaker {
      * GL_CLAMP_TO_EDGE (when the fragment being textured is larger than the texture, the texture
      * elements at the edges will be used for the rest of the fragment).
      * <p>
-     * Finally we set the texture environment parameter GL_TEXTURE_ENV_MODE of the texture environment
-     * GL_TEXTURE_ENV to GL_REPLACE (the texture will replace whatever was in the fragment).
+     * If we are not in STATE_ADDING (labels are being added one at a time after {@code endAdding}),
+     * we also give the texture its storage by uploading an empty strike to it, so that labels can
+     * be copied into it with {@code texSubImage2D}. In STATE_ADDING we instead create the bitmap
+     * and canvas the labels of the page are drawn into until {@code endAdding} uploads them.
      *
      * @param gl the gl interface
+     * @return the new {@code Page}
      */
-    public void initialize(GL10 gl) {
-        mState = STATE_INITIALIZED;
-
+    private Page addPage(GL10 gl) {
         int[] textures = new int[1];
         gl.glGenTextures(1, textures, 0);
-        mTextureID = textures[0];
+        Page page = new Page(textures[0], new SkylinePacker(mStrikeWidth, mStrikeHeight));
+        mPages.add(page);
 
-        gl.glBindTexture(GL10.GL_TEXTURE_2D, mTextureID);
+        gl.glBindTexture(GL10.GL_TEXTURE_2D, page.mTextureID);
 
         // Use Nearest for performance.
         gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MIN_FILTER, GL10.GL_NEAREST);
@@ -204,41 +290,52 @@ public class LabelMaker {
         gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_WRAP_S, GL10.GL_CLAMP_TO_EDGE);
         gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_WRAP_T, GL10.GL_CLAMP_TO_EDGE);
 
-        gl.glTexEnvf(GL10.GL_TEXTURE_ENV, GL10.GL_TEXTURE_ENV_MODE, GL10.GL_REPLACE);
+        if (mState == STATE_ADDING) {
+            page.startAdding(mStrikeWidth, mStrikeHeight, mConfig);
+        } else {
+            Bitmap empty = Bitmap.createBitmap(mStrikeWidth, mStrikeHeight, mConfig);
+            empty.eraseColor(0);
+            GLUtils.texImage2D(GL10.GL_TEXTURE_2D, 0, empty, 0);
+            empty.recycle();
+        }
+        return page;
     }
 
     /**
      * Called when the surface we were labeling has been destroyed and a new surface is being created
-     * so that the the label texture used by this instance of {@code LabelMaker} can be deleted. To
-     * do this if we have already passed to a state where a texture name has been allocated by the
-     * hardware ({@code mState>STATE_NEW}) we must delete our texture {@code int mTextureID} and
-     * move our state field {@code int mState} to the state STATE_NEW (ready to start building a new
-     * label texture).
+     * so that the the label textures used by this instance of {@code LabelMaker} can be deleted. To
+     * do this if we have already passed to a state where texture names have been allocated by the
+     * hardware ({@code mState>STATE_NEW}) we must delete the texture of every page in
+     * {@code ArrayList<Page> mPages}, clear the list, and move our state field {@code int mState}
+     * to the state STATE_NEW (ready to start building a new label texture).
      *
      * @param gl the gl interface
      */
     public void shutdown(GL10 gl) {
         if (gl != null) {
             if (mState > STATE_NEW) {
-                int[] textures = new int[1];
-                textures[0] = mTextureID;
-                gl.glDeleteTextures(1, textures, 0);
+                int[] textures = new int[mPages.size()];
+                for (int i = 0; i < textures.length; i++) {
+                    textures[i] = mPages.get(i).mTextureID;
+                    mPages.get(i).stopAdding();
+                }
+                gl.glDeleteTextures(textures.length, textures, 0);
+                mPages.clear();
                 mState = STATE_NEW;
             }
         }
     }
 
     /**
-     * Call before adding labels, and after calling {@code initialize}. Clears out any existing labels.
-     * First we call {@code checkState} to make sure we are currently in STATE_INITIALIZED, and if so
-     * changing to state STATE_ADDING. Next we clear our current list of {@code Label} objects contained
-     * in {@code ArrayList<LabelMaker.Label> mLabels}. We reset the texture coordinates for our next
-     * label {@code int mU} and {@code int mV}, and set the height of the current line {@code int mLineHeight}
-     * to 0. We set {@code Bitmap.Config config} to ARGB_4444 if our field {@code boolean mFullColor}
-     * is true, or to ALPHA_8 if it is false. Then we initialize our field {@code Bitmap mBitmap} with
-     * a new instance of {@code Bitmap} using {@code config} which is {@code mStrikeWidth} pixels by
-     * {@code mStrikeHeight} pixels. We initialize {@code Canvas mCanvas} with a canvas which will use
-     * {@code mBitmap} to draw to, then set the entire {@code mBitmap} to black.
+     * Call before adding labels, and after calling {@code initialize}. Clears out any existing
+     * labels. First we call {@code checkState} to make sure we are currently in STATE_INITIALIZED,
+     * and if so changing to state STATE_ADDING. Next we clear our current list of {@code Label}
+     * objects contained in {@code ArrayList<LabelMaker.Label> mLabels} and the stack of free
+     * indices. Then for every {@code Page} in our list {@code ArrayList<Page> mPages} we reset its
+     * {@code SkylinePacker} and call its method {@code startAdding} which creates a {@code Bitmap}
+     * (ARGB_4444 if our field {@code boolean mFullColor} is true, or ALPHA_8 if it is false) which
+     * is {@code mStrikeWidth} pixels by {@code mStrikeHeight} pixels, a {@code Canvas} which will
+     * use it to draw to, and sets the entire bitmap to black.
      *
      * @param gl the gl interface UNUSED
      */
@@ -246,14 +343,11 @@ public class LabelMaker {
     public void beginAdding(GL10 gl) {
         checkState(STATE_INITIALIZED, STATE_ADDING);
         mLabels.clear();
-        mU = 0;
-        mV = 0;
-        mLineHeight = 0;
-        Bitmap.Config config = mFullColor ?
-                Bitmap.Config.ARGB_4444 : Bitmap.Config.ALPHA_8;
-        mBitmap = Bitmap.createBitmap(mStrikeWidth, mStrikeHeight, config);
-        mCanvas = new Canvas(mBitmap);
-        mBitmap.eraseColor(0);
+        mFreeLabelCount = 0;
+        for (Page page : mPages) {
+            page.mPacker.reset();
+            page.startAdding(mStrikeWidth, mStrikeHeight, mConfig);
+        }
     }
 
     /**
@@ -299,13 +393,15 @@ public class LabelMaker {
     }
 
     /**
-     * Call to add a label. First we call our method {@code checkState} to make sure we are in the
-     * state STATE_ADDING (our method {@code beginAdding} has been called). Next we determine if
+     * Call to add a label. Labels are normally added between calls to {@code beginAdding} and
+     * {@code endAdding}, but can also be added one at a time after {@code endAdding} (in the state
+     * STATE_INITIALIZED) to update text without rebuilding the whole atlas. First we make sure we
+     * are in one of those two states using our method {@code checkState}. Next we determine if
      * we have a {@code background} to draw {@code background != null}) saving the result to
      * {@code boolean drawBackground}, and determine if we have text to draw ({@code text != null}
      * and {@code textPaint != null}) saving the result to {@code boolean drawText}.
      * <p>
-     * We allocate a new instance for {@code Rect padding} and if we have a background that needs to
+     * We clear our reusable {@code Rect mPadding} and if we have a background that needs to
      * be drawn we fetch the padding insets for {@code background} to {@code padding}, set the input
      * parameter {@code minWidth} to the max of {@code minWidth} and the minimum width of the drawable
      * {@code background}, and set the input parameter {@code minHeight} to the max of {@code minHeight}
@@ -318,19 +414,20 @@ public class LabelMaker {
      * below the baseline for the current typeface and text size of the parameter {@code Paint textPaint},
      * and set {@code {@code measuredTextWidth}} to the ceiling value of the length of {@code text}.
      * <p>
-     * We now perform a bunch of boring calculations to determine where on the {@code Canvas mCanvas}
-     * we are to draw our background and/or text, and if we have a background we draw the background
-     * drawable at that position, and if we have text we draw the text at that position.
-     * <p>
-     * Having done so, we update our field {@code mU} to point to the next u (x) coordinate we can
-     * use, {@code mV} to point to the next v (y) coordinate we can use, and {@code mLineHeight} to
-     * the (possibly new) height of our current line.
+     * We now perform a bunch of boring calculations to determine the size of the label, and call
+     * our method {@code allocate} to find room for it on one of our pages (starting a new page if
+     * they are all full). In STATE_ADDING we draw into the {@code Canvas} of that page at the
+     * position we were given. Otherwise we draw into the top left corner of {@code Canvas mLabelCanvas}
+     * and upload that corner into the texture of the page at the position we were given using our
+     * method {@code uploadLabel}. In either case if we have a background we draw the background
+     * drawable, and if we have text we draw the text.
      * <p>
-     * Finally we add a new instance of {@code Label} to {@code ArrayList<Label> mLabels} with the
-     * information that will be needed to locate, crop and draw the label we just drew, and return
-     * the index of this {@code Label} object to the caller.
+     * Finally we fill in a {@code Label} with the information that will be needed to locate, crop
+     * and draw the label we just drew and return its index in {@code ArrayList<Label> mLabels}. If
+     * the stack {@code mFreeLabels} is not empty we pop the index of the label removed last and
+     * reuse its {@code Label} object, otherwise we add a new {@code Label} to the end of the list.
      *
-     * @param gl         the gl interface UNUSED
+     * @param gl         the gl interface
      * @param background background {@code Drawable} to use
      * @param text       the text of the label
      * @param textPaint  the paint of the label
@@ -339,13 +436,15 @@ public class LabelMaker {
      * @return index of the {@code Label} in {@code ArrayList<Label> mLabels}, the {@code Label}
      * object will be used to locate, measure, crop and draw the label.
      */
-    @SuppressWarnings("UnusedParameters")
     public int add(GL10 gl, Drawable background, String text, Paint textPaint, int minWidth, int minHeight) {
-        checkState(STATE_ADDING, STATE_ADDING);
+        if (mState != STATE_ADDING) {
+            checkState(STATE_INITIALIZED, STATE_INITIALIZED);
+        }
         boolean drawBackground = background != null;
         boolean drawText = (text != null) && (textPaint != null);
 
-        Rect padding = new Rect();
+        Rect padding = mPadding;
+        padding.setEmpty();
         if (drawBackground) {
             background.getPadding(padding);
             minWidth = Math.max(minWidth, background.getMinimumWidth());
@@ -374,73 +473,230 @@ public class LabelMaker {
         int centerOffsetHeight = (effectiveTextHeight - textHeight) / 2;
         int centerOffsetWidth = (effectiveTextWidth - textWidth) / 2;
 
-        // Make changes to the local variables, only commit them
-        // to the member variables after we've decided not to throw
-        // any exceptions.
-
-        int u = mU;
-        int v = mV;
-        int lineHeight = mLineHeight;
-
         if (width > mStrikeWidth) {
             width = mStrikeWidth;
         }
-
-        // Is there room for this string on the current line?
-        if (u + width > mStrikeWidth) {
-            // No room, go to the next line:
-            u = 0;
-            v += lineHeight;
-            lineHeight = 0;
-        }
-        lineHeight = Math.max(lineHeight, height);
-        if (v + lineHeight > mStrikeHeight) {
+        if (height > mStrikeHeight) {
             throw new IllegalArgumentException("Out of texture space.");
         }
 
-        @SuppressWarnings("unused")
-        int u2 = u + width;
-        int vBase = v + ascent;
-        @SuppressWarnings("unused")
-        int v2 = v + height;
+        int pageIndex = allocate(gl, width, height);
+        Page page = mPages.get(pageIndex);
+        int u = mPosition[0];
+        int v = mPosition[1];
+
+        // Where the label goes on the canvas we draw it in.
+        Canvas canvas;
+        int left;
+        int top;
+        if (mState == STATE_ADDING) {
+            canvas = page.mCanvas;
+            left = u;
+            top = v;
+        } else {
+            canvas = labelCanvas(width, height);
+            left = 0;
+            top = 0;
+        }
 
         if (drawBackground) {
-            background.setBounds(u, v, u + width, v + height);
-            background.draw(mCanvas);
+            background.setBounds(left, top, left + width, top + height);
+            background.draw(canvas);
         }
 
         if (drawText) {
-            mCanvas.drawText(text,
-                    u + padding.left + centerOffsetWidth,
-                    vBase + padding.top + centerOffsetHeight,
+            canvas.drawText(text,
+                    left + padding.left + centerOffsetWidth,
+                    top + ascent + padding.top + centerOffsetHeight,
                     textPaint);
         }
 
-        // We know there's enough space, so update the member variables
-        mU = u + width;
-        mV = v;
-        mLineHeight = lineHeight;
-        mLabels.add(new Label(width, height, ascent, u, v + height, width, -height));
-        return mLabels.size() - 1;
+        if (mState != STATE_ADDING) {
+            gl.glBindTexture(GL10.GL_TEXTURE_2D, page.mTextureID);
+            uploadLabel(gl, u, v, width, height);
+        }
+
+        int labelID;
+        Label label;
+        if (mFreeLabelCount > 0) {
+            labelID = mFreeLabels[--mFreeLabelCount];
+            label = mLabels.get(labelID);
+        } else {
+            labelID = mLabels.size();
+            label = new Label();
+            mLabels.add(label);
+        }
+        label.set(pageIndex, u, v, width, height, ascent);
+        return labelID;
+    }
+
+    /**
+     * Finds room for a label {@code width} by {@code height} pixels on one of our pages, trying
+     * each {@code Page} in {@code ArrayList<Page> mPages} in order and calling {@code addPage} to
+     * start a new one if none of them has room. The position of the label on its page is left in
+     * {@code int[] mPosition}.
+     *
+     * @param gl     the gl interface
+     * @param width  width of the label
+     * @param height height of the label
+     * @return index in {@code ArrayList<Page> mPages} of the page the label goes on
+     */
+    private int allocate(GL10 gl, int width, int height) {
+        for (int i = 0; i < mPages.size(); i++) {
+            if (mPages.get(i).mPacker.allocate(width, height, mPosition)) {
+                return i;
+            }
+        }
+        Page page = addPage(gl);
+        if (!page.mPacker.allocate(width, height, mPosition)) {
+            throw new IllegalArgumentException("Out of texture space.");
+        }
+        return mPages.size() - 1;
+    }
+
+    /**
+     * Returns a {@code Canvas} drawing into {@code Bitmap mLabelBitmap} after making sure that the
+     * bitmap is at least {@code width} by {@code height} pixels, and clears the bitmap. We reuse the
+     * bitmap we have if it is big enough, otherwise we recycle it and create one whose width and
+     * height are the powers of two at least as large as those of the old bitmap and the label (so
+     * the bitmap can only grow a few times), along with the array its pixels are copied to.
+     *
+     * @param width  width of the label
+     * @param height height of the label
+     * @return {@code Canvas mLabelCanvas}
+     */
+    private Canvas labelCanvas(int width, int height) {
+        if (mLabelBitmap == null
+                || mLabelBitmap.getWidth() < width || mLabelBitmap.getHeight() < height) {
+            int bitmapWidth = width;
+            int bitmapHeight = height;
+            if (mLabelBitmap != null) {
+                bitmapWidth = Math.max(bitmapWidth, mLabelBitmap.getWidth());
+                bitmapHeight = Math.max(bitmapHeight, mLabelBitmap.getHeight());
+                mLabelBitmap.recycle();
+            }
+            mLabelBitmap = Bitmap.createBitmap(roundUpPower2(bitmapWidth),
+                    roundUpPower2(bitmapHeight), mConfig);
+            mLabelCanvas = new Canvas(mLabelBitmap);
+            mLabelBytes = new byte[mLabelBitmap.getRowBytes() * mLabelBitmap.getHeight()];
+            mLabelPixels = ByteBuffer.wrap(mLabelBytes);
+        }
+        mLabelBitmap.eraseColor(0);
+        return mLabelCanvas;
+    }
+
+    /**
+     * Uploads the {@code width} by {@code height} pixels at the top left corner of
+     * {@code Bitmap mLabelBitmap} to the texture bound to GL_TEXTURE_2D, at {@code (u, v)}.
+     * {@code GLUtils.texSubImage2D} can only upload a whole bitmap, and GL ES 1 has no way of
+     * giving {@code glTexSubImage2D} a row length, so we copy the pixels of the bitmap to
+     * {@code byte[] mLabelBytes} and move the rows of the label next to each other before
+     * uploading them with {@code glTexSubImage2D}. The pixels are copied as they are stored in the
+     * bitmap, which is the format {@code GLUtils.texImage2D} gave the page textures: GL_RGBA with
+     * GL_UNSIGNED_SHORT_4_4_4_4 for ARGB_4444, GL_ALPHA with GL_UNSIGNED_BYTE for ALPHA_8. The
+     * rows are not padded, so the unpack alignment is set to 1 for the upload and then restored to
+     * its default of 4.
+     *
+     * @param gl     the gl interface
+     * @param u      u coordinate of the left edge of the label on its page
+     * @param v      v coordinate of the top edge of the label on its page
+     * @param width  width of the label
+     * @param height height of the label
+     */
+    private void uploadLabel(GL10 gl, int u, int v, int width, int height) {
+        ByteBuffer pixels = mLabelPixels;
+        pixels.clear();
+        mLabelBitmap.copyPixelsToBuffer(pixels);
+        int bytesPerPixel = mFullColor ? 2 : 1;
+        int stride = mLabelBitmap.getRowBytes();
+        int rowBytes = width * bytesPerPixel;
+        for (int row = 1; row < height; row++) {
+            System.arraycopy(mLabelBytes, row * stride, mLabelBytes, row * rowBytes, rowBytes);
+        }
+        pixels.position(0);
+        gl.glPixelStorei(GL10.GL_UNPACK_ALIGNMENT, 1);
+        if (mFullColor) {
+            gl.glTexSubImage2D(GL10.GL_TEXTURE_2D, 0, u, v, width, height,
+                    GL10.GL_RGBA, GL10.GL_UNSIGNED_SHORT_4_4_4_4, pixels);
+        } else {
+            gl.glTexSubImage2D(GL10.GL_TEXTURE_2D, 0, u, v, width, height,
+                    GL10.GL_ALPHA, GL10.GL_UNSIGNED_BYTE, pixels);
+        }
+        gl.glPixelStorei(GL10.GL_UNPACK_ALIGNMENT, 4);
+    }
+
+    /**
+     * Returns the smallest power of two which is at least {@code value}.
+     *
+     * @param value a positive number
+     * @return {@code value} rounded up to a power of two
+     */
+    private static int roundUpPower2(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * Removes a label, giving its space on its page back so that labels added later can use it.
+     * Can be called while adding labels or after {@code endAdding}, but not while drawing. The
+     * pixels of the label are left in the texture, they are overwritten by the next label which
+     * is placed there. The {@code Label} is marked as removed and its index is pushed on the stack
+     * {@code int[] mFreeLabels}, so the next call to {@code add} returns the same index.
+     *
+     * @param labelID index of the label to remove
+     */
+    public void remove(int labelID) {
+        if (mState != STATE_ADDING) {
+            checkState(STATE_INITIALIZED, STATE_INITIALIZED);
+        }
+        Label label = mLabels.get(labelID);
+        if (label.removed) {
+            throw new IllegalArgumentException("No such label.");
+        }
+        mPages.get(label.page).mPacker.free(label.u, label.v, (int) label.width, (int) label.height);
+        label.removed = true;
+        if (mFreeLabelCount == mFreeLabels.length) {
+            int[] freeLabels = new int[mFreeLabelCount * 2];
+            System.arraycopy(mFreeLabels, 0, freeLabels, 0, mFreeLabelCount);
+            mFreeLabels = freeLabels;
+        }
+        mFreeLabels[mFreeLabelCount++] = labelID;
+    }
+
+    /**
+     * Replaces the text of a label: the label is removed and the new text is added in its place
+     * (or wherever it fits, if it is bigger). Since {@code add} reuses the index removed last the
+     * label keeps its index, and its {@code Label} object. Meant for text which changes every
+     * frame, like the values of a heads up display. Must be called after {@code endAdding},
+     * outside of {@code beginDrawing} and {@code endDrawing}.
+     *
+     * @param gl        the gl interface
+     * @param labelID   index of the label to replace
+     * @param text      the new text of the label
+     * @param textPaint the paint of the label
+     */
+    public void replace(GL10 gl, int labelID, String text, Paint textPaint) {
+        remove(labelID);
+        add(gl, text, textPaint);
     }
 
     /**
      * Call to end adding labels. Must be called before drawing starts. First we call our method
      * {@code checkState} to verify that we are in the STATE_ADDING state, and if so transition back
-     * to the STATE_INITIALIZED state. Next we bind our texture name {@code mTextureID} to the
-     * GL_TEXTURE_2D target, upload our {@code Bitmap mBitmap} to the GPU, recycle our {@code mBitmap}
-     * and null our both {@code mBitmap} and {@code mCanvas} so they can be garbage collected.
+     * to the STATE_INITIALIZED state. Next for each {@code Page} in {@code ArrayList<Page> mPages}
+     * we bind its texture name to the GL_TEXTURE_2D target, upload its bitmap to the GPU, and call
+     * its method {@code stopAdding} to recycle its bitmap and null both its bitmap and its canvas so
+     * they can be garbage collected.
      *
      * @param gl the gl interface
      */
     public void endAdding(GL10 gl) {
         checkState(STATE_ADDING, STATE_INITIALIZED);
-        gl.glBindTexture(GL10.GL_TEXTURE_2D, mTextureID);
-        GLUtils.texImage2D(GL10.GL_TEXTURE_2D, 0, mBitmap, 0);
-        // Reclaim storage used by bitmap and canvas.
-        mBitmap.recycle();
-        mBitmap = null;
-        mCanvas = null;
+        for (Page page : mPages) {
+            gl.glBindTexture(GL10.GL_TEXTURE_2D, page.mTextureID);
+            GLUtils.texImage2D(GL10.GL_TEXTURE_2D, 0, page.mBitmap, 0);
+            // Reclaim storage used by bitmap and canvas.
+            page.stopAdding();
+        }
     }
 
     /**
@@ -480,14 +736,15 @@ public class LabelMaker {
     /**
      * Begin drawing labels. Sets the OpenGL state for rapid drawing. First we call our method
      * {@code checkState} to verify that we are in STATE_INITIALIZED state and if so to transition
-     * to STATE_DRAWING state. Next we bind our texture name {@code mTextureID} to the target
-     * GL_TEXTURE_2D, set the shade model to GL_FLAT and enable the server side capability GL_BLEND
-     * (blend the computed fragment color values with the values in the color buffers). We call the
-     * method {@code glBlendFunc} to set the source blending function to GL_SRC_ALPHA, and the
-     * destination blending function to GL_ONE_MINUS_SRC_ALPHA (modifies the incoming color by its
-     * associated alpha value and modifies the destination color by one minus the incoming alpha
-     * value. The sum of these two colors is then written back into the framebuffer.) We then call
-     * the method {@code glColor4x} to set the primitive’s opacity to 1.0 in GLfixed format.
+     * to STATE_DRAWING state. Next we bind the texture name of page 0 to the target GL_TEXTURE_2D
+     * (remembering it in {@code mBoundTextureID}), set the shade model to GL_FLAT and enable the
+     * server side capability GL_BLEND (blend the computed fragment color values with the values in
+     * the color buffers). We call the method {@code glBlendFunc} to set the source blending
+     * function to GL_SRC_ALPHA, and the destination blending function to GL_ONE_MINUS_SRC_ALPHA
+     * (modifies the incoming color by its associated alpha value and modifies the destination color
+     * by one minus the incoming alpha value. The sum of these two colors is then written back into
+     * the framebuffer.) We then call the method {@code glColor4x} to set the primitive’s opacity to
+     * 1.0 in GLfixed format.
      * <p>
      * We set the current matrix to the projection matrix GL_PROJECTION, push the current projection
      * matrix to its stack, load GL_PROJECTION with the identity matrix, and multiply it with the
@@ -506,7 +763,8 @@ public class LabelMaker {
      */
     public void beginDrawing(GL10 gl, float viewWidth, float viewHeight) {
         checkState(STATE_INITIALIZED, STATE_DRAWING);
-        gl.glBindTexture(GL10.GL_TEXTURE_2D, mTextureID);
+        mBoundTextureID = mPages.get(0).mTextureID;
+        gl.glBindTexture(GL10.GL_TEXTURE_2D, mBoundTextureID);
         gl.glShadeModel(GL10.GL_FLAT);
 
         gl.glEnable(GL10.GL_BLEND);
@@ -529,7 +787,9 @@ public class LabelMaker {
      * Draw a given label at a given x,y position, expressed in pixels, with the lower-left-hand
      * corner of the view being (0,0). First we call our method {@code checkState} to make sure we
      * are in the STATE_DRAWING state. We fetch the {@code Label} object for the label we are to
-     * draw to {@code Label label}, enable the server side capability GL_TEXTURE_2D, and set the
+     * draw to {@code Label label}, and if the texture of its page is not the one bound to
+     * GL_TEXTURE_2D ({@code mBoundTextureID}) we bind it. We enable the server side capability
+     * GL_TEXTURE_2D, and set the
      * cropping rectangle of GL_TEXTURE_2D to the contents of the {@code label.mCrop} field. Then
      * we call glDrawTexiOES to draw the cropped area of the texture at {@code (x,y,z)} using the
      * width and height specified by the {@code label.width} field, and the {@code label.height}
@@ -543,23 +803,147 @@ public class LabelMaker {
     public void draw(GL10 gl, float x, float y, int labelID) {
         checkState(STATE_DRAWING, STATE_DRAWING);
         Label label = mLabels.get(labelID);
+        int textureID = mPages.get(label.page).mTextureID;
+        if (textureID != mBoundTextureID) {
+            gl.glBindTexture(GL10.GL_TEXTURE_2D, textureID);
+            mBoundTextureID = textureID;
+        }
         gl.glEnable(GL10.GL_TEXTURE_2D);
         ((GL11) gl).glTexParameteriv(GL10.GL_TEXTURE_2D, GL11Ext.GL_TEXTURE_CROP_RECT_OES, label.mCrop, 0);
         ((GL11Ext) gl).glDrawTexiOES((int) x, (int) y, 0, (int) label.width, (int) label.height);
     }
 
+    /**
+     * Draws a run of labels side by side, starting with the lower-left-hand corner of the first
+     * label at (x,y) and moving each following label right by the width of the one before it, the
+     * way a line of text is drawn one glyph per label. Instead of a crop state change and a
+     * {@code glDrawTexiOES} call per label as in {@code draw}, the run is turned into one interleaved
+     * buffer of textured quads (x, y, s, t per vertex) drawn with a single {@code glDrawArrays} call
+     * for every page the run uses, which is one call when all its labels are on the same page. Must
+     * be called between {@code beginDrawing} and {@code endDrawing}. The client side vertex and
+     * texture coordinate arrays are enabled and left enabled until {@code endDrawing} disables
+     * them, their pointers pointing at our buffer.
+     *
+     * @param gl       the gl interface
+     * @param x        x coordinate of the left edge of the run
+     * @param y        y coordinate of the bottom edge of the run
+     * @param labelIDs indices of the labels to draw, in order from left to right
+     * @param count    number of entries of {@code labelIDs} to draw
+     * @return x coordinate just right of the last label drawn
+     */
+    public float drawRun(GL10 gl, float x, float y, int[] labelIDs, int count) {
+        checkState(STATE_DRAWING, STATE_DRAWING);
+        if (count <= 0) {
+            return x;
+        }
+        if (mRunVertices == null || mRunVertices.length < count * FLOATS_PER_LABEL) {
+            mRunVertices = new float[count * FLOATS_PER_LABEL];
+            ByteBuffer bb = ByteBuffer.allocateDirect(mRunVertices.length * 4);
+            bb.order(ByteOrder.nativeOrder());
+            mRunBuffer = bb.asFloatBuffer();
+        }
+        gl.glEnable(GL10.GL_TEXTURE_2D);
+        gl.glEnableClientState(GL10.GL_VERTEX_ARRAY);
+        gl.glEnableClientState(GL10.GL_TEXTURE_COORD_ARRAY);
+        mRunArraysEnabled = true;
+
+        // Like glDrawTexiOES, we start on a whole pixel.
+        x = (int) x;
+        y = (int) y;
+        final float[] vertices = mRunVertices;
+        int textureID = mBoundTextureID;
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            Label label = mLabels.get(labelIDs[i]);
+            int pageTextureID = mPages.get(label.page).mTextureID;
+            if (pageTextureID != textureID) {
+                flushRun(gl, offset);
+                offset = 0;
+                gl.glBindTexture(GL10.GL_TEXTURE_2D, pageTextureID);
+                textureID = pageTextureID;
+            }
+            float right = x + label.width;
+            float top = y + label.height;
+            float s0 = label.u * mTexelWidth;
+            float s1 = (label.u + label.width) * mTexelWidth;
+            // The bitmap is uploaded top row first, so the top of the label is at the smaller t.
+            float t0 = label.v * mTexelHeight;
+            float t1 = (label.v + label.height) * mTexelHeight;
+            offset = putVertex(vertices, offset, x, y, s0, t1);
+            offset = putVertex(vertices, offset, right, y, s1, t1);
+            offset = putVertex(vertices, offset, right, top, s1, t0);
+            offset = putVertex(vertices, offset, x, y, s0, t1);
+            offset = putVertex(vertices, offset, right, top, s1, t0);
+            offset = putVertex(vertices, offset, x, top, s0, t0);
+            x = right;
+        }
+        flushRun(gl, offset);
+        mBoundTextureID = textureID;
+        return x;
+    }
+
+    /**
+     * Stores one vertex of a {@code drawRun} quad in {@code float[] vertices} at {@code offset}.
+     *
+     * @param vertices array to store the vertex in
+     * @param offset   position in {@code vertices} to store the vertex at
+     * @param x        x coordinate of the vertex
+     * @param y        y coordinate of the vertex
+     * @param s        s texture coordinate of the vertex
+     * @param t        t texture coordinate of the vertex
+     * @return the position in {@code vertices} just after the vertex
+     */
+    private static int putVertex(float[] vertices, int offset, float x, float y, float s, float t) {
+        vertices[offset] = x;
+        vertices[offset + 1] = y;
+        vertices[offset + 2] = s;
+        vertices[offset + 3] = t;
+        return offset + 4;
+    }
+
+    /**
+     * Copies the first {@code length} floats of {@code float[] mRunVertices} to
+     * {@code FloatBuffer mRunBuffer} with a single bulk {@code put}, points the vertex and texture
+     * coordinate arrays at it (both interleaved with a stride of four floats) and draws the quads
+     * with one {@code glDrawArrays} call. Does nothing if {@code length} is 0.
+     *
+     * @param gl     the gl interface
+     * @param length number of floats of {@code mRunVertices} in use
+     */
+    private void flushRun(GL10 gl, int length) {
+        if (length == 0) {
+            return;
+        }
+        mRunBuffer.position(0);
+        mRunBuffer.put(mRunVertices, 0, length);
+        mRunBuffer.position(0);
+        gl.glVertexPointer(2, GL10.GL_FLOAT, RUN_STRIDE, mRunBuffer);
+        mRunBuffer.position(2);
+        gl.glTexCoordPointer(2, GL10.GL_FLOAT, RUN_STRIDE, mRunBuffer);
+        mRunBuffer.position(0);
+        gl.glDrawArrays(GL10.GL_TRIANGLES, 0, length / 4);
+    }
+
     /**
      * Ends the drawing and restores the OpenGL state. First we call our method {@code checkState} to
      * make sure we are in the STATE_DRAWING state and if so to transition to the STATE_INITIALIZED
-     * state. We disable the server side capability GL_BLEND, set the current matrix to the projection
-     * matrix GL_PROJECTION and pop the old matrix off of its stake, and then set the current matrix
-     * to the model view matrix GL_MODELVIEW and pop the old matrix off of its stake.
+     * state. We disable the server side capability GL_BLEND, and if {@code drawRun} enabled the
+     * client side vertex and texture coordinate arrays (which are still pointing at our
+     * {@code FloatBuffer mRunBuffer}) we disable them too, so that later draws of the frame cannot
+     * use those stale pointers. Then we set the current matrix to the projection matrix
+     * GL_PROJECTION and pop the old matrix off of its stake, and then set the current matrix to the
+     * model view matrix GL_MODELVIEW and pop the old matrix off of its stake.
      *
      * @param gl the gl interface
      */
     public void endDrawing(GL10 gl) {
         checkState(STATE_DRAWING, STATE_INITIALIZED);
         gl.glDisable(GL10.GL_BLEND);
+        if (mRunArraysEnabled) {
+            gl.glDisableClientState(GL10.GL_VERTEX_ARRAY);
+            gl.glDisableClientState(GL10.GL_TEXTURE_COORD_ARRAY);
+            mRunArraysEnabled = false;
+        }
         gl.glMatrixMode(GL10.GL_PROJECTION);
         gl.glPopMatrix();
         gl.glMatrixMode(GL10.GL_MODELVIEW);
@@ -586,6 +970,18 @@ public class LabelMaker {
      */
     private static class Label {
 
+        /**
+         * index in {@code ArrayList<Page> mPages} of the page the label is on
+         */
+        public int page;
+        /**
+         * u coordinate of the left edge of the label on its page
+         */
+        public int u;
+        /**
+         * v coordinate of the top edge of the label on its page
+         */
+        public int v;
         /**
          * width of the label in pixels
          */
@@ -602,30 +998,98 @@ public class LabelMaker {
          * Defines the location and size of the label in the texture, it is used to crop the texture
          * so that only this label is used for drawing.
          */
-        public int[] mCrop;
+        public final int[] mCrop = new int[4];
+        /**
+         * True if the label has been removed, and its index is on the stack of free indices.
+         */
+        public boolean removed;
 
         /**
-         * Our constructor. We simply initialize our fields using our input parameters.
+         * Sets our fields for a label just drawn, and marks us as not removed. The crop rectangle
+         * starts at the bottom left corner of the label, {@code (u, v + height)}, and has a negative
+         * height so that the label, which was uploaded top row first, is drawn the right way up.
          *
+         * @param page     index of the page our label is on
+         * @param u        u coordinate of the left edge of our label on its page
+         * @param v        v coordinate of the top edge of our label on its page
          * @param width    width of our label
          * @param height   height of our label
          * @param baseLine baseline of our label
-         * @param cropU    u coordinate of left side of label in texture
-         * @param cropV    v coordinate of top of texture
-         * @param cropW    width of label in texture
-         * @param cropH    height of the crop region, the negative value in our case specifies that the
-         *                 region lies below the coordinate (u,v) in the texture image.
          */
-        public Label(float width, float height, float baseLine, int cropU, int cropV, int cropW, int cropH) {
+        public void set(int page, int u, int v, int width, int height, float baseLine) {
+            this.page = page;
+            this.u = u;
+            this.v = v;
             this.width = width;
             this.height = height;
             this.baseline = baseLine;
-            int[] crop = new int[4];
-            crop[0] = cropU;
-            crop[1] = cropV;
-            crop[2] = cropW;
-            crop[3] = cropH;
-            mCrop = crop;
+            mCrop[0] = u;
+            mCrop[1] = v + height;
+            mCrop[2] = width;
+            mCrop[3] = -height;
+            removed = false;
+        }
+    }
+
+    /**
+     * One page of our texture atlas: a texture {@code mStrikeWidth} by {@code mStrikeHeight} pixels
+     * and the {@code SkylinePacker} which keeps track of the space used in it.
+     */
+    private static class Page {
+        /**
+         * Texture name of the page.
+         */
+        public final int mTextureID;
+        /**
+         * Allocator for the space on this page.
+         */
+        public final SkylinePacker mPacker;
+        /**
+         * {@code Bitmap} we draw the labels of this page in between {@code beginAdding} and
+         * {@code endAdding}, when it is uploaded as GL_TEXTURE_2D (and then recycled). It is null
+         * the rest of the time.
+         */
+        public Bitmap mBitmap;
+        /**
+         * {@code Canvas} we use to draw into {@code Bitmap mBitmap}.
+         */
+        public Canvas mCanvas;
+
+        /**
+         * Our constructor. We simply initialize our fields using our input parameters.
+         *
+         * @param textureID texture name of the page
+         * @param packer    allocator for the space on the page
+         */
+        public Page(int textureID, SkylinePacker packer) {
+            mTextureID = textureID;
+            mPacker = packer;
+        }
+
+        /**
+         * Creates {@code Bitmap mBitmap} and {@code Canvas mCanvas} to draw labels into, and sets
+         * the entire bitmap to black.
+         *
+         * @param width  width of the strike
+         * @param height height of the strike
+         * @param config bitmap configuration of the strike
+         */
+        public void startAdding(int width, int height, Bitmap.Config config) {
+            stopAdding();
+            mBitmap = Bitmap.createBitmap(width, height, config);
+            mCanvas = new Canvas(mBitmap);
+            mBitmap.eraseColor(0);
+        }
+
+        /**
+         * Recycles {@code Bitmap mBitmap} if we have one, and nulls it and {@code Canvas mCanvas}.
+         */
+        public void stopAdding() {
+            if (mBitmap != null) {
+                mBitmap.recycle();
+            }
+            mBitmap = null;
+            mCanvas = null;
         }
     }
 }
@@ -0,0 +1,480 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics.spritetext;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * A {@code MatrixStack} which does its math lazily. Instead of applying every matrix operation to
+ * the stack as it is made, we record it in a journal of preallocated primitive arrays (an opcode
+ * in {@code int[] mOps} and its arguments in {@code float[] mArgs}) and only replay the journal
+ * against the stack when somebody asks for the current matrix with {@code getMatrix}, or when the
+ * journal is full. {@code MatrixTrackingGL} uses three of these instead of plain {@code MatrixStack}
+ * objects when it is constructed in lazy mode, so that frames which never read a matrix back pay
+ * for copying a few arguments per call instead of a matrix multiply per call.
+ * <p>
+ * What keeps the journal from simply growing until it is full every frame is that a frame usually
+ * starts by loading a new matrix (the {@code glLoadIdentity} at the top of an {@code onDrawFrame}).
+ * A load overwrites the top of the stack, so if nothing in the journal has touched a matrix below
+ * the current top every operation in it is dead: the matrices it changed are either overwritten or
+ * above the top of the stack, where they can only be reached again by a push which overwrites them
+ * with a copy. In that case we throw the journal away (after popping the stack down to the current
+ * depth) and start a new one with the load.
+ * <p>
+ * The operations are replayed with the same {@code MatrixStack} methods the eager stack uses, so
+ * the matrices we return are bit for bit the ones a plain {@code MatrixStack} would return. Stack
+ * overflow and underflow are checked when an operation is recorded rather than when it is replayed,
+ * so they throw from the same call they would throw from in a plain {@code MatrixStack}.
+ */
+@SuppressWarnings("WeakerAccess")
+class MatrixJournal extends MatrixStack {
+    /**
+     * Opcode of {@code glFrustumf}, six arguments.
+     */
+    private static final int OP_FRUSTUM = 0;
+    /**
+     * Opcode of {@code glLoadIdentity}, no arguments.
+     */
+    private static final int OP_LOAD_IDENTITY = 1;
+    /**
+     * Opcode of {@code glLoadMatrixf}, sixteen arguments.
+     */
+    private static final int OP_LOAD_MATRIX = 2;
+    /**
+     * Opcode of {@code glMultMatrixf}, sixteen arguments.
+     */
+    private static final int OP_MULT_MATRIX = 3;
+    /**
+     * Opcode of {@code glOrthof}, six arguments.
+     */
+    private static final int OP_ORTHO = 4;
+    /**
+     * Opcode of {@code glPopMatrix}, no arguments.
+     */
+    private static final int OP_POP = 5;
+    /**
+     * Opcode of {@code glPushMatrix}, no arguments.
+     */
+    private static final int OP_PUSH = 6;
+    /**
+     * Opcode of {@code glRotatef}, four arguments.
+     */
+    private static final int OP_ROTATE = 7;
+    /**
+     * Opcode of {@code glScalef}, three arguments.
+     */
+    private static final int OP_SCALE = 8;
+    /**
+     * Opcode of {@code glTranslatef}, three arguments.
+     */
+    private static final int OP_TRANSLATE = 9;
+
+    /**
+     * Number of operations the journal holds before it has to be replayed.
+     */
+    private static final int JOURNAL_OPS = 256;
+    /**
+     * Number of arguments the journal holds before it has to be replayed, enough for every
+     * operation to have four of them (the matrix loads and multiplies take sixteen).
+     */
+    private static final int JOURNAL_ARGS = JOURNAL_OPS * 4;
+
+    /**
+     * Opcodes of the operations recorded since the journal was last replayed or thrown away.
+     */
+    private final int[] mOps = new int[JOURNAL_OPS];
+    /**
+     * Arguments of the operations in {@code mOps}, in order, converted to {@code float}.
+     */
+    private final float[] mArgs = new float[JOURNAL_ARGS];
+    /**
+     * Number of operations in {@code mOps}.
+     */
+    private int mOpCount;
+    /**
+     * Number of arguments in {@code mArgs}.
+     */
+    private int mArgCount;
+    /**
+     * Maximum number of matrices on the stack, used to check for overflow when a push is recorded.
+     */
+    private final int mMaxDepth;
+    /**
+     * Index of the top of the stack once the journal has been replayed, 0 for a stack holding
+     * one matrix.
+     */
+    private int mDepth;
+    /**
+     * Index of the top of the stack the last time the journal was replayed or thrown away, that is
+     * the top of the underlying {@code MatrixStack} right now.
+     */
+    private int mBaseDepth;
+    /**
+     * Lowest value {@code mDepth} has had since the journal was last replayed or thrown away. No
+     * operation in the journal has touched a matrix below it.
+     */
+    private int mMinDepth;
+
+    /**
+     * Our constructor, a journaled stack holding up to {@code DEFAULT_MAX_DEPTH} matrices.
+     */
+    public MatrixJournal() {
+        this(DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Our constructor, a journaled stack holding up to {@code maxDepth} matrices.
+     *
+     * @param maxDepth maximum depth of the matrix stack we are to hold
+     */
+    public MatrixJournal(int maxDepth) {
+        super(maxDepth);
+        mMaxDepth = maxDepth;
+    }
+
+    @Override
+    public void glFrustumf(float left, float right, float bottom, float top, float near, float far) {
+        recordLoad(OP_FRUSTUM, 6);
+        float[] args = mArgs;
+        int i = mArgCount;
+        args[i] = left;
+        args[i + 1] = right;
+        args[i + 2] = bottom;
+        args[i + 3] = top;
+        args[i + 4] = near;
+        args[i + 5] = far;
+        mArgCount = i + 6;
+    }
+
+    @Override
+    public void glFrustumx(int left, int right, int bottom, int top, int near, int far) {
+        glFrustumf(fixedToFloat(left), fixedToFloat(right),
+                fixedToFloat(bottom), fixedToFloat(top),
+                fixedToFloat(near), fixedToFloat(far));
+    }
+
+    @Override
+    public void glLoadIdentity() {
+        recordLoad(OP_LOAD_IDENTITY, 0);
+    }
+
+    @Override
+    public void glLoadMatrixf(float[] m, int offset) {
+        recordLoad(OP_LOAD_MATRIX, MATRIX_SIZE);
+        System.arraycopy(m, offset, mArgs, mArgCount, MATRIX_SIZE);
+        mArgCount += MATRIX_SIZE;
+    }
+
+    @Override
+    public void glLoadMatrixf(FloatBuffer m) {
+        recordLoad(OP_LOAD_MATRIX, MATRIX_SIZE);
+        m.get(mArgs, mArgCount, MATRIX_SIZE);
+        mArgCount += MATRIX_SIZE;
+    }
+
+    @Override
+    public void glLoadMatrixx(int[] m, int offset) {
+        recordLoad(OP_LOAD_MATRIX, MATRIX_SIZE);
+        putFixed(m, offset);
+    }
+
+    @Override
+    public void glLoadMatrixx(IntBuffer m) {
+        recordLoad(OP_LOAD_MATRIX, MATRIX_SIZE);
+        putFixed(m);
+    }
+
+    @Override
+    public void glMultMatrixf(float[] m, int offset) {
+        record(OP_MULT_MATRIX, MATRIX_SIZE);
+        System.arraycopy(m, offset, mArgs, mArgCount, MATRIX_SIZE);
+        mArgCount += MATRIX_SIZE;
+    }
+
+    @Override
+    public void glMultMatrixf(FloatBuffer m) {
+        record(OP_MULT_MATRIX, MATRIX_SIZE);
+        m.get(mArgs, mArgCount, MATRIX_SIZE);
+        mArgCount += MATRIX_SIZE;
+    }
+
+    @Override
+    public void glMultMatrixx(int[] m, int offset) {
+        record(OP_MULT_MATRIX, MATRIX_SIZE);
+        putFixed(m, offset);
+    }
+
+    @Override
+    public void glMultMatrixx(IntBuffer m) {
+        record(OP_MULT_MATRIX, MATRIX_SIZE);
+        putFixed(m);
+    }
+
+    @Override
+    public void glOrthof(float left, float right, float bottom, float top, float near, float far) {
+        recordLoad(OP_ORTHO, 6);
+        float[] args = mArgs;
+        int i = mArgCount;
+        args[i] = left;
+        args[i + 1] = right;
+        args[i + 2] = bottom;
+        args[i + 3] = top;
+        args[i + 4] = near;
+        args[i + 5] = far;
+        mArgCount = i + 6;
+    }
+
+    @Override
+    public void glOrthox(int left, int right, int bottom, int top, int near, int far) {
+        glOrthof(fixedToFloat(left), fixedToFloat(right),
+                fixedToFloat(bottom), fixedToFloat(top),
+                fixedToFloat(near), fixedToFloat(far));
+    }
+
+    /**
+     * Records a pop of the stack, throwing an IllegalArgumentException if the stack would underflow.
+     */
+    @Override
+    public void glPopMatrix() {
+        if (mDepth == 0) {
+            throw new IllegalArgumentException("stack underflow");
+        }
+        record(OP_POP, 0);
+        mDepth--;
+        if (mDepth < mMinDepth) {
+            mMinDepth = mDepth;
+        }
+    }
+
+    /**
+     * Records a push of the stack, throwing an IllegalArgumentException if the stack would overflow.
+     */
+    @Override
+    public void glPushMatrix() {
+        if (mDepth + 1 >= mMaxDepth) {
+            throw new IllegalArgumentException("stack overflow");
+        }
+        record(OP_PUSH, 0);
+        mDepth++;
+    }
+
+    @Override
+    public void glRotatef(float angle, float x, float y, float z) {
+        record(OP_ROTATE, 4);
+        float[] args = mArgs;
+        int i = mArgCount;
+        args[i] = angle;
+        args[i + 1] = x;
+        args[i + 2] = y;
+        args[i + 3] = z;
+        mArgCount = i + 4;
+    }
+
+    /**
+     * Records a rotation given in 16.16 fixed point. Note that like {@code MatrixStack.glRotatex}
+     * we do not convert the angle, only the axis.
+     *
+     * @param angle angle to rotate by
+     * @param x     x coordinate of the axis, 16.16 fixed point
+     * @param y     y coordinate of the axis, 16.16 fixed point
+     * @param z     z coordinate of the axis, 16.16 fixed point
+     */
+    @Override
+    public void glRotatex(int angle, int x, int y, int z) {
+        glRotatef(angle, fixedToFloat(x), fixedToFloat(y), fixedToFloat(z));
+    }
+
+    @Override
+    public void glScalef(float x, float y, float z) {
+        record(OP_SCALE, 3);
+        float[] args = mArgs;
+        int i = mArgCount;
+        args[i] = x;
+        args[i + 1] = y;
+        args[i + 2] = z;
+        mArgCount = i + 3;
+    }
+
+    @Override
+    public void glScalex(int x, int y, int z) {
+        glScalef(fixedToFloat(x), fixedToFloat(y), fixedToFloat(z));
+    }
+
+    @Override
+    public void glTranslatef(float x, float y, float z) {
+        record(OP_TRANSLATE, 3);
+        float[] args = mArgs;
+        int i = mArgCount;
+        args[i] = x;
+        args[i + 1] = y;
+        args[i + 2] = z;
+        mArgCount = i + 3;
+    }
+
+    @Override
+    public void glTranslatex(int x, int y, int z) {
+        glTranslatef(fixedToFloat(x), fixedToFloat(y), fixedToFloat(z));
+    }
+
+    /**
+     * Copies the matrix at the top of the stack to {@code dest}, replaying the journal first so
+     * that it is up to date.
+     *
+     * @param dest   array to copy the matrix to
+     * @param offset offset into {@code dest} to copy to
+     */
+    @Override
+    public void getMatrix(float[] dest, int offset) {
+        replay();
+        super.getMatrix(dest, offset);
+    }
+
+    /**
+     * Applies every operation in the journal to the underlying {@code MatrixStack}, in the order
+     * they were recorded, and empties the journal. Only the {@code MatrixStack} methods which do
+     * not call any of their overridable siblings are used, so nothing we call comes back to us.
+     */
+    public void replay() {
+        final int[] ops = mOps;
+        final float[] args = mArgs;
+        final int count = mOpCount;
+        int a = 0;
+        for (int i = 0; i < count; i++) {
+            switch (ops[i]) {
+                case OP_FRUSTUM:
+                    super.glFrustumf(args[a], args[a + 1], args[a + 2],
+                            args[a + 3], args[a + 4], args[a + 5]);
+                    a += 6;
+                    break;
+                case OP_LOAD_IDENTITY:
+                    super.glLoadIdentity();
+                    break;
+                case OP_LOAD_MATRIX:
+                    super.glLoadMatrixf(args, a);
+                    a += MATRIX_SIZE;
+                    break;
+                case OP_MULT_MATRIX:
+                    super.glMultMatrixf(args, a);
+                    a += MATRIX_SIZE;
+                    break;
+                case OP_ORTHO:
+                    super.glOrthof(args[a], args[a + 1], args[a + 2],
+                            args[a + 3], args[a + 4], args[a + 5]);
+                    a += 6;
+                    break;
+                case OP_POP:
+                    super.glPopMatrix();
+                    break;
+                case OP_PUSH:
+                    super.glPushMatrix();
+                    break;
+                case OP_ROTATE:
+                    super.glRotatef(args[a], args[a + 1], args[a + 2], args[a + 3]);
+                    a += 4;
+                    break;
+                case OP_SCALE:
+                    super.glScalef(args[a], args[a + 1], args[a + 2]);
+                    a += 3;
+                    break;
+                case OP_TRANSLATE:
+                    super.glTranslatef(args[a], args[a + 1], args[a + 2]);
+                    a += 3;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown journal op: " + ops[i]);
+            }
+        }
+        mOpCount = 0;
+        mArgCount = 0;
+        mBaseDepth = mDepth;
+        mMinDepth = mDepth;
+    }
+
+    /**
+     * Returns the number of operations waiting in the journal, for benchmarks.
+     *
+     * @return number of operations recorded since the journal was last replayed or thrown away
+     */
+    public int getPendingCount() {
+        return mOpCount;
+    }
+
+    /**
+     * Appends the opcode {@code op} to the journal, making sure there is room for it and for
+     * {@code argCount} arguments, which the caller then writes at {@code mArgCount}. If the journal
+     * is full we replay it first.
+     *
+     * @param op       opcode of the operation
+     * @param argCount number of arguments the caller will append
+     */
+    private void record(int op, int argCount) {
+        if (mOpCount == JOURNAL_OPS || mArgCount + argCount > JOURNAL_ARGS) {
+            replay();
+        }
+        mOps[mOpCount++] = op;
+    }
+
+    /**
+     * Appends an operation which overwrites the matrix at the top of the stack. If no operation in
+     * the journal has touched a matrix below the current top, none of them can be observed once
+     * the load is done, so instead of keeping them we pop the underlying {@code MatrixStack} down
+     * to the current depth (the only effect of the journal that survives the load) and empty the
+     * journal before recording the load.
+     *
+     * @param op       opcode of the load
+     * @param argCount number of arguments the caller will append
+     */
+    private void recordLoad(int op, int argCount) {
+        if (mDepth == mMinDepth && mOpCount != 0) {
+            for (int depth = mBaseDepth; depth > mDepth; depth--) {
+                super.glPopMatrix();
+            }
+            mOpCount = 0;
+            mArgCount = 0;
+            mBaseDepth = mDepth;
+        }
+        record(op, argCount);
+    }
+
+    /**
+     * Appends sixteen 16.16 fixed point matrix elements from {@code m} to the journal arguments,
+     * converted to {@code float} the way {@code MatrixStack} converts them.
+     *
+     * @param m      array holding the matrix
+     * @param offset offset of the matrix in {@code m}
+     */
+    private void putFixed(int[] m, int offset) {
+        for (int i = 0; i < MATRIX_SIZE; i++) {
+            mArgs[mArgCount + i] = fixedToFloat(m[offset + i]);
+        }
+        mArgCount += MATRIX_SIZE;
+    }
+
+    /**
+     * Appends sixteen 16.16 fixed point matrix elements read from {@code m} to the journal
+     * arguments, converted to {@code float} the way {@code MatrixStack} converts them.
+     *
+     * @param m buffer holding the matrix at its position
+     */
+    private void putFixed(IntBuffer m) {
+        for (int i = 0; i < MATRIX_SIZE; i++) {
+            mArgs[mArgCount + i] = fixedToFloat(m.get());
+        }
+        mArgCount += MATRIX_SIZE;
+    }
+}
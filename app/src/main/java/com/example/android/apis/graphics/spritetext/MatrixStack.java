@@ -30,11 +30,11 @@ public class MatrixStack {
     /**
      * Default depth of our matrix stack
      */
-    private final static int DEFAULT_MAX_DEPTH = 32;
+    final static int DEFAULT_MAX_DEPTH = 32;
     /**
      * Size of each matrix in our stack
      */
-    private final static int MATRIX_SIZE = 16;
+    final static int MATRIX_SIZE = 16;
     /**
      * Our stack of matrices, it is in our case a {@code float[]} array allocated enough storage for
      * DEFAULT_MAX_DEPTH*MATRIX_SIZE entries.
@@ -59,11 +59,11 @@ public class MatrixStack {
     }
 
     /**
-     * Our constructor which allows the depth of the matrix stack to be specified UNUSED.
+     * Our constructor which allows the depth of the matrix stack to be specified, used by
+     * {@code MatrixJournal}.
      *
      * @param maxDepth maximum depth of the matrix stack we are to hold
      */
-    @SuppressWarnings("unused")
     public MatrixStack(int maxDepth) {
         commonInit(maxDepth);
     }
@@ -71,14 +71,16 @@ public class MatrixStack {
     /**
      * Initializes our instance by allocating storage for our fields {@code float[] mMatrix} and
      * {@code float[] mTemp} with its argument {@code int maxDepth} specifying how many matrices our
-     * matrix stack needs to hold.
+     * matrix stack needs to hold. The first matrix is set to the identity matrix directly rather than
+     * by calling {@code glLoadIdentity}, which a subclass such as {@code MatrixJournal} overrides
+     * and which must not run before the subclass has been constructed.
      *
      * @param maxDepth depth of matrix stack.
      */
     private void commonInit(int maxDepth) {
         mMatrix = new float[maxDepth * MATRIX_SIZE];
         mTemp = new float[MATRIX_SIZE * 2];
-        glLoadIdentity();
+        Matrix.setIdentityM(mMatrix, 0);
     }
 
     /**
@@ -396,7 +398,7 @@ public class MatrixStack {
      * @param fixedValue 16.16 fixed point format value
      * @return input parameter converted to {@code float} format
      */
-    private float fixedToFloat(int fixedValue) {
+    static float fixedToFloat(int fixedValue) {
         return fixedValue * (1.0f / 65536.0f);
     }
 
@@ -105,18 +105,36 @@ class MatrixTrackingGL implements GL, GL10, GL10Ext, GL11, GL11Ext {
      */
     float[] mCheckB;
 
+    /**
+     * Our constructor for a wrapper which tracks the matrices eagerly, applying every matrix
+     * operation to its {@code MatrixStack} as it is made. We just call our two argument constructor
+     * with false for {@code lazy}.
+     *
+     * @param gl the gl interface
+     */
+    public MatrixTrackingGL(GL gl) {
+        this(gl, false);
+    }
+
     /**
      * Our constructor. First we cast our parameter {@code GL gl} to {@code GL10 mgl}, if {@code gl}
      * is an instance of {@code GL10Ext} we cast it to {@code GL10Ext mgl10Ext}, if {@code gl} is an
      * instance of {@code G11} we cast it to {@code GL11 mgl11}, and if  if {@code gl} is an instance
      * of {@code G11Ext} we cast it to {@code GL11Ext mgl11Ext}. Next we allocate storage for our
      * three matrix stacks {@code MatrixStack mModelView}, {@code MatrixStack mProjection} and
-     * {@code MatrixStack mTexture}. We set {@code MatrixStack mCurrent} to point to {@code mModelView},
-     * and set our matrix mode {@code int mMatrixMode} to GL_MODELVIEW.
+     * {@code MatrixStack mTexture}, which are {@code MatrixJournal} objects if {@code lazy} is true.
+     * We set {@code MatrixStack mCurrent} to point to {@code mModelView}, and set our matrix mode
+     * {@code int mMatrixMode} to GL_MODELVIEW.
+     * <p>
+     * A {@code MatrixJournal} only records the matrix operations we mirror into it, and does the
+     * math when {@code getMatrix} (that is {@code MatrixGrabber} or {@code Projector}) asks for the
+     * current matrix, so in lazy mode frames which never read a matrix back hardly pay for the
+     * tracking at all. The matrices returned are the same in both modes.
      *
-     * @param gl the gl interface
+     * @param gl   the gl interface
+     * @param lazy true to record the matrix operations and only apply them when a matrix is read
      */
-    public MatrixTrackingGL(GL gl) {
+    public MatrixTrackingGL(GL gl, boolean lazy) {
         mgl = (GL10) gl;
         if (gl instanceof GL10Ext) {
             mgl10Ext = (GL10Ext) gl;
@@ -127,9 +145,15 @@ class MatrixTrackingGL implements GL, GL10, GL10Ext, GL11, GL11Ext {
         if (gl instanceof GL11Ext) {
             mgl11Ext = (GL11Ext) gl;
         }
-        mModelView = new MatrixStack();
-        mProjection = new MatrixStack();
-        mTexture = new MatrixStack();
+        if (lazy) {
+            mModelView = new MatrixJournal();
+            mProjection = new MatrixJournal();
+            mTexture = new MatrixJournal();
+        } else {
+            mModelView = new MatrixStack();
+            mProjection = new MatrixStack();
+            mTexture = new MatrixStack();
+        }
         mCurrent = mModelView;
         mMatrixMode = GL10.GL_MODELVIEW;
     }
@@ -31,11 +31,24 @@ public class NumericSprite {
      */
     private LabelMaker mLabelMaker;
     /**
-     * Numeric text we are to draw, initially the empty string it is set to the number of milliseconds
-     * per frame using our method {@code setValue} by the {@code drawMsPF} method of {@code SpriteTextRenderer}
+     * Largest number of digits an int can have.
+     */
+    private static final int MAX_DIGITS = 10;
+    /**
+     * Label index of each digit of the value we are to draw, most significant digit first. Only
+     * the first {@code mDigitCount} entries are used. It is set to the number of milliseconds per
+     * frame using our method {@code setValue} by the {@code drawMsPF} method of {@code SpriteTextRenderer}
      * which is called every time its {@code onDrawFrame} method is called
      */
-    private String mText;
+    private int[] mDigitLabels = new int[MAX_DIGITS];
+    /**
+     * Number of digits of the value we are to draw, initially 0 so that nothing is drawn.
+     */
+    private int mDigitCount;
+    /**
+     * Width in pixels of the labels of all the digits in {@code int[] mDigitLabels}.
+     */
+    private float mTextWidth;
     /**
      * Width of each of our ten numeric labels
      */
@@ -50,11 +63,11 @@ public class NumericSprite {
     private final static String sStrike = "0123456789";
 
     /**
-     * Our constructor, we simply initialize our field {@code String mText} to the empty string, and
+     * Our constructor, we simply set our field {@code int mDigitCount} to 0 (no value to draw), and
      * set our field {@code LabelMaker mLabelMaker} to null.
      */
     public NumericSprite() {
-        mText = "";
+        mDigitCount = 0;
         mLabelMaker = null;
     }
 
@@ -128,25 +141,41 @@ public class NumericSprite {
     }
 
     /**
-     * Formats its parameter {@code int value} as text and saves it in our field {@code String mText}.
-     * {@code mText} is then drawn using the individual digit labels when our {@code draw} method is
-     * called.
+     * Splits its parameter {@code int value} into decimal digits and saves the label index of each
+     * digit in our field {@code int[] mDigitLabels}, most significant digit first, and the total
+     * width of those labels in {@code float mTextWidth}. This is called every frame so it does not
+     * allocate: we count the digits first and then fill the array from its last digit back to its
+     * first. Negative values are drawn as 0 since we have no label for a minus sign. The digits are
+     * then drawn using the individual digit labels when our {@code draw} method is called.
      *
      * @param value int value we want to print to our surface
      */
     public void setValue(int value) {
-        mText = format(value);
+        if (value < 0) {
+            value = 0;
+        }
+        int count = 1;
+        for (int rest = value / 10; rest != 0; rest /= 10) {
+            count++;
+        }
+        float width = 0.0f;
+        for (int i = count - 1; i >= 0; i--) {
+            int digit = value % 10;
+            value /= 10;
+            mDigitLabels[i] = mLabelId[digit];
+            width += mWidth[digit];
+        }
+        mDigitCount = count;
+        mTextWidth = width;
     }
 
     /**
-     * Called to draw the contents of our field {@code String mText} to the {@code SurfaceView} using
-     * the individual digit labels we have created in our {@code LabelMaker mLabelMaker}. First we
-     * set {@code int length} to the number of characters in {@code mText} and instruct our instance
-     * of {@code LabelMaker mLabelMaker} to begin drawing (transition from the state STATE_INITIALIZED
-     * to the state STATE_DRAWING). Then for each of the characters in {@code mText} we calculate the
-     * index of the label for that character and instruct {@code mLabelMaker} to draw that label at
-     * the location (x,y). We then advance {@code x} by the width of the label just drawn and move to
-     * the next character.
+     * Called to draw the digits of the value set by {@code setValue} to the {@code SurfaceView}
+     * using the individual digit labels we have created in our {@code LabelMaker mLabelMaker}. We
+     * instruct our instance of {@code LabelMaker mLabelMaker} to begin drawing (transition from
+     * the state STATE_INITIALIZED to the state STATE_DRAWING), then have it draw the labels in
+     * {@code int[] mDigitLabels} side by side starting at the location (x,y) with its method
+     * {@code drawRun}, which draws them all with a single draw call.
      * <p>
      * When done drawing we instruct {@code mLabelMaker} to end the drawing (transition from the state
      * STATE_DRAWING to the state STATE_INITIALIZED).
@@ -158,42 +187,20 @@ public class NumericSprite {
      * @param viewHeight height of the {@code SurfaceView}
      */
     public void draw(GL10 gl, float x, float y, float viewWidth, float viewHeight) {
-        int length = mText.length();
         mLabelMaker.beginDrawing(gl, viewWidth, viewHeight);
-        for (int i = 0; i < length; i++) {
-            char c = mText.charAt(i);
-            int digit = c - '0';
-            mLabelMaker.draw(gl, x, y, mLabelId[digit]);
-            x += mWidth[digit];
-        }
+        mLabelMaker.drawRun(gl, x, y, mDigitLabels, mDigitCount);
         mLabelMaker.endDrawing(gl);
     }
 
     /**
-     * Adds up the width of each of the labels needed to print the contents of {@code String mText}
-     * and returns the result to the caller. Called from the {@code drawMsPF} method of the class
+     * Returns the width of the labels needed to print the value set by {@code setValue}, which
+     * {@code setValue} added up. Called from the {@code drawMsPF} method of the class
      * {@code SpriteTextRenderer} in order to calculate the correct starting x location before calling
      * our method {@code draw}.
      *
-     * @return width in pixels of the labels needed to render the contents of {@code String mText}
+     * @return width in pixels of the labels needed to render the digits in {@code int[] mDigitLabels}
      */
     public float width() {
-        float width = 0.0f;
-        int length = mText.length();
-        for (int i = 0; i < length; i++) {
-            char c = mText.charAt(i);
-            width += mWidth[c - '0'];
-        }
-        return width;
-    }
-
-    /**
-     * Returns its parameter's {@code String} representation.
-     *
-     * @param value int value to format into text string
-     * @return {@code String} object representing our parameter {@code int value}
-     */
-    private String format(int value) {
-        return Integer.toString(value);
+        return mTextWidth;
     }
 }
@@ -106,10 +106,8 @@ class Projector {
      * the moving model view, projection, and view port are taken into consideration. In our case this
      * keeps the labels for the three vertices of the rotating triangle in sync with the triangle.
      * <p>
-     * First we check if our flag {@code mMVPComputed} is false, and if so we multiply the current
-     * projection matrix that {@code MatrixGrabber mGrabber} has retrieved to its {@code mProjection}
-     * field by the model view matrix held in its {@code mModelView} field and save the results in
-     * {@code float[] mMVP}. We then set {@code mMVPComputed} to true.
+     * First we call our method {@code computeMVP} to make sure {@code float[] mMVP} holds the
+     * product of the current projection and model view matrices.
      * <p>
      * Now that we have an up to date model view projection matrix in {@code mMVP} we multiply the
      * input vector {@code obj} by it and save the result in {@code float[] mV}. We calculate the
@@ -134,10 +132,7 @@ class Projector {
      * @param winOffset Offset into {@code win} for first element of the vector
      */
     public void project(float[] obj, int objOffset, float[] win, int winOffset) {
-        if (!mMVPComputed) {
-            Matrix.multiplyMM(mMVP, 0, mGrabber.mProjection, 0, mGrabber.mModelView, 0);
-            mMVPComputed = true;
-        }
+        computeMVP();
 
         Matrix.multiplyMV(mV, 0, mMVP, 0, obj, objOffset);
 
@@ -148,6 +143,63 @@ class Projector {
         win[winOffset + 2] = (mV[2] * rw + 1.0f) * 0.5f;
     }
 
+    /**
+     * Projects {@code count} points at once, the batch version of {@code project} for callers with
+     * many labels to place. The points are read from {@code src} as (x, y, z) triples (w is taken
+     * to be 1.0) and their window coordinates are written to {@code dst} as (x, y, z) triples in the
+     * same order, computed the way {@code project} computes them (the view port arithmetic is
+     * folded into two constants per axis, so the results can differ from those of {@code project}
+     * in the last bit). {@code src} and {@code dst} may be the same array, since each point is read
+     * before it is written.
+     * <p>
+     * We call {@code computeMVP} once for the whole batch, then copy the sixteen elements of
+     * {@code float[] mMVP} and the view port constants into local variables so that the loop body
+     * is straight line arithmetic on locals and array elements at fixed offsets, with no calls, no
+     * field loads and no temporary vector, which is as simple as we can make it for the JIT to
+     * unroll (and vectorize, where it can).
+     *
+     * @param src   (x, y, z) object coordinates of the points, 3 * {@code count} floats
+     * @param count number of points to project
+     * @param dst   output (x, y, z) window coordinates of the points, 3 * {@code count} floats
+     */
+    public void projectBatch(float[] src, int count, float[] dst) {
+        computeMVP();
+        final float[] m = mMVP;
+        final float m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+        final float m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+        final float m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+        final float m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+        final float halfWidth = mViewWidth * 0.5f;
+        final float halfHeight = mViewHeight * 0.5f;
+        final float centerX = mX + halfWidth;
+        final float centerY = mY + halfHeight;
+
+        final int end = count * 3;
+        for (int i = 0; i < end; i += 3) {
+            float x = src[i];
+            float y = src[i + 1];
+            float z = src[i + 2];
+            float rw = 1.0f / (m3 * x + m7 * y + m11 * z + m15);
+            dst[i] = centerX + halfWidth * ((m0 * x + m4 * y + m8 * z + m12) * rw);
+            dst[i + 1] = centerY + halfHeight * ((m1 * x + m5 * y + m9 * z + m13) * rw);
+            dst[i + 2] = ((m2 * x + m6 * y + m10 * z + m14) * rw + 1.0f) * 0.5f;
+        }
+    }
+
+    /**
+     * Makes sure {@code float[] mMVP} holds the model view projection matrix. If our flag
+     * {@code mMVPComputed} is false we multiply the current projection matrix that
+     * {@code MatrixGrabber mGrabber} has retrieved to its {@code mProjection} field by the model
+     * view matrix held in its {@code mModelView} field and save the results in {@code mMVP}. We
+     * then set {@code mMVPComputed} to true.
+     */
+    private void computeMVP() {
+        if (!mMVPComputed) {
+            Matrix.multiplyMM(mMVP, 0, mGrabber.mProjection, 0, mGrabber.mModelView, 0);
+            mMVPComputed = true;
+        }
+    }
+
     /**
      * Get the current projection matrix. Has the side-effect of setting current matrix mode to
      * GL_PROJECTION. We simply instruct our field {@code MatrixGrabber mGrabber} to fetch the
@@ -0,0 +1,394 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics.spritetext;
+
+/**
+ * Rectangle allocator for one page of a texture atlas, used by {@code LabelMaker} to decide where
+ * each label goes in its strike.
+ * <p>
+ * New rectangles are placed with the skyline bottom-left heuristic. The used part of the page is
+ * described by its skyline: a list of horizontal segments, each covering a span of the page from
+ * the top edge down to its height. A rectangle is placed on the segment where its bottom edge would
+ * end up highest on the page (the lowest v), breaking ties by picking the narrowest segment. This
+ * wastes much less of the page than filling rows left to right, because a short label can sit on
+ * top of a short neighbour instead of leaving the rest of a tall row empty.
+ * <p>
+ * Rectangles can also be freed one at a time. A freed rectangle cannot be taken out of the skyline,
+ * so it goes on a free list instead, and {@code allocate} checks that list before it touches the
+ * skyline. Whatever is left of a reused rectangle is split into a strip on its right and a strip
+ * below it, and both strips go back on the list, where free rectangles sharing a whole edge are
+ * merged. When every rectangle has been freed the whole page is reset. All of our state is kept
+ * in primitive arrays, so allocating and freeing only allocates memory when one of the arrays
+ * has to grow.
+ */
+@SuppressWarnings("WeakerAccess")
+final class SkylinePacker {
+    /**
+     * Width of the page in pixels.
+     */
+    private final int mWidth;
+    /**
+     * Height of the page in pixels.
+     */
+    private final int mHeight;
+    /**
+     * Left edge of each skyline segment, in increasing order. Only the first {@code mSegmentCount}
+     * entries of this and the next two arrays are used.
+     */
+    private int[] mSegmentX = new int[16];
+    /**
+     * Height of each skyline segment, the v coordinate of the first free row below it.
+     */
+    private int[] mSegmentY = new int[16];
+    /**
+     * Width of each skyline segment.
+     */
+    private int[] mSegmentWidth = new int[16];
+    /**
+     * Number of skyline segments in use.
+     */
+    private int mSegmentCount;
+    /**
+     * Freed rectangles waiting to be reused, four ints each: u, v, width and height.
+     */
+    private int[] mFree = new int[32];
+    /**
+     * Number of rectangles in {@code mFree}.
+     */
+    private int mFreeCount;
+    /**
+     * Number of rectangles allocated and not freed yet.
+     */
+    private int mAllocatedCount;
+
+    /**
+     * Our constructor, we save the size of our page and call {@code reset} to make it empty.
+     *
+     * @param width  width of the page in pixels
+     * @param height height of the page in pixels
+     */
+    public SkylinePacker(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+        reset();
+    }
+
+    /**
+     * Makes the page empty again: the skyline becomes a single segment at height 0 which spans the
+     * whole width of the page, and the free list is emptied.
+     */
+    public void reset() {
+        mSegmentX[0] = 0;
+        mSegmentY[0] = 0;
+        mSegmentWidth[0] = mWidth;
+        mSegmentCount = 1;
+        mFreeCount = 0;
+        mAllocatedCount = 0;
+    }
+
+    /**
+     * Returns the number of rectangles allocated and not freed yet.
+     *
+     * @return number of rectangles in use
+     */
+    public int getAllocatedCount() {
+        return mAllocatedCount;
+    }
+
+    /**
+     * Finds room for a {@code width} by {@code height} rectangle. First we look for the smallest
+     * freed rectangle it fits in, and if there is none we place it on the skyline. If it fits
+     * nowhere on the page we return false and leave everything unchanged.
+     *
+     * @param width    width of the rectangle
+     * @param height   height of the rectangle
+     * @param position receives the u coordinate of the left edge of the rectangle in
+     *                 {@code position[0]} and the v coordinate of its top edge in {@code position[1]}
+     * @return true if the rectangle was allocated, false if the page is too full
+     */
+    public boolean allocate(int width, int height, int[] position) {
+        if (width <= 0 || height <= 0 || width > mWidth || height > mHeight) {
+            return false;
+        }
+        if (allocateFromFreeList(width, height, position)
+                || allocateFromSkyline(width, height, position)) {
+            mAllocatedCount++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gives back a rectangle returned by {@code allocate}. It is added to the free list so that a
+     * later {@code allocate} can reuse it, unless it was the last rectangle in use, in which case
+     * we just {@code reset} the page.
+     *
+     * @param u      u coordinate of the left edge of the rectangle
+     * @param v      v coordinate of the top edge of the rectangle
+     * @param width  width of the rectangle
+     * @param height height of the rectangle
+     */
+    public void free(int u, int v, int width, int height) {
+        if (--mAllocatedCount <= 0) {
+            reset();
+            return;
+        }
+        addFree(u, v, width, height);
+    }
+
+    /**
+     * Tries to place a rectangle in the smallest freed rectangle it fits in. The leftover strip to
+     * the right of the placed rectangle (as tall as the freed rectangle) and the leftover strip
+     * below it (as wide as the placed rectangle) are put back on the free list.
+     *
+     * @param width    width of the rectangle
+     * @param height   height of the rectangle
+     * @param position receives the u and v coordinates of the rectangle
+     * @return true if a freed rectangle was reused
+     */
+    private boolean allocateFromFreeList(int width, int height, int[] position) {
+        final int[] free = mFree;
+        int best = -1;
+        int bestArea = Integer.MAX_VALUE;
+        for (int i = 0; i < mFreeCount * 4; i += 4) {
+            int freeWidth = free[i + 2];
+            int freeHeight = free[i + 3];
+            if (freeWidth >= width && freeHeight >= height && freeWidth * freeHeight < bestArea) {
+                best = i;
+                bestArea = freeWidth * freeHeight;
+            }
+        }
+        if (best < 0) {
+            return false;
+        }
+        int u = free[best];
+        int v = free[best + 1];
+        int freeWidth = free[best + 2];
+        int freeHeight = free[best + 3];
+
+        // Remove it by moving the last entry into its place.
+        mFreeCount--;
+        System.arraycopy(free, mFreeCount * 4, free, best, 4);
+
+        if (freeWidth > width) {
+            addFree(u + width, v, freeWidth - width, freeHeight);
+        }
+        if (freeHeight > height) {
+            addFree(u, v + height, width, freeHeight - height);
+        }
+        position[0] = u;
+        position[1] = v;
+        return true;
+    }
+
+    /**
+     * Adds a rectangle to the free list, growing {@code int[] mFree} if it is full. If a rectangle
+     * already on the list shares a whole edge with the new one, the two are merged first (and the
+     * result is checked again), which stops the list filling up with slivers when the same label
+     * is replaced over and over.
+     *
+     * @param u      u coordinate of the left edge of the rectangle
+     * @param v      v coordinate of the top edge of the rectangle
+     * @param width  width of the rectangle
+     * @param height height of the rectangle
+     */
+    private void addFree(int u, int v, int width, int height) {
+        final int[] free = mFree;
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = 0; i < mFreeCount * 4; i += 4) {
+                int freeU = free[i];
+                int freeV = free[i + 1];
+                int freeWidth = free[i + 2];
+                int freeHeight = free[i + 3];
+                if (freeV == v && freeHeight == height
+                        && (freeU + freeWidth == u || u + width == freeU)) {
+                    u = Math.min(u, freeU);
+                    width += freeWidth;
+                    merged = true;
+                } else if (freeU == u && freeWidth == width
+                        && (freeV + freeHeight == v || v + height == freeV)) {
+                    v = Math.min(v, freeV);
+                    height += freeHeight;
+                    merged = true;
+                }
+                if (merged) {
+                    mFreeCount--;
+                    System.arraycopy(free, mFreeCount * 4, free, i, 4);
+                    break;
+                }
+            }
+        }
+
+        int offset = mFreeCount * 4;
+        if (offset == mFree.length) {
+            int[] grown = new int[mFree.length * 2];
+            System.arraycopy(mFree, 0, grown, 0, offset);
+            mFree = grown;
+        }
+        mFree[offset] = u;
+        mFree[offset + 1] = v;
+        mFree[offset + 2] = width;
+        mFree[offset + 3] = height;
+        mFreeCount++;
+    }
+
+    /**
+     * Places a rectangle on the skyline. For each segment we try putting the left edge of the
+     * rectangle at the left edge of the segment, which puts its top edge at the highest v of all
+     * the segments it spans. We keep the position where its bottom edge is at the smallest v
+     * (ties go to the narrowest segment), then raise the skyline under the rectangle to its bottom
+     * edge by inserting a new segment and trimming or removing the segments it covers.
+     *
+     * @param width    width of the rectangle
+     * @param height   height of the rectangle
+     * @param position receives the u and v coordinates of the rectangle
+     * @return true if the rectangle fit on the skyline
+     */
+    private boolean allocateFromSkyline(int width, int height, int[] position) {
+        int best = -1;
+        int bestBottom = Integer.MAX_VALUE;
+        int bestWidth = Integer.MAX_VALUE;
+        int bestV = 0;
+        for (int i = 0; i < mSegmentCount; i++) {
+            int v = fit(i, width);
+            if (v < 0) {
+                continue;
+            }
+            int bottom = v + height;
+            if (bottom <= mHeight
+                    && (bottom < bestBottom || (bottom == bestBottom && mSegmentWidth[i] < bestWidth))) {
+                best = i;
+                bestBottom = bottom;
+                bestWidth = mSegmentWidth[i];
+                bestV = v;
+            }
+        }
+        if (best < 0) {
+            return false;
+        }
+        int u = mSegmentX[best];
+        addSegment(best, u, bestBottom, width);
+        position[0] = u;
+        position[1] = bestV;
+        return true;
+    }
+
+    /**
+     * Works out the v coordinate the top edge of a rectangle {@code width} wide would have if its
+     * left edge was put at the left edge of segment {@code index}: the largest height of all the
+     * segments it spans.
+     *
+     * @param index index of the segment to try
+     * @param width width of the rectangle
+     * @return v coordinate of the top edge of the rectangle, or -1 if it would stick out of the
+     * right edge of the page.
+     */
+    private int fit(int index, int width) {
+        int u = mSegmentX[index];
+        if (u + width > mWidth) {
+            return -1;
+        }
+        int remaining = width;
+        int v = 0;
+        while (remaining > 0) {
+            v = Math.max(v, mSegmentY[index]);
+            remaining -= mSegmentWidth[index];
+            index++;
+        }
+        return v;
+    }
+
+    /**
+     * Inserts a new segment {@code width} wide at height {@code v} starting at segment
+     * {@code index}, then shrinks or removes the segments to its right which it now covers and
+     * merges neighbouring segments of equal height.
+     *
+     * @param index index the new segment goes at
+     * @param u     left edge of the new segment
+     * @param v     height of the new segment
+     * @param width width of the new segment
+     */
+    private void addSegment(int index, int u, int v, int width) {
+        ensureSegmentCapacity(mSegmentCount + 1);
+        int moved = mSegmentCount - index;
+        System.arraycopy(mSegmentX, index, mSegmentX, index + 1, moved);
+        System.arraycopy(mSegmentY, index, mSegmentY, index + 1, moved);
+        System.arraycopy(mSegmentWidth, index, mSegmentWidth, index + 1, moved);
+        mSegmentX[index] = u;
+        mSegmentY[index] = v;
+        mSegmentWidth[index] = width;
+        mSegmentCount++;
+
+        int right = u + width;
+        int i = index + 1;
+        while (i < mSegmentCount && mSegmentX[i] < right) {
+            int segmentRight = mSegmentX[i] + mSegmentWidth[i];
+            if (segmentRight <= right) {
+                removeSegment(i);
+            } else {
+                mSegmentWidth[i] = segmentRight - right;
+                mSegmentX[i] = right;
+                break;
+            }
+        }
+
+        for (i = 0; i < mSegmentCount - 1; ) {
+            if (mSegmentY[i] == mSegmentY[i + 1]) {
+                mSegmentWidth[i] += mSegmentWidth[i + 1];
+                removeSegment(i + 1);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Removes segment {@code index}, moving the segments after it down one place.
+     *
+     * @param index index of the segment to remove
+     */
+    private void removeSegment(int index) {
+        int moved = mSegmentCount - index - 1;
+        System.arraycopy(mSegmentX, index + 1, mSegmentX, index, moved);
+        System.arraycopy(mSegmentY, index + 1, mSegmentY, index, moved);
+        System.arraycopy(mSegmentWidth, index + 1, mSegmentWidth, index, moved);
+        mSegmentCount--;
+    }
+
+    /**
+     * Grows our three segment arrays if they have room for fewer than {@code capacity} segments.
+     *
+     * @param capacity number of segments we need room for
+     */
+    private void ensureSegmentCapacity(int capacity) {
+        if (capacity <= mSegmentX.length) {
+            return;
+        }
+        int length = Math.max(capacity, mSegmentX.length * 2);
+        int[] x = new int[length];
+        int[] y = new int[length];
+        int[] width = new int[length];
+        System.arraycopy(mSegmentX, 0, x, 0, mSegmentCount);
+        System.arraycopy(mSegmentY, 0, y, 0, mSegmentCount);
+        System.arraycopy(mSegmentWidth, 0, width, 0, mSegmentCount);
+        mSegmentX = x;
+        mSegmentY = y;
+        mSegmentWidth = width;
+    }
+}
@@ -57,14 +57,15 @@ public class SpriteTextActivity extends Activity {
         mGLSurfaceView.setGLWrapper(new GLSurfaceView.GLWrapper() {
             /**
              * Wraps a gl interface in another gl interface, in our case a new instance of
-             * {@code MatrixTrackingGL}.
+             * {@code MatrixTrackingGL} in lazy mode, which only does the matrix math when
+             * {@code SpriteTextRenderer} reads a matrix back.
              *
              * @param gl a GL interface that is to be wrapped.
              * @return a new instance of {@code MatrixTrackingGL} that wraps the input argument.
              */
             @Override
             public GL wrap(GL gl) {
-                return new MatrixTrackingGL(gl);
+                return new MatrixTrackingGL(gl, true);
             }
         });
         mGLSurfaceView.setRenderer(new SpriteTextRenderer(this));
@@ -125,10 +125,10 @@ public class SpriteTextRenderer implements GLSurfaceView.Renderer {
      */
     private NumericSprite mNumericSprite;
     /**
-     * Scratch array we use in our call to {@code Projector.project} to calculate the correct location
-     * of our triangle vertex labels.
+     * Scratch array we use in our call to {@code Projector.projectBatch} to calculate the correct
+     * location of our triangle vertex labels, (x, y, z) for each of the three vertices.
      */
-    private float[] mScratch = new float[8];
+    private float[] mScratch = new float[9];
 
     /**
      * Our constructor. First we save our parameter {@code Context context} in our field
@@ -305,7 +305,8 @@ public class SpriteTextRenderer implements GLSurfaceView.Renderer {
      * three scale factors). Then we instruct our field {@code Triangle mTriangle} to draw itself.
      * <p>
      * To add our labels to the {@code SurfaceView} we instruct our {@code Projector mProjector} to
-     * load the current model view matrix, tell our {@code LabelMaker mLabels} to begin drawing, then
+     * load the current model view matrix, call our method {@code projectLabels} to project the three
+     * vertices in one batch, tell our {@code LabelMaker mLabels} to begin drawing, then
      * call our method {@code drawLabel} to draw the three vertex labels {@code mLabelA}, {@code mLabelB},
      * and {@code mLabelC}. We calculate {@code float msPFX} to be the x coordinate of our label
      * {@code mLabelMsPF} by subtracting the width of that label from the width {@code mWidth} of our
@@ -365,6 +366,7 @@ public class SpriteTextRenderer implements GLSurfaceView.Renderer {
         mTriangle.draw(gl);
 
         mProjector.getCurrentModelView(gl);
+        projectLabels();
         mLabels.beginDrawing(gl, mWidth, mHeight);
         drawLabel(gl, 0, mLabelA);
         drawLabel(gl, 1, mLabelB);
@@ -418,14 +420,26 @@ public class SpriteTextRenderer implements GLSurfaceView.Renderer {
         }
     }
 
+    /**
+     * Projects the three vertices of our triangle to window coordinates in one call. We load
+     * {@code float[] mScratch} with the x and y coordinates of each vertex and 0 for its z
+     * coordinate, then call the {@code projectBatch} method of our field {@code Projector mProjector}
+     * to translate the relative positions of the vertices to their absolute positions in the
+     * rotating model view, in place.
+     */
+    private void projectLabels() {
+        for (int vertex = 0; vertex < 3; vertex++) {
+            mScratch[vertex * 3] = mTriangle.getX(vertex);
+            mScratch[vertex * 3 + 1] = mTriangle.getY(vertex);
+            mScratch[vertex * 3 + 2] = 0.0f;
+        }
+        mProjector.projectBatch(mScratch, 3, mScratch);
+    }
+
     /**
      * Draws the vertex label requested in the proper position on the rotating triangle. First we
-     * get the x and y coordinates of the {@code triangleVertex} vertex we are to label to the
-     * variables {@code x} and {@code y}. We load our scratch vector with {@code x}, {@code y}, 0
-     * for the z coordinate, and 1.0 for the w (to indicate it is a point). Then we call our the
-     * {@code project} method of our field {@code Projector mProjector} to translate the relative
-     * position of our vertex to the absolute position in the rotating model view and retrieve the
-     * resulting x coordinate to {@code sx}, and the y coordinate to {@code sy}. We get the height
+     * retrieve the window x coordinate of the {@code triangleVertex} vertex computed by our method
+     * {@code projectLabels} to {@code sx}, and the y coordinate to {@code sy}. We get the height
      * of our label for {@code float height}, and the width of our label for {@code float width} and
      * calculate the centered location {@code (tx,ty)} for placing our label by subtracting half the
      * width from {@code sx} and half the height from {@code sy} respectively.
@@ -438,15 +452,8 @@ public class SpriteTextRenderer implements GLSurfaceView.Renderer {
      * @param labelId        the label index we are to draw.
      */
     private void drawLabel(GL10 gl, int triangleVertex, int labelId) {
-        float x = mTriangle.getX(triangleVertex);
-        float y = mTriangle.getY(triangleVertex);
-        mScratch[0] = x;
-        mScratch[1] = y;
-        mScratch[2] = 0.0f;
-        mScratch[3] = 1.0f;
-        mProjector.project(mScratch, 0, mScratch, 4);
-        float sx = mScratch[4];
-        float sy = mScratch[5];
+        float sx = mScratch[triangleVertex * 3];
+        float sy = mScratch[triangleVertex * 3 + 1];
         float height = mLabels.getHeight(labelId);
         float width = mLabels.getWidth(labelId);
         float tx = sx - width * 0.5f;
@@ -0,0 +1,1498 @@
+/*
+ * Copyright (C) 2011 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Headless model of the game drawn by {@code GameView}. It owns the ship, the bullets and the
+ * obstacles and moves them using a fixed time step, so that the same seed and the same sequence of
+ * inputs always produce the same game. It uses nothing from the Android framework, which lets it be
+ * run at thousands of steps per second off device for soak tests and replays.
+ * <p>
+ * Real elapsed time is fed in through {@code advance}, which accumulates it and runs as many whole
+ * {@code FIXED_TIME_STEP} steps as fit. The time left over is exposed as an interpolation factor by
+ * {@code getInterpolationAlpha} so that the renderer can draw each sprite between its previous and
+ * current position instead of visibly stuttering when the frame rate and step rate do not match.
+ */
+@SuppressWarnings("WeakerAccess")
+public class GameWorld {
+    /**
+     * Length of a single simulation step in seconds.
+     */
+    public static final float FIXED_TIME_STEP = 1.0f / 60;
+    /**
+     * Maximum number of steps a single call to {@code advance} will run. If we fall further behind
+     * than this (the app was paused in a debugger for instance) the extra time is dropped rather than
+     * making every following frame even slower trying to catch up.
+     */
+    private static final int MAX_STEPS_PER_ADVANCE = 8;
+    /**
+     * Default maximum number of obstacles to have in existence at any given time.
+     */
+    public static final int DEFAULT_MAX_OBSTACLES = 12;
+    /**
+     * Seconds the destruction animation of the ship lasts.
+     */
+    private static final float SHIP_DESTROY_ANIM_DURATION = 1.0f;
+    /**
+     * Seconds the destruction animation of a bullet lasts.
+     */
+    private static final float BULLET_DESTROY_ANIM_DURATION = 0.125f;
+    /**
+     * Seconds the destruction animation of an obstacle lasts.
+     */
+    private static final float OBSTACLE_DESTROY_ANIM_DURATION = 0.25f;
+
+    /**
+     * Callbacks for the events of the game which the host may want to give feedback for.
+     */
+    public interface Listener {
+        /**
+         * Called when the ship fires a bullet.
+         */
+        void onFire();
+
+        /**
+         * Called when the ship crashes into an obstacle.
+         */
+        void onCrash();
+    }
+
+    /**
+     * {@code Random} instance we use to generate random numbers whenever needed, seeded by our
+     * constructor so that runs can be replayed.
+     */
+    private final Random mRandom;
+    /**
+     * {@code Ship} instance controlled by the player.
+     */
+    private Ship mShip;
+    /**
+     * List of {@code Bullet} objects that are currently in flight.
+     */
+    private final List<Bullet> mBullets;
+    /**
+     * List of {@code Obstacle} objects that are currently in existence.
+     */
+    private final List<Obstacle> mObstacles;
+    /**
+     * {@code Bullet} objects which are no longer in flight, kept for reuse by our method
+     * {@code obtainBullet} so that firing does not allocate.
+     */
+    private final List<Bullet> mBulletPool;
+    /**
+     * {@code Obstacle} objects which are no longer in existence, kept for reuse by our method
+     * {@code obtainObstacle} so that spawning does not allocate.
+     */
+    private final List<Obstacle> mObstaclePool;
+    /**
+     * Spatial hash of the obstacles which our {@code step} method rebuilds every step and uses as
+     * the broadphase of its collision checks.
+     */
+    private final SpatialHashGrid mObstacleGrid;
+    /**
+     * When true our {@code step} method only runs {@code Sprite.collidesWith} for the obstacles that
+     * {@code mObstacleGrid} reports as being near a bullet or the ship, when false it falls back to
+     * checking every bullet and the ship against every obstacle.
+     */
+    private boolean mUseSpatialHash = true;
+    /**
+     * Structure of arrays storage for our bullets, used instead of {@code mBullets} when
+     * {@code mUseSpriteArrays} is true.
+     */
+    private final SpriteArrays mBulletArrays;
+    /**
+     * Structure of arrays storage for our obstacles, used instead of {@code mObstacles} when
+     * {@code mUseSpriteArrays} is true.
+     */
+    private final SpriteArrays mObstacleArrays;
+    /**
+     * When true bullets and obstacles are kept in {@code mBulletArrays} and {@code mObstacleArrays}
+     * and moved by their tight loops, when false they are {@code Sprite} objects kept in
+     * {@code mBullets} and {@code mObstacles}.
+     */
+    private boolean mUseSpriteArrays;
+    /**
+     * Maximum number of obstacles to have in existence at any given time.
+     */
+    private int mMaxObstacles = DEFAULT_MAX_OBSTACLES;
+    /**
+     * Receives our fire and crash events, may be null.
+     */
+    private Listener mListener;
+
+    /**
+     * Width of the playfield in pixels.
+     */
+    private int mWidth;
+    /**
+     * Height of the playfield in pixels.
+     */
+    private int mHeight;
+    /**
+     * Seconds of elapsed time passed to {@code advance} which have not yet been simulated.
+     */
+    private float mAccumulator;
+    /**
+     * Number of fixed steps run since we were created.
+     */
+    private long mStepCount;
+
+    /**
+     * Size of the spaceship in pixels.
+     */
+    private final float mShipSize;
+    /**
+     * Speed that the ship can accelerate in pixels.
+     */
+    private final float mMaxShipThrust;
+    /**
+     * Maximum speed that the ship can reach in pixels.
+     */
+    private final float mMaxShipSpeed;
+    /**
+     * Size of the a bullet in pixels.
+     */
+    private final float mBulletSize;
+    /**
+     * Speed of a bullet in pixels.
+     */
+    private final float mBulletSpeed;
+    /**
+     * Minimum size of an obstacle in pixels.
+     */
+    private final float mMinObstacleSize;
+    /**
+     * Maximum size of an obstacle in pixels.
+     */
+    private final float mMaxObstacleSize;
+    /**
+     * Minimum speed of an obstacle in pixels.
+     */
+    private final float mMinObstacleSpeed;
+    /**
+     * Maximum speed of an obstacle in pixels.
+     */
+    private final float mMaxObstacleSpeed;
+
+    /**
+     * Our constructor. We seed {@code Random mRandom} with {@code seed}, allocate our sprite lists
+     * and pools, and derive all our sizes and speeds from {@code baseSize} the same way
+     * {@code GameView} always has: {@code float baseSpeed} is 3 times {@code baseSize}, the ship is
+     * 3 times {@code baseSize} with a thrust of 0.25 times and a top speed of 12 times
+     * {@code baseSpeed}, bullets are {@code baseSize} and travel at 12 times {@code baseSpeed}, and
+     * obstacles range from 2 to 12 times {@code baseSize} in size and 1 to 3 times {@code baseSpeed}
+     * in speed. We then create our obstacle broadphase {@code mObstacleGrid}, fill
+     * {@code mObstaclePool} with enough obstacles for the default maximum, create the structure of
+     * arrays stores {@code mBulletArrays} and {@code mObstacleArrays}, and call {@code reset} so that
+     * we have a ship to play with.
+     *
+     * @param baseSize base size of everything in pixels, 5 times the display density on device.
+     * @param seed     seed for our random number generator.
+     */
+    public GameWorld(float baseSize, long seed) {
+        mRandom = new Random(seed);
+        mBullets = new ArrayList<>();
+        mObstacles = new ArrayList<>(DEFAULT_MAX_OBSTACLES);
+        mBulletPool = new ArrayList<>();
+        mObstaclePool = new ArrayList<>(DEFAULT_MAX_OBSTACLES);
+
+        float baseSpeed = baseSize * 3;
+
+        mShipSize = baseSize * 3;
+        mMaxShipThrust = baseSpeed * 0.25f;
+        mMaxShipSpeed = baseSpeed * 12;
+
+        mBulletSize = baseSize;
+        mBulletSpeed = baseSpeed * 12;
+
+        mMinObstacleSize = baseSize * 2;
+        mMaxObstacleSize = baseSize * 12;
+        mMinObstacleSpeed = baseSpeed;
+        mMaxObstacleSpeed = baseSpeed * 3;
+
+        mObstacleGrid = new SpatialHashGrid(mMaxObstacleSize * 2);
+
+        for (int i = 0; i < DEFAULT_MAX_OBSTACLES; i++) {
+            mObstaclePool.add(new Obstacle());
+        }
+        mBulletArrays = new SpriteArrays(16, BULLET_DESTROY_ANIM_DURATION, true);
+        mObstacleArrays = new SpriteArrays(DEFAULT_MAX_OBSTACLES, OBSTACLE_DESTROY_ANIM_DURATION, false);
+        reset();
+    }
+
+    /**
+     * Sets the listener which is told when the ship fires or crashes.
+     *
+     * @param listener listener to call, or null.
+     */
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Selects the collision broadphase used by our {@code step} method. The two modes find exactly
+     * the same collisions, the switch exists so that they can be compared.
+     *
+     * @param useSpatialHash true to use {@code SpatialHashGrid mObstacleGrid}, false to check every
+     *                       pair of sprites by brute force.
+     */
+    public void setSpatialHashEnabled(boolean useSpatialHash) {
+        mUseSpatialHash = useSpatialHash;
+    }
+
+    /**
+     * Selects how bullets and obstacles are stored and moved, either as one {@code Sprite} object per
+     * sprite or as parallel primitive arrays in {@code SpriteArrays}. Both produce the same game.
+     * Switching resets the game.
+     *
+     * @param useSpriteArrays true for structure of arrays storage, false for sprite objects.
+     */
+    public void setSpriteArraysEnabled(boolean useSpriteArrays) {
+        if (mUseSpriteArrays != useSpriteArrays) {
+            mUseSpriteArrays = useSpriteArrays;
+            reset();
+        }
+    }
+
+    /**
+     * Returns whether bullets and obstacles are held in {@code SpriteArrays}, in which case they must
+     * be read through {@code getBulletArrays} and {@code getObstacleArrays} instead of
+     * {@code getBullet} and {@code getObstacle}.
+     *
+     * @return true if structure of arrays storage is in use.
+     */
+    public boolean isSpriteArraysEnabled() {
+        return mUseSpriteArrays;
+    }
+
+    /**
+     * Sets the maximum number of obstacles that our {@code step} method keeps spawned, stress scenes
+     * raise this well above DEFAULT_MAX_OBSTACLES.
+     *
+     * @param maxObstacles maximum number of obstacles.
+     */
+    public void setMaxObstacles(int maxObstacles) {
+        mMaxObstacles = maxObstacles;
+    }
+
+    /**
+     * Changes the size of the playfield and resets the game.
+     *
+     * @param width  new width of the playfield in pixels.
+     * @param height new height of the playfield in pixels.
+     */
+    public void setSize(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+        reset();
+    }
+
+    /**
+     * Getter for the width of the playfield.
+     *
+     * @return width of the playfield in pixels.
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * Getter for the height of the playfield.
+     *
+     * @return height of the playfield in pixels.
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Resets the game to the starting conditions. First we create {@code Ship mShip} if we do not
+     * have one yet, or call its {@code restart} method if we do so that a crash does not allocate,
+     * then we move all the bullets in {@code List<Bullet> mBullets} to {@code mBulletPool} and all the
+     * obstacles in {@code List<Obstacle> mObstacles} to {@code mObstaclePool}, and empty
+     * {@code mBulletArrays} and {@code mObstacleArrays}.
+     */
+    public void reset() {
+        if (mShip == null) {
+            mShip = new Ship();
+        } else {
+            mShip.restart();
+        }
+        moveAll(mBullets, mBulletPool);
+        moveAll(mObstacles, mObstaclePool);
+        mBulletArrays.clear();
+        mObstacleArrays.clear();
+    }
+
+    /**
+     * Sets the X component of the heading of our ship.
+     *
+     * @param x X component of the heading, between -1 and 1.
+     */
+    public void setHeadingX(float x) {
+        mShip.setHeadingX(x);
+    }
+
+    /**
+     * Sets the Y component of the heading of our ship.
+     *
+     * @param y Y component of the heading, between -1 and 1.
+     */
+    public void setHeadingY(float y) {
+        mShip.setHeadingY(y);
+    }
+
+    /**
+     * Sets both components of the heading of our ship.
+     *
+     * @param x X component of the heading, between -1 and 1.
+     * @param y Y component of the heading, between -1 and 1.
+     */
+    public void setHeading(float x, float y) {
+        mShip.setHeading(x, y);
+    }
+
+    /**
+     * Brings our ship to a dead stop, used when the game loses focus.
+     */
+    public void stopShip() {
+        mShip.setHeading(0, 0);
+        mShip.setVelocity(0, 0);
+    }
+
+    /**
+     * Has the spaceship fire its gun. If {@code mShip} has been destroyed we do nothing. Otherwise we
+     * obtain a {@code Bullet bullet} from our method {@code obtainBullet}, place it at the nose of the
+     * ship moving at {@code mBulletSpeed} relative to the ship, add it to {@code mBullets} (or add the
+     * same bullet to {@code mBulletArrays} if {@code mUseSpriteArrays} is true) and tell our listener
+     * (if any) that we fired.
+     *
+     * @return true if a bullet was fired.
+     */
+    public boolean fire() {
+        if (mShip.isDestroyed()) {
+            return false;
+        }
+        if (mUseSpriteArrays) {
+            mBulletArrays.add(mShip.getBulletInitialX(), mShip.getBulletInitialY(),
+                    mShip.getBulletVelocityX(mBulletSpeed), mShip.getBulletVelocityY(mBulletSpeed),
+                    mBulletSize);
+        } else {
+            Bullet bullet = obtainBullet();
+            bullet.setPosition(mShip.getBulletInitialX(), mShip.getBulletInitialY());
+            bullet.setVelocity(mShip.getBulletVelocityX(mBulletSpeed), mShip.getBulletVelocityY(mBulletSpeed));
+            mBullets.add(bullet);
+        }
+
+        if (mListener != null) {
+            mListener.onFire();
+        }
+        return true;
+    }
+
+    /**
+     * Advances the game by {@code elapsed} seconds of real time. We add {@code elapsed} to
+     * {@code mAccumulator} and then run our {@code step} method with FIXED_TIME_STEP as long as a
+     * whole step's worth of time remains in the accumulator, up to MAX_STEPS_PER_ADVANCE steps (any
+     * time beyond that is dropped). The remainder stays in the accumulator for the next call and is
+     * what {@code getInterpolationAlpha} reports.
+     *
+     * @param elapsed seconds of real time since the last call, negative values are ignored.
+     * @return number of fixed steps that were run.
+     */
+    public int advance(float elapsed) {
+        if (elapsed > 0) {
+            mAccumulator += elapsed;
+        }
+        int steps = 0;
+        while (mAccumulator >= FIXED_TIME_STEP) {
+            if (steps == MAX_STEPS_PER_ADVANCE) {
+                mAccumulator = 0;
+                break;
+            }
+            step(FIXED_TIME_STEP);
+            mAccumulator -= FIXED_TIME_STEP;
+            steps++;
+        }
+        return steps;
+    }
+
+    /**
+     * Returns how far we are between the previous step and the current one, for interpolating the
+     * positions of our sprites when drawing them.
+     *
+     * @return value between 0 (draw at the previous position) and 1 (draw at the current position).
+     */
+    public float getInterpolationAlpha() {
+        return Math.min(mAccumulator / FIXED_TIME_STEP, 1.0f);
+    }
+
+    /**
+     * Getter for the number of fixed steps run since we were created.
+     *
+     * @return number of steps run.
+     */
+    public long getStepCount() {
+        return mStepCount;
+    }
+
+    /**
+     * Moves all the {@code Sprite} objects in our game forward by {@code tau} seconds, and removes
+     * any that are destroyed when that is done. This is normally called only by {@code advance} with
+     * FIXED_TIME_STEP, but is public so that replays and tests can drive it directly.
+     * <p>
+     * First we call the {@code accelerate} method of {@code Ship mShip} and then its {@code step}
+     * method, and if that returns false (the ship has finished exploding) we call our method
+     * {@code reset} to start over. If {@code mUseSpriteArrays} is true we hand the rest of the step to
+     * {@code stepSpriteArrays}. Otherwise we step every bullet and every obstacle, swap removing the
+     * ones whose {@code step} returns false into their pools. Then we check for collisions between
+     * bullets and obstacles and between the ship and obstacles, using {@code checkCollisionsHashed}
+     * if {@code mUseSpatialHash} is true or {@code checkCollisionsBruteForce} if it is false. Finally
+     * we call {@code spawnObstacles} to replace any obstacles that were destroyed.
+     *
+     * @param tau number of seconds to move our sprites forward.
+     */
+    public void step(float tau) {
+        mStepCount++;
+
+        // Move the ship.
+        mShip.accelerate(tau, mMaxShipThrust, mMaxShipSpeed);
+        if (!mShip.step(tau)) {
+            reset();
+        }
+
+        if (mUseSpriteArrays) {
+            stepSpriteArrays(tau);
+            return;
+        }
+
+        // Move the bullets.
+        int numBullets = mBullets.size();
+        for (int i = 0; i < numBullets; i++) {
+            final Bullet bullet = mBullets.get(i);
+            if (!bullet.step(tau)) {
+                mBulletPool.add(swapRemove(mBullets, i));
+                i -= 1;
+                numBullets -= 1;
+            }
+        }
+
+        // Move obstacles.
+        int numObstacles = mObstacles.size();
+        for (int i = 0; i < numObstacles; i++) {
+            final Obstacle obstacle = mObstacles.get(i);
+            if (!obstacle.step(tau)) {
+                mObstaclePool.add(swapRemove(mObstacles, i));
+                i -= 1;
+                numObstacles -= 1;
+            }
+        }
+
+        if (mUseSpatialHash) {
+            checkCollisionsHashed(numBullets, numObstacles);
+        } else {
+            checkCollisionsBruteForce(numBullets, numObstacles);
+        }
+
+        spawnObstacles();
+    }
+
+    /**
+     * The structure of arrays version of the second half of {@code step}. We move and cull all the
+     * bullets and all the obstacles with the {@code step} method of {@code mBulletArrays} and
+     * {@code mObstacleArrays}, check for collisions with {@code checkCollisionsSpriteArrays}, and
+     * call {@code spawnObstacles} to replace any obstacles that were destroyed.
+     *
+     * @param tau number of seconds to move our sprites forward.
+     */
+    private void stepSpriteArrays(float tau) {
+        mBulletArrays.step(tau, mWidth, mHeight);
+        mObstacleArrays.step(tau, mWidth, mHeight);
+        checkCollisionsSpriteArrays();
+        spawnObstacles();
+    }
+
+    /**
+     * Checks every bullet in {@code mBulletArrays} and the ship against the obstacles in
+     * {@code mObstacleArrays}, destroying the bullet or ship and the first obstacle it hits. If
+     * {@code mUseSpatialHash} is true the candidates are found with {@code mObstacleGrid}, exactly
+     * as {@code checkCollisionsHashed} does, otherwise every obstacle is checked.
+     */
+    private void checkCollisionsSpriteArrays() {
+        final SpriteArrays bullets = mBulletArrays;
+        final SpriteArrays obstacles = mObstacleArrays;
+        final int numBullets = bullets.mCount;
+        final int numObstacles = obstacles.mCount;
+        final SpatialHashGrid grid = mUseSpatialHash ? mObstacleGrid : null;
+        if (grid != null) {
+            grid.clear();
+            for (int j = 0; j < numObstacles; j++) {
+                if (!obstacles.isDestroyed(j)) {
+                    grid.insert(j, obstacles.mX[j], obstacles.mY[j], obstacles.mSize[j]);
+                }
+            }
+        }
+
+        // Check for collisions between bullets and obstacles.
+        for (int i = 0; i < numBullets; i++) {
+            if (bullets.isDestroyed(i)) {
+                continue;
+            }
+            final float x = bullets.mX[i];
+            final float y = bullets.mY[i];
+            final float size = bullets.mSize[i];
+            final int count = grid != null ? grid.query(x, y, size) : numObstacles;
+            for (int k = 0; k < count; k++) {
+                final int j = grid != null ? grid.getResult(k) : k;
+                if (!obstacles.isDestroyed(j)
+                        && collides(x, y, size, obstacles.mX[j], obstacles.mY[j], obstacles.mSize[j])) {
+                    bullets.destroy(i);
+                    obstacles.destroy(j);
+                    break;
+                }
+            }
+        }
+
+        // Check for collisions between the ship and obstacles.
+        if (mShip.isDestroyed()) {
+            return;
+        }
+        final float x = mShip.mPositionX;
+        final float y = mShip.mPositionY;
+        final float size = mShip.mSize;
+        final int count = grid != null ? grid.query(x, y, size) : numObstacles;
+        for (int k = 0; k < count; k++) {
+            final int j = grid != null ? grid.getResult(k) : k;
+            if (!obstacles.isDestroyed(j)
+                    && collides(x, y, size, obstacles.mX[j], obstacles.mY[j], obstacles.mSize[j])) {
+                mShip.destroy();
+                obstacles.destroy(j);
+                break;
+            }
+        }
+    }
+
+    /**
+     * The distance test of {@code Sprite.collidesWith} for two live sprites given by their position
+     * and size.
+     *
+     * @param x1    X coordinate of the first sprite
+     * @param y1    Y coordinate of the first sprite
+     * @param size1 size of the first sprite
+     * @param x2    X coordinate of the second sprite
+     * @param y2    Y coordinate of the second sprite
+     * @param size2 size of the second sprite
+     * @return true if the two sprites are colliding
+     */
+    private static boolean collides(float x1, float y1, float size1, float x2, float y2, float size2) {
+        return pythag(x1 - x2, y1 - y2) <= Math.max(size1, size2) + Math.min(size1, size2) * 0.5f;
+    }
+
+    /**
+     * Checks every bullet and the ship against every obstacle. For each of the first {@code numBullets}
+     * bullets in {@code mBullets} we loop over the first {@code numObstacles} obstacles in
+     * {@code mObstacles} and if the {@code collidesWith} method of the bullet returns true for an
+     * obstacle we destroy both and move on to the next bullet. Then we loop over the obstacles again
+     * and if {@code mShip} collides with one of them we destroy both and stop looking.
+     *
+     * @param numBullets   number of live bullets at the head of {@code mBullets}
+     * @param numObstacles number of live obstacles at the head of {@code mObstacles}
+     */
+    private void checkCollisionsBruteForce(int numBullets, int numObstacles) {
+        // Check for collisions between bullets and obstacles.
+        for (int i = 0; i < numBullets; i++) {
+            final Bullet bullet = mBullets.get(i);
+            for (int j = 0; j < numObstacles; j++) {
+                final Obstacle obstacle = mObstacles.get(j);
+                if (bullet.collidesWith(obstacle)) {
+                    bullet.destroy();
+                    obstacle.destroy();
+                    break;
+                }
+            }
+        }
+
+        // Check for collisions between the ship and obstacles.
+        for (int i = 0; i < numObstacles; i++) {
+            final Obstacle obstacle = mObstacles.get(i);
+            if (mShip.collidesWith(obstacle)) {
+                mShip.destroy();
+                obstacle.destroy();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Same as {@code checkCollisionsBruteForce} but only calls {@code collidesWith} for the obstacles
+     * which share a grid cell with the bullet or ship being checked. First we clear
+     * {@code mObstacleGrid} and insert every obstacle using its index in {@code mObstacles} as its id
+     * and its size as its radius. Then for each bullet we query the grid using the bullet's position
+     * and size, and walk the candidates it returns (which are sorted by index, so the first obstacle
+     * we hit is the same one the brute force loop would hit first) destroying the bullet and the
+     * obstacle on the first collision. Finally we do the same for {@code mShip}.
+     * <p>
+     * Two sprites collide when their distance is at most the larger size plus half the smaller size,
+     * which is never more than the sum of their sizes, so using the sizes as the radii of the boxes
+     * we insert and query with can never miss a collision.
+     *
+     * @param numBullets   number of live bullets at the head of {@code mBullets}
+     * @param numObstacles number of live obstacles at the head of {@code mObstacles}
+     */
+    private void checkCollisionsHashed(int numBullets, int numObstacles) {
+        final SpatialHashGrid grid = mObstacleGrid;
+        grid.clear();
+        for (int j = 0; j < numObstacles; j++) {
+            final Obstacle obstacle = mObstacles.get(j);
+            if (!obstacle.isDestroyed()) {
+                grid.insert(j, obstacle.mPositionX, obstacle.mPositionY, obstacle.mSize);
+            }
+        }
+
+        // Check for collisions between bullets and obstacles.
+        for (int i = 0; i < numBullets; i++) {
+            final Bullet bullet = mBullets.get(i);
+            if (bullet.isDestroyed()) {
+                continue;
+            }
+            final int count = grid.query(bullet.mPositionX, bullet.mPositionY, bullet.mSize);
+            for (int k = 0; k < count; k++) {
+                final Obstacle obstacle = mObstacles.get(grid.getResult(k));
+                if (bullet.collidesWith(obstacle)) {
+                    bullet.destroy();
+                    obstacle.destroy();
+                    break;
+                }
+            }
+        }
+
+        // Check for collisions between the ship and obstacles.
+        final int count = grid.query(mShip.mPositionX, mShip.mPositionY, mShip.mSize);
+        for (int k = 0; k < count; k++) {
+            final Obstacle obstacle = mObstacles.get(grid.getResult(k));
+            if (mShip.collidesWith(obstacle)) {
+                mShip.destroy();
+                obstacle.destroy();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Spawns more obstacles offscreen when needed to replace any destroyed, avoiding putting them
+     * right on top of the ship. While the size of {@code mObstacles} is less than {@code mMaxObstacles}
+     * we pick a random size, then up to 10 times pick a random point just outside a random edge of
+     * the playfield until we find one at least 4 ship sizes away from the ship (giving up on spawning
+     * for this step if we cannot). We then pick a random direction and a random speed, and obtain an
+     * obstacle from {@code obtainObstacle} with that position, size and velocity and add it to
+     * {@code mObstacles} (or add the same obstacle to {@code mObstacleArrays} if
+     * {@code mUseSpriteArrays} is true). Nothing is spawned while the playfield is empty.
+     */
+    private void spawnObstacles() {
+        if (mWidth <= 0 || mHeight <= 0) {
+            return;
+        }
+        OuterLoop:
+        while (getObstacleCount() < mMaxObstacles) {
+            final float minDistance = mShipSize * 4;
+            float size = mRandom.nextFloat() * (mMaxObstacleSize - mMinObstacleSize) + mMinObstacleSize;
+            float positionX, positionY;
+            int tries = 0;
+            do {
+                int edge = mRandom.nextInt(4);
+                switch (edge) {
+                    case 0:
+                        positionX = -size;
+                        positionY = mRandom.nextInt(mHeight);
+                        break;
+                    case 1:
+                        positionX = mWidth + size;
+                        positionY = mRandom.nextInt(mHeight);
+                        break;
+                    case 2:
+                        positionX = mRandom.nextInt(mWidth);
+                        positionY = -size;
+                        break;
+                    default:
+                        positionX = mRandom.nextInt(mWidth);
+                        positionY = mHeight + size;
+                        break;
+                }
+                if (++tries > 10) {
+                    break OuterLoop;
+                }
+            } while (mShip.distanceTo(positionX, positionY) < minDistance);
+
+            float direction = mRandom.nextFloat() * (float) Math.PI * 2;
+            float speed = mRandom.nextFloat() * (mMaxObstacleSpeed - mMinObstacleSpeed) + mMinObstacleSpeed;
+            float velocityX = (float) Math.cos(direction) * speed;
+            float velocityY = (float) Math.sin(direction) * speed;
+
+            if (mUseSpriteArrays) {
+                mObstacleArrays.add(positionX, positionY, velocityX, velocityY, size);
+            } else {
+                Obstacle obstacle = obtainObstacle();
+                obstacle.setPosition(positionX, positionY);
+                obstacle.setSize(size);
+                obstacle.setVelocity(velocityX, velocityY);
+                mObstacles.add(obstacle);
+            }
+        }
+    }
+
+    /**
+     * Returns a {@code Bullet} ready to be launched, reusing one from {@code mBulletPool} if there is
+     * one and only allocating a new one when the pool is empty.
+     *
+     * @return a {@code Bullet} which is not destroyed and has the standard bullet size.
+     */
+    private Bullet obtainBullet() {
+        final int pooled = mBulletPool.size();
+        if (pooled == 0) {
+            return new Bullet();
+        }
+        Bullet bullet = mBulletPool.remove(pooled - 1);
+        bullet.recycle();
+        bullet.setSize(mBulletSize);
+        return bullet;
+    }
+
+    /**
+     * Returns an {@code Obstacle} ready to be spawned, reusing one from {@code mObstaclePool} if there
+     * is one and only allocating a new one when the pool is empty.
+     *
+     * @return an {@code Obstacle} which is not destroyed.
+     */
+    private Obstacle obtainObstacle() {
+        final int pooled = mObstaclePool.size();
+        if (pooled == 0) {
+            return new Obstacle();
+        }
+        Obstacle obstacle = mObstaclePool.remove(pooled - 1);
+        obstacle.recycle();
+        return obstacle;
+    }
+
+    /**
+     * Removes the element at {@code index} from {@code list} by moving the last element into its
+     * place, which avoids shifting the tail of the list down. The order of the list is not kept.
+     *
+     * @param list  the list to remove from
+     * @param index index of the element to remove
+     * @param <T>   type of the elements of the list
+     * @return the element that was removed
+     */
+    private static <T> T swapRemove(List<T> list, int index) {
+        final int last = list.size() - 1;
+        final T removed = list.get(index);
+        if (index != last) {
+            list.set(index, list.get(last));
+        }
+        list.remove(last);
+        return removed;
+    }
+
+    /**
+     * Appends every element of {@code from} to {@code to} and empties {@code from}. We copy the
+     * elements one at a time because {@code ArrayList.addAll} allocates a copy of its argument.
+     *
+     * @param from the list to move the elements from
+     * @param to   the list to move the elements to
+     * @param <T>  type of the elements of the lists
+     */
+    private static <T> void moveAll(List<T> from, List<T> to) {
+        for (int i = 0, n = from.size(); i < n; i++) {
+            to.add(from.get(i));
+        }
+        from.clear();
+    }
+
+    /**
+     * Getter for our ship.
+     *
+     * @return the {@code Ship} controlled by the player.
+     */
+    public Ship getShip() {
+        return mShip;
+    }
+
+    /**
+     * Getter for the number of bullets currently in flight.
+     *
+     * @return number of bullets in flight.
+     */
+    public int getBulletCount() {
+        return mUseSpriteArrays ? mBulletArrays.size() : mBullets.size();
+    }
+
+    /**
+     * Getter for one of the bullets currently in flight.
+     *
+     * @param index index of the bullet, between 0 and {@code getBulletCount() - 1}.
+     * @return the bullet.
+     */
+    public Bullet getBullet(int index) {
+        return mBullets.get(index);
+    }
+
+    /**
+     * Getter for the number of obstacles currently in existence.
+     *
+     * @return number of obstacles.
+     */
+    public int getObstacleCount() {
+        return mUseSpriteArrays ? mObstacleArrays.size() : mObstacles.size();
+    }
+
+    /**
+     * Getter for one of the obstacles currently in existence.
+     *
+     * @param index index of the obstacle, between 0 and {@code getObstacleCount() - 1}.
+     * @return the obstacle.
+     */
+    public Obstacle getObstacle(int index) {
+        return mObstacles.get(index);
+    }
+
+    /**
+     * Getter for the structure of arrays storage of our bullets, only meaningful when
+     * {@code isSpriteArraysEnabled} returns true.
+     *
+     * @return our {@code SpriteArrays mBulletArrays}.
+     */
+    public SpriteArrays getBulletArrays() {
+        return mBulletArrays;
+    }
+
+    /**
+     * Getter for the structure of arrays storage of our obstacles, only meaningful when
+     * {@code isSpriteArraysEnabled} returns true.
+     *
+     * @return our {@code SpriteArrays mObstacleArrays}.
+     */
+    public SpriteArrays getObstacleArrays() {
+        return mObstacleArrays;
+    }
+
+    /**
+     * Convenience function for calling {@code Math.hypot}, and returning its result cast to float.
+     *
+     * @param x length of x component
+     * @param y length of y component
+     * @return the result of calling {@code Math.hypot} for x and y, cast to float
+     */
+    static float pythag(float x, float y) {
+        return (float) Math.hypot(x, y);
+    }
+
+    /**
+     * Base class for our {@code Ship}, {@code Bullet}, and {@code Obstacle} objects.
+     */
+    public abstract class Sprite {
+        /**
+         * X coordinate of the position of the {@code Sprite} in pixels
+         */
+        protected float mPositionX;
+        /**
+         * Y coordinate of the position of the {@code Sprite} in pixels
+         */
+        protected float mPositionY;
+        /**
+         * X coordinate of the position of the {@code Sprite} before the last step, in pixels
+         */
+        protected float mPreviousX;
+        /**
+         * Y coordinate of the position of the {@code Sprite} before the last step, in pixels
+         */
+        protected float mPreviousY;
+        /**
+         * X component of the velocity of the {@code Sprite} in pixels per second
+         */
+        protected float mVelocityX;
+        /**
+         * Y component of the velocity of the {@code Sprite} in pixels per second
+         */
+        protected float mVelocityY;
+        /**
+         * Size of the {@code Sprite} in pixels
+         */
+        protected float mSize;
+        /**
+         * Flag to indicate that the {@code Sprite} has been destroyed
+         */
+        protected boolean mDestroyed;
+        /**
+         * How far along in the destruction animation we are, ranges from 0 (start) to 1.0 (gone).
+         */
+        protected float mDestroyAnimProgress;
+
+        /**
+         * Setter for the position of the {@code Sprite}. We save our parameters {@code x} and
+         * {@code y} in both our current and our previous position, so that a sprite which has just
+         * been placed is not interpolated from wherever it was before.
+         *
+         * @param x new X coordinate of the {@code Sprite}
+         * @param y new Y coordinate of the {@code Sprite}
+         */
+        public void setPosition(float x, float y) {
+            mPositionX = x;
+            mPositionY = y;
+            mPreviousX = x;
+            mPreviousY = y;
+        }
+
+        /**
+         * Setter for the velocity of the {@code Sprite}, just saves its parameters {@code x} and
+         * {@code y} in our fields {@code mVelocityX} and {@code mVelocityY} respectively.
+         *
+         * @param x new X component of the {@code Sprite} velocity
+         * @param y new Y component of the {@code Sprite} velocity
+         */
+        public void setVelocity(float x, float y) {
+            mVelocityX = x;
+            mVelocityY = y;
+        }
+
+        /**
+         * Setter for the size of the {@code Sprite}, just saves its parameter {@code size} in our
+         * field {@code mSize}.
+         *
+         * @param size new size of the {@code Sprite}
+         */
+        public void setSize(float size) {
+            mSize = size;
+        }
+
+        /**
+         * Getter for the size of the {@code Sprite}.
+         *
+         * @return size of the {@code Sprite} in pixels
+         */
+        public float getSize() {
+            return mSize;
+        }
+
+        /**
+         * Returns the X coordinate to draw the {@code Sprite} at, interpolated between its position
+         * before and after the last step.
+         *
+         * @param alpha interpolation factor from {@code GameWorld.getInterpolationAlpha}
+         * @return interpolated X coordinate in pixels
+         */
+        public float getX(float alpha) {
+            return mPreviousX + (mPositionX - mPreviousX) * alpha;
+        }
+
+        /**
+         * Returns the Y coordinate to draw the {@code Sprite} at, interpolated between its position
+         * before and after the last step.
+         *
+         * @param alpha interpolation factor from {@code GameWorld.getInterpolationAlpha}
+         * @return interpolated Y coordinate in pixels
+         */
+        public float getY(float alpha) {
+            return mPreviousY + (mPositionY - mPreviousY) * alpha;
+        }
+
+        /**
+         * Getter for how far along in the destruction animation we are.
+         *
+         * @return 0 for an intact {@code Sprite} up to 1.0 for one that is gone
+         */
+        public float getDestroyAnimProgress() {
+            return mDestroyAnimProgress;
+        }
+
+        /**
+         * Calculates the distance from our position to a point that has the coordinates given by our
+         * parameters {@code x} and {@code y} by calling our method {@code pythag} on the results
+         * of subtracting {@code x} from {@code mPositionX} and {@code y} from {@code mPositionY}.
+         *
+         * @param x X coordinate of the point we are interested in
+         * @param y Y coordinate of the point we are interested in
+         * @return distance from our position to the point (x,y) in pixels
+         */
+        public float distanceTo(float x, float y) {
+            return pythag(mPositionX - x, mPositionY - y);
+        }
+
+        /**
+         * Calculates the distance between us and the position of {@code Sprite other} by calling
+         * our {@code distanceTo(float x, float y)} method with the {@code mPositionX} and
+         * {@code mPositionY} fields of our parameter {@code Sprite other}.
+         *
+         * @param other the {@code Sprite} we wish to measure the distance to
+         * @return the distance in pixels between us and the position of {@code Sprite other}
+         */
+        public float distanceTo(Sprite other) {
+            return distanceTo(other.mPositionX, other.mPositionY);
+        }
+
+        /**
+         * Detects whether we are colliding with our parameter {@code Sprite other}. We are colliding
+         * if neither of us has been destroyed and we are no farther apart than the maximum of the
+         * size of the two {@code Sprite} objects plus 0.5 times the minimum of the size of the two.
+         *
+         * @param other {@code Sprite} we are checking for collision with us
+         * @return true if we are colliding with the {@code Sprite other}
+         */
+        public boolean collidesWith(Sprite other) {
+            // Really bad collision detection.
+            return !mDestroyed && !other.mDestroyed
+                    && distanceTo(other) <= Math.max(mSize, other.mSize)
+                    + Math.min(mSize, other.mSize) * 0.5f;
+        }
+
+        /**
+         * Getter for our {@code mDestroyed} field.
+         *
+         * @return the value of our field {@code mDestroyed}.
+         */
+        public boolean isDestroyed() {
+            return mDestroyed;
+        }
+
+        /**
+         * Base method to advance our animation by {@code float tau} seconds, derived classes override
+         * us to add any special handling required by their objects, calling us to do the basic step
+         * operations. First we remember our current position as our previous position, then we add
+         * {@code tau} times our velocity to our position. If we have been destroyed we add {@code tau}
+         * divided by the value returned by our overridden method {@code getDestroyAnimDuration} to
+         * {@code mDestroyAnimProgress} and if the result is 1.0f or more we return false to our caller
+         * (our destruction animation has reached its end). Otherwise we return true.
+         *
+         * @param tau delta time in seconds to step our animation
+         * @return true if our {@code Sprite} object has successfully been moved, false if it has
+         * disappeared from the game.
+         */
+        public boolean step(float tau) {
+            mPreviousX = mPositionX;
+            mPreviousY = mPositionY;
+            mPositionX += mVelocityX * tau;
+            mPositionY += mVelocityY * tau;
+
+            if (mDestroyed) {
+                mDestroyAnimProgress += tau / getDestroyAnimDuration();
+                if (mDestroyAnimProgress >= 1.0f) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Derived classes must override this to specify a divisor of the delta time {@code tau} to
+         * use to calculate a new value for {@code mDestroyAnimProgress} in our method {@code step}
+         * if we have been destroyed.
+         *
+         * @return divisor of the delta time {@code tau} to use to calculate a new value for
+         * {@code mDestroyAnimProgress} in our method {@code step} if we have been destroyed.
+         */
+        public abstract float getDestroyAnimDuration();
+
+        /**
+         * Convenience function to check whether our position is outside of the playfield.
+         *
+         * @return true if our position is outside of the playfield, false if it is inside
+         */
+        protected boolean isOutsidePlayfield() {
+            return mPositionX < 0 || mPositionX >= mWidth
+                    || mPositionY < 0 || mPositionY >= mHeight;
+        }
+
+        /**
+         * Wraps our position around to the other side of the playfield when it has moved more than
+         * {@code mSize} past one of its edges. Our previous position is moved by the same amount so
+         * that we are not drawn sweeping across the whole playfield on the step we wrap.
+         */
+        protected void wrapAtPlayfieldBoundary() {
+            final float startX = mPositionX;
+            final float startY = mPositionY;
+            while (mPositionX <= -mSize) {
+                mPositionX += mWidth + mSize * 2;
+            }
+            while (mPositionX >= mWidth + mSize) {
+                mPositionX -= mWidth + mSize * 2;
+            }
+            while (mPositionY <= -mSize) {
+                mPositionY += mHeight + mSize * 2;
+            }
+            while (mPositionY >= mHeight + mSize) {
+                mPositionY -= mHeight + mSize * 2;
+            }
+            mPreviousX += mPositionX - startX;
+            mPreviousY += mPositionY - startY;
+        }
+
+        /**
+         * Called before a pooled {@code Sprite} is put back into play, clears our destroyed state so
+         * that we start out alive again. The caller is responsible for setting our position, velocity
+         * and size.
+         */
+        public void recycle() {
+            mDestroyed = false;
+            mDestroyAnimProgress = 0;
+        }
+
+        /**
+         * Called when our {@code Sprite} object has been destroyed. We set our flag {@code mDestroyed}
+         * to true, and call our method {@code step} with a delta time {@code tau} of 0 to begin our
+         * destruction animation.
+         */
+        public void destroy() {
+            mDestroyed = true;
+            step(0);
+        }
+    }
+
+    /**
+     * {@code Sprite} subclass adding functionality needed to model our spaceship.
+     */
+    public class Ship extends Sprite {
+        /**
+         * X coordinate of the arrowhead "point" of our spaceship, relative to the center of our view.
+         */
+        private float mHeadingX;
+        /**
+         * Y coordinate of the arrowhead "point" of our spaceship, relative to the center of our view.
+         */
+        private float mHeadingY;
+        /**
+         * Polar coordinate angle of the heading of our spaceship in radians.
+         */
+        private float mHeadingAngle;
+        /**
+         * Polar coordinate length of the heading of our spaceship in pixels.
+         */
+        private float mHeadingMagnitude;
+
+        /**
+         * Our constructor. We just call our method {@code restart} to put ourselves in the starting
+         * conditions of a new game.
+         */
+        public Ship() {
+            restart();
+        }
+
+        /**
+         * Puts us back in the starting conditions of a new game, the same state a newly constructed
+         * {@code Ship} is in. We call {@code recycle} to clear our destroyed state, set our position
+         * to the center of the playfield, set our velocity and heading to 0, and set our ship size to
+         * {@code mShipSize}.
+         */
+        public void restart() {
+            recycle();
+            setPosition(mWidth * 0.5f, mHeight * 0.5f);
+            setVelocity(0, 0);
+            setSize(mShipSize);
+            mHeadingX = 0;
+            mHeadingY = 0;
+            mHeadingAngle = 0;
+            mHeadingMagnitude = 0;
+        }
+
+        /**
+         * Setter for the X coordinate of our heading, we set our field {@code mHeadingX} to our
+         * parameter {@code x} and call our method {@code updateHeading} to calculate and set the
+         * polar equivalent of the new heading.
+         *
+         * @param x value to set the X coordinate of our heading to
+         */
+        public void setHeadingX(float x) {
+            mHeadingX = x;
+            updateHeading();
+        }
+
+        /**
+         * Setter for the Y coordinate of our heading, we set our field {@code mHeadingY} to our
+         * parameter {@code y} and call our method {@code updateHeading} to calculate and set the
+         * polar equivalent of the new heading.
+         *
+         * @param y value to set the Y coordinate of our heading to
+         */
+        public void setHeadingY(float y) {
+            mHeadingY = y;
+            updateHeading();
+        }
+
+        /**
+         * Setter for both the X and the Y coordinate of our heading. We set our field {@code mHeadingX}
+         * to our parameter {@code x} and our field {@code mHeadingY} to our parameter {@code y} then
+         * call our method {@code updateHeading} to calculate and set the polar equivalent of the new
+         * heading.
+         *
+         * @param x value to set the X coordinate of our heading to
+         * @param y value to set the Y coordinate of our heading to
+         */
+        public void setHeading(float x, float y) {
+            mHeadingX = x;
+            mHeadingY = y;
+            updateHeading();
+        }
+
+        /**
+         * Getter for the polar coordinate angle of our heading.
+         *
+         * @return angle of our heading in radians
+         */
+        public float getHeadingAngle() {
+            return mHeadingAngle;
+        }
+
+        /**
+         * Updates the polar coordinate version of our heading from our fields {@code mHeadingX} and
+         * {@code mHeadingY}. We call our method {@code pythag} with our fields {@code mHeadingX} and
+         * {@code mHeadingY} as the parameters to calculate {@code mHeadingMagnitude}, and if the
+         * result is greater than 0.1, we set {@code mHeadingAngle} to the {@code Math.atan2} of
+         * {@code mHeadingX} and {@code mHeadingY}.
+         */
+        private void updateHeading() {
+            mHeadingMagnitude = pythag(mHeadingX, mHeadingY);
+            if (mHeadingMagnitude > 0.1f) {
+                mHeadingAngle = (float) Math.atan2(mHeadingY, mHeadingX);
+            }
+        }
+
+        /**
+         * Calculates the X coordinate of the end of a vector with the length of its parameter
+         * {@code radius} pointing in the same direction as our ship. Simple trig equation.
+         *
+         * @param radius length of vector whose X coordinate we are interested in
+         * @return X coordinate of the end of the vector
+         */
+        private float polarX(float radius) {
+            return (float) Math.cos(mHeadingAngle) * radius;
+        }
+
+        /**
+         * Calculates the Y coordinate of the end of a vector with the length of its parameter
+         * {@code radius} pointing in the same direction as our ship. Simple trig equation.
+         *
+         * @param radius length of vector whose Y coordinate we are interested in
+         * @return Y coordinate of the end of the vector
+         */
+        private float polarY(float radius) {
+            return (float) Math.sin(mHeadingAngle) * radius;
+        }
+
+        /**
+         * Calculates the initial X coordinate of a bullet being fired from our spaceship, by adding
+         * the X coordinate of the spaceships position to the X coordinate of the front of the
+         * spaceship calculated by our method {@code polarX(mSize)}.
+         *
+         * @return initial X coordinate of a bullet being fired from our spaceship.
+         */
+        public float getBulletInitialX() {
+            return mPositionX + polarX(mSize);
+        }
+
+        /**
+         * Calculates the initial Y coordinate of a bullet being fired from our spaceship, by adding
+         * the Y coordinate of the spaceships position to the Y coordinate of the front of the
+         * spaceship calculated by our method {@code polarY(mSize)}.
+         *
+         * @return initial Y coordinate of a bullet being fired from our spaceship.
+         */
+        public float getBulletInitialY() {
+            return mPositionY + polarY(mSize);
+        }
+
+        /**
+         * Calculates the X component of the absolute velocity of a bullet (that is, its velocity
+         * relative to the playfield) given the relative speed of a bullet as given by our parameter
+         * {@code relativeSpeed}, by adding the X component of our velocity to the X component of
+         * {@code relativeSpeed} in the direction we are heading.
+         *
+         * @param relativeSpeed speed of the bullet relative to the spaceship
+         * @return X component of the velocity of a bullet relative to the playfield.
+         */
+        public float getBulletVelocityX(float relativeSpeed) {
+            return mVelocityX + polarX(relativeSpeed);
+        }
+
+        /**
+         * Calculates the Y component of the absolute velocity of a bullet (that is, its velocity
+         * relative to the playfield) given the relative speed of a bullet as given by our parameter
+         * {@code relativeSpeed}, by adding the Y component of our velocity to the Y component of
+         * {@code relativeSpeed} in the direction we are heading.
+         *
+         * @param relativeSpeed speed of the bullet relative to the spaceship
+         * @return Y component of the velocity of a bullet relative to the playfield.
+         */
+        public float getBulletVelocityY(float relativeSpeed) {
+            return mVelocityY + polarY(relativeSpeed);
+        }
+
+        /**
+         * Applies the maximum thrust to the spaceship in the direction that the spaceship is
+         * heading. We initialize {@code float thrust} to the current polar heading coordinate
+         * {@code mHeadingMagnitude} times our parameter {@code maxThrust}. We add the X component
+         * of {@code thrust} to {@code mVelocityX}, and the Y component to {@code mVelocityY}. We
+         * calculate the new speed {@code float speed } (pixels per second) by calling our method
+         * {@code pythag(mVelocityX, mVelocityY)}. If {@code speed} is greater than {@code maxSpeed}
+         * we calculate {@code float scale} to be {@code maxSpeed} divided by {@code speed} and scale
+         * both {@code mVelocityX} and {@code mVelocityY} by it.
+         *
+         * @param tau       delta time that the thrust is being applied UNUSED
+         * @param maxThrust maximum thrust of the spaceship
+         * @param maxSpeed  maximum speed of the spaceship
+         */
+        @SuppressWarnings("UnusedParameters")
+        public void accelerate(float tau, float maxThrust, float maxSpeed) {
+            final float thrust = mHeadingMagnitude * maxThrust;
+            mVelocityX += polarX(thrust);
+            mVelocityY += polarY(thrust);
+
+            final float speed = pythag(mVelocityX, mVelocityY);
+            if (speed > maxSpeed) {
+                final float scale = maxSpeed / speed;
+                mVelocityX = mVelocityX * scale;
+                mVelocityY = mVelocityY * scale;
+            }
+        }
+
+        /**
+         * Called to advance our spaceship's animation by {@code float tau} seconds. If our super's
+         * implementation of {@code step} returns false (our {@code Sprite} object has disappeared
+         * from the game) we return false to the caller. Otherwise we make sure that our spaceship
+         * wraps around to the other side of the playfield if we cross one of the edges by calling
+         * our method {@code wrapAtPlayfieldBoundary}, and return true to the caller.
+         *
+         * @param tau delta time in seconds to step our animation
+         * @return true if our {@code Ship} object has successfully been moved, false if it has
+         * disappeared from the game.
+         */
+        @Override
+        public boolean step(float tau) {
+            if (!super.step(tau)) {
+                return false;
+            }
+            wrapAtPlayfieldBoundary();
+            return true;
+        }
+
+        /**
+         * Just returns SHIP_DESTROY_ANIM_DURATION (1.0) to use as the scaling factor to divide the
+         * delta time {@code tau} by in order to calculate the value to add to
+         * {@code mDestroyAnimProgress} in {@code Sprite.step}.
+         *
+         * @return scaling factor to divide the delta time {@code tau} by while being destroyed.
+         */
+        @Override
+        public float getDestroyAnimDuration() {
+            return SHIP_DESTROY_ANIM_DURATION;
+        }
+
+        /**
+         * Called when we have collided with an obstacle and have entered our "destruction phase".
+         * First we call our super's implementation of {@code destroy} to initiate the destruction
+         * animation, then we tell our listener (if any) that we crashed.
+         */
+        @Override
+        public void destroy() {
+            super.destroy();
+            if (mListener != null) {
+                mListener.onCrash();
+            }
+        }
+    }
+
+    /**
+     * {@code Sprite} subclass adding functionality needed to model a bullet.
+     */
+    public class Bullet extends Sprite {
+        /**
+         * Our constructor, we set our size to {@code mBulletSize} by calling {@code setSize}.
+         */
+        public Bullet() {
+            setSize(mBulletSize);
+        }
+
+        /**
+         * Called to advance our bullet's animation by {@code float tau} seconds. If our super's
+         * implementation of {@code step} returns false (our {@code Sprite} object has disappeared
+         * from the game) we return false to the caller. Otherwise we return the negation of the
+         * value returned by the method {@code isOutsidePlayfield} (our bullet disappears from the
+         * game if it leaves the playing field).
+         *
+         * @param tau delta time in seconds to step our animation
+         * @return true if our {@code Bullet} object has successfully been moved, false if it has
+         * disappeared from the game.
+         */
+        @Override
+        public boolean step(float tau) {
+            //noinspection SimplifiableIfStatement
+            if (!super.step(tau)) {
+                return false;
+            }
+            return !isOutsidePlayfield();
+        }
+
+        /**
+         * Just returns BULLET_DESTROY_ANIM_DURATION (0.125) to use as the scaling factor to divide the
+         * delta time {@code tau} by in order to calculate the value to add to
+         * {@code mDestroyAnimProgress} in {@code Sprite.step}.
+         *
+         * @return scaling factor to divide the delta time {@code tau} by while being destroyed.
+         */
+        @Override
+        public float getDestroyAnimDuration() {
+            return BULLET_DESTROY_ANIM_DURATION;
+        }
+    }
+
+    /**
+     * {@code Sprite} subclass adding functionality needed to model an obstacle
+     */
+    public class Obstacle extends Sprite {
+        /**
+         * Called to advance our obstacle's animation by {@code float tau} seconds. If our super's
+         * implementation of {@code step} returns false (our {@code Sprite} object has disappeared
+         * from the game) we return false to the caller. Otherwise we make sure that our obstacle
+         * wraps around to the other side of the playfield if we cross one of the edges by calling
+         * our method {@code wrapAtPlayfieldBoundary}, and return true to the caller.
+         *
+         * @param tau delta time in seconds to step our animation
+         * @return true if our {@code Obstacle} object has successfully been moved, false if it has
+         * disappeared from the game.
+         */
+        @Override
+        public boolean step(float tau) {
+            if (!super.step(tau)) {
+                return false;
+            }
+            wrapAtPlayfieldBoundary();
+            return true;
+        }
+
+        /**
+         * Just returns OBSTACLE_DESTROY_ANIM_DURATION (0.25) to use as the scaling factor to divide the
+         * delta time {@code tau} by in order to calculate the value to add to
+         * {@code mDestroyAnimProgress} in {@code Sprite.step}.
+         *
+         * @return scaling factor to divide the delta time {@code tau} by while being destroyed.
+         */
+        @Override
+        public float getDestroyAnimDuration() {
+            return OBSTACLE_DESTROY_ANIM_DURATION;
+        }
+    }
+}
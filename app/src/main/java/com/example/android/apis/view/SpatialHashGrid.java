@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2011 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.view;
+
+/**
+ * Uniform grid spatial hash used as the collision broadphase of {@code GameView}. Objects are
+ * identified by a small non-negative integer id (their index in the list that owns them) and are
+ * inserted with the axis aligned bounding box of a circle. A query returns the ids of every object
+ * whose box shares at least one grid cell with the query box, in ascending order, so that a caller
+ * which walks the candidates and stops at the first hit sees exactly the same object the old brute
+ * force loop over the whole list would have found first.
+ * <p>
+ * Cells are hashed into a fixed power of two number of buckets, and each bucket is a singly linked
+ * list threaded through primitive arrays, so rebuilding the grid every frame allocates nothing once
+ * the arrays have grown to the steady state number of entries.
+ * <p>
+ * An object whose box spans more than MAX_SPAN cells along either axis is not put in any bucket,
+ * it is kept in a separate list which every query reports in full. Likewise a query whose box spans
+ * more than MAX_SPAN cells does not visit cells at all and reports every object in the grid. Either
+ * way the answer is the one a brute force check of every object would give, it is just no longer
+ * narrowed down by the grid.
+ */
+@SuppressWarnings("WeakerAccess")
+class SpatialHashGrid {
+    /**
+     * Number of hash buckets, must be a power of two so that we can mask instead of mod.
+     */
+    private static final int BUCKET_COUNT = 256;
+    /**
+     * Mask used to fold a cell hash into the range of our bucket index.
+     */
+    private static final int BUCKET_MASK = BUCKET_COUNT - 1;
+    /**
+     * Maximum number of cells a single object or query may span along one axis. Larger objects go
+     * in {@code mOversized} and larger queries report every object, see the class comment.
+     */
+    private static final int MAX_SPAN = 16;
+
+    /**
+     * Reciprocal of the width and height of a grid cell in pixels.
+     */
+    private float mInvCellSize;
+    /**
+     * Index of the first entry in each bucket, or -1 if the bucket is empty.
+     */
+    private final int[] mBucketHead = new int[BUCKET_COUNT];
+    /**
+     * Index of the next entry in the same bucket for each entry, or -1 at the end of the chain.
+     */
+    private int[] mEntryNext;
+    /**
+     * Object id stored in each entry.
+     */
+    private int[] mEntryId;
+    /**
+     * Number of entries currently in use in {@code mEntryNext} and {@code mEntryId}.
+     */
+    private int mEntryCount;
+    /**
+     * Id of every object inserted since the last {@code clear}, in the order they were inserted.
+     */
+    private int[] mIds;
+    /**
+     * Number of valid ids in {@code mIds}.
+     */
+    private int mIdCount;
+    /**
+     * Ids of the objects inserted since the last {@code clear} which span more than MAX_SPAN cells,
+     * and are therefore in no bucket.
+     */
+    private int[] mOversized;
+    /**
+     * Number of valid ids in {@code mOversized}.
+     */
+    private int mOversizedCount;
+    /**
+     * For each object id the value of {@code mQueryStamp} of the last query which reported it, used
+     * to report an object only once even when it is stored in several of the cells we visit.
+     */
+    private int[] mIdStamp;
+    /**
+     * Incremented at the start of every query.
+     */
+    private int mQueryStamp;
+    /**
+     * Ids of the candidates found by the last call to {@code query}, sorted in ascending order.
+     */
+    private int[] mResults;
+    /**
+     * Number of valid ids in {@code mResults}.
+     */
+    private int mResultCount;
+
+    /**
+     * Our constructor. We set our cell size and allocate our entry arrays with room for an initial
+     * number of entries, then call {@code clear} to empty all of our buckets.
+     *
+     * @param cellSize width and height of a grid cell in pixels.
+     */
+    SpatialHashGrid(float cellSize) {
+        setCellSize(cellSize);
+        mEntryNext = new int[64];
+        mEntryId = new int[64];
+        mIdStamp = new int[16];
+        mIds = new int[16];
+        mOversized = new int[4];
+        mResults = new int[16];
+        clear();
+    }
+
+    /**
+     * Changes the size of our grid cells. Must be followed by a call to {@code clear} and re-insertion
+     * of every object, since the objects already in the grid were bucketed using the old size.
+     *
+     * @param cellSize width and height of a grid cell in pixels.
+     */
+    void setCellSize(float cellSize) {
+        mInvCellSize = 1.0f / Math.max(cellSize, 1.0f);
+    }
+
+    /**
+     * Removes all objects from the grid. The arrays we have grown are kept for reuse.
+     */
+    void clear() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mBucketHead[i] = -1;
+        }
+        mEntryCount = 0;
+        mIdCount = 0;
+        mOversizedCount = 0;
+    }
+
+    /**
+     * Adds the object with id {@code id} to every cell covered by the bounding box of a circle of
+     * radius {@code radius} centered at {@code (x, y)}, or to {@code mOversized} if that box spans
+     * more than MAX_SPAN cells along either axis. Each id may only be inserted once between calls to
+     * {@code clear}.
+     *
+     * @param id     non-negative id of the object, usually its index in the owning list.
+     * @param x      X coordinate of the center of the object.
+     * @param y      Y coordinate of the center of the object.
+     * @param radius radius of the object.
+     */
+    void insert(int id, float x, float y, float radius) {
+        if (id >= mIdStamp.length) {
+            int[] stamps = new int[Math.max(id + 1, mIdStamp.length * 2)];
+            System.arraycopy(mIdStamp, 0, stamps, 0, mIdStamp.length);
+            mIdStamp = stamps;
+        }
+        mIds = append(mIds, mIdCount++, id);
+        final int minX = cell(x - radius);
+        final int maxX = cell(x + radius);
+        final int minY = cell(y - radius);
+        final int maxY = cell(y + radius);
+        if (isOversized(minX, maxX, minY, maxY)) {
+            mOversized = append(mOversized, mOversizedCount++, id);
+            return;
+        }
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                final int bucket = bucket(cx, cy);
+                if (mEntryCount == mEntryId.length) {
+                    growEntries();
+                }
+                mEntryId[mEntryCount] = id;
+                mEntryNext[mEntryCount] = mBucketHead[bucket];
+                mBucketHead[bucket] = mEntryCount;
+                mEntryCount++;
+            }
+        }
+    }
+
+    /**
+     * Finds every object whose bounding box may overlap the bounding box of a circle of radius
+     * {@code radius} centered at {@code (x, y)}. The ids found are left in our result buffer, sorted
+     * in ascending order, where they can be read using {@code getResult}. The result is a superset
+     * of the objects which actually overlap, the caller still needs to do the exact test. The
+     * objects in {@code mOversized} are always candidates, and if the query box itself spans more
+     * than MAX_SPAN cells along either axis every object in the grid is.
+     *
+     * @param x      X coordinate of the center of the query circle.
+     * @param y      Y coordinate of the center of the query circle.
+     * @param radius radius of the query circle.
+     * @return number of candidate ids found.
+     */
+    int query(float x, float y, float radius) {
+        mResultCount = 0;
+        if (++mQueryStamp == 0) {
+            // The stamp wrapped around, forget every stale stamp so none of them can match.
+            for (int i = 0; i < mIdStamp.length; i++) {
+                mIdStamp[i] = 0;
+            }
+            mQueryStamp = 1;
+        }
+        final int minX = cell(x - radius);
+        final int maxX = cell(x + radius);
+        final int minY = cell(y - radius);
+        final int maxY = cell(y + radius);
+        if (isOversized(minX, maxX, minY, maxY)) {
+            for (int i = 0; i < mIdCount; i++) {
+                addResult(mIds[i]);
+            }
+            return mResultCount;
+        }
+        for (int i = 0; i < mOversizedCount; i++) {
+            final int id = mOversized[i];
+            mIdStamp[id] = mQueryStamp;
+            addResult(id);
+        }
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                for (int e = mBucketHead[bucket(cx, cy)]; e >= 0; e = mEntryNext[e]) {
+                    final int id = mEntryId[e];
+                    if (mIdStamp[id] != mQueryStamp) {
+                        mIdStamp[id] = mQueryStamp;
+                        addResult(id);
+                    }
+                }
+            }
+        }
+        return mResultCount;
+    }
+
+    /**
+     * Returns the {@code index}'th candidate id found by the last call to {@code query}.
+     *
+     * @param index index of the candidate, between 0 and the count returned by {@code query}.
+     * @return id of that candidate.
+     */
+    int getResult(int index) {
+        return mResults[index];
+    }
+
+    /**
+     * Returns true if the range of cells from {@code (minX, minY)} to {@code (maxX, maxY)} spans more
+     * than MAX_SPAN cells along either axis. The spans are computed in {@code long} so that a huge
+     * box cannot overflow into a small one.
+     *
+     * @param minX smallest X cell coordinate of the range.
+     * @param maxX largest X cell coordinate of the range.
+     * @param minY smallest Y cell coordinate of the range.
+     * @param maxY largest Y cell coordinate of the range.
+     * @return true if the range is too large to visit cell by cell.
+     */
+    private static boolean isOversized(int minX, int maxX, int minY, int maxY) {
+        return (long) maxX - minX >= MAX_SPAN || (long) maxY - minY >= MAX_SPAN;
+    }
+
+    /**
+     * Stores {@code value} at {@code index} of {@code array}, first doubling the size of the array if
+     * {@code index} is past its end.
+     *
+     * @param array the array to store into.
+     * @param index index to store at, at most the length of {@code array}.
+     * @param value value to store.
+     * @return {@code array}, or the larger copy of it that {@code value} was stored in.
+     */
+    private static int[] append(int[] array, int index, int value) {
+        if (index == array.length) {
+            int[] larger = new int[array.length * 2];
+            System.arraycopy(array, 0, larger, 0, index);
+            array = larger;
+        }
+        array[index] = value;
+        return array;
+    }
+
+    /**
+     * Inserts {@code id} into {@code mResults} keeping it sorted. The candidate lists are short so
+     * an insertion sort done as we go is cheaper than sorting at the end.
+     *
+     * @param id candidate id to add.
+     */
+    private void addResult(int id) {
+        if (mResultCount == mResults.length) {
+            int[] results = new int[mResults.length * 2];
+            System.arraycopy(mResults, 0, results, 0, mResultCount);
+            mResults = results;
+        }
+        int i = mResultCount++;
+        while (i > 0 && mResults[i - 1] > id) {
+            mResults[i] = mResults[i - 1];
+            i--;
+        }
+        mResults[i] = id;
+    }
+
+    /**
+     * Doubles the capacity of our entry arrays, preserving their contents.
+     */
+    private void growEntries() {
+        final int capacity = mEntryId.length * 2;
+        int[] next = new int[capacity];
+        int[] ids = new int[capacity];
+        System.arraycopy(mEntryNext, 0, next, 0, mEntryCount);
+        System.arraycopy(mEntryId, 0, ids, 0, mEntryCount);
+        mEntryNext = next;
+        mEntryId = ids;
+    }
+
+    /**
+     * Converts a coordinate in pixels to the coordinate of the cell that contains it.
+     *
+     * @param v coordinate in pixels.
+     * @return cell coordinate.
+     */
+    private int cell(float v) {
+        return (int) Math.floor(v * mInvCellSize);
+    }
+
+    /**
+     * Hashes the cell coordinates {@code (cx, cy)} to a bucket index.
+     *
+     * @param cx X cell coordinate.
+     * @param cy Y cell coordinate.
+     * @return bucket index between 0 and BUCKET_COUNT - 1.
+     */
+    private static int bucket(int cx, int cy) {
+        return ((cx * 73856093) ^ (cy * 19349663)) & BUCKET_MASK;
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2011 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.view;
+
+/**
+ * Structure of arrays storage for one kind of sprite of {@code GameWorld} (all the bullets, or all
+ * the obstacles). Instead of one {@code GameWorld.Sprite} object per sprite, each property lives in
+ * its own parallel {@code float[]}, indexed by sprite, so that moving and culling every sprite of a
+ * kind is a handful of tight loops over primitive arrays with no virtual calls.
+ * <p>
+ * The loops reproduce {@code GameWorld.Sprite.step} and its overrides exactly, including the order
+ * in which dead sprites are swap removed, so a world run with this backend produces the same game as
+ * one run with sprite objects.
+ */
+@SuppressWarnings("WeakerAccess")
+public class SpriteArrays {
+    /**
+     * X coordinates of our sprites in pixels.
+     */
+    float[] mX;
+    /**
+     * Y coordinates of our sprites in pixels.
+     */
+    float[] mY;
+    /**
+     * X coordinates of our sprites before the last step, for interpolation.
+     */
+    float[] mPreviousX;
+    /**
+     * Y coordinates of our sprites before the last step, for interpolation.
+     */
+    float[] mPreviousY;
+    /**
+     * X components of the velocity of our sprites in pixels per second.
+     */
+    float[] mVelocityX;
+    /**
+     * Y components of the velocity of our sprites in pixels per second.
+     */
+    float[] mVelocityY;
+    /**
+     * Sizes of our sprites in pixels.
+     */
+    float[] mSize;
+    /**
+     * How far along in its destruction animation each sprite is, from 0 (start) to 1.0 (gone), or a
+     * negative number if the sprite has not been destroyed.
+     */
+    float[] mDestroyAnimProgress;
+    /**
+     * Number of sprites in use at the start of our arrays.
+     */
+    int mCount;
+
+    /**
+     * Seconds a destroyed sprite of our kind takes to animate its destruction, the equivalent of
+     * {@code GameWorld.Sprite.getDestroyAnimDuration}.
+     */
+    private final float mDestroyAnimDuration;
+    /**
+     * True if our sprites are removed when they leave the playfield (bullets), false if they wrap
+     * around to the other side (the ship and obstacles).
+     */
+    private final boolean mCullOutside;
+
+    /**
+     * Our constructor, we save our parameters and allocate our arrays with room for
+     * {@code capacity} sprites.
+     *
+     * @param capacity            initial number of sprites we have room for, we grow as needed.
+     * @param destroyAnimDuration seconds a destroyed sprite takes to disappear.
+     * @param cullOutside         true to remove sprites which leave the playfield, false to wrap them.
+     */
+    public SpriteArrays(int capacity, float destroyAnimDuration, boolean cullOutside) {
+        mDestroyAnimDuration = destroyAnimDuration;
+        mCullOutside = cullOutside;
+        allocate(Math.max(capacity, 4));
+    }
+
+    /**
+     * Getter for the number of sprites we hold.
+     *
+     * @return number of sprites.
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Removes all our sprites, keeping our arrays for reuse.
+     */
+    public void clear() {
+        mCount = 0;
+    }
+
+    /**
+     * Adds a live sprite, growing our arrays if they are full.
+     *
+     * @param x         X coordinate of the new sprite.
+     * @param y         Y coordinate of the new sprite.
+     * @param velocityX X component of the velocity of the new sprite.
+     * @param velocityY Y component of the velocity of the new sprite.
+     * @param size      size of the new sprite.
+     * @return index of the new sprite.
+     */
+    public int add(float x, float y, float velocityX, float velocityY, float size) {
+        if (mCount == mX.length) {
+            allocate(mCount * 2);
+        }
+        final int i = mCount++;
+        mX[i] = x;
+        mY[i] = y;
+        mPreviousX[i] = x;
+        mPreviousY[i] = y;
+        mVelocityX[i] = velocityX;
+        mVelocityY[i] = velocityY;
+        mSize[i] = size;
+        mDestroyAnimProgress[i] = -1;
+        return i;
+    }
+
+    /**
+     * Marks the sprite at {@code index} as destroyed, starting its destruction animation. Like
+     * {@code GameWorld.Sprite.destroy} (which steps the sprite by 0 seconds) this also makes its
+     * previous position equal to its current one.
+     *
+     * @param index index of the sprite.
+     */
+    public void destroy(int index) {
+        if (mDestroyAnimProgress[index] < 0) {
+            mDestroyAnimProgress[index] = 0;
+        }
+        mPreviousX[index] = mX[index];
+        mPreviousY[index] = mY[index];
+    }
+
+    /**
+     * Returns whether the sprite at {@code index} has been destroyed.
+     *
+     * @param index index of the sprite.
+     * @return true if it has been destroyed.
+     */
+    public boolean isDestroyed(int index) {
+        return mDestroyAnimProgress[index] >= 0;
+    }
+
+    /**
+     * Advances every sprite by {@code tau} seconds and removes those which have finished their
+     * destruction animation or (if {@code mCullOutside} is true) have left the playfield, wrapping the
+     * survivors around the playfield otherwise. We call {@code integrate} and
+     * {@code advanceDestroyAnimation} and then {@code cull}.
+     *
+     * @param tau    seconds to advance.
+     * @param width  width of the playfield.
+     * @param height height of the playfield.
+     */
+    public void step(float tau, int width, int height) {
+        integrate(tau);
+        advanceDestroyAnimation(tau);
+        cull(width, height);
+    }
+
+    /**
+     * Moves every sprite by its velocity times {@code tau}, remembering where it was for
+     * interpolation.
+     *
+     * @param tau seconds to advance.
+     */
+    public void integrate(float tau) {
+        final float[] x = mX;
+        final float[] y = mY;
+        final float[] vx = mVelocityX;
+        final float[] vy = mVelocityY;
+        System.arraycopy(x, 0, mPreviousX, 0, mCount);
+        System.arraycopy(y, 0, mPreviousY, 0, mCount);
+        for (int i = 0, n = mCount; i < n; i++) {
+            x[i] += vx[i] * tau;
+        }
+        for (int i = 0, n = mCount; i < n; i++) {
+            y[i] += vy[i] * tau;
+        }
+    }
+
+    /**
+     * Advances the destruction animation of every destroyed sprite by {@code tau} seconds.
+     *
+     * @param tau seconds to advance.
+     */
+    public void advanceDestroyAnimation(float tau) {
+        final float[] progress = mDestroyAnimProgress;
+        final float delta = tau / mDestroyAnimDuration;
+        for (int i = 0, n = mCount; i < n; i++) {
+            if (progress[i] >= 0) {
+                progress[i] += delta;
+            }
+        }
+    }
+
+    /**
+     * Swap removes every sprite whose destruction animation is over, and if {@code mCullOutside} is
+     * true every sprite outside of the playfield. If {@code mCullOutside} is false the sprites we keep
+     * are wrapped around the playfield instead, see {@code GameWorld.Sprite.wrapAtPlayfieldBoundary}.
+     *
+     * @param width  width of the playfield.
+     * @param height height of the playfield.
+     */
+    public void cull(int width, int height) {
+        final float[] x = mX;
+        final float[] y = mY;
+        final float[] progress = mDestroyAnimProgress;
+        for (int i = 0; i < mCount; i++) {
+            final boolean dead = progress[i] >= 1.0f
+                    || mCullOutside && (x[i] < 0 || x[i] >= width || y[i] < 0 || y[i] >= height);
+            if (dead) {
+                swapRemove(i);
+                i -= 1;
+            } else if (!mCullOutside) {
+                wrap(i, width, height);
+            }
+        }
+    }
+
+    /**
+     * Wraps the sprite at {@code index} around to the other side of the playfield when it has moved
+     * more than its size past one of the edges, moving its previous position by the same amount.
+     *
+     * @param index  index of the sprite.
+     * @param width  width of the playfield.
+     * @param height height of the playfield.
+     */
+    private void wrap(int index, int width, int height) {
+        final float size = mSize[index];
+        final float startX = mX[index];
+        final float startY = mY[index];
+        float x = startX;
+        float y = startY;
+        while (x <= -size) {
+            x += width + size * 2;
+        }
+        while (x >= width + size) {
+            x -= width + size * 2;
+        }
+        while (y <= -size) {
+            y += height + size * 2;
+        }
+        while (y >= height + size) {
+            y -= height + size * 2;
+        }
+        mX[index] = x;
+        mY[index] = y;
+        mPreviousX[index] += x - startX;
+        mPreviousY[index] += y - startY;
+    }
+
+    /**
+     * Removes the sprite at {@code index} by moving the last sprite into its slot.
+     *
+     * @param index index of the sprite to remove.
+     */
+    public void swapRemove(int index) {
+        final int last = --mCount;
+        if (index != last) {
+            mX[index] = mX[last];
+            mY[index] = mY[last];
+            mPreviousX[index] = mPreviousX[last];
+            mPreviousY[index] = mPreviousY[last];
+            mVelocityX[index] = mVelocityX[last];
+            mVelocityY[index] = mVelocityY[last];
+            mSize[index] = mSize[last];
+            mDestroyAnimProgress[index] = mDestroyAnimProgress[last];
+        }
+    }
+
+    /**
+     * Returns the X coordinate to draw the sprite at {@code index} at, interpolated between its
+     * position before and after the last step.
+     *
+     * @param index index of the sprite.
+     * @param alpha interpolation factor from {@code GameWorld.getInterpolationAlpha}.
+     * @return interpolated X coordinate in pixels.
+     */
+    public float getX(int index, float alpha) {
+        return mPreviousX[index] + (mX[index] - mPreviousX[index]) * alpha;
+    }
+
+    /**
+     * Returns the Y coordinate to draw the sprite at {@code index} at, interpolated between its
+     * position before and after the last step.
+     *
+     * @param index index of the sprite.
+     * @param alpha interpolation factor from {@code GameWorld.getInterpolationAlpha}.
+     * @return interpolated Y coordinate in pixels.
+     */
+    public float getY(int index, float alpha) {
+        return mPreviousY[index] + (mY[index] - mPreviousY[index]) * alpha;
+    }
+
+    /**
+     * Getter for the size of the sprite at {@code index}.
+     *
+     * @param index index of the sprite.
+     * @return size in pixels.
+     */
+    public float getSize(int index) {
+        return mSize[index];
+    }
+
+    /**
+     * Getter for how far along in its destruction animation the sprite at {@code index} is.
+     *
+     * @param index index of the sprite.
+     * @return 0 for an intact sprite up to 1.0 for one that is gone.
+     */
+    public float getDestroyAnimProgress(int index) {
+        return Math.max(mDestroyAnimProgress[index], 0);
+    }
+
+    /**
+     * (Re)allocates our arrays with room for {@code capacity} sprites, keeping the sprites we have.
+     *
+     * @param capacity number of sprites to make room for.
+     */
+    private void allocate(int capacity) {
+        mX = grow(mX, capacity);
+        mY = grow(mY, capacity);
+        mPreviousX = grow(mPreviousX, capacity);
+        mPreviousY = grow(mPreviousY, capacity);
+        mVelocityX = grow(mVelocityX, capacity);
+        mVelocityY = grow(mVelocityY, capacity);
+        mSize = grow(mSize, capacity);
+        mDestroyAnimProgress = grow(mDestroyAnimProgress, capacity);
+    }
+
+    /**
+     * Returns a new array of length {@code capacity} holding the first {@code mCount} entries of
+     * {@code array} (which may be null).
+     *
+     * @param array    array to copy from, or null.
+     * @param capacity length of the new array.
+     * @return the new array.
+     */
+    private float[] grow(float[] array, int capacity) {
+        float[] grown = new float[capacity];
+        if (array != null) {
+            System.arraycopy(array, 0, grown, 0, mCount);
+        }
+        return grown;
+    }
+}
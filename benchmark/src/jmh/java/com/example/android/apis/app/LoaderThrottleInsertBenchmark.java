@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2010 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares inserting {@code rows} rows into the table of {@code LoaderThrottle.SimpleProvider} one
+ * at a time, the way the default {@code ContentProvider.bulkInsert} does by calling {@code insert}
+ * for every row, against inserting them the way our {@code bulkInsert} override does: all of them
+ * in a single transaction with one compiled statement. {@code SimpleProvider} itself needs the
+ * Android framework, so we run the same SQL against the same schema through the xerial SQLite JDBC
+ * driver, with the journal mode and synchronous setting Android uses for databases not in WAL mode.
+ * Every invocation starts from a new empty database file, so we measure single shots.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class LoaderThrottleInsertBenchmark {
+    /**
+     * Number of rows to insert.
+     */
+    @Param({"100000"})
+    public int rows;
+
+    /**
+     * The database file of the current invocation.
+     */
+    private File mFile;
+    /**
+     * Connection to {@code mFile}.
+     */
+    private Connection mConnection;
+
+    /**
+     * Creates a new database file holding the empty table of {@code SimpleProvider}.
+     *
+     * @throws IOException  if the temporary file can not be created
+     * @throws SQLException if the database can not be opened or the table created
+     */
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException, SQLException {
+        mFile = File.createTempFile("loader_throttle", ".db");
+        mConnection = DriverManager.getConnection("jdbc:sqlite:" + mFile.getPath());
+        try (Statement statement = mConnection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=TRUNCATE");
+            statement.execute("PRAGMA synchronous=FULL");
+            statement.execute("CREATE TABLE main (_id INTEGER PRIMARY KEY, data TEXT)");
+        }
+    }
+
+    /**
+     * Closes the connection and deletes the database file.
+     *
+     * @throws SQLException if closing the connection fails
+     */
+    @TearDown(Level.Invocation)
+    public void tearDown() throws SQLException {
+        mConnection.close();
+        //noinspection ResultOfMethodCallIgnored
+        mFile.delete();
+    }
+
+    /**
+     * Inserts every row in a transaction of its own, as {@code SQLiteDatabase.insert} does when no
+     * transaction is open. The statement is only prepared once, as {@code SQLiteDatabase} keeps its
+     * prepared statements in a cache, so the difference is all in the commits.
+     *
+     * @return number of rows inserted
+     * @throws SQLException if an insert fails
+     */
+    @Benchmark
+    public int insertPerRow() throws SQLException {
+        int count = 0;
+        try (PreparedStatement insert =
+                     mConnection.prepareStatement("INSERT INTO main (data) VALUES (?)")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setString(1, "Data " + i);
+                count += insert.executeUpdate();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Inserts all the rows in a single transaction with one prepared statement, as
+     * {@code SimpleProvider.bulkInsert} does.
+     *
+     * @return number of rows inserted
+     * @throws SQLException if an insert fails
+     */
+    @Benchmark
+    public int bulkInsert() throws SQLException {
+        int count = 0;
+        mConnection.setAutoCommit(false);
+        try (PreparedStatement insert =
+                     mConnection.prepareStatement("INSERT INTO main (data) VALUES (?)")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setString(1, "Data " + i);
+                count += insert.executeUpdate();
+            }
+            mConnection.commit();
+        } finally {
+            mConnection.setAutoCommit(true);
+        }
+        return count;
+    }
+}
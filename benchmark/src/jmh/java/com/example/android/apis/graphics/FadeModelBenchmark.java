@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pure Java arithmetic model of the two ways {@code TouchPaint} has faded its painting, on
+ * {@code int[]} pixels of a 4K (3840 by 2160) canvas. It is a model and not a fade cost
+ * comparison: it never runs the {@code PaintTiles} draw path, no {@code Canvas}, {@code Bitmap} or
+ * {@code LightingColorFilter} is involved (the android.graphics stubs cannot draw), and on a device
+ * the old fade is a {@code drawPaint} done by Skia while the new one is a color filter applied by
+ * the GPU as it composites. Only {@code PaintTiles.fadeFactor} is app code. What the numbers show
+ * is how many pixels each scheme has to read and write per step, priced at the same per pixel
+ * arithmetic.
+ * <p>
+ * {@code fadeFullSurface} models one step of the old fade, blending {@code FADE_ALPHA} of black
+ * over every pixel of the canvas (89 steps after every stroke), while {@code fadeOnComposite}
+ * models compositing the {@code FADING_TILES} tiles which are still fading through the multiply a
+ * {@code LightingColorFilter} does, which is all a fade step touches now.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FadeModelBenchmark {
+    /**
+     * Width of the canvas in pixels.
+     */
+    private static final int WIDTH = 3840;
+    /**
+     * Height of the canvas in pixels.
+     */
+    private static final int HEIGHT = 2160;
+    /**
+     * Alpha of black blended over the painting at each fade step, as in {@code TouchPaint}.
+     */
+    private static final int FADE_ALPHA = 0x06;
+    /**
+     * Number of tiles still fading in {@code fadeOnComposite}, a 1024 by 1024 pixel scribble.
+     */
+    private static final int FADING_TILES = 16;
+
+    /**
+     * Number of columns of tiles.
+     */
+    private final int mColumns = (WIDTH + PaintTiles.TILE_SIZE - 1) / PaintTiles.TILE_SIZE;
+    /**
+     * Number of rows of tiles.
+     */
+    private final int mRows = (HEIGHT + PaintTiles.TILE_SIZE - 1) / PaintTiles.TILE_SIZE;
+    /**
+     * The painting as one bitmap, the layout {@code TouchPaint} used to have.
+     */
+    private final int[] mSurface = new int[WIDTH * HEIGHT];
+    /**
+     * The painting as tiles of {@code TILE_SIZE} by {@code TILE_SIZE} pixels.
+     */
+    private final int[][] mTiles = new int[mColumns * mRows][];
+    /**
+     * The window we composite into, as wide as the tile grid so every tile fits.
+     */
+    private final int[] mWindow =
+            new int[mColumns * PaintTiles.TILE_SIZE * mRows * PaintTiles.TILE_SIZE];
+    /**
+     * Number of fade steps applied by the next {@code fadeOnComposite}, from 1 to 89.
+     */
+    private int mFadeSteps = 1;
+
+    /**
+     * Allocates the tiles and fills them and the single bitmap with the same color.
+     */
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < mTiles.length; i++) {
+            mTiles[i] = new int[PaintTiles.TILE_SIZE * PaintTiles.TILE_SIZE];
+            Arrays.fill(mTiles[i], 0xff80c0ff);
+        }
+        Arrays.fill(mSurface, 0xff80c0ff);
+    }
+
+    /**
+     * Models one step of the old fade, blending {@code FADE_ALPHA} of black over every pixel of
+     * the canvas the way {@code drawPaint} does.
+     *
+     * @return a pixel of the canvas, so the blend cannot be eliminated.
+     */
+    @Benchmark
+    public int fadeFullSurface() {
+        int keep = 255 - FADE_ALPHA;
+        int[] surface = mSurface;
+        for (int i = 0; i < surface.length; i++) {
+            int c = surface[i];
+            int r = ((c >> 16) & 0xff) * keep / 255;
+            int g = ((c >> 8) & 0xff) * keep / 255;
+            int b = (c & 0xff) * keep / 255;
+            surface[i] = (c & 0xff000000) | (r << 16) | (g << 8) | b;
+        }
+        return surface[mFadeSteps];
+    }
+
+    /**
+     * Models compositing the {@code FADING_TILES} tiles still fading, each pixel multiplied by the
+     * factor of the number of steps they are behind, while their pixels stay as they are.
+     *
+     * @return a pixel of the window, so the copy cannot be eliminated.
+     */
+    @Benchmark
+    public int fadeOnComposite() {
+        int mul = Math.round(PaintTiles.fadeFactor(FADE_ALPHA, mFadeSteps) * 255);
+        mFadeSteps = mFadeSteps % 89 + 1;
+        int size = PaintTiles.TILE_SIZE;
+        int stride = mColumns * size;
+        for (int index = 0; index < FADING_TILES; index++) {
+            int offset = (index / 4) * size * stride + (index % 4) * size;
+            int[] tile = mTiles[(index / 4) * mColumns + index % 4];
+            for (int y = 0; y < size; y++) {
+                int row = offset + y * stride;
+                for (int x = 0; x < size; x++) {
+                    int c = tile[y * size + x];
+                    int r = ((c >> 16) & 0xff) * mul / 255;
+                    int g = ((c >> 8) & 0xff) * mul / 255;
+                    int b = (c & 0xff) * mul / 255;
+                    mWindow[row + x] = (c & 0xff000000) | (r << 16) | (g << 8) | b;
+                }
+            }
+        }
+        return mWindow[mFadeSteps];
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost {@code FrameTimeRenderer} adds to every frame, recording a frame time in a
+ * {@code FrameTimeHistogram}, and the cost of the summary it builds once per report window. The
+ * recorded values are a fixed set of frame times scattered around 16.7 milliseconds, so they land
+ * in different buckets the way real frames do. Recording should take a few nanoseconds and allocate
+ * nothing (gc.alloc.rate.norm 0 B/op).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FrameTimeHistogramBenchmark {
+    /**
+     * Number of frame times we cycle through, a power of two so the index can be masked.
+     */
+    private static final int FRAME_COUNT = 1024;
+
+    /**
+     * Histogram we record into.
+     */
+    private final FrameTimeHistogram mHistogram = new FrameTimeHistogram();
+    /**
+     * Frame times in nanoseconds.
+     */
+    private final long[] mFrameTimes = new long[FRAME_COUNT];
+    /**
+     * Index of the next frame time to record.
+     */
+    private int mNext;
+
+    /**
+     * Fills {@code mFrameTimes} with frame times of 16.7 milliseconds plus or minus a few, and a
+     * few long frames, then records all of them once so the summary has something to work on.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            long jitter = (long) (random.nextGaussian() * 2000000);
+            mFrameTimes[i] = 16666667 + jitter + (i % 97 == 0 ? 33333333 : 0);
+            mHistogram.record(mFrameTimes[i]);
+        }
+    }
+
+    /**
+     * Records the next frame time.
+     *
+     * @return number of values recorded, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public int record() {
+        mHistogram.record(mFrameTimes[mNext]);
+        mNext = (mNext + 1) & (FRAME_COUNT - 1);
+        return mHistogram.getCount();
+    }
+
+    /**
+     * Builds the summary line of the histogram, as {@code FrameTimeRenderer} does once per window.
+     *
+     * @return the summary
+     */
+    @Benchmark
+    public String summary() {
+        return mHistogram.appendSummary(new StringBuilder()).toString();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of generating the airbrush splats of {@code TouchPaint} for one second of
+ * stylus input at 120 Hz, 120 samples along a looping stroke with the tool tilted and turning.
+ * {@code legacy} is the generator {@code TouchPaint.drawSplat} used to have, with
+ * {@code java.util.Random} and eight trigonometric calls per speck, and {@code batched} is
+ * {@code SplatGenerator}. Both store the specks in a {@code float[]} and the drawing is left out
+ * (the android.graphics stubs cannot draw), but note that the legacy code issued a
+ * {@code drawCircle} per speck, 40 per sample, where {@code TouchPaint} now issues one
+ * {@code drawPoints} per tile. {@code batched} should allocate nothing (gc.alloc.rate.norm
+ * 0 B/op).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SplatGeneratorBenchmark {
+    /**
+     * Number of stylus samples in one second at 120 Hz.
+     */
+    private static final int SAMPLES = 120;
+
+    /**
+     * X coordinate of each sample.
+     */
+    private final float[] mX = new float[SAMPLES];
+    /**
+     * Y coordinate of each sample.
+     */
+    private final float[] mY = new float[SAMPLES];
+    /**
+     * Orientation of the stylus at each sample, in radians.
+     */
+    private final float[] mOrientation = new float[SAMPLES];
+    /**
+     * Distance of the stylus from the screen at each sample.
+     */
+    private final float[] mDistance = new float[SAMPLES];
+    /**
+     * Tilt of the stylus at each sample, in radians.
+     */
+    private final float[] mTilt = new float[SAMPLES];
+    /**
+     * Generator under test.
+     */
+    private final SplatGenerator mGenerator = new SplatGenerator(42);
+    /**
+     * Random number generator of the legacy code.
+     */
+    private final Random mRandom = new Random(42);
+    /**
+     * Specks of the legacy code.
+     */
+    private final float[] mPoints = new float[SplatGenerator.SPLAT_VECTORS * 2];
+
+    /**
+     * Lays out the samples of a stroke looping around the middle of a 1080 pixel wide screen.
+     */
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < SAMPLES; i++) {
+            double t = i * Math.PI * 2 / SAMPLES;
+            mX[i] = (float) (540 + 300 * Math.cos(t));
+            mY[i] = (float) (960 + 200 * Math.sin(2 * t));
+            mOrientation[i] = (float) (t - Math.PI);
+            mDistance[i] = (float) (4 + 2 * Math.sin(3 * t));
+            mTilt[i] = (float) (0.6 + 0.3 * Math.cos(t));
+        }
+    }
+
+    /**
+     * Generates the splats of one second of input with the legacy code.
+     *
+     * @return number of floats generated, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public int legacy() {
+        int total = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            total += legacySplat(mX[i], mY[i], mOrientation[i], mDistance[i], mTilt[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Generates the splats of one second of input with {@code SplatGenerator}.
+     *
+     * @return number of floats generated, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public int batched() {
+        int total = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            total += mGenerator.generate(mX[i], mY[i], mOrientation[i], mDistance[i], mTilt[i]);
+        }
+        return total;
+    }
+
+    /**
+     * The speck generation of the old {@code TouchPaint.drawSplat}, storing the specks in
+     * {@code mPoints} instead of drawing them.
+     *
+     * @param x           X coordinate of the center of the splatter
+     * @param y           Y coordinate of the center of the splatter
+     * @param orientation orientation of the tool
+     * @param distance    distance of the tool from the surface
+     * @param tilt        tilt of the tool
+     * @return number of floats stored in {@code mPoints}
+     */
+    private int legacySplat(float x, float y, float orientation, float distance, float tilt) {
+        float z = distance * 2 + 10;
+
+        float nx = (float) (Math.sin(orientation) * Math.sin(tilt));
+        float ny = (float) (-Math.cos(orientation) * Math.sin(tilt));
+        float nz = (float) Math.cos(tilt);
+        if (nz < 0.05) {
+            return 0;
+        }
+        float cd = z / nz;
+        float cx = nx * cd;
+        float cy = ny * cd;
+
+        int count = 0;
+        for (int i = 0; i < SplatGenerator.SPLAT_VECTORS; i++) {
+            double direction = mRandom.nextDouble() * Math.PI * 2;
+            double dispersion = mRandom.nextGaussian() * 0.2;
+            double vx = Math.cos(direction) * dispersion;
+            double vy = Math.sin(direction) * dispersion;
+            double vz = 1;
+
+            double temp = vy;
+            vy = temp * Math.cos(tilt) - vz * Math.sin(tilt);
+            vz = temp * Math.sin(tilt) + vz * Math.cos(tilt);
+
+            temp = vx;
+            vx = temp * Math.cos(orientation) - vy * Math.sin(orientation);
+            vy = temp * Math.sin(orientation) + vy * Math.cos(orientation);
+
+            if (vz < 0.05) {
+                continue;
+            }
+            float pd = (float) (z / vz);
+            mPoints[count++] = x + (float) (vx * pd) - cx;
+            mPoints[count++] = y + (float) (vy * pd) - cy;
+        }
+        return count;
+    }
+}
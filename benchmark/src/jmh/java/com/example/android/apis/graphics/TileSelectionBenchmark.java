@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of {@code PaintTiles.selectTiles}, which finds the tiles of a 4K (3840 by
+ * 2160) {@code TouchPaint} canvas touched by the bounds of one stroke, in {@code selectTiles}. The
+ * stroke is a 48 pixel oval moving along a diagonal, so it usually touches one tile and sometimes
+ * two or four.
+ * <p>
+ * {@code fullSurface} and {@code dirtyTiles} add {@code int[]} copies of the whole canvas and of
+ * the selected tiles, which shows how much less pixel data a dirty tile redraw has to move. They
+ * are not a frame time measurement: no {@code Canvas}, {@code Bitmap} or color filter is involved
+ * (the {@code PaintTiles} instance methods need a real {@code Bitmap}, which the android.graphics
+ * stubs cannot provide), and on a device the tiles are drawn by Skia or uploaded to the GPU rather
+ * than copied. The fade is modelled separately by {@code FadeModelBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TileSelectionBenchmark {
+    /**
+     * Width of the canvas in pixels.
+     */
+    private static final int WIDTH = 3840;
+    /**
+     * Height of the canvas in pixels.
+     */
+    private static final int HEIGHT = 2160;
+    /**
+     * Size of the stroke drawn every frame, in pixels.
+     */
+    private static final int STROKE = 48;
+    /**
+     * Number of stroke positions we cycle through.
+     */
+    private static final int FRAME_COUNT = 1024;
+
+    /**
+     * Number of columns of tiles.
+     */
+    private final int mColumns = (WIDTH + PaintTiles.TILE_SIZE - 1) / PaintTiles.TILE_SIZE;
+    /**
+     * Number of rows of tiles.
+     */
+    private final int mRows = (HEIGHT + PaintTiles.TILE_SIZE - 1) / PaintTiles.TILE_SIZE;
+    /**
+     * The painting as one bitmap, the layout {@code TouchPaint} used to have.
+     */
+    private final int[] mSurface = new int[WIDTH * HEIGHT];
+    /**
+     * The painting as tiles of {@code TILE_SIZE} by {@code TILE_SIZE} pixels.
+     */
+    private final int[][] mTiles = new int[mColumns * mRows][];
+    /**
+     * The window we composite into, as wide as the tile grid so every tile fits.
+     */
+    private final int[] mWindow =
+            new int[mColumns * PaintTiles.TILE_SIZE * mRows * PaintTiles.TILE_SIZE];
+    /**
+     * Scratch array receiving the selected tile indices.
+     */
+    private final int[] mSelected = new int[mColumns * mRows];
+    /**
+     * Left edge of the stroke of each frame.
+     */
+    private final int[] mStrokeX = new int[FRAME_COUNT];
+    /**
+     * Top edge of the stroke of each frame.
+     */
+    private final int[] mStrokeY = new int[FRAME_COUNT];
+    /**
+     * Index of the next frame.
+     */
+    private int mNext;
+
+    /**
+     * Allocates the tiles and lays the stroke positions along the diagonal of the canvas.
+     */
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < mTiles.length; i++) {
+            mTiles[i] = new int[PaintTiles.TILE_SIZE * PaintTiles.TILE_SIZE];
+            Arrays.fill(mTiles[i], 0xff80c0ff);
+        }
+        Arrays.fill(mSurface, 0xff80c0ff);
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            mStrokeX[i] = (int) ((long) i * (WIDTH - STROKE) / FRAME_COUNT);
+            mStrokeY[i] = (int) ((long) i * (HEIGHT - STROKE) / FRAME_COUNT);
+        }
+    }
+
+    /**
+     * Selects the tiles touched by this frame's stroke, without copying them.
+     *
+     * @return number of tiles selected.
+     */
+    @Benchmark
+    public int selectTiles() {
+        int left = mStrokeX[mNext];
+        int top = mStrokeY[mNext];
+        mNext = (mNext + 1) & (FRAME_COUNT - 1);
+        return PaintTiles.selectTiles(left, top, left + STROKE, top + STROKE,
+                mColumns, mRows, mSelected);
+    }
+
+    /**
+     * Copies the whole canvas, the pixels a full invalidate of the old single bitmap view redrew.
+     *
+     * @return a pixel of the window, so the copy cannot be eliminated.
+     */
+    @Benchmark
+    public int fullSurface() {
+        int stride = mColumns * PaintTiles.TILE_SIZE;
+        for (int y = 0; y < HEIGHT; y++) {
+            System.arraycopy(mSurface, y * WIDTH, mWindow, y * stride, WIDTH);
+        }
+        return mWindow[mNext];
+    }
+
+    /**
+     * Selects the tiles touched by this frame's stroke and copies only those.
+     *
+     * @return number of tiles copied.
+     */
+    @Benchmark
+    public int dirtyTiles() {
+        int left = mStrokeX[mNext];
+        int top = mStrokeY[mNext];
+        mNext = (mNext + 1) & (FRAME_COUNT - 1);
+        int count = PaintTiles.selectTiles(left, top, left + STROKE, top + STROKE,
+                mColumns, mRows, mSelected);
+        int size = PaintTiles.TILE_SIZE;
+        int stride = mColumns * size;
+        for (int i = 0; i < count; i++) {
+            int index = mSelected[i];
+            int offset = (index / mColumns) * size * stride + (index % mColumns) * size;
+            int[] tile = mTiles[index];
+            for (int y = 0; y < size; y++) {
+                System.arraycopy(tile, y * size, mWindow, offset + y * stride, size);
+            }
+        }
+        return count;
+    }
+}
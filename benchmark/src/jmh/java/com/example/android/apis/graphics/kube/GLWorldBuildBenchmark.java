@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics.kube;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a {@code GLWorld} from scratch: a single procedurally generated {@code GLShape},
+ * a flat grid of {@code gridSize} by {@code gridSize} quadrilateral faces whose neighbouring faces
+ * share their vertices, followed by {@code GLWorld.generate}. Every face asks {@code GLShape.addVertex}
+ * for its four corners, so three out of four requests find an existing vertex. The grid has
+ * {@code (gridSize + 1)^2} vertices, so going from one {@code gridSize} to the next doubles the side
+ * and roughly quadruples the work: the score should grow by about four times per step, which is
+ * what a build that is linear in the number of vertices looks like (a quadratic build grows about
+ * sixteen times per step). The benchmark only times the build: that the vertices are shared and
+ * the vertex and index counts are right, including grids past 32767 vertices, is checked by
+ * {@code GLWorldTest}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GLWorldBuildBenchmark {
+    /**
+     * Number of faces along each side of the grid.
+     */
+    @Param({"16", "32", "64", "128"})
+    public int gridSize;
+
+    /**
+     * Builds the grid shape, adds it to a new {@code GLWorld} and generates the buffers of the world.
+     *
+     * @return the world, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public GLWorld buildWorld() {
+        GLWorld world = new GLWorld();
+        GLShape shape = new GLShape(world);
+        final int n = gridSize;
+        final float step = 2.0f / n;
+        for (int row = 0; row < n; row++) {
+            float bottom = -1.0f + row * step;
+            float top = bottom + step;
+            for (int column = 0; column < n; column++) {
+                float left = -1.0f + column * step;
+                float right = left + step;
+                shape.addFace(new GLFace(
+                        shape.addVertex(left, bottom, 0.0f),
+                        shape.addVertex(left, top, 0.0f),
+                        shape.addVertex(right, top, 0.0f),
+                        shape.addVertex(right, bottom, 0.0f)));
+            }
+        }
+        world.addShape(shape);
+        world.generate();
+        return world;
+    }
+}
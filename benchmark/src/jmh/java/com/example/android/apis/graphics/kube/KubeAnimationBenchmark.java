@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics.kube;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one frame of the Kube animation: {@code Layer.setAngle} on a layer of 9 cubes, which
+ * composes each cube's accumulated transform with the layer rotation and writes every vertex of the
+ * layer into the vertex buffer of the {@code GLWorld}. The cubes have already completed one move,
+ * so their accumulated transforms are non-null just like they are on a device after the first
+ * second of animation. With the gc profiler gc.alloc.rate.norm is the garbage made per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class KubeAnimationBenchmark {
+    /**
+     * The layer we rotate, the top 9 cubes rotating around the y axis.
+     */
+    private Layer mLayer;
+    /**
+     * Current angle of {@code mLayer} in radians.
+     */
+    private float mAngle;
+
+    /**
+     * Builds the 26 cubes of the Rubik cube the same way {@code Kube.makeGLWorld} does, puts the top
+     * 9 in a {@code Layer}, and completes one quarter turn of that layer.
+     */
+    @Setup
+    public void setUp() {
+        GLWorld world = new GLWorld();
+        float[] low = {-1.0f, -0.32f, 0.38f};
+        float[] high = {-0.38f, 0.32f, 1.0f};
+        mLayer = new Layer(Layer.kAxisY);
+        int top = 0;
+        for (int y = 0; y < 3; y++) {
+            for (int z = 0; z < 3; z++) {
+                for (int x = 0; x < 3; x++) {
+                    if (x == 1 && y == 1 && z == 1) {
+                        continue;
+                    }
+                    Cube cube = new Cube(world, low[x], low[y], low[z], high[x], high[y], high[z]);
+                    world.addShape(cube);
+                    if (y == 2) {
+                        mLayer.mShapes[top++] = cube;
+                    }
+                }
+            }
+        }
+        world.generate();
+
+        mLayer.startAnimation();
+        mLayer.setAngle(-(float) Math.PI / 2);
+        mLayer.endAnimation();
+    }
+
+    /**
+     * Advances the layer by the angle increment {@code Kube.animate} uses, keeping the angle within
+     * one turn so the angle normalization loops of {@code Layer.setAngle} stay short.
+     *
+     * @return the layer, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public Layer animateFrame() {
+        mAngle -= (float) Math.PI / 50;
+        if (mAngle < -2 * (float) Math.PI) {
+            mAngle += 2 * (float) Math.PI;
+        }
+        mLayer.setAngle(mAngle);
+        return mLayer;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics.kube;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the matrix arithmetic the Kube demo does every frame with {@code M4}: composing two
+ * transforms (both with the allocating {@code multiply} and the in-place {@code multiplyInto}),
+ * transforming a vertex by a transform, and converting a transformed vertex to the 16.16 fixed point
+ * format written to the vertex buffer. Run with the gc profiler (the module default) to see the
+ * bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class M4Benchmark {
+    /**
+     * Left hand side of the matrix multiplication, a rotation about the Y axis plus a translation.
+     */
+    private M4 mLhs;
+    /**
+     * Right hand side of the matrix multiplication, a rotation about the X axis.
+     */
+    private M4 mRhs;
+    /**
+     * Destination of {@code multiplyInto}.
+     */
+    private M4 mProduct;
+    /**
+     * Vertex we transform.
+     */
+    private GLVertex mSource;
+    /**
+     * Vertex we transform into.
+     */
+    private GLVertex mDest;
+
+    /**
+     * Builds two non-trivial transforms and a vertex to move with them, the same way that the
+     * {@code Kube} and {@code Layer} classes build their rotation matrices.
+     */
+    @Setup
+    public void setUp() {
+        double angle = Math.toRadians(30);
+        float sin = (float) Math.sin(angle);
+        float cos = (float) Math.cos(angle);
+
+        mLhs = new M4();
+        mLhs.setIdentity();
+        mLhs.m[0] = cos;
+        mLhs.m[2] = sin;
+        mLhs.m[8] = -sin;
+        mLhs.m[10] = cos;
+        mLhs.m[12] = 0.25f;
+        mLhs.m[13] = -0.5f;
+
+        mRhs = new M4();
+        mRhs.setIdentity();
+        mRhs.m[5] = cos;
+        mRhs.m[6] = sin;
+        mRhs.m[9] = -sin;
+        mRhs.m[10] = cos;
+
+        mProduct = new M4();
+        mSource = new GLVertex(0.33f, -1.0f, 0.66f, 0);
+        mDest = new GLVertex();
+    }
+
+    /**
+     * Composes our two transforms with {@code M4.multiply(M4)}.
+     *
+     * @return the product, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public M4 multiply() {
+        return mLhs.multiply(mRhs);
+    }
+
+    /**
+     * Composes our two transforms with {@code M4.multiplyInto}, reusing the destination matrix.
+     *
+     * @return the product, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public M4 multiplyInto() {
+        mLhs.multiplyInto(mRhs, mProduct);
+        return mProduct;
+    }
+
+    /**
+     * Transforms our vertex with {@code M4.multiply(GLVertex, GLVertex)}.
+     *
+     * @return the transformed vertex, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public GLVertex transformVertex() {
+        mLhs.multiply(mSource, mDest);
+        return mDest;
+    }
+
+    /**
+     * Converts the three coordinates of our vertex to 16.16 fixed point with
+     * {@code GLVertex.toFixed}, as {@code GLWorld.transformVertices} does for every vertex of every
+     * frame.
+     *
+     * @return a combination of the fixed point values, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public int toFixed() {
+        return GLVertex.toFixed(mSource.x) ^ GLVertex.toFixed(mSource.y) ^ GLVertex.toFixed(mSource.z);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics.spritetext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the operations of {@code MatrixStack}: push/pop, rotate, multiply by a float matrix, and
+ * the fixed point entry points which convert 16.16 values to float before doing the same work.
+ * Every benchmark leaves the stack the way it found it (or only changes the top matrix), so the
+ * stack depth does not drift from one invocation to the next.
+ * <p>
+ * Apart from push and pop, every operation ends in {@code android.opengl.Matrix}, which here is the
+ * plain Java port in the benchmark module rather than the framework class (native for
+ * {@code multiplyMM} on a device). The rotate and multiply numbers are mostly that port's, so they
+ * do not predict the speed of {@code MatrixStack} on a device.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MatrixStackBenchmark {
+    /**
+     * The stack we operate on.
+     */
+    private MatrixStack mStack;
+    /**
+     * A float matrix to multiply the top of the stack by.
+     */
+    private float[] mMatrix;
+    /**
+     * The same matrix in 16.16 fixed point format.
+     */
+    private int[] mFixedMatrix;
+    /**
+     * Destination for {@code getMatrix}.
+     */
+    private float[] mResult;
+    /**
+     * Angle passed to the rotate benchmarks, changed every call so the rotation is not constant.
+     */
+    private float mAngle;
+
+    /**
+     * Loads a perspective projection onto the stack and builds the matrices we multiply by.
+     */
+    @Setup
+    public void setUp() {
+        mStack = new MatrixStack();
+        mStack.glFrustumf(-1.5f, 1.5f, -1.0f, 1.0f, 3.0f, 7.0f);
+        mMatrix = new float[]{
+                0.866f, 0.0f, -0.5f, 0.0f,
+                0.0f, 1.0f, 0.0f, 0.0f,
+                0.5f, 0.0f, 0.866f, 0.0f,
+                0.25f, -0.5f, -5.0f, 1.0f};
+        mFixedMatrix = new int[16];
+        for (int i = 0; i < 16; i++) {
+            mFixedMatrix[i] = (int) (mMatrix[i] * 65536.0f);
+        }
+        mResult = new float[16];
+    }
+
+    /**
+     * Pushes a copy of the top matrix and pops it again.
+     *
+     * @return the stack, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public MatrixStack pushPop() {
+        mStack.glPushMatrix();
+        mStack.glPopMatrix();
+        return mStack;
+    }
+
+    /**
+     * Pushes, rotates the top matrix about an arbitrary axis, reads it back and pops, the pattern
+     * {@code SpriteTextRenderer} uses to draw its rotating triangle.
+     *
+     * @return the rotated matrix, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public float[] rotate() {
+        mAngle += 0.5f;
+        mStack.glPushMatrix();
+        mStack.glRotatef(mAngle, 0.3f, 1.0f, 0.2f);
+        mStack.getMatrix(mResult, 0);
+        mStack.glPopMatrix();
+        return mResult;
+    }
+
+    /**
+     * Pushes, multiplies the top matrix by a float matrix, reads it back and pops.
+     *
+     * @return the product, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public float[] multiply() {
+        mStack.glPushMatrix();
+        mStack.glMultMatrixf(mMatrix, 0);
+        mStack.getMatrix(mResult, 0);
+        mStack.glPopMatrix();
+        return mResult;
+    }
+
+    /**
+     * Pushes, multiplies the top matrix by a 16.16 fixed point matrix, reads it back and pops.
+     *
+     * @return the product, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public float[] multiplyFixed() {
+        mStack.glPushMatrix();
+        mStack.glMultMatrixx(mFixedMatrix, 0);
+        mStack.getMatrix(mResult, 0);
+        mStack.glPopMatrix();
+        return mResult;
+    }
+
+    /**
+     * Pushes, loads a 16.16 fixed point matrix onto the top of the stack, translates it by a 16.16
+     * fixed point vector, reads it back and pops.
+     *
+     * @return the translated matrix, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public float[] loadAndTranslateFixed() {
+        mStack.glPushMatrix();
+        mStack.glLoadMatrixx(mFixedMatrix, 0);
+        mStack.glTranslatex(0x8000, -0x10000, 0x28000);
+        mStack.getMatrix(mResult, 0);
+        mStack.glPopMatrix();
+        return mResult;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics.spritetext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * Measures the matrix calls of {@code MatrixTrackingGL}, which mirror every matrix operation into
+ * its own {@code MatrixStack} before forwarding it to the wrapped {@code GL}. The wrapped {@code GL}
+ * is a no-op proxy, so the numbers include one reflective proxy dispatch per forwarded call, which
+ * stands in for the JNI call into the driver on a device. The proxy boxes the arguments of every
+ * forwarded call, so unlike {@code MatrixStackBenchmark} these benchmarks do report allocation,
+ * and only a change in that number (not its presence) is interesting.
+ * <p>
+ * Every benchmark runs with the wrapper in eager mode ({@code lazy} false, every call is applied to
+ * a {@code MatrixStack}) and in lazy mode ({@code lazy} true, calls are recorded in a
+ * {@code MatrixJournal} and applied when a matrix is read). {@code frameWithoutQuery} is the case
+ * lazy mode is for, a frame which never reads a matrix back.
+ * <p>
+ * The {@code MatrixStack} arithmetic runs on the plain Java {@code android.opengl.Matrix} of the
+ * benchmark module. On a device the framework class is partly native, so the eager mode numbers
+ * here may not reflect the cost of mirroring the matrices on a device.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MatrixTrackingGLBenchmark {
+    /**
+     * Whether the wrapper records the matrix operations and applies them lazily.
+     */
+    @Param({"false", "true"})
+    public boolean lazy;
+
+    /**
+     * The wrapper we measure.
+     */
+    private MatrixTrackingGL mGL;
+    /**
+     * Destination for {@code getMatrix}.
+     */
+    private float[] mResult;
+    /**
+     * Angle of rotation, changed every frame.
+     */
+    private float mAngle;
+
+    /**
+     * Wraps a no-op {@code GL} and sets up a projection matrix.
+     */
+    @Setup
+    public void setUp() {
+        mGL = new MatrixTrackingGL(NoOpGL.create(), lazy);
+        mGL.glMatrixMode(GL10.GL_PROJECTION);
+        mGL.glLoadIdentity();
+        mGL.glFrustumf(-1.5f, 1.5f, -1.0f, 1.0f, 1.0f, 10.0f);
+        mResult = new float[16];
+    }
+
+    /**
+     * The matrix calls {@code SpriteTextRenderer.onDrawFrame} makes for one frame: reset the model
+     * view matrix, position the camera, then push, rotate and pop around the triangle, reading the
+     * model view matrix back the way {@code MatrixGrabber} does.
+     *
+     * @return the model view matrix, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public float[] frame() {
+        mAngle += 0.5f;
+        mGL.glMatrixMode(GL10.GL_MODELVIEW);
+        mGL.glLoadIdentity();
+        mGL.glTranslatef(0.0f, 0.0f, -2.5f);
+        mGL.glPushMatrix();
+        mGL.glRotatef(mAngle, 0.0f, 0.0f, 1.0f);
+        mGL.glScalef(2.0f, 2.0f, 2.0f);
+        mGL.getMatrix(mResult, 0);
+        mGL.glPopMatrix();
+        return mResult;
+    }
+
+    /**
+     * The same frame as {@code frame} without reading the model view matrix back, the way most
+     * renderers draw most frames.
+     *
+     * @return the wrapper, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public MatrixTrackingGL frameWithoutQuery() {
+        mAngle += 0.5f;
+        mGL.glMatrixMode(GL10.GL_MODELVIEW);
+        mGL.glLoadIdentity();
+        mGL.glTranslatef(0.0f, 0.0f, -2.5f);
+        mGL.glPushMatrix();
+        mGL.glRotatef(mAngle, 0.0f, 0.0f, 1.0f);
+        mGL.glScalef(2.0f, 2.0f, 2.0f);
+        mGL.glPopMatrix();
+        return mGL;
+    }
+
+    /**
+     * Pushes and pops the model view stack through the wrapper.
+     *
+     * @return the wrapper, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public MatrixTrackingGL pushPop() {
+        mGL.glPushMatrix();
+        mGL.glPopMatrix();
+        return mGL;
+    }
+
+    /**
+     * Reloads the identity into the model view matrix (so it does not drift) and rotates it with
+     * the 16.16 fixed point entry point.
+     *
+     * @return the wrapper, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public MatrixTrackingGL rotateFixed() {
+        mGL.glMatrixMode(GL10.GL_MODELVIEW);
+        mGL.glLoadIdentity();
+        mGL.glRotatex(30, 0, 0x10000, 0);
+        return mGL;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics.spritetext;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import javax.microedition.khronos.opengles.GL;
+import javax.microedition.khronos.opengles.GL10;
+import javax.microedition.khronos.opengles.GL10Ext;
+import javax.microedition.khronos.opengles.GL11;
+import javax.microedition.khronos.opengles.GL11Ext;
+
+/**
+ * Factory for a {@code GL} which does nothing, to be wrapped by {@code MatrixTrackingGL} so that
+ * the matrix tracking it does can be benchmarked without a GL context. Every call returns the
+ * default value of its return type.
+ */
+final class NoOpGL {
+    /**
+     * Handler for every method of our proxy, returns 0, false or null.
+     */
+    private static final InvocationHandler HANDLER = new InvocationHandler() {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            Class<?> type = method.getReturnType();
+            if (type == int.class) {
+                return 0;
+            } else if (type == boolean.class) {
+                return false;
+            } else if (type == String.class) {
+                return "";
+            }
+            return null;
+        }
+    };
+
+    /**
+     * Not instantiable.
+     */
+    private NoOpGL() {
+    }
+
+    /**
+     * Creates a new no-op {@code GL} implementing {@code GL10}, {@code GL10Ext}, {@code GL11} and
+     * {@code GL11Ext} just like the {@code GL} of a real context does.
+     *
+     * @return the no-op {@code GL}.
+     */
+    static GL create() {
+        return (GL) Proxy.newProxyInstance(NoOpGL.class.getClassLoader(),
+                new Class<?>[]{GL.class, GL10.class, GL10Ext.class, GL11.class, GL11Ext.class},
+                HANDLER);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics.spritetext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per frame work {@code SpriteTextRenderer.drawMsPF} asks of {@code NumericSprite}
+ * before anything is drawn: setting a new value and measuring its width. The sprite is never
+ * initialized (that needs a GL context and the Android text rasterizer), so every digit has label
+ * index and width 0, which does not change the work done. With the gc profiler gc.alloc.rate.norm
+ * shows the garbage made per frame by formatting the value.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NumericSpriteBenchmark {
+    /**
+     * The sprite we measure.
+     */
+    private NumericSprite mSprite;
+    /**
+     * Value we display, changed every operation.
+     */
+    private int mValue;
+
+    /**
+     * Creates the sprite.
+     */
+    @Setup
+    public void setUp() {
+        mSprite = new NumericSprite();
+    }
+
+    /**
+     * Sets a new three digit value and reads back its width, as {@code drawMsPF} does every frame.
+     *
+     * @return the width, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public float setValueAndMeasure() {
+        mValue = (mValue + 7) % 1000;
+        mSprite.setValue(mValue);
+        return mSprite.width();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics.spritetext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * Measures projecting the anchors of {@code LABEL_COUNT} labels to window coordinates for one
+ * frame, the way {@code SpriteTextRenderer} places its labels: one {@code Projector.project} call
+ * per label against a single {@code Projector.projectBatch} call for all of them. The matrices are
+ * the projection and model view matrices {@code SpriteTextRenderer} sets up, read through a
+ * {@code MatrixTrackingGL} wrapping a no-op {@code GL}, and the model view matrix is read again
+ * before every frame so the model view projection product is recomputed once per frame in both
+ * cases, as it is in the renderer. The only allocation is the boxing of the {@code glMatrixMode}
+ * call that read forwards to the no-op proxy (16 B/op).
+ * <p>
+ * The matrix products go through {@code multiplyMM} and {@code multiplyMV} of the plain Java
+ * {@code android.opengl.Matrix} in the benchmark module, not the native framework methods a device
+ * calls. {@code project} makes one {@code multiplyMV} call per label while {@code projectBatch}
+ * does that arithmetic inline, so the per label numbers are mostly the cost of the port's
+ * {@code multiplyMV}. On a device that call is a JNI transition plus native code, and the gap
+ * between the two can be quite different from the one measured here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectorBenchmark {
+    /**
+     * Number of label anchors projected per frame.
+     */
+    private static final int LABEL_COUNT = 10000;
+
+    /**
+     * The projector we measure.
+     */
+    private Projector mProjector;
+    /**
+     * The wrapper the projector reads its matrices from.
+     */
+    private MatrixTrackingGL mGL;
+    /**
+     * (x, y, z) object coordinates of the anchors, in the format {@code projectBatch} takes.
+     */
+    private float[] mAnchors;
+    /**
+     * (x, y, z, w) object coordinates of the anchors, in the format {@code project} takes.
+     */
+    private float[] mAnchors4;
+    /**
+     * (x, y, z) window coordinates of the anchors.
+     */
+    private float[] mWindow;
+
+    /**
+     * Sets up the matrices of {@code SpriteTextRenderer} for a 1080 by 1920 view and scatters the
+     * anchors over the triangle it draws.
+     */
+    @Setup
+    public void setUp() {
+        mGL = new MatrixTrackingGL(NoOpGL.create());
+        mProjector = new Projector();
+        mProjector.setCurrentView(0, 0, 1080, 1920);
+        float ratio = 1080.0f / 1920.0f;
+        mGL.glMatrixMode(GL10.GL_PROJECTION);
+        mGL.glLoadIdentity();
+        mGL.glFrustumf(-ratio, ratio, -1, 1, 1, 10);
+        mProjector.getCurrentProjection(mGL);
+        mGL.glMatrixMode(GL10.GL_MODELVIEW);
+        mGL.glLoadIdentity();
+        mGL.glTranslatef(0.0f, 0.0f, -2.5f);
+        mGL.glRotatef(30.0f, 0, 0, 1.0f);
+        mGL.glScalef(2.0f, 2.0f, 2.0f);
+
+        Random random = new Random(42);
+        mAnchors = new float[LABEL_COUNT * 3];
+        mAnchors4 = new float[LABEL_COUNT * 4];
+        mWindow = new float[LABEL_COUNT * 3];
+        for (int i = 0; i < LABEL_COUNT; i++) {
+            float x = random.nextFloat() - 0.5f;
+            float y = random.nextFloat() - 0.5f;
+            mAnchors[i * 3] = x;
+            mAnchors[i * 3 + 1] = y;
+            mAnchors4[i * 4] = x;
+            mAnchors4[i * 4 + 1] = y;
+            mAnchors4[i * 4 + 3] = 1.0f;
+        }
+    }
+
+    /**
+     * Projects every anchor with its own {@code project} call.
+     *
+     * @return the window coordinates, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public float[] projectEach() {
+        mProjector.getCurrentModelView(mGL);
+        for (int i = 0; i < LABEL_COUNT; i++) {
+            mProjector.project(mAnchors4, i * 4, mWindow, i * 3);
+        }
+        return mWindow;
+    }
+
+    /**
+     * Projects every anchor with a single {@code projectBatch} call.
+     *
+     * @return the window coordinates, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public float[] projectBatch() {
+        mProjector.getCurrentModelView(mGL);
+        mProjector.projectBatch(mAnchors, LABEL_COUNT, mWindow);
+        return mWindow;
+    }
+}
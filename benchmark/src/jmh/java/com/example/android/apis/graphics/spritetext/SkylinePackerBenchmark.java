@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics.spritetext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rectangle allocation {@code LabelMaker} does for every label it adds. The page is
+ * first filled with 40 labels of random size, then every operation replaces one of them with a
+ * label of a different width, the way {@code LabelMaker.replace} does when the text of a heads up
+ * display changes: the old rectangle is freed and a new one allocated. The gc profiler should
+ * report no allocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SkylinePackerBenchmark {
+    /**
+     * Number of labels on the page.
+     */
+    private static final int LABEL_COUNT = 40;
+
+    /**
+     * The packer we measure, a 512 by 256 strike.
+     */
+    private SkylinePacker mPacker;
+    /**
+     * u, v, width and height of each label on the page.
+     */
+    private int[][] mLabels;
+    /**
+     * Scratch array for the position returned by {@code allocate}.
+     */
+    private final int[] mPosition = new int[2];
+    /**
+     * Label replaced by the next operation.
+     */
+    private int mNext;
+
+    /**
+     * Fills the page with labels 16 to 95 pixels wide and 20 to 39 pixels high.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        mPacker = new SkylinePacker(512, 256);
+        mLabels = new int[LABEL_COUNT][];
+        for (int i = 0; i < LABEL_COUNT; i++) {
+            int width = 16 + random.nextInt(80);
+            int height = 20 + random.nextInt(20);
+            if (!mPacker.allocate(width, height, mPosition)) {
+                throw new IllegalStateException("Page too small for the benchmark");
+            }
+            mLabels[i] = new int[]{mPosition[0], mPosition[1], width, height};
+        }
+    }
+
+    /**
+     * Frees one label and allocates it again a few pixels wider or narrower, cycling through the
+     * labels on the page.
+     *
+     * @return the position of the new label, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public int[] replaceLabel() {
+        int[] label = mLabels[mNext];
+        mNext = (mNext + 1) % LABEL_COUNT;
+        mPacker.free(label[0], label[1], label[2], label[3]);
+        int width = (label[2] & 1) == 0 ? label[2] - 3 : label[2] + 3;
+        if (!mPacker.allocate(width, label[3], mPosition)) {
+            width = label[2];
+            mPacker.allocate(width, label[3], mPosition);
+        }
+        label[0] = mPosition[0];
+        label[1] = mPosition[1];
+        label[2] = width;
+        return mPosition;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2011 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.view;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares moving {@code count} obstacles one step using one {@code GameWorld.Obstacle} object per
+ * obstacle against moving the same obstacles held in a {@code SpriteArrays}. Obstacles wrap around
+ * the playfield instead of dying, so the number of sprites stays the same from one invocation to
+ * the next.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SpriteStorageBenchmark {
+    /**
+     * Width of the playfield in pixels.
+     */
+    private static final int WIDTH = 1080;
+    /**
+     * Height of the playfield in pixels.
+     */
+    private static final int HEIGHT = 1920;
+
+    /**
+     * Number of obstacles to move.
+     */
+    @Param({"1000", "10000"})
+    public int count;
+
+    /**
+     * The obstacles as sprite objects.
+     */
+    private List<GameWorld.Obstacle> mObstacles;
+    /**
+     * The same obstacles as parallel arrays.
+     */
+    private SpriteArrays mObstacleArrays;
+
+    /**
+     * Creates {@code count} obstacles with random positions, sizes and velocities, and stores the
+     * same values both as {@code GameWorld.Obstacle} objects and in a {@code SpriteArrays}.
+     */
+    @Setup
+    public void setUp() {
+        GameWorld world = new GameWorld(13.125f, 0);
+        world.setSize(WIDTH, HEIGHT);
+        mObstacles = new ArrayList<>(count);
+        mObstacleArrays = new SpriteArrays(count, 0.25f, false);
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            float x = random.nextFloat() * WIDTH;
+            float y = random.nextFloat() * HEIGHT;
+            float vx = (random.nextFloat() - 0.5f) * 400;
+            float vy = (random.nextFloat() - 0.5f) * 400;
+            float size = 26 + random.nextFloat() * 130;
+
+            GameWorld.Obstacle obstacle = world.new Obstacle();
+            obstacle.setPosition(x, y);
+            obstacle.setVelocity(vx, vy);
+            obstacle.setSize(size);
+            mObstacles.add(obstacle);
+
+            mObstacleArrays.add(x, y, vx, vy, size);
+        }
+    }
+
+    /**
+     * Steps every obstacle object through its virtual {@code step} method.
+     *
+     * @return number of obstacles still alive, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public int stepObjects() {
+        final List<GameWorld.Obstacle> obstacles = mObstacles;
+        int alive = 0;
+        for (int i = 0, n = obstacles.size(); i < n; i++) {
+            if (obstacles.get(i).step(GameWorld.FIXED_TIME_STEP)) {
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    /**
+     * Steps every obstacle using the integrate and cull loops of {@code SpriteArrays}.
+     *
+     * @return number of obstacles still alive, so the work cannot be eliminated.
+     */
+    @Benchmark
+    public int stepArrays() {
+        mObstacleArrays.step(GameWorld.FIXED_TIME_STEP, WIDTH, HEIGHT);
+        return mObstacleArrays.size();
+    }
+}
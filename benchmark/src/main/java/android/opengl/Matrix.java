@@ -0,0 +1,322 @@
+/*
+ * Copyright (C) 2007 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.opengl;
+
+/**
+ * Desktop JVM port of the parts of the framework {@code android.opengl.Matrix} used by the app
+ * sources compiled into the benchmark module. The android.jar on the classpath only contains stubs
+ * which throw "Stub!", and on a device {@code multiplyMM} and {@code multiplyMV} are native, so this
+ * class does the same arithmetic in plain Java. It is compiled into the benchmark module itself so
+ * it shadows the stub class.
+ * <p>
+ * A benchmark which calls into this class therefore times this port running on the desktop JIT,
+ * not the code a device runs. The native {@code multiplyMM} and {@code multiplyMV} in particular
+ * may be much faster or slower than these loops, and on a device they also pay for a JNI call. Such
+ * numbers are only good for comparing two versions of the app code around the same calls, never
+ * for the cost of the calls themselves.
+ * <p>
+ * Matrices are 4x4 column-major {@code float[]} arrays, exactly like the framework class.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class Matrix {
+
+    /**
+     * Multiplies two 4x4 matrices together and stores the result in a third 4x4 matrix, so that
+     * result = lhs x rhs. The result must not overlap either input.
+     *
+     * @param result       the float array that holds the result.
+     * @param resultOffset the offset into the result array where the result is stored.
+     * @param lhs          the float array that holds the left-hand-side matrix.
+     * @param lhsOffset    the offset into the lhs array where the lhs is stored
+     * @param rhs          the float array that holds the right-hand-side matrix.
+     * @param rhsOffset    the offset into the rhs array where the rhs is stored.
+     */
+    public static void multiplyMM(float[] result, int resultOffset,
+                                  float[] lhs, int lhsOffset, float[] rhs, int rhsOffset) {
+        for (int i = 0; i < 4; i++) {
+            final float rhs0 = rhs[rhsOffset + 4 * i];
+            final float rhs1 = rhs[rhsOffset + 4 * i + 1];
+            final float rhs2 = rhs[rhsOffset + 4 * i + 2];
+            final float rhs3 = rhs[rhsOffset + 4 * i + 3];
+            for (int j = 0; j < 4; j++) {
+                result[resultOffset + 4 * i + j] = lhs[lhsOffset + j] * rhs0
+                        + lhs[lhsOffset + 4 + j] * rhs1
+                        + lhs[lhsOffset + 8 + j] * rhs2
+                        + lhs[lhsOffset + 12 + j] * rhs3;
+            }
+        }
+    }
+
+    /**
+     * Multiplies a 4 element vector by a 4x4 matrix and stores the result in a 4 element vector, so
+     * that resultVec = lhsMat x rhsVec. The result must not overlap either input.
+     *
+     * @param resultVec       the float array that holds the result vector.
+     * @param resultVecOffset the offset into the result array where the result vector is stored.
+     * @param lhsMat          the float array that holds the left-hand-side matrix.
+     * @param lhsMatOffset    the offset into the lhs array where the lhs is stored
+     * @param rhsVec          the float array that holds the right-hand-side vector.
+     * @param rhsVecOffset    the offset into the rhs vector where the rhs vector is stored.
+     */
+    public static void multiplyMV(float[] resultVec, int resultVecOffset,
+                                  float[] lhsMat, int lhsMatOffset, float[] rhsVec, int rhsVecOffset) {
+        final float x = rhsVec[rhsVecOffset];
+        final float y = rhsVec[rhsVecOffset + 1];
+        final float z = rhsVec[rhsVecOffset + 2];
+        final float w = rhsVec[rhsVecOffset + 3];
+        for (int i = 0; i < 4; i++) {
+            resultVec[resultVecOffset + i] = lhsMat[lhsMatOffset + i] * x
+                    + lhsMat[lhsMatOffset + 4 + i] * y
+                    + lhsMat[lhsMatOffset + 8 + i] * z
+                    + lhsMat[lhsMatOffset + 12 + i] * w;
+        }
+    }
+
+    /**
+     * Computes an orthographic projection matrix.
+     *
+     * @param m       returns the result
+     * @param mOffset index into m where the result matrix starts
+     * @param left    left clipping plane
+     * @param right   right clipping plane
+     * @param bottom  bottom clipping plane
+     * @param top     top clipping plane
+     * @param near    near clipping plane
+     * @param far     far clipping plane
+     */
+    public static void orthoM(float[] m, int mOffset,
+                              float left, float right, float bottom, float top, float near, float far) {
+        if (left == right) {
+            throw new IllegalArgumentException("left == right");
+        }
+        if (bottom == top) {
+            throw new IllegalArgumentException("bottom == top");
+        }
+        if (near == far) {
+            throw new IllegalArgumentException("near == far");
+        }
+
+        final float r_width = 1.0f / (right - left);
+        final float r_height = 1.0f / (top - bottom);
+        final float r_depth = 1.0f / (far - near);
+        final float x = 2.0f * (r_width);
+        final float y = 2.0f * (r_height);
+        final float z = -2.0f * (r_depth);
+        final float tx = -(right + left) * r_width;
+        final float ty = -(top + bottom) * r_height;
+        final float tz = -(far + near) * r_depth;
+        m[mOffset] = x;
+        m[mOffset + 5] = y;
+        m[mOffset + 10] = z;
+        m[mOffset + 12] = tx;
+        m[mOffset + 13] = ty;
+        m[mOffset + 14] = tz;
+        m[mOffset + 15] = 1.0f;
+        m[mOffset + 1] = 0.0f;
+        m[mOffset + 2] = 0.0f;
+        m[mOffset + 3] = 0.0f;
+        m[mOffset + 4] = 0.0f;
+        m[mOffset + 6] = 0.0f;
+        m[mOffset + 7] = 0.0f;
+        m[mOffset + 8] = 0.0f;
+        m[mOffset + 9] = 0.0f;
+        m[mOffset + 11] = 0.0f;
+    }
+
+    /**
+     * Defines a projection matrix in terms of six clip planes.
+     *
+     * @param m       the float array that holds the output perspective matrix
+     * @param offset  the offset into float array m where the perspective matrix data is written
+     * @param left    left clipping plane
+     * @param right   right clipping plane
+     * @param bottom  bottom clipping plane
+     * @param top     top clipping plane
+     * @param near    near clipping plane
+     * @param far     far clipping plane
+     */
+    public static void frustumM(float[] m, int offset,
+                                float left, float right, float bottom, float top, float near, float far) {
+        if (left == right) {
+            throw new IllegalArgumentException("left == right");
+        }
+        if (top == bottom) {
+            throw new IllegalArgumentException("top == bottom");
+        }
+        if (near == far) {
+            throw new IllegalArgumentException("near == far");
+        }
+        if (near <= 0.0f) {
+            throw new IllegalArgumentException("near <= 0.0f");
+        }
+        if (far <= 0.0f) {
+            throw new IllegalArgumentException("far <= 0.0f");
+        }
+        final float r_width = 1.0f / (right - left);
+        final float r_height = 1.0f / (top - bottom);
+        final float r_depth = 1.0f / (near - far);
+        final float x = 2.0f * (near * r_width);
+        final float y = 2.0f * (near * r_height);
+        final float A = (right + left) * r_width;
+        final float B = (top + bottom) * r_height;
+        final float C = (far + near) * r_depth;
+        final float D = 2.0f * (far * near * r_depth);
+        m[offset] = x;
+        m[offset + 5] = y;
+        m[offset + 8] = A;
+        m[offset + 9] = B;
+        m[offset + 10] = C;
+        m[offset + 14] = D;
+        m[offset + 11] = -1.0f;
+        m[offset + 1] = 0.0f;
+        m[offset + 2] = 0.0f;
+        m[offset + 3] = 0.0f;
+        m[offset + 4] = 0.0f;
+        m[offset + 6] = 0.0f;
+        m[offset + 7] = 0.0f;
+        m[offset + 12] = 0.0f;
+        m[offset + 13] = 0.0f;
+        m[offset + 15] = 0.0f;
+    }
+
+    /**
+     * Sets matrix m to the identity matrix.
+     *
+     * @param sm       returns the result
+     * @param smOffset index into sm where the result matrix starts
+     */
+    public static void setIdentityM(float[] sm, int smOffset) {
+        for (int i = 0; i < 16; i++) {
+            sm[smOffset + i] = 0;
+        }
+        for (int i = 0; i < 16; i += 5) {
+            sm[smOffset + i] = 1.0f;
+        }
+    }
+
+    /**
+     * Scales matrix m in place by sx, sy, and sz.
+     *
+     * @param m       matrix to scale
+     * @param mOffset index into m where the matrix starts
+     * @param x       scale factor x
+     * @param y       scale factor y
+     * @param z       scale factor z
+     */
+    public static void scaleM(float[] m, int mOffset, float x, float y, float z) {
+        for (int i = 0; i < 4; i++) {
+            int mi = mOffset + i;
+            m[mi] *= x;
+            m[4 + mi] *= y;
+            m[8 + mi] *= z;
+        }
+    }
+
+    /**
+     * Translates matrix m by x, y, and z in place.
+     *
+     * @param m       matrix
+     * @param mOffset index into m where the matrix starts
+     * @param x       translation factor x
+     * @param y       translation factor y
+     * @param z       translation factor z
+     */
+    public static void translateM(float[] m, int mOffset, float x, float y, float z) {
+        for (int i = 0; i < 4; i++) {
+            int mi = mOffset + i;
+            m[12 + mi] += m[mi] * x + m[4 + mi] * y + m[8 + mi] * z;
+        }
+    }
+
+    /**
+     * Creates a matrix for rotation by angle a (in degrees) around the axis (x, y, z).
+     *
+     * @param rm       returns the result
+     * @param rmOffset index into rm where the result matrix starts
+     * @param a        angle to rotate in degrees
+     * @param x        X axis component
+     * @param y        Y axis component
+     * @param z        Z axis component
+     */
+    public static void setRotateM(float[] rm, int rmOffset, float a, float x, float y, float z) {
+        rm[rmOffset + 3] = 0;
+        rm[rmOffset + 7] = 0;
+        rm[rmOffset + 11] = 0;
+        rm[rmOffset + 12] = 0;
+        rm[rmOffset + 13] = 0;
+        rm[rmOffset + 14] = 0;
+        rm[rmOffset + 15] = 1;
+        a *= (float) (Math.PI / 180.0f);
+        float s = (float) Math.sin(a);
+        float c = (float) Math.cos(a);
+        if (1.0f == x && 0.0f == y && 0.0f == z) {
+            rm[rmOffset + 5] = c;
+            rm[rmOffset + 10] = c;
+            rm[rmOffset + 6] = s;
+            rm[rmOffset + 9] = -s;
+            rm[rmOffset + 1] = 0;
+            rm[rmOffset + 2] = 0;
+            rm[rmOffset + 4] = 0;
+            rm[rmOffset + 8] = 0;
+            rm[rmOffset] = 1;
+        } else if (0.0f == x && 1.0f == y && 0.0f == z) {
+            rm[rmOffset] = c;
+            rm[rmOffset + 10] = c;
+            rm[rmOffset + 8] = s;
+            rm[rmOffset + 2] = -s;
+            rm[rmOffset + 1] = 0;
+            rm[rmOffset + 4] = 0;
+            rm[rmOffset + 6] = 0;
+            rm[rmOffset + 9] = 0;
+            rm[rmOffset + 5] = 1;
+        } else if (0.0f == x && 0.0f == y && 1.0f == z) {
+            rm[rmOffset] = c;
+            rm[rmOffset + 5] = c;
+            rm[rmOffset + 1] = s;
+            rm[rmOffset + 4] = -s;
+            rm[rmOffset + 2] = 0;
+            rm[rmOffset + 6] = 0;
+            rm[rmOffset + 8] = 0;
+            rm[rmOffset + 9] = 0;
+            rm[rmOffset + 10] = 1;
+        } else {
+            float len = (float) Math.sqrt(x * x + y * y + z * z);
+            if (1.0f != len) {
+                float recipLen = 1.0f / len;
+                x *= recipLen;
+                y *= recipLen;
+                z *= recipLen;
+            }
+            float nc = 1.0f - c;
+            float xy = x * y;
+            float yz = y * z;
+            float zx = z * x;
+            float xs = x * s;
+            float ys = y * s;
+            float zs = z * s;
+            rm[rmOffset] = x * x * nc + c;
+            rm[rmOffset + 4] = xy * nc - zs;
+            rm[rmOffset + 8] = zx * nc + ys;
+            rm[rmOffset + 1] = xy * nc + zs;
+            rm[rmOffset + 5] = y * y * nc + c;
+            rm[rmOffset + 9] = yz * nc - xs;
+            rm[rmOffset + 2] = zx * nc - ys;
+            rm[rmOffset + 6] = yz * nc + xs;
+            rm[rmOffset + 10] = z * z * nc + c;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.graphics.kube;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that {@code GLShape.addVertex} shares the vertices of equal coordinates, and that
+ * {@code GLWorld.generate} builds the index buffer of a grid of faces which share their vertices,
+ * including grids with more vertices than a signed {@code short} can index. The timing of the same
+ * build is measured by {@code GLWorldBuildBenchmark}.
+ */
+public class GLWorldTest {
+
+    /**
+     * A vertex is only created once for the same coordinates, and 0.0f and -0.0f count as the same.
+     */
+    @Test
+    public void addVertexReturnsExistingVertex() {
+        GLWorld world = new GLWorld();
+        GLShape shape = new GLShape(world);
+        GLVertex a = shape.addVertex(1.0f, 2.0f, 3.0f);
+        GLVertex b = shape.addVertex(1.0f, 2.0f, 3.0f);
+        GLVertex c = shape.addVertex(1.0f, 2.0f, -3.0f);
+        GLVertex zero = shape.addVertex(0.0f, 0.0f, 0.0f);
+        GLVertex negativeZero = shape.addVertex(-0.0f, -0.0f, -0.0f);
+        assertSame("duplicate coordinates", a, b);
+        assertNotSame("different coordinates", a, c);
+        assertSame("signed zero", zero, negativeZero);
+        assertEquals("vertices in the world", 3, world.getVertexCount());
+        // Enough distinct vertices to rehash the table several times, each still found again.
+        GLVertex[] grid = new GLVertex[1000];
+        for (int i = 0; i < grid.length; i++) {
+            grid[i] = shape.addVertex(i % 10, i / 10, 7.0f);
+        }
+        for (int i = 0; i < grid.length; i++) {
+            assertSame("vertex " + i, grid[i], shape.addVertex(i % 10, i / 10, 7.0f));
+        }
+        assertEquals("vertices in the world", 1003, world.getVertexCount());
+    }
+
+    /**
+     * Small grids have (n + 1)^2 vertices and two triangles, six indices, per face.
+     */
+    @Test
+    public void generateGridCounts() {
+        for (int n = 1; n <= 16; n *= 2) {
+            checkGrid(n);
+        }
+    }
+
+    /**
+     * A grid of 200 by 200 faces has 40401 vertices, past the 32767 a signed {@code short} holds,
+     * and a grid of 255 by 255 faces has exactly MAX_VERTICES, so the last index is 65535. Both
+     * still generate, with every index read back unsigned.
+     */
+    @Test
+    public void generateGridPastSignedShortIndices() {
+        checkGrid(200);
+        GLWorld world = checkGrid(255);
+        assertEquals("vertices in the world", GLWorld.MAX_VERTICES, world.getVertexCount());
+    }
+
+    /**
+     * One vertex more than MAX_VERTICES cannot be indexed, so adding it throws.
+     */
+    @Test
+    public void addVertexPastShortIndicesThrows() {
+        GLWorld world = new GLWorld();
+        for (int i = 0; i < GLWorld.MAX_VERTICES; i++) {
+            world.addVertex(i, 0.0f, 0.0f);
+        }
+        try {
+            world.addVertex(-1.0f, 0.0f, 0.0f);
+            fail("vertex " + GLWorld.MAX_VERTICES + " was added");
+        } catch (IllegalArgumentException e) {
+            assertEquals("vertices in the world", GLWorld.MAX_VERTICES, world.getVertexCount());
+        }
+    }
+
+    /**
+     * Builds a grid of {@code n} by {@code n} quadrilateral faces whose neighbours share vertices,
+     * generates the world, and checks the vertex and index counts and that the two triangles of
+     * every face index the vertices at its corners.
+     *
+     * @param n number of faces along each side of the grid.
+     * @return the generated world.
+     */
+    private static GLWorld checkGrid(int n) {
+        GLWorld world = new GLWorld();
+        GLShape shape = new GLShape(world);
+        for (int row = 0; row < n; row++) {
+            for (int column = 0; column < n; column++) {
+                shape.addFace(new GLFace(
+                        shape.addVertex(column, row, 0.0f),
+                        shape.addVertex(column, row + 1, 0.0f),
+                        shape.addVertex(column + 1, row + 1, 0.0f),
+                        shape.addVertex(column + 1, row, 0.0f)));
+            }
+        }
+        world.addShape(shape);
+        world.generate();
+
+        String grid = n + " by " + n + " grid";
+        assertEquals(grid + " vertices", (n + 1) * (n + 1), world.getVertexCount());
+        assertEquals(grid + " indices", n * n * 6, world.getIndexCount());
+        int position = 0;
+        for (int row = 0; row < n; row++) {
+            for (int column = 0; column < n; column++) {
+                int bottomLeft = index(shape, column, row);
+                int topLeft = index(shape, column, row + 1);
+                int topRight = index(shape, column + 1, row + 1);
+                int bottomRight = index(shape, column + 1, row);
+                String face = grid + " face " + column + "," + row;
+                assertEquals(face, bottomLeft, world.getIndex(position++));
+                assertEquals(face, topLeft, world.getIndex(position++));
+                assertEquals(face, bottomRight, world.getIndex(position++));
+                assertEquals(face, topLeft, world.getIndex(position++));
+                assertEquals(face, topRight, world.getIndex(position++));
+                assertEquals(face, bottomRight, world.getIndex(position++));
+            }
+        }
+        return world;
+    }
+
+    /**
+     * Returns the unsigned index in the world of the vertex of {@code shape} at a grid corner.
+     *
+     * @param shape  the grid shape.
+     * @param column column of the corner.
+     * @param row    row of the corner.
+     * @return index of the existing vertex at that corner.
+     */
+    private static int index(GLShape shape, int column, int row) {
+        return shape.addVertex(column, row, 0.0f).index & 0xffff;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2011 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.view;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that once the bullet and obstacle pools have grown to their steady state size a frame of
+ * the game, firing, moving, colliding, culling and respawning, allocates nothing. The bytes
+ * allocated by the test thread are read with {@code com.sun.management.ThreadMXBean}, which the
+ * HotSpot and OpenJDK virtual machines provide.
+ */
+public class GameWorldAllocationTest {
+    /**
+     * Base size of the game, what a 2.625 density display gives {@code GameView}.
+     */
+    private static final float BASE_SIZE = 13.125f;
+    /**
+     * Number of steps run to grow the pools and let the JIT compile the step loop.
+     */
+    private static final int WARM_UP_STEPS = 30000;
+    /**
+     * Number of steps whose allocations are measured.
+     */
+    private static final int MEASURED_STEPS = 10000;
+
+    /**
+     * Measures the {@code Sprite} object storage.
+     */
+    @Test
+    public void spriteObjectsDoNotAllocate() {
+        assertNoAllocation(false);
+    }
+
+    /**
+     * Measures the structure of arrays storage.
+     */
+    @Test
+    public void spriteArraysDoNotAllocate() {
+        assertNoAllocation(true);
+    }
+
+    /**
+     * Plays a game firing every fourth step until warmed up, then asserts that the next
+     * {@code MEASURED_STEPS} steps allocate nothing. The ship is steered with a recorded trace so it
+     * flies into obstacles and is destroyed and reset during both phases.
+     *
+     * @param useSpriteArrays true to use the structure of arrays storage.
+     */
+    private static void assertNoAllocation(boolean useSpriteArrays) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue("thread allocation measurement is not supported",
+                threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        GameWorld world = new GameWorld(BASE_SIZE, 42);
+        world.setSize(1080, 1920);
+        world.setSpriteArraysEnabled(useSpriteArrays);
+        float[] headings = new float[64];
+        Random trace = new Random(7);
+        for (int i = 0; i < headings.length; i++) {
+            headings[i] = trace.nextFloat() * 2 - 1;
+        }
+        play(world, headings, 0, WARM_UP_STEPS);
+
+        // Reading the counter may itself allocate, so measure that on its own and take it off.
+        long overhead = threads.getThreadAllocatedBytes(thread);
+        overhead = threads.getThreadAllocatedBytes(thread) - overhead;
+        long before = threads.getThreadAllocatedBytes(thread);
+        play(world, headings, WARM_UP_STEPS, MEASURED_STEPS);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+        assertEquals("bytes allocated in " + MEASURED_STEPS + " steps", 0, allocated);
+    }
+
+    /**
+     * Runs {@code count} steps of {@code world}, changing the heading of the ship every half second
+     * from {@code headings} and firing every fourth step.
+     *
+     * @param world    the world to step.
+     * @param headings heading components to cycle through.
+     * @param first    number of the first step, so that the trace continues where it left off.
+     * @param count    number of steps to run.
+     */
+    private static void play(GameWorld world, float[] headings, int first, int count) {
+        for (int step = first; step < first + count; step++) {
+            if (step % 30 == 0) {
+                int i = (step / 30) % (headings.length / 2);
+                world.setHeading(headings[i * 2], headings[i * 2 + 1]);
+            }
+            if (step % 4 == 0) {
+                world.fire();
+            }
+            world.step(GameWorld.FIXED_TIME_STEP);
+        }
+    }
+}
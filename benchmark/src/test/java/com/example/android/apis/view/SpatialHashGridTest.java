@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2011 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.apis.view;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the {@code SpatialHashGrid} broadphase never changes the outcome of a game. Recorded
+ * input traces (a heading and a fire button per step, generated from a seed so that they replay
+ * exactly) are fed to two {@code GameWorld} instances with the same seed, one using the grid and one
+ * checking every pair of sprites by brute force, and the two must agree on every sprite after every
+ * step. The grid itself is also checked directly against a brute force overlap test, including
+ * objects and queries too large to be bucketed.
+ */
+public class SpatialHashGridTest {
+    /**
+     * Base size of the game, what a 2.625 density display gives {@code GameView}.
+     */
+    private static final float BASE_SIZE = 13.125f;
+    /**
+     * Width of the playfield in pixels.
+     */
+    private static final int WIDTH = 1080;
+    /**
+     * Height of the playfield in pixels.
+     */
+    private static final int HEIGHT = 1920;
+    /**
+     * Number of steps in each trace, a minute of play.
+     */
+    private static final int STEPS = 3600;
+
+    /**
+     * Replays traces of normal play with the default number of obstacles.
+     */
+    @Test
+    public void hashedMatchesBruteForce() {
+        for (long seed = 1; seed <= 4; seed++) {
+            replay(seed, GameWorld.DEFAULT_MAX_OBSTACLES, false);
+        }
+    }
+
+    /**
+     * Replays traces of a crowded playfield, where most cells hold several obstacles.
+     */
+    @Test
+    public void hashedMatchesBruteForceCrowded() {
+        for (long seed = 1; seed <= 4; seed++) {
+            replay(seed, 300, false);
+        }
+    }
+
+    /**
+     * Replays the same traces with the structure of arrays storage, which has its own collision loop.
+     */
+    @Test
+    public void hashedMatchesBruteForceSpriteArrays() {
+        for (long seed = 1; seed <= 4; seed++) {
+            replay(seed, GameWorld.DEFAULT_MAX_OBSTACLES, true);
+            replay(seed, 300, true);
+        }
+    }
+
+    /**
+     * Inserts random circles, some of them wider than the grid can bucket, and checks that every
+     * query reports each circle whose box overlaps the query box, in ascending order and only once.
+     */
+    @Test
+    public void queryFindsEveryOverlap() {
+        final float cellSize = 32;
+        final int count = 200;
+        SpatialHashGrid grid = new SpatialHashGrid(cellSize);
+        Random random = new Random(7);
+        float[] x = new float[count];
+        float[] y = new float[count];
+        float[] radius = new float[count];
+        for (int round = 0; round < 50; round++) {
+            grid.clear();
+            for (int i = 0; i < count; i++) {
+                x[i] = random.nextFloat() * 4000 - 2000;
+                y[i] = random.nextFloat() * 4000 - 2000;
+                // One object in ten spans more than the 16 cells a bucketed object may.
+                radius[i] = random.nextInt(10) == 0
+                        ? cellSize * (8 + random.nextFloat() * 40)
+                        : random.nextFloat() * cellSize * 2;
+                grid.insert(i, x[i], y[i], radius[i]);
+            }
+            for (int q = 0; q < 200; q++) {
+                float qx = random.nextFloat() * 4000 - 2000;
+                float qy = random.nextFloat() * 4000 - 2000;
+                float qr = random.nextInt(20) == 0
+                        ? cellSize * (8 + random.nextFloat() * 40)
+                        : random.nextFloat() * cellSize;
+                int found = grid.query(qx, qy, qr);
+                for (int k = 1; k < found; k++) {
+                    assertTrue("results not ascending", grid.getResult(k - 1) < grid.getResult(k));
+                }
+                for (int i = 0; i < count; i++) {
+                    boolean overlaps = Math.abs(x[i] - qx) <= radius[i] + qr
+                            && Math.abs(y[i] - qy) <= radius[i] + qr;
+                    if (overlaps) {
+                        assertTrue("missed object " + i + " in round " + round,
+                                contains(grid, found, i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Plays {@code STEPS} steps of the trace generated from {@code seed} in two worlds which differ
+     * only in their broadphase, and asserts after every step that they are in the same state.
+     *
+     * @param seed            seed of both the worlds and the trace.
+     * @param maxObstacles    number of obstacles the worlds keep spawned.
+     * @param useSpriteArrays true to use the structure of arrays storage in both worlds.
+     */
+    private static void replay(long seed, int maxObstacles, boolean useSpriteArrays) {
+        GameWorld hashed = newWorld(seed, maxObstacles, useSpriteArrays, true);
+        GameWorld bruteForce = newWorld(seed, maxObstacles, useSpriteArrays, false);
+        Random trace = new Random(seed * 31 + 17);
+        for (int step = 0; step < STEPS; step++) {
+            if (step % 30 == 0) {
+                float headingX = trace.nextFloat() * 2 - 1;
+                float headingY = trace.nextFloat() * 2 - 1;
+                hashed.setHeading(headingX, headingY);
+                bruteForce.setHeading(headingX, headingY);
+            }
+            if (trace.nextInt(4) == 0) {
+                hashed.fire();
+                bruteForce.fire();
+            }
+            hashed.step(GameWorld.FIXED_TIME_STEP);
+            bruteForce.step(GameWorld.FIXED_TIME_STEP);
+            String where = "seed " + seed + " step " + step;
+            if (useSpriteArrays) {
+                assertSameArrays(where + " bullets", hashed.getBulletArrays(),
+                        bruteForce.getBulletArrays());
+                assertSameArrays(where + " obstacles", hashed.getObstacleArrays(),
+                        bruteForce.getObstacleArrays());
+            } else {
+                assertEquals(where, hashed.getBulletCount(), bruteForce.getBulletCount());
+                for (int i = 0; i < hashed.getBulletCount(); i++) {
+                    assertSameSprite(where + " bullet " + i, hashed.getBullet(i),
+                            bruteForce.getBullet(i));
+                }
+                assertEquals(where, hashed.getObstacleCount(), bruteForce.getObstacleCount());
+                for (int i = 0; i < hashed.getObstacleCount(); i++) {
+                    assertSameSprite(where + " obstacle " + i, hashed.getObstacle(i),
+                            bruteForce.getObstacle(i));
+                }
+            }
+            assertSameSprite(where + " ship", hashed.getShip(), bruteForce.getShip());
+        }
+    }
+
+    /**
+     * Creates a world on a {@code WIDTH} by {@code HEIGHT} playfield.
+     *
+     * @param seed            seed of the world.
+     * @param maxObstacles    number of obstacles to keep spawned.
+     * @param useSpriteArrays true to use the structure of arrays storage.
+     * @param useSpatialHash  true to use the spatial hash broadphase.
+     * @return the new world.
+     */
+    private static GameWorld newWorld(long seed, int maxObstacles, boolean useSpriteArrays,
+                                      boolean useSpatialHash) {
+        GameWorld world = new GameWorld(BASE_SIZE, seed);
+        world.setSize(WIDTH, HEIGHT);
+        world.setMaxObstacles(maxObstacles);
+        world.setSpriteArraysEnabled(useSpriteArrays);
+        world.setSpatialHashEnabled(useSpatialHash);
+        return world;
+    }
+
+    /**
+     * Asserts that two sprites are at the same place and equally destroyed.
+     *
+     * @param where    description of the sprites for the failure message.
+     * @param expected sprite of the world using the spatial hash.
+     * @param actual   sprite of the world using brute force.
+     */
+    private static void assertSameSprite(String where, GameWorld.Sprite expected,
+                                         GameWorld.Sprite actual) {
+        assertEquals(where, expected.isDestroyed(), actual.isDestroyed());
+        assertEquals(where, expected.getX(1), actual.getX(1), 0);
+        assertEquals(where, expected.getY(1), actual.getY(1), 0);
+        assertEquals(where, expected.getDestroyAnimProgress(), actual.getDestroyAnimProgress(), 0);
+    }
+
+    /**
+     * Asserts that two {@code SpriteArrays} hold the same sprites at the same places, equally
+     * destroyed.
+     *
+     * @param where    description of the arrays for the failure message.
+     * @param expected arrays of the world using the spatial hash.
+     * @param actual   arrays of the world using brute force.
+     */
+    private static void assertSameArrays(String where, SpriteArrays expected, SpriteArrays actual) {
+        assertEquals(where, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(where + " " + i, expected.isDestroyed(i), actual.isDestroyed(i));
+            assertEquals(where + " " + i, expected.mX[i], actual.mX[i], 0);
+            assertEquals(where + " " + i, expected.mY[i], actual.mY[i], 0);
+        }
+    }
+
+    /**
+     * Returns true if the first {@code count} results of the last query of {@code grid} include
+     * {@code id}.
+     *
+     * @param grid  grid which was queried.
+     * @param count number of results of the query.
+     * @param id    id to look for.
+     * @return true if {@code id} was reported.
+     */
+    private static boolean contains(SpatialHashGrid grid, int count, int id) {
+        for (int k = 0; k < count; k++) {
+            if (grid.getResult(k) == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+}